@@ -88,6 +88,22 @@ public interface BusinessComponent {
      */
 	public DataRow write(DataRow row) throws Exception;
 
+	/**
+     * Write/persist several DataRows.<br>
+     * The default implementation calls {@link #write(DataRow)} for each row.
+     * @param  rows the DataRows to write.
+     * @return a ResultSet with the updated DataRows, in the order of the given rows.
+     * @throws Exception when writing failed.
+     * @see    #write(DataRow row)
+     */
+	public default ResultSet writeAll(Collection<DataRow> rows) throws Exception {
+		ResultSet ret = new ResultSet();
+		for (DataRow row : rows) {
+			ret.add(write(row));
+		}
+		return ret;
+	}
+
 	/**
      * Validates a DataRow object before it can be removed.<br>
      * This method is internally used by the remove method.<br>
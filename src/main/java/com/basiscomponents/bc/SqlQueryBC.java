@@ -4,16 +4,21 @@ import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
 import java.util.List;
+import java.util.function.Consumer;
 
 import com.basiscomponents.bc.util.CloseableWrapper;
 import com.basiscomponents.bc.util.SqlConnectionHelper;
+import com.basiscomponents.bc.util.SqlConnectionPool;
 import com.basiscomponents.configuration.TracingConfiguration;
+import com.basiscomponents.db.DataRow;
 import com.basiscomponents.db.ResultSet;
 
 public class SqlQueryBC {
 
 	private final SqlConnectionHelper connectionHelper;
 
+	private int fetchSize = 0;
+
 	/**
 	 * default Constructor only with url
 	 * 
@@ -59,6 +64,8 @@ public class SqlQueryBC {
 		try (CloseableWrapper<Connection> connw = getConnection()) {
 			connection = connw.getCloseable();
 			try (PreparedStatement prep = connection.prepareStatement(sql)) {
+				if (fetchSize > 0)
+					prep.setFetchSize(fetchSize);
 
 				// Set params if there are any
 				if (params != null) {
@@ -80,6 +87,110 @@ public class SqlQueryBC {
 		return brs;
 	}
 
+	/**
+	 * Executes the query and passes the records one by one to the given consumer,
+	 * instead of collecting them in a {@link ResultSet}.
+	 * <p>
+	 * The connection and the JDBC result set stay open until the last record was
+	 * passed to the consumer, so the memory usage doesn't grow with the number of
+	 * records (depending on the JDBC driver, see {@link #setFetchSize(int)}). The
+	 * column attributes (EDITABLE, StringFormat) are shared by all records, see
+	 * {@link DataRow#getColumnAttribute(String, String)}.
+	 * 
+	 * @param sql      the query statement
+	 * @param params   values for the parameters of the statement, can be
+	 *                 {@code null}
+	 * @param consumer receives the records in the order they are read
+	 * @throws SQLException if the query fails or the records cannot be read, a
+	 *                      RuntimeException thrown by the consumer is not wrapped
+	 */
+	public void retrieve(String sql, List<Object> params, Consumer<DataRow> consumer) throws SQLException {
+		try (CloseableWrapper<Connection> connw = getConnection();
+				PreparedStatement prep = connw.getCloseable().prepareStatement(sql)) {
+			if (fetchSize > 0)
+				prep.setFetchSize(fetchSize);
+
+			// Set params if there are any
+			if (params != null) {
+				int i = 1;
+				for (Object p : params) {
+					prep.setObject(i, p);
+					i++;
+				}
+			}
+
+			traceSqlStatement(SqlQueryBcLogger.Method.RETRIEVE, prep.toString());
+
+			try (java.sql.ResultSet rs = prep.executeQuery()) {
+				new ResultSet().populate(rs, true, consumer);
+			}
+		} catch (SQLException | RuntimeException e) {
+			// the consumer's exceptions are passed on as they are
+			throw e;
+		} catch (Exception e) {
+			throw new SQLException(e);
+		}
+	}
+
+	/**
+	 * Sets the number of rows the JDBC driver should fetch from the database at
+	 * once. This is mainly useful together with
+	 * {@link #retrieve(String, List, Consumer)} to keep the memory usage low.
+	 * 
+	 * @param fetchSize the number of rows, 0 to use the driver's default
+	 */
+	public void setFetchSize(int fetchSize) {
+		if (fetchSize < 0)
+			throw new IllegalArgumentException("Fetch size must not be negative");
+		this.fetchSize = fetchSize;
+	}
+
+	/**
+	 * Returns the fetch size passed to the JDBC driver, 0 if the driver's default
+	 * is used.
+	 * 
+	 * @return the fetch size
+	 */
+	public int getFetchSize() {
+		return fetchSize;
+	}
+
+	/**
+	 * Enables or disables borrowing connections from a shared
+	 * {@link SqlConnectionPool} instead of opening a new connection for every
+	 * statement. The pool is shared by all components using the same URL and
+	 * user.
+	 * 
+	 * @param enabled true to use the connection pool
+	 * @throws IllegalStateException if the component was created with a
+	 *                               {@link Connection}
+	 */
+	public void setConnectionPooling(boolean enabled) {
+		connectionHelper.setConnectionPooling(enabled);
+	}
+
+	/**
+	 * Borrows the connections from the given pool instead of the shared one. The
+	 * settings of the shared pool can't be changed, a component which needs other
+	 * settings creates its own {@link SqlConnectionPool}.
+	 * 
+	 * @param pool the connection pool, {@code null} to disable pooling
+	 * @throws IllegalStateException if the component was created with a
+	 *                               {@link Connection}
+	 */
+	public void setConnectionPool(SqlConnectionPool pool) {
+		connectionHelper.setConnectionPool(pool);
+	}
+
+	/**
+	 * Returns the connection pool, to read its metrics.
+	 * 
+	 * @return the connection pool, {@code null} if pooling is disabled
+	 */
+	public SqlConnectionPool getConnectionPool() {
+		return connectionHelper.getConnectionPool();
+	}
+
 	public Boolean execute(String sql) throws SQLException {
 		return execute(sql, null);
 	}
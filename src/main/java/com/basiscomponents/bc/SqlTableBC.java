@@ -4,12 +4,17 @@ import com.basiscomponents.bc.config.DatabaseConfiguration;
 import com.basiscomponents.bc.util.CloseableWrapper;
 import com.basiscomponents.bc.util.DataRowWriter;
 import com.basiscomponents.bc.util.SqlConnectionHelper;
+import com.basiscomponents.bc.util.SqlConnectionPool;
+import com.basiscomponents.bc.util.TableMetaDataCache;
+import com.basiscomponents.bc.util.TableMetaDataCache.TableMetaData;
 import com.basiscomponents.db.DataField;
 import com.basiscomponents.db.DataRow;
 import com.basiscomponents.db.ResultSet;
 import com.basiscomponents.db.util.DataRowRegexMatcher;
 import com.basiscomponents.util.KeyValuePair;
 
+import java.math.BigDecimal;
+import java.math.BigInteger;
 import java.sql.Connection;
 import java.sql.DatabaseMetaData;
 import java.sql.PreparedStatement;
@@ -23,6 +28,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Optional;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 import static com.basiscomponents.bc.util.Constants.*;
@@ -69,6 +75,14 @@ public class SqlTableBC implements BusinessComponent {
 
 	private Map<String, DataField> regexes;
 
+	private int fetchSize = 0;
+
+	/**
+	 * Maximum number of primary key parameters in one statement when written rows
+	 * are read again.
+	 */
+	private static final int RE_RETRIEVE_PARAMETERS = 500;
+
 	/**
 	 * Constructor.
 	 * <p>
@@ -145,6 +159,23 @@ public class SqlTableBC implements BusinessComponent {
 		createAttributesRecord();
 	}
 
+	/**
+	 * Removes the JDBC metadata of the table from the metadata cache.
+	 * <p>
+	 * The column metadata is read only once per database and table and shared
+	 * by all SqlTableBC objects. The writes read it again if a row has a field
+	 * which the cached table doesn't have or if the columns changed when a write
+	 * fails. Call this method after other changes to the table definition,
+	 * f.g. of the primary key, followed by {@link #setTable(String)} to read the
+	 * new metadata.
+	 *
+	 * @see TableMetaDataCache
+	 */
+	public void invalidateMetaDataCache() {
+		if (table != null)
+			TableMetaDataCache.invalidate(connectionHelper.getMetaDataCacheKey(), table);
+	}
+
 	/**
 	 * Sets a custom retrieve SQL statement.
 	 * <p>
@@ -343,14 +374,12 @@ public class SqlTableBC implements BusinessComponent {
 		checkFilter(filter);
 
 		DataRow filterRow = filter.clone();
-		List<DataRowRegexMatcher> regexmatchers = Optional.ofNullable(regexes).orElseGet(HashMap::new).entrySet()
-				.stream().map(x -> new DataRowRegexMatcher(x.getKey(), x.getValue().getString()))
-				.collect(Collectors.toList());
+		List<DataRowRegexMatcher> regexmatchers = createRegexMatchers();
 
 		final ResultSet retrs;
 
 		try (CloseableWrapper<Connection> connw = getConnection()) {
-			retrs = retrieveDataRows(first, last, filterRow, connw);
+			retrs = retrieveDataRows(first, last, filterRow, connw, new ResultSet(), null);
 		}
 
 		// Set the generated meta attributes to the first record
@@ -374,49 +403,167 @@ public class SqlTableBC implements BusinessComponent {
 		return retrs;
 	}
 
-	private ResultSet retrieveDataRows(int first, int last, final DataRow filterRow,
-			final CloseableWrapper<Connection> connw) throws Exception {
-		ResultSet retrs;
-		Connection conn = connw.getCloseable();
-		StringBuilder sql;
+	/**
+	 * Retrieves all records and passes them one by one to the given consumer,
+	 * instead of collecting them in a {@link ResultSet}.
+	 * <p>
+	 * The connection and the JDBC result set stay open until the last record was
+	 * passed to the consumer, so only one record is held in memory at a time
+	 * (depending on the JDBC driver, see {@link #setFetchSize(int)}).
+	 *
+	 * @param consumer receives the records in the order they are read.
+	 * @throws Exception thrown if the records cannot be read.
+	 * @see #retrieve()
+	 */
+	public void retrieve(final Consumer<DataRow> consumer) throws Exception {
+		retrieve(-1, -1, consumer);
+	}
 
-		java.util.LinkedHashSet<String> fields = new java.util.LinkedHashSet<>();
-		if ((this.fieldSelection == null || this.fieldSelection.getFieldNames().isEmpty())
-				&& (scope == null || scope.equals(""))) {
-			fields.add("*");
-		}
+	/**
+	 * Retrieves the records in the given range and passes them one by one to the
+	 * given consumer, instead of collecting them in a {@link ResultSet}.
+	 * <p>
+	 * The filter, field selection and scope are applied the same way as in
+	 * {@link #retrieve(int, int)}. The attributes from the
+	 * {@link #getAttributesRecord() attributes record} are set as column
+	 * attributes, which all records share, see
+	 * {@link DataRow#getColumnAttribute(String, String)}.
+	 *
+	 * @param first    index of the first record, -1 for all records.
+	 * @param last     index of the last record, -1 for all records.
+	 * @param consumer receives the records in the order they are read.
+	 * @throws Exception thrown if the records cannot be read.
+	 * @see #retrieve(int, int)
+	 */
+	public void retrieve(final int first, final int last, final Consumer<DataRow> consumer) throws Exception {
+		checkIndeces(first, last);
+		checkFilter(filter);
 
-		if (scope != null) {
-			for (char s : scope.toCharArray()) {
-				String localScope = String.valueOf(s);
-				if (scopes.containsKey(localScope))
-					fields.addAll(scopes.get(localScope));
+		DataRow filterRow = filter.clone();
+		List<DataRowRegexMatcher> regexmatchers = createRegexMatchers();
+
+		// the records share the columns of this ResultSet, also with the ones dropped by the filter
+		ResultSet columns = new ResultSet();
+		final boolean[] firstRecord = { true };
+		Consumer<DataRow> sink = dr -> {
+			if (firstRecord[0]) {
+				firstRecord[0] = false;
+				for (String field : attributesRecord.getFieldNames()) {
+					Map<String, Object> columnMetaData = columns.getColumnMetaData(field);
+					if (columnMetaData == null)
+						continue;
+					attributesRecord.getFieldAttributes(field).forEach((name, value) -> {
+						// keep the typed JDBC properties, the attributes record has them as strings
+						Object current = columnMetaData.get(name);
+						if (current == null || current instanceof String)
+							columns.setAttribute(field, name, value);
+					});
+				}
 			}
-		}
+			if (!regexmatchers.isEmpty() && !regexmatchers.stream().allMatch(x -> x.matches(dr)))
+				return;
+			consumer.accept(dr);
+		};
 
-		if (fieldSelection != null) {
-			fields.addAll(fieldSelection.getFieldNames());
+		try (CloseableWrapper<Connection> connw = getConnection()) {
+			retrieveDataRows(first, last, filterRow, connw, columns, sink);
 		}
+	}
 
-		boolean customStatementUsed = (retrieveSql != null && !retrieveSql.equals(""));
+	/**
+	 * Sets the number of rows the JDBC driver should fetch from the database at
+	 * once. This is mainly useful together with {@link #retrieve(Consumer)} to
+	 * keep the memory usage low on large tables.
+	 *
+	 * @param fetchSize the number of rows, 0 to use the driver's default.
+	 */
+	public void setFetchSize(int fetchSize) {
+		if (fetchSize < 0)
+			throw new IllegalArgumentException("Fetch size must not be negative");
+		this.fetchSize = fetchSize;
+	}
 
-		StringBuilder sqlfields = new StringBuilder("");
-		if (fields.contains("*"))
-			sqlfields.append("*");
-		else {
-			for (String field : fields) {
-				sqlfields.append("," + dbconfig.getDbQuoteString() + field + dbconfig.getDbQuoteString());
-			}
-			sqlfields = new StringBuilder(sqlfields.substring(1));
-		}
+	/**
+	 * Returns the fetch size passed to the JDBC driver, 0 if the driver's default is used.
+	 *
+	 * @return the fetch size.
+	 */
+	public int getFetchSize() {
+		return fetchSize;
+	}
 
-		if (customStatementUsed) {
-			sql = new StringBuilder("SELECT " + sqlfields + " FROM (" + retrieveSql + ") ");
-			if (com.basiscomponents.bc.util.Constants.MYSQL_DBMS.equals(dbconfig.getDbType()))
-				sql.append(" as s ");
-		} else
-			sql = new StringBuilder("SELECT " + sqlfields + " FROM " + dbconfig.getDbQuoteString() + table
-					+ dbconfig.getDbQuoteString());
+	/**
+	 * Enables or disables borrowing connections from a shared
+	 * {@link SqlConnectionPool} instead of opening a new connection for every
+	 * read or write. The pool is shared by all components using the same URL and
+	 * user.
+	 *
+	 * @param enabled true to use the connection pool.
+	 * @throws IllegalStateException thrown if the SqlTableBC was created with a
+	 *                               {@link Connection}.
+	 */
+	public void setConnectionPooling(boolean enabled) {
+		connectionHelper.setConnectionPooling(enabled);
+	}
+
+	/**
+	 * Borrows the connections from the given pool instead of the shared one. The
+	 * settings of the shared pool can't be changed, a SqlTableBC which needs other
+	 * settings creates its own {@link SqlConnectionPool}.
+	 *
+	 * @param pool the connection pool, null to disable pooling.
+	 * @throws IllegalStateException thrown if the SqlTableBC was created with a
+	 *                               {@link Connection}.
+	 */
+	public void setConnectionPool(SqlConnectionPool pool) {
+		connectionHelper.setConnectionPool(pool);
+	}
+
+	/**
+	 * Returns the connection pool, to read its metrics.
+	 *
+	 * @return the connection pool, null if pooling is disabled.
+	 */
+	public SqlConnectionPool getConnectionPool() {
+		return connectionHelper.getConnectionPool();
+	}
+
+	/**
+	 * Returns how often a prepared statement was reused from the statement cache.
+	 * <p>
+	 * Statements are cached for the connection passed in the constructor and for
+	 * connections from the connection pool.
+	 *
+	 * @return the number of cache hits.
+	 */
+	public long getStatementCacheHits() {
+		return connectionHelper.getStatementCacheHits();
+	}
+
+	/**
+	 * Returns how often a statement had to be prepared because it was not in the
+	 * statement cache.
+	 *
+	 * @return the number of cache misses.
+	 */
+	public long getStatementCacheMisses() {
+		return connectionHelper.getStatementCacheMisses();
+	}
+
+	private List<DataRowRegexMatcher> createRegexMatchers() {
+		return Optional.ofNullable(regexes).orElseGet(HashMap::new).entrySet()
+				.stream().map(x -> new DataRowRegexMatcher(x.getKey(), x.getValue().getString()))
+				.collect(Collectors.toList());
+	}
+
+	private ResultSet retrieveDataRows(int first, int last, final DataRow filterRow,
+			final CloseableWrapper<Connection> connw, final ResultSet retrs, final Consumer<DataRow> consumer)
+			throws Exception {
+		Connection conn = connw.getCloseable();
+		StringBuilder sql;
+
+		boolean customStatementUsed = isCustomStatementUsed();
+		sql = createSelectStatement(customStatementUsed);
 
 		if (filterRow != null && !filterRow.getFieldNames().isEmpty()) {
 			StringBuilder wh = new StringBuilder("");
@@ -466,7 +613,11 @@ public class SqlTableBC implements BusinessComponent {
 			}
 		}
 		dbconfig.setSqlStatement(sql.toString());
-		try (java.sql.PreparedStatement prep = conn.prepareStatement(dbconfig.getSqlStatement())) {
+		try (CloseableWrapper<PreparedStatement> prepw = connectionHelper.prepareStatement(connw,
+				dbconfig.getSqlStatement())) {
+			PreparedStatement prep = prepw.getCloseable();
+			if (fetchSize > 0)
+				prep.setFetchSize(fetchSize);
 			DataRow params = new DataRow();
 			if (retrieveParams != null && retrieveParams.getColumnCount() > 0) {
 				params = retrieveParams.clone();
@@ -479,13 +630,60 @@ public class SqlTableBC implements BusinessComponent {
 			}
 
 			try (java.sql.ResultSet rs = prep.executeQuery()) {
-				retrs = new ResultSet();
-				retrs.populate(rs, true);
+				retrs.populate(rs, true, consumer);
 			}
 		}
 		return retrs;
 	}
 
+	private boolean isCustomStatementUsed() {
+		return retrieveSql != null && !retrieveSql.equals("");
+	}
+
+	/**
+	 * Creates the SELECT ... FROM part of the retrieve statement, using the field
+	 * selection, the scope and the custom retrieve SQL statement.
+	 */
+	private StringBuilder createSelectStatement(boolean customStatementUsed) {
+		StringBuilder sql;
+		java.util.LinkedHashSet<String> fields = new java.util.LinkedHashSet<>();
+		if ((this.fieldSelection == null || this.fieldSelection.getFieldNames().isEmpty())
+				&& (scope == null || scope.equals(""))) {
+			fields.add("*");
+		}
+
+		if (scope != null) {
+			for (char s : scope.toCharArray()) {
+				String localScope = String.valueOf(s);
+				if (scopes.containsKey(localScope))
+					fields.addAll(scopes.get(localScope));
+			}
+		}
+
+		if (fieldSelection != null) {
+			fields.addAll(fieldSelection.getFieldNames());
+		}
+
+		StringBuilder sqlfields = new StringBuilder("");
+		if (fields.contains("*"))
+			sqlfields.append("*");
+		else {
+			for (String field : fields) {
+				sqlfields.append("," + dbconfig.getDbQuoteString() + field + dbconfig.getDbQuoteString());
+			}
+			sqlfields = new StringBuilder(sqlfields.substring(1));
+		}
+
+		if (customStatementUsed) {
+			sql = new StringBuilder("SELECT " + sqlfields + " FROM (" + retrieveSql + ") ");
+			if (com.basiscomponents.bc.util.Constants.MYSQL_DBMS.equals(dbconfig.getDbType()))
+				sql.append(" as s ");
+		} else
+			sql = new StringBuilder("SELECT " + sqlfields + " FROM " + dbconfig.getDbQuoteString() + table
+					+ dbconfig.getDbQuoteString());
+		return sql;
+	}
+
 	private static void checkFilter(DataRow filter) {
 		if (filter.contains("%SEARCH")) {
 			throw new UnsupportedOperationException("Full text search not implemented yet!");
@@ -553,6 +751,177 @@ public class SqlTableBC implements BusinessComponent {
 		return DataRowWriter.write(dr, table, dbconfig, connectionHelper, this::reRetrieve);
 	}
 
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * The rows are written within one transaction using JDBC batches and read
+	 * again from the database afterwards, see
+	 * {@link #writeAll(Collection, boolean)}.
+	 */
+	@Override
+	public ResultSet writeAll(Collection<DataRow> rows) throws Exception {
+		return writeAll(rows, true);
+	}
+
+	/**
+	 * Writes all DataRows of a ResultSet, see {@link #writeAll(Collection)}.
+	 *
+	 * @param rs the rows to write.
+	 * @return the written rows, in the order of the ResultSet.
+	 * @throws Exception thrown if a row is not valid or writing failed.
+	 */
+	public ResultSet write(ResultSet rs) throws Exception {
+		return writeAll(rs.getDataRows(), true);
+	}
+
+	/**
+	 * Writes several DataRows within one transaction.
+	 * <p>
+	 * The rows are grouped by their field names, and each group is written with
+	 * batched UPDATE and INSERT statements. If one row fails, no row is written.
+	 * <p>
+	 * If {@code reRetrieve} is true, the written rows are read again with one
+	 * statement per few hundred rows, instead of one statement per row as in
+	 * {@link #write(DataRow)}. Rows without a primary key are returned as
+	 * written. Inserted rows have the attribute CREATED=TRUE.
+	 *
+	 * @param rows       the rows to write.
+	 * @param reRetrieve true to read the rows again after writing them.
+	 * @return the written rows, in the order of the given rows.
+	 * @throws Exception thrown if a row is not valid or writing failed.
+	 */
+	public ResultSet writeAll(Collection<DataRow> rows, boolean reRetrieve) throws Exception {
+		for (DataRow dr : rows) {
+			checkErrors(validateWrite(dr));
+		}
+		List<DataRow> written = DataRowWriter.writeAll(rows, table, dbconfig, connectionHelper);
+		if (reRetrieve) {
+			reRetrieve(written);
+		}
+		ResultSet ret = new ResultSet();
+		for (DataRow dr : written) {
+			ret.add(dr);
+		}
+		return ret;
+	}
+
+	/**
+	 * Reads the given rows again from the database, using their primary keys, and
+	 * replaces them in the list.
+	 */
+	private void reRetrieve(List<DataRow> rows) throws Exception {
+		List<String> pks = dbconfig.getPrimaryKeys();
+		if (pks.isEmpty())
+			return;
+
+		// a primary key can be written more than once
+		Map<List<Object>, List<Integer>> positions = new HashMap<>();
+		List<DataRow> keyRows = new ArrayList<>();
+		for (int i = 0; i < rows.size(); i++) {
+			DataRow dr = rows.get(i);
+			if (dr.getFieldNamesView().containsAll(pks)) {
+				List<Integer> rowPositions = positions.computeIfAbsent(getPrimaryKeyValues(dr, pks),
+						k -> new ArrayList<>(1));
+				if (rowPositions.isEmpty())
+					keyRows.add(dr);
+				rowPositions.add(i);
+			}
+		}
+		if (keyRows.isEmpty())
+			return;
+
+		boolean customStatementUsed = isCustomStatementUsed();
+		boolean isBasis = BASIS_DBMS.equals(dbconfig.getDbType());
+		StringBuilder keyCondition = new StringBuilder();
+		for (String pk : pks) {
+			String ff = customStatementUsed ? pk : getMapping(pk);
+			keyCondition.append(AND + dbconfig.getDbQuoteString() + ff + dbconfig.getDbQuoteString() + "=?");
+		}
+		String rowCondition = "(" + keyCondition.substring(5) + ")";
+		int chunkSize = Math.max(1, RE_RETRIEVE_PARAMETERS / pks.size());
+
+		Consumer<DataRow> replace = dr -> {
+			if (!dr.getFieldNamesView().containsAll(pks))
+				return;
+			List<Integer> rowPositions = positions.get(getPrimaryKeyValues(dr, pks));
+			if (rowPositions == null)
+				return;
+			// the first position gets the read row itself, so copy it for the others before
+			for (int i = rowPositions.size() - 1; i >= 0; i--) {
+				int pos = rowPositions.get(i);
+				DataRow read = i == 0 ? dr : dr.clone();
+				if (rows.get(pos).getAttribute("CREATED") != null)
+					read.setAttribute("CREATED", "TRUE");
+				rows.set(pos, read);
+			}
+		};
+
+		try (CloseableWrapper<Connection> connw = getConnection()) {
+			for (int start = 0; start < keyRows.size(); start += chunkSize) {
+				List<DataRow> chunk = keyRows.subList(start, Math.min(keyRows.size(), start + chunkSize));
+				StringBuilder sql = createSelectStatement(customStatementUsed);
+				sql.append(WHERE);
+				for (int i = 0; i < chunk.size(); i++) {
+					if (i > 0)
+						sql.append(" OR ");
+					sql.append(rowCondition);
+				}
+				// only the full chunks share their SQL, the last one would just push other statements out of the cache
+				try (CloseableWrapper<PreparedStatement> prepw = chunk.size() == chunkSize
+						? connectionHelper.prepareStatement(connw, sql.toString())
+						: connectionHelper.prepareUncachedStatement(connw, sql.toString())) {
+					PreparedStatement prep = prepw.getCloseable();
+					int index = 1;
+					if (retrieveParams != null && retrieveParams.getColumnCount() > 0) {
+						index = setSqlParams(prep, retrieveParams, null, isBasis, index);
+					}
+					for (DataRow dr : chunk) {
+						index = setSqlParams(prep, dr, pks, isBasis, index);
+					}
+					try (java.sql.ResultSet rs = prep.executeQuery()) {
+						new ResultSet().populate(rs, true, replace);
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Returns the primary key values of the row, converted so that a written
+	 * value and the value read back from the database are equal: numbers are
+	 * compared by their value, strings without the blanks a CHAR column pads
+	 * them with.
+	 */
+	private static List<Object> getPrimaryKeyValues(DataRow dr, List<String> pks) {
+		List<Object> values = new ArrayList<>(pks.size());
+		for (String pk : pks) {
+			DataField field = dr.getField(pk, true);
+			values.add(getKeyValue(field == null ? null : field.getObject()));
+		}
+		return values;
+	}
+
+	private static Object getKeyValue(Object value) {
+		if (value instanceof String) {
+			String s = (String) value;
+			int end = s.length();
+			while (end > 0 && s.charAt(end - 1) == ' ')
+				end--;
+			return s.substring(0, end);
+		}
+		if (value instanceof BigDecimal)
+			return ((BigDecimal) value).stripTrailingZeros();
+		if (value instanceof BigInteger)
+			return new BigDecimal((BigInteger) value).stripTrailingZeros();
+		if (value instanceof Double || value instanceof Float) {
+			double d = ((Number) value).doubleValue();
+			return Double.isNaN(d) || Double.isInfinite(d) ? d : BigDecimal.valueOf(d).stripTrailingZeros();
+		}
+		if (value instanceof Number)
+			return BigDecimal.valueOf(((Number) value).longValue()).stripTrailingZeros();
+		return value;
+	}
+
 	private DataRow reRetrieve(DataRow dr) {
 		try {
 			DataRow oldfilter = this.getFilter();
@@ -628,7 +997,9 @@ public class SqlTableBC implements BusinessComponent {
 		sql.append(WHERE + wh.substring(5));
 		dbconfig.setSqlStatement(sql.toString());
 		try (CloseableWrapper<Connection> connw = getConnection();
-				PreparedStatement prep = connw.getCloseable().prepareStatement(dbconfig.getSqlStatement())) {
+				CloseableWrapper<PreparedStatement> prepw = connectionHelper.prepareStatement(connw,
+						dbconfig.getSqlStatement())) {
+			PreparedStatement prep = prepw.getCloseable();
 			setSqlParams(prep, r, dbconfig.getPrimaryKeys(), BASIS_DBMS.equals(dbconfig.getDbType()));
 			prep.execute();
 		}
@@ -783,14 +1154,13 @@ public class SqlTableBC implements BusinessComponent {
 			this.dbconfig.setDbType(meta.getDatabaseProductName().toUpperCase());
 			this.dbconfig.setDbQuoteString(meta.getIdentifierQuoteString());
 			this.metaData = new DataRow();
-			java.sql.ResultSet sqlMetaData = meta.getPrimaryKeys(null, null, table);
+			TableMetaData tableMetaData = TableMetaDataCache.get(connectionHelper.getMetaDataCacheKey(), table, meta);
 
-			while (sqlMetaData.next()) {
-				dbconfig.addPrimaryKey(sqlMetaData.getString(COLUMN_NAME));
+			for (String pk : tableMetaData.getPrimaryKeys()) {
+				dbconfig.addPrimaryKey(pk);
 			}
 
-			prepareMetadata(meta);
-			sqlMetaData.close();
+			prepareMetadata(tableMetaData);
 			// read attributes (for getAttributesRecord() method)
 
 			ResultSet ar;
@@ -841,31 +1211,21 @@ public class SqlTableBC implements BusinessComponent {
 		}
 	}
 
-	private void prepareMetadata(DatabaseMetaData meta) throws SQLException {
-		java.sql.ResultSet metaColumns = meta.getColumns(null, null, table, null);
-		while (metaColumns.next()) {
-			if (metaColumns.getMetaData().getColumnCount() > 22) { // IS_AUTOINCREMENT=23 (BBj doesn't
-				// support
-				// the IS_AUTOINCREMENT property)
-				String name = metaColumns.getString(COLUMN_NAME);
-				String autoIncrement = metaColumns.getString("IS_AUTOINCREMENT");
-				if ("YES".equals(autoIncrement))
-					dbconfig.addAutoIncrementKey(name);
-			}
+	private void prepareMetadata(TableMetaData tableMetaData) {
+		for (String name : tableMetaData.getAutoIncrementKeys()) {
+			dbconfig.addAutoIncrementKey(name);
+		}
 
-			String columnName = metaColumns.getString(COLUMN_NAME);
+		for (String columnName : tableMetaData.getColumnNames()) {
 			try {
-				metaData.setFieldValue(columnName, metaColumns.getInt("DATA_TYPE"), null);
+				metaData.setFieldValue(columnName, tableMetaData.getColumnType(columnName), null);
 			} catch (Exception e1) {
 				continue;
 			}
 
-			for (int i = 1; i <= metaColumns.getMetaData().getColumnCount(); i++) {
+			for (Entry<String, String> attribute : tableMetaData.getColumnAttributes(columnName).entrySet()) {
 				try {
-					if (metaColumns.getString(i) != null) {
-						metaData.setFieldAttribute(columnName, metaColumns.getMetaData().getColumnName(i),
-								metaColumns.getString(i));
-					}
+					metaData.setFieldAttribute(columnName, attribute.getKey(), attribute.getValue());
 				} catch (Exception e) {
 					// do nothing
 				}
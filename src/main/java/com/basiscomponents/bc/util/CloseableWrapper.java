@@ -4,6 +4,7 @@ public class CloseableWrapper<T extends AutoCloseable> implements AutoCloseable
 	
 	private T closeable;
 	private boolean willBeClosed;
+	private StatementCache statementCache;
 
 	CloseableWrapper(final T closeable, final boolean willBeClosed) {
 		this.closeable = closeable;
@@ -21,4 +22,17 @@ public class CloseableWrapper<T extends AutoCloseable> implements AutoCloseable
 		return closeable;
 	}
 
+	/**
+	 * @return the statement cache of the wrapped connection, null if its
+	 *         statements are not cached.
+	 */
+	StatementCache getStatementCache() {
+		return statementCache;
+	}
+
+	CloseableWrapper<T> withStatementCache(StatementCache statementCache) {
+		this.statementCache = statementCache;
+		return this;
+	}
+
 }
@@ -6,112 +6,190 @@ import static com.basiscomponents.bc.util.SQLHelper.setSqlParams;
 
 public class DataRowWriter {
 
+	/**
+	 * Maximum number of rows sent to the database in one batch.
+	 */
+	private static final int BATCH_SIZE = 1000;
+
 	private DataRowWriter(){}
+	/**
+	 * Writes one DataRow, as an update if it has a primary key and the record
+	 * exists, as an insert otherwise. Fields which the table doesn't have are
+	 * not written.
+	 * <p>
+	 * The columns are taken from the {@link TableMetaDataCache}. They are read
+	 * again if the row has a field which the cached table doesn't have, and if the
+	 * write fails in auto commit mode before a record was changed. If the columns
+	 * changed meanwhile, the write is done once more with the new columns.
+	 */
 	public static com.basiscomponents.db.DataRow write(com.basiscomponents.db.DataRow dr, String table, com.basiscomponents.bc.config.DatabaseConfiguration dbconfig, SqlConnectionHelper connectionHelper, java.util.function.Function<com.basiscomponents.db.DataRow, com.basiscomponents.db.DataRow> reRetrieve) throws Exception {
-
-		boolean pkPresent = dbconfig.isPrimaryKeyPresent(dr);
-
 		try (CloseableWrapper<java.sql.Connection> connw = connectionHelper.getConnection()) {
 			java.sql.Connection conn = connw.getCloseable();
 			// Read table field names from the table (not from getAttributesRecord()).
 			// The field may differ if a custom retrieve sql statement is used.
-			java.sql.DatabaseMetaData meta = conn.getMetaData();
-			java.sql.ResultSet rs = meta.getColumns(null, null, table, null);
-			java.util.List<String> tableFields = new java.util.ArrayList<>();
-			while (rs.next()) {
-				tableFields.add(rs.getString(COLUMN_NAME));
+			TableMetaDataCache.TableMetaData tmd = getTableMetaData(connw, connectionHelper, table, dbconfig,
+					java.util.Collections.singletonList(dr.getFieldNames()));
+			boolean[] changed = { false };
+			try {
+				return write(connw, dr, table, dbconfig, connectionHelper, reRetrieve, tmd.getColumnNames(), changed);
+			} catch (java.sql.SQLException e) {
+				TableMetaDataCache.TableMetaData current = reloadChanged(connw, connectionHelper, table, tmd,
+						!conn.getAutoCommit(), e);
+				if (current == null || changed[0])
+					throw e;
+				return write(connw, dr, table, dbconfig, connectionHelper, reRetrieve, current.getColumnNames(), changed);
 			}
+		}
+	}
 
-			StringBuilder sql = new StringBuilder();
-			int affectedRows = 0;
-			com.basiscomponents.db.DataRow ret = dr.clone();
-			java.sql.PreparedStatement prep;
-
-			// update (Try an update an check affected rows. If there are no (0) affected
-			// rows, then make an
-			// insert.)
-			if (pkPresent) {
-				sql = new StringBuilder("UPDATE " + dbconfig.getDbQuoteString() + table + dbconfig.getDbQuoteString() + " SET ");
-
-				java.util.List<String> fields = new java.util.ArrayList<>();
-
-				StringBuilder update = new StringBuilder();
-				for (String field : dr.getFieldNames()) {
-					String field2 = dbconfig.getMapping(field);
-					if (dbconfig.containsPrimaryKey(field))
-						continue;
-					if (tableFields.contains(field2)) {
-						fields.add(field);
-						update.append("," + dbconfig.getDbQuoteString() + field2 + dbconfig.getDbQuoteString() + "=?");
-					}
+	/**
+	 * Returns the cached metadata of the table, read again if one of the field
+	 * lists has a field which the table didn't have when it was cached.
+	 */
+	private static TableMetaDataCache.TableMetaData getTableMetaData(CloseableWrapper<java.sql.Connection> connw, SqlConnectionHelper connectionHelper, String table, com.basiscomponents.bc.config.DatabaseConfiguration dbconfig, java.util.Collection<? extends java.util.List<String>> fieldLists) throws java.sql.SQLException {
+		java.sql.DatabaseMetaData meta = connw.getCloseable().getMetaData();
+		String key = connectionHelper.getMetaDataCacheKey();
+		TableMetaDataCache.TableMetaData tmd = TableMetaDataCache.get(key, table, meta);
+		java.util.List<String> fields = new java.util.ArrayList<>();
+		for (java.util.List<String> fieldNames : fieldLists) {
+			for (String field : fieldNames) {
+				fields.add(dbconfig.getMapping(field));
+			}
+		}
+		for (String field : fields) {
+			if (tmd.isUnknownColumn(field)) {
+				// a column may have been added since the metadata was read
+				tmd = TableMetaDataCache.reload(key, table, meta);
+				tmd.addMissingColumns(fields);
+				break;
+			}
+		}
+		return tmd;
+	}
+
+	/**
+	 * Reads the metadata of the table again after a write failed. Within a
+	 * transaction of the caller the metadata is only removed from the cache, as
+	 * some databases refuse any statement after an error until the rollback.
+	 *
+	 * @return the new metadata if the columns differ from the ones used for the
+	 *         write, null otherwise.
+	 */
+	private static TableMetaDataCache.TableMetaData reloadChanged(CloseableWrapper<java.sql.Connection> connw, SqlConnectionHelper connectionHelper, String table, TableMetaDataCache.TableMetaData used, boolean inTransaction, java.sql.SQLException failure) throws java.sql.SQLException {
+		String key = connectionHelper.getMetaDataCacheKey();
+		if (inTransaction) {
+			TableMetaDataCache.invalidate(key, table);
+			return null;
+		}
+		try {
+			TableMetaDataCache.TableMetaData current = TableMetaDataCache.reload(key, table, connw.getCloseable().getMetaData());
+			return current.hasSameColumns(used) ? null : current;
+		} catch (java.sql.SQLException e) {
+			failure.addSuppressed(e);
+			throw failure;
+		}
+	}
+
+	private static com.basiscomponents.db.DataRow write(CloseableWrapper<java.sql.Connection> connw, com.basiscomponents.db.DataRow dr, String table, com.basiscomponents.bc.config.DatabaseConfiguration dbconfig, SqlConnectionHelper connectionHelper, java.util.function.Function<com.basiscomponents.db.DataRow, com.basiscomponents.db.DataRow> reRetrieve, java.util.Set<String> tableFields, boolean[] changed) throws Exception {
+
+		boolean pkPresent = dbconfig.isPrimaryKeyPresent(dr);
+
+		StringBuilder sql = new StringBuilder();
+		int affectedRows = 0;
+		com.basiscomponents.db.DataRow ret = dr.clone();
+
+		// update (Try an update an check affected rows. If there are no (0) affected
+		// rows, then make an
+		// insert.)
+		if (pkPresent) {
+			sql = new StringBuilder("UPDATE " + dbconfig.getDbQuoteString() + table + dbconfig.getDbQuoteString() + " SET ");
+
+			java.util.List<String> fields = new java.util.ArrayList<>();
+
+			StringBuilder update = new StringBuilder();
+			for (String field : dr.getFieldNames()) {
+				String field2 = dbconfig.getMapping(field);
+				if (dbconfig.containsPrimaryKey(field))
+					continue;
+				if (tableFields.contains(field2)) {
+					fields.add(field);
+					update.append("," + dbconfig.getDbQuoteString() + field2 + dbconfig.getDbQuoteString() + "=?");
 				}
+			}
 
-				if (update.length() > 0) {
-					// if the fields are _only_ fields that are part of the primary key
-					// (e.g. a table with PK being a compount, not having fields outside the PK)
-					// then update would be "" and this portion would fail
+			if (update.length() > 0) {
+				// if the fields are _only_ fields that are part of the primary key
+				// (e.g. a table with PK being a compount, not having fields outside the PK)
+				// then update would be "" and this portion would fail
 
-					sql.append(update.substring(1));
+				sql.append(update.substring(1));
 
-					StringBuilder wh = new StringBuilder();
-					for (String pkfield : dbconfig.getPrimaryKeys()) {
-						wh.append(AND + dbconfig.getDbQuoteString() + dbconfig.getMapping(pkfield) + dbconfig.getDbQuoteString() + "=?");
-						fields.add(pkfield);
-					}
-					sql.append(WHERE + wh.substring(5));
+				StringBuilder wh = new StringBuilder();
+				for (String pkfield : dbconfig.getPrimaryKeys()) {
+					wh.append(AND + dbconfig.getDbQuoteString() + dbconfig.getMapping(pkfield) + dbconfig.getDbQuoteString() + "=?");
+					fields.add(pkfield);
+				}
+				sql.append(WHERE + wh.substring(5));
 
-					prep = conn.prepareStatement(sql.toString());
+				try (CloseableWrapper<java.sql.PreparedStatement> prepw = connectionHelper.prepareStatement(connw, sql.toString())) {
+					java.sql.PreparedStatement prep = prepw.getCloseable();
 					setSqlParams(prep, dr, fields, BASIS_DBMS.equals(dbconfig.getDbType()));
 
 					affectedRows = prep.executeUpdate();
-					prep.close();
-				} else {
-					/// so now we have to do a SELECT to see if the record is there, as we can't
-					/// check with
-					/// update
-					sql = new StringBuilder(
-							"SELECT COUNT(*) AS C FROM " + dbconfig.getDbQuoteString() + table + dbconfig.getDbQuoteString());
-					StringBuilder wh = new StringBuilder("");
-					for (String pkfield : dbconfig.getPrimaryKeys()) {
-						wh.append(AND + dbconfig.getDbQuoteString() + dbconfig.getMapping(pkfield) + dbconfig.getDbQuoteString() + "=?");
-						fields.add(pkfield);
-					}
-					if (wh.length() > 0) {
-						sql.append(WHERE + wh.substring(5));
-					}
-					prep = conn.prepareStatement(sql.toString());
+					changed[0] = affectedRows > 0;
+				}
+			} else {
+				/// so now we have to do a SELECT to see if the record is there, as we can't
+				/// check with
+				/// update
+				sql = new StringBuilder(
+						"SELECT COUNT(*) AS C FROM " + dbconfig.getDbQuoteString() + table + dbconfig.getDbQuoteString());
+				StringBuilder wh = new StringBuilder("");
+				for (String pkfield : dbconfig.getPrimaryKeys()) {
+					wh.append(AND + dbconfig.getDbQuoteString() + dbconfig.getMapping(pkfield) + dbconfig.getDbQuoteString() + "=?");
+					fields.add(pkfield);
+				}
+				if (wh.length() > 0) {
+					sql.append(WHERE + wh.substring(5));
+				}
+				try (CloseableWrapper<java.sql.PreparedStatement> prepw = connectionHelper.prepareStatement(connw, sql.toString())) {
+					java.sql.PreparedStatement prep = prepw.getCloseable();
 					setSqlParams(prep, dr, fields, BASIS_DBMS.equals(dbconfig.getDbType()));
-					java.sql.ResultSet jrs = prep.executeQuery();
-					com.basiscomponents.db.ResultSet retrs = new com.basiscomponents.db.ResultSet();
-					retrs.populate(jrs, true);
-					affectedRows = retrs.get(0).getFieldAsNumber("C").intValue();
-					prep.close();
-				}
-			}
-
-			// insert
-			boolean inserted = false;
-			if (!pkPresent || affectedRows == 0) {
-				sql = new StringBuilder("INSERT INTO " + dbconfig.getDbQuoteString() + table + dbconfig.getDbQuoteString() + " (");
-
-				java.util.List<String> fields = new java.util.ArrayList<>();
-				StringBuilder keys = new StringBuilder("");
-				StringBuilder values = new StringBuilder("");
-				for (String field : dr.getFieldNames()) {
-					String field2 = dbconfig.getMapping(field);
-					if (tableFields.contains(field2)) {
-						fields.add(field);
-						keys.append("," + dbconfig.getDbQuoteString() + field2 + dbconfig.getDbQuoteString());
-						values.append(",?");
+					try (java.sql.ResultSet jrs = prep.executeQuery()) {
+						com.basiscomponents.db.ResultSet retrs = new com.basiscomponents.db.ResultSet();
+						retrs.populate(jrs, true);
+						affectedRows = retrs.get(0).getFieldAsNumber("C").intValue();
 					}
 				}
-				sql.append(keys.substring(1) + ") VALUES(" + values.substring(1) + ")");
+			}
+		}
+
+		// insert
+		boolean inserted = false;
+		if (!pkPresent || affectedRows == 0) {
+			sql = new StringBuilder("INSERT INTO " + dbconfig.getDbQuoteString() + table + dbconfig.getDbQuoteString() + " (");
 
-				prep = conn.prepareStatement(sql.toString(), java.sql.PreparedStatement.RETURN_GENERATED_KEYS);
+			java.util.List<String> fields = new java.util.ArrayList<>();
+			StringBuilder keys = new StringBuilder("");
+			StringBuilder values = new StringBuilder("");
+			for (String field : dr.getFieldNames()) {
+				String field2 = dbconfig.getMapping(field);
+				if (tableFields.contains(field2)) {
+					fields.add(field);
+					keys.append("," + dbconfig.getDbQuoteString() + field2 + dbconfig.getDbQuoteString());
+					values.append(",?");
+				}
+			}
+			sql.append(keys.substring(1) + ") VALUES(" + values.substring(1) + ")");
+
+			try (CloseableWrapper<java.sql.PreparedStatement> prepw = connectionHelper.prepareStatement(connw,
+					sql.toString(), java.sql.PreparedStatement.RETURN_GENERATED_KEYS)) {
+				java.sql.PreparedStatement prep = prepw.getCloseable();
 				setSqlParams(prep, dr, fields, BASIS_DBMS.equals(dbconfig.getDbType()));
 
 				affectedRows = prep.executeUpdate();
 				inserted = affectedRows > 0;
+				changed[0] = inserted;
 
 				// get generated keys
 				if (affectedRows > 0) {
@@ -125,22 +203,279 @@ public class DataRowWriter {
 						}
 					}
 				}
+			}
+		}
+
+		dbconfig.setSqlStatement(sql.toString());
+
+		// reload from the database
+		if (pkPresent) {
+			ret = reRetrieve.apply(ret);
+		}
+
+		if (inserted) {
+			ret.setAttribute("CREATED", "TRUE");
+		}
+		return ret;
+	}
+
+	/**
+	 * Writes several DataRows within one transaction, using JDBC batches.
+	 * <p>
+	 * Consecutive rows with the same field names form a group, the groups are
+	 * written in the order of the rows. For each group the rows with a primary
+	 * key are updated in batches, rows which were not updated and rows without
+	 * primary key are inserted in batches afterwards. If a primary key occurs
+	 * more than once, the first of these rows is inserted and the others update
+	 * it, like writing the rows one by one. Inserted rows get the attribute
+	 * CREATED=TRUE and, if the driver returns them, the generated keys.
+	 * <p>
+	 * If a driver reports {@link java.sql.Statement#SUCCESS_NO_INFO} for an
+	 * update, the rows are looked up to find out whether they exist. If the
+	 * connection is not in auto commit mode, the rows are written within the
+	 * current transaction and neither committed nor rolled back.
+	 * <p>
+	 * The columns are read again like in {@link #write}. A failed transaction of
+	 * this method is rolled back and written once more if the columns changed.
+	 *
+	 * @return the written rows in the order of the given rows. The rows are not
+	 *         read again from the database.
+	 */
+	public static java.util.List<com.basiscomponents.db.DataRow> writeAll(java.util.Collection<com.basiscomponents.db.DataRow> rows, String table, com.basiscomponents.bc.config.DatabaseConfiguration dbconfig, SqlConnectionHelper connectionHelper) throws Exception {
+		java.util.List<com.basiscomponents.db.DataRow> written = new java.util.ArrayList<>(rows.size());
+		java.util.List<java.util.List<com.basiscomponents.db.DataRow>> groups = group(rows, written);
+		if (written.isEmpty())
+			return written;
 
-				prep.close();
+		try (CloseableWrapper<java.sql.Connection> connw = connectionHelper.getConnection()) {
+			java.sql.Connection conn = connw.getCloseable();
+			java.util.List<java.util.List<String>> fieldLists = new java.util.ArrayList<>();
+			for (java.util.List<com.basiscomponents.db.DataRow> groupRows : groups) {
+				fieldLists.add(groupRows.get(0).getFieldNames());
 			}
+			TableMetaDataCache.TableMetaData tmd = getTableMetaData(connw, connectionHelper, table, dbconfig, fieldLists);
 
-			dbconfig.setSqlStatement(sql.toString());
+			boolean autoCommit = conn.getAutoCommit();
+			if (!autoCommit) {
+				// part of a transaction of the caller, who decides about commit or rollback
+				try {
+					writeGroups(connw, connectionHelper, groups, table, dbconfig, tmd.getColumnNames());
+				} catch (java.sql.SQLException e) {
+					reloadChanged(connw, connectionHelper, table, tmd, true, e);
+					throw e;
+				}
+				return written;
+			}
+			conn.setAutoCommit(false);
+			try {
+				try {
+					writeGroups(connw, connectionHelper, groups, table, dbconfig, tmd.getColumnNames());
+				} catch (java.sql.SQLException e) {
+					conn.rollback();
+					TableMetaDataCache.TableMetaData current = reloadChanged(connw, connectionHelper, table, tmd, false, e);
+					if (current == null)
+						throw e;
+					// start again from the given rows, the rolled back ones may have got generated keys
+					written = new java.util.ArrayList<>(rows.size());
+					groups = group(rows, written);
+					writeGroups(connw, connectionHelper, groups, table, dbconfig, current.getColumnNames());
+				}
+				conn.commit();
+			} catch (Exception e) {
+				conn.rollback();
+				throw e;
+			} finally {
+				conn.setAutoCommit(true);
+			}
+		}
+		return written;
+	}
 
-			// reload from the database
-			if (pkPresent) {
-				ret = reRetrieve.apply(ret);
+	/**
+	 * Adds a copy of each row to the written rows and groups the copies by
+	 * consecutive rows with the same field names.
+	 */
+	private static java.util.List<java.util.List<com.basiscomponents.db.DataRow>> group(java.util.Collection<com.basiscomponents.db.DataRow> rows, java.util.List<com.basiscomponents.db.DataRow> written) {
+		java.util.List<java.util.List<com.basiscomponents.db.DataRow>> groups = new java.util.ArrayList<>();
+		java.util.List<String> groupFields = null;
+		for (com.basiscomponents.db.DataRow dr : rows) {
+			com.basiscomponents.db.DataRow ret = dr.clone();
+			written.add(ret);
+			java.util.List<String> fieldNames = dr.getFieldNames();
+			if (!fieldNames.equals(groupFields)) {
+				groups.add(new java.util.ArrayList<>());
+				groupFields = fieldNames;
 			}
+			groups.get(groups.size() - 1).add(ret);
+		}
+		return groups;
+	}
 
-			if (inserted) {
-				ret.setAttribute("CREATED", "TRUE");
+	private static void writeGroups(CloseableWrapper<java.sql.Connection> connw, SqlConnectionHelper connectionHelper, java.util.List<java.util.List<com.basiscomponents.db.DataRow>> groups, String table, com.basiscomponents.bc.config.DatabaseConfiguration dbconfig, java.util.Set<String> tableFields) throws Exception {
+		boolean isBasis = BASIS_DBMS.equals(dbconfig.getDbType());
+		for (java.util.List<com.basiscomponents.db.DataRow> groupRows : groups) {
+			java.util.List<String> fieldNames = groupRows.get(0).getFieldNames();
+			if (!dbconfig.isPrimaryKeyPresent(groupRows.get(0))) {
+				insertAll(connw, connectionHelper, groupRows, fieldNames, table, dbconfig, tableFields, isBasis);
+				continue;
 			}
-			return ret;
+			java.util.List<com.basiscomponents.db.DataRow> pending = groupRows;
+			while (!pending.isEmpty()) {
+				java.util.List<com.basiscomponents.db.DataRow> missing = updateAll(connw, connectionHelper, pending, fieldNames, table, dbconfig, tableFields, isBasis);
+				// of several new rows with the same primary key only the first is
+				// inserted, the others update it in the next round
+				java.util.List<com.basiscomponents.db.DataRow> inserts = new java.util.ArrayList<>();
+				pending = new java.util.ArrayList<>();
+				java.util.Set<java.util.List<Object>> keys = new java.util.HashSet<>();
+				for (com.basiscomponents.db.DataRow dr : missing) {
+					(keys.add(getPrimaryKeyValues(dr, dbconfig)) ? inserts : pending).add(dr);
+				}
+				insertAll(connw, connectionHelper, inserts, fieldNames, table, dbconfig, tableFields, isBasis);
+			}
+		}
+	}
+
+	private static java.util.List<Object> getPrimaryKeyValues(com.basiscomponents.db.DataRow dr, com.basiscomponents.bc.config.DatabaseConfiguration dbconfig) {
+		java.util.List<Object> values = new java.util.ArrayList<>();
+		for (String pk : dbconfig.getPrimaryKeys()) {
+			values.add(dr.getFieldValue(pk));
+		}
+		return values;
+	}
+
+	/**
+	 * Updates the rows of one group and returns the rows which don't exist yet.
+	 */
+	private static java.util.List<com.basiscomponents.db.DataRow> updateAll(CloseableWrapper<java.sql.Connection> connw, SqlConnectionHelper connectionHelper, java.util.List<com.basiscomponents.db.DataRow> rows, java.util.List<String> fieldNames, String table, com.basiscomponents.bc.config.DatabaseConfiguration dbconfig, java.util.Set<String> tableFields, boolean isBasis) throws Exception {
+		String quote = dbconfig.getDbQuoteString();
+		java.util.List<String> fields = new java.util.ArrayList<>();
+		StringBuilder update = new StringBuilder();
+		for (String field : fieldNames) {
+			String field2 = dbconfig.getMapping(field);
+			if (dbconfig.containsPrimaryKey(field))
+				continue;
+			if (tableFields.contains(field2)) {
+				fields.add(field);
+				update.append("," + quote + field2 + quote + "=?");
+			}
+		}
+
+		StringBuilder wh = new StringBuilder();
+		java.util.List<String> pkFields = new java.util.ArrayList<>();
+		for (String pkfield : dbconfig.getPrimaryKeys()) {
+			wh.append(AND + quote + dbconfig.getMapping(pkfield) + quote + "=?");
+			pkFields.add(pkfield);
+		}
 
+		if (update.length() == 0) {
+			// only primary key fields, so check for existing records as there is nothing to update
+			return selectMissing(connw, connectionHelper, rows, pkFields, wh, table, dbconfig, isBasis);
+		}
+
+		fields.addAll(pkFields);
+		String sql = "UPDATE " + quote + table + quote + " SET " + update.substring(1) + WHERE + wh.substring(5);
+		dbconfig.setSqlStatement(sql);
+		int[] updated = new int[rows.size()];
+		java.util.List<com.basiscomponents.db.DataRow> unknown = new java.util.ArrayList<>();
+		try (CloseableWrapper<java.sql.PreparedStatement> prepw = connectionHelper.prepareStatement(connw, sql)) {
+			java.sql.PreparedStatement prep = prepw.getCloseable();
+			for (int start = 0; start < rows.size(); start += BATCH_SIZE) {
+				java.util.List<com.basiscomponents.db.DataRow> chunk = rows.subList(start, Math.min(rows.size(), start + BATCH_SIZE));
+				for (com.basiscomponents.db.DataRow dr : chunk) {
+					setSqlParams(prep, dr, fields, isBasis);
+					prep.addBatch();
+				}
+				int[] counts = prep.executeBatch();
+				for (int i = 0; i < chunk.size(); i++) {
+					int count = i < counts.length ? counts[i] : java.sql.Statement.EXECUTE_FAILED;
+					if (count == java.sql.Statement.EXECUTE_FAILED)
+						throw new java.sql.SQLException("Update of row " + (start + i + 1) + " of the batch failed: " + sql);
+					if (count == java.sql.Statement.SUCCESS_NO_INFO)
+						unknown.add(chunk.get(i));
+					updated[start + i] = count;
+				}
+			}
+		}
+
+		java.util.Set<com.basiscomponents.db.DataRow> unknownMissing = java.util.Collections.newSetFromMap(new java.util.IdentityHashMap<>());
+		if (!unknown.isEmpty()) {
+			// the driver doesn't tell whether the rows were updated, the updated rows exist now
+			unknownMissing.addAll(selectMissing(connw, connectionHelper, unknown, pkFields, wh, table, dbconfig, isBasis));
+		}
+		java.util.List<com.basiscomponents.db.DataRow> missing = new java.util.ArrayList<>();
+		for (int i = 0; i < rows.size(); i++) {
+			com.basiscomponents.db.DataRow dr = rows.get(i);
+			if (updated[i] == 0 || unknownMissing.contains(dr))
+				missing.add(dr);
+		}
+		return missing;
+	}
+
+	/**
+	 * Returns the rows whose primary key is not in the table.
+	 */
+	private static java.util.List<com.basiscomponents.db.DataRow> selectMissing(CloseableWrapper<java.sql.Connection> connw, SqlConnectionHelper connectionHelper, java.util.List<com.basiscomponents.db.DataRow> rows, java.util.List<String> pkFields, StringBuilder wh, String table, com.basiscomponents.bc.config.DatabaseConfiguration dbconfig, boolean isBasis) throws Exception {
+		String quote = dbconfig.getDbQuoteString();
+		String sql = "SELECT COUNT(*) AS C FROM " + quote + table + quote + WHERE + wh.substring(5);
+		dbconfig.setSqlStatement(sql);
+		java.util.List<com.basiscomponents.db.DataRow> missing = new java.util.ArrayList<>();
+		try (CloseableWrapper<java.sql.PreparedStatement> prepw = connectionHelper.prepareStatement(connw, sql)) {
+			java.sql.PreparedStatement prep = prepw.getCloseable();
+			for (com.basiscomponents.db.DataRow dr : rows) {
+				setSqlParams(prep, dr, pkFields, isBasis);
+				try (java.sql.ResultSet jrs = prep.executeQuery()) {
+					if (!jrs.next() || jrs.getInt(1) == 0)
+						missing.add(dr);
+				}
+			}
+		}
+		return missing;
+	}
+
+	private static void insertAll(CloseableWrapper<java.sql.Connection> connw, SqlConnectionHelper connectionHelper, java.util.List<com.basiscomponents.db.DataRow> rows, java.util.List<String> fieldNames, String table, com.basiscomponents.bc.config.DatabaseConfiguration dbconfig, java.util.Set<String> tableFields, boolean isBasis) throws Exception {
+		if (rows.isEmpty())
+			return;
+		String quote = dbconfig.getDbQuoteString();
+		java.util.List<String> fields = new java.util.ArrayList<>();
+		StringBuilder keys = new StringBuilder();
+		StringBuilder values = new StringBuilder();
+		for (String field : fieldNames) {
+			String field2 = dbconfig.getMapping(field);
+			if (tableFields.contains(field2)) {
+				fields.add(field);
+				keys.append("," + quote + field2 + quote);
+				values.append(",?");
+			}
+		}
+		String sql = "INSERT INTO " + quote + table + quote + " (" + keys.substring(1) + ") VALUES(" + values.substring(1) + ")";
+		dbconfig.setSqlStatement(sql);
+
+		boolean generatedKeys = !dbconfig.getAutoIncrementKeys().isEmpty();
+		try (CloseableWrapper<java.sql.PreparedStatement> prepw = connectionHelper.prepareStatement(connw, sql,
+				generatedKeys ? java.sql.Statement.RETURN_GENERATED_KEYS : java.sql.Statement.NO_GENERATED_KEYS)) {
+			java.sql.PreparedStatement prep = prepw.getCloseable();
+			for (int start = 0; start < rows.size(); start += BATCH_SIZE) {
+				java.util.List<com.basiscomponents.db.DataRow> chunk = rows.subList(start, Math.min(rows.size(), start + BATCH_SIZE));
+				for (com.basiscomponents.db.DataRow dr : chunk) {
+					setSqlParams(prep, dr, fields, isBasis);
+					prep.addBatch();
+				}
+				prep.executeBatch();
+				for (com.basiscomponents.db.DataRow dr : chunk) {
+					dr.setAttribute("CREATED", "TRUE");
+				}
+				if (generatedKeys) {
+					// the keys come in the order of the batch, one row per inserted record
+					try (java.sql.ResultSet gkeys = prep.getGeneratedKeys()) {
+						int columnCount = Math.min(gkeys.getMetaData().getColumnCount(), dbconfig.getAutoIncrementKeys().size());
+						for (int row = 0; row < chunk.size() && gkeys.next(); row++) {
+							for (int i = 0; i < columnCount; i++) {
+								chunk.get(row).setFieldValue(dbconfig.getAutoIncrementKey(i), gkeys.getObject(i + 1));
+							}
+						}
+					}
+				}
+			}
 		}
 	}
 
@@ -17,15 +17,31 @@ public class SQLHelper {
 	 */
 	public static void setSqlParams(java.sql.PreparedStatement prep, com.basiscomponents.db.DataRow dr, java.util.List<String> fields,
 	                                 boolean isBasisDBMS) throws java.sql.SQLException, java.text.ParseException {
+		setSqlParams(prep, dr, fields, isBasisDBMS, 1);
+	}
+
+	/**
+	 * Sets values in a prepared statement using a DataRow, starting at the given
+	 * parameter index. Used to set the values of several DataRows in one statement.
+	 *
+	 * @param prep the prepared statement.
+	 * @param dr a DataRow containing the values for the prepared statement.
+	 * @param fields the field names to set, all fields from dr if null.
+	 * @param startIndex the index of the first parameter to set (1 based).
+	 * @return the index of the next parameter after the ones set.
+	 * @throws SQLException is thrown when a value cannot be set.
+	 */
+	public static int setSqlParams(java.sql.PreparedStatement prep, com.basiscomponents.db.DataRow dr, java.util.List<String> fields,
+	                                 boolean isBasisDBMS, int startIndex) throws java.sql.SQLException, java.text.ParseException {
 		if (prep == null || dr == null) {
-			return;
+			return startIndex;
 		}
 
 		if (fields == null) {
-			fields = dr.getFieldNames();
+			fields = dr.getFieldNamesView();
 		}
 
-		int index = 1;
+		int index = startIndex;
 		for (String field : fields) {
 			int type;
 			com.basiscomponents.db.DataField o;
@@ -53,7 +69,7 @@ public class SQLHelper {
 				continue;
 			} else if (o.getValue() instanceof String && ((String) o.getValue()).startsWith("cond:")) {
 				com.basiscomponents.db.DataRow drv = getPreparedWhereClauseValues(((String) o.getValue()).substring(5), type);
-				for (String expField : drv.getFieldNames()) {
+				for (String expField : drv.getFieldNamesView()) {
 					prep.setObject(index, drv.getFieldValue(expField));
 					index++;
 				}
@@ -62,6 +78,7 @@ public class SQLHelper {
 			setPreparedStatementType(prep, isBasisDBMS, index, type, o);
 			index++;
 		}
+		return index;
 	}
 	private static void setPreparedStatementType(java.sql.PreparedStatement prep, boolean isBasisDBMS,
 	                                             int index, Integer type, com.basiscomponents.db.DataField o) throws SQLException {
@@ -123,7 +140,7 @@ public class SQLHelper {
 	}
 	public static void setParameters(com.basiscomponents.db.DataRow params, java.sql.PreparedStatement prep) {
 		int i = 1;
-		for (String p : params.getFieldNames()) {
+		for (String p : params.getFieldNamesView()) {
 			try {
 				prep.setObject(i, params.getFieldValue(p));
 			} catch (SQLException e) {
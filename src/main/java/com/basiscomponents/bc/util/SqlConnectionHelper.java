@@ -2,7 +2,9 @@ package com.basiscomponents.bc.util;
 
 import java.sql.Connection;
 import java.sql.DriverManager;
+import java.sql.PreparedStatement;
 import java.sql.SQLException;
+import java.sql.Statement;
 
 /**
  * 
@@ -17,6 +19,9 @@ public class SqlConnectionHelper {
 	private String user;
 	private String password;
 	private Connection connection;
+	private SqlConnectionPool pool;
+	private String metaDataCacheKey;
+	private StatementCache statementCache;
 
 	public SqlConnectionHelper(String url) {
 		this.url = url;
@@ -33,12 +38,21 @@ public class SqlConnectionHelper {
 	public SqlConnectionHelper(Connection con) throws SQLException {
 		if (con != null && !con.isClosed()) {
 			connection = con;
+			// the statements stay open as long as this helper, not as long as the connection
+			statementCache = new StatementCache();
 		}
 	}
 
 	public CloseableWrapper<Connection> getConnection() throws SQLException {
 		if (connection != null) {
-			return new CloseableWrapper<>(connection,false);
+			if (statementCache != null && connection.isClosed()) {
+				// the owner closed the connection, and with it the statements
+				statementCache.clear();
+			}
+			return new CloseableWrapper<>(connection,false).withStatementCache(statementCache);
+		}
+		if (pool != null) {
+			return pool.getConnection();
 		}
 		if (user == null || password == null) {
 			return new CloseableWrapper<>(DriverManager.getConnection(url), true);
@@ -47,6 +61,151 @@ public class SqlConnectionHelper {
 		}
 	}
 
+	/**
+	 * Switches between opening a new connection for every request and borrowing
+	 * connections from the shared {@link SqlConnectionPool} of the URL and user.
+	 *
+	 * @param enabled true to use the pool.
+	 * @throws IllegalStateException if the helper was created with a connection.
+	 */
+	public void setConnectionPooling(boolean enabled) {
+		if (connection != null)
+			throw new IllegalStateException("Connection pooling is not available when a connection was passed");
+		pool = enabled ? SqlConnectionPool.getPool(url, user, password) : null;
+	}
+
+	/**
+	 * Borrows the connections from the given pool instead of the shared pool, f.g.
+	 * a pool with other settings.
+	 *
+	 * @param pool the connection pool, null to disable pooling.
+	 * @throws IllegalStateException if the helper was created with a connection.
+	 */
+	public void setConnectionPool(SqlConnectionPool pool) {
+		if (connection != null)
+			throw new IllegalStateException("Connection pooling is not available when a connection was passed");
+		this.pool = pool;
+	}
+
+	/**
+	 * Returns the connection pool in use, {@code null} if pooling is disabled.
+	 *
+	 * @return the connection pool.
+	 */
+	public SqlConnectionPool getConnectionPool() {
+		return pool;
+	}
+
+	/**
+	 * Returns the key identifying the database in the {@link TableMetaDataCache}.
+	 *
+	 * @return the URL and user of the database.
+	 */
+	public String getMetaDataCacheKey() {
+		if (metaDataCacheKey == null) {
+			if (connection == null) {
+				metaDataCacheKey = user == null ? url : url + '\u0000' + user;
+			} else {
+				try {
+					java.sql.DatabaseMetaData meta = connection.getMetaData();
+					if (meta.getURL() != null)
+						metaDataCacheKey = meta.getURL() + '\u0000' + meta.getUserName();
+				} catch (SQLException | RuntimeException e) {
+					// handled below
+				}
+				if (metaDataCacheKey == null) {
+					// the connection does not tell where it goes to, don't share its metadata
+					metaDataCacheKey = "connection@" + System.identityHashCode(connection);
+				}
+			}
+		}
+		return metaDataCacheKey;
+	}
+
+	/**
+	 * Prepares a statement on a connection returned by {@link #getConnection()}.
+	 * <p>
+	 * If the connection is long living (passed in the constructor or taken from
+	 * the connection pool), the statement is taken from the statement cache of the
+	 * connection. Closing the wrapper returns the statement to the cache.
+	 *
+	 * @param connw the wrapped connection.
+	 * @param sql   the SQL statement.
+	 * @return the wrapped prepared statement.
+	 * @throws SQLException thrown if the statement cannot be prepared.
+	 */
+	public CloseableWrapper<PreparedStatement> prepareStatement(CloseableWrapper<Connection> connw, String sql)
+			throws SQLException {
+		return prepareStatement(connw, sql, Statement.NO_GENERATED_KEYS);
+	}
+
+	/**
+	 * Prepares a statement like {@link #prepareStatement(CloseableWrapper, String)}.
+	 *
+	 * @param connw             the wrapped connection.
+	 * @param sql               the SQL statement.
+	 * @param autoGeneratedKeys {@link Statement#RETURN_GENERATED_KEYS} or
+	 *                          {@link Statement#NO_GENERATED_KEYS}.
+	 * @return the wrapped prepared statement.
+	 * @throws SQLException thrown if the statement cannot be prepared.
+	 */
+	public CloseableWrapper<PreparedStatement> prepareStatement(CloseableWrapper<Connection> connw, String sql,
+			int autoGeneratedKeys) throws SQLException {
+		StatementCache cache = connw.getStatementCache();
+		if (cache != null) {
+			return cache.prepareStatement(connw.getCloseable(), sql, autoGeneratedKeys);
+		}
+		return prepareUncachedStatement(connw, sql, autoGeneratedKeys);
+	}
+
+	/**
+	 * Prepares a statement which is closed with the wrapper, also on a long
+	 * living connection. Used for SQL which is unlikely to be executed again, so
+	 * it doesn't push the frequent statements out of the cache.
+	 *
+	 * @param connw the wrapped connection.
+	 * @param sql   the SQL statement.
+	 * @return the wrapped prepared statement.
+	 * @throws SQLException thrown if the statement cannot be prepared.
+	 */
+	public CloseableWrapper<PreparedStatement> prepareUncachedStatement(CloseableWrapper<Connection> connw, String sql)
+			throws SQLException {
+		return prepareUncachedStatement(connw, sql, Statement.NO_GENERATED_KEYS);
+	}
+
+	private static CloseableWrapper<PreparedStatement> prepareUncachedStatement(CloseableWrapper<Connection> connw,
+			String sql, int autoGeneratedKeys) throws SQLException {
+		if (autoGeneratedKeys == Statement.RETURN_GENERATED_KEYS) {
+			return new CloseableWrapper<>(connw.getCloseable().prepareStatement(sql, autoGeneratedKeys), true);
+		}
+		return new CloseableWrapper<>(connw.getCloseable().prepareStatement(sql), true);
+	}
+
+	/**
+	 * Returns how often a prepared statement was taken from the statement cache.
+	 * The cache of a connection passed in the constructor belongs to this helper.
+	 *
+	 * @return the number of cache hits.
+	 */
+	public long getStatementCacheHits() {
+		if (pool != null)
+			return pool.getStatementCacheHits();
+		return statementCache == null ? 0 : statementCache.getHits();
+	}
+
+	/**
+	 * Returns how often a statement had to be prepared because it was not in the
+	 * statement cache. Statements of connections which are closed after each use
+	 * are not counted.
+	 *
+	 * @return the number of cache misses.
+	 */
+	public long getStatementCacheMisses() {
+		if (pool != null)
+			return pool.getStatementCacheMisses();
+		return statementCache == null ? 0 : statementCache.getMisses();
+	}
+
 	public void closeConnection(Connection conn) {
 		try {
 			if (connection == null && conn != null && !conn.isClosed()) {
@@ -0,0 +1,643 @@
+package com.basiscomponents.bc.util;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A bounded pool of JDBC connections to one database URL and user.
+ * <p>
+ * Connections are validated with {@link Connection#isValid(int)} before they
+ * are handed out. Connections which have been idle longer than
+ * {@link #getMaxIdleTime()} or which are older than {@link #getMaxLifetime()}
+ * are closed instead of being reused. Eviction happens whenever a connection
+ * is borrowed or returned, no background thread is started.
+ * <p>
+ * If all connections are in use, {@link #getConnection()} waits up to
+ * {@link #getConnectionTimeout()} milliseconds for a connection to be returned.
+ * <p>
+ * The pools are shared per URL, user and password, see
+ * {@link #getPool(String, String, String)}. The settings of a shared pool can't
+ * be changed, as they would change for all its users. A component which needs
+ * other settings creates its own pool.
+ */
+public class SqlConnectionPool implements AutoCloseable {
+
+	private static final Logger LOGGER = Logger.getLogger(SqlConnectionPool.class.getName());
+
+	private static final Map<String, SqlConnectionPool> POOLS = new ConcurrentHashMap<>();
+
+	private final String url;
+	private final String user;
+	private final String password;
+	private boolean shared;
+
+	private int maxPoolSize = 10;
+	private long connectionTimeout = 30000;
+	private long maxIdleTime = 600000;
+	private long maxLifetime = 1800000;
+	private int validationTimeout = 5;
+
+	private final ReentrantLock lock = new ReentrantLock();
+	private final Condition available = lock.newCondition();
+	private final Deque<PooledConnection> idle = new ArrayDeque<>();
+	private int active;
+	private boolean closed;
+
+	private long waitCount;
+	private long totalWaitTime;
+	private long maxWaitTime;
+
+	private int statementCacheSize = StatementCache.DEFAULT_SIZE;
+	private final AtomicLong statementCacheHits = new AtomicLong();
+	private final AtomicLong statementCacheMisses = new AtomicLong();
+
+	/**
+	 * Creates a new connection pool.
+	 *
+	 * @param url      the database URL.
+	 * @param user     the name of the database user, can be {@code null}.
+	 * @param password the password of the database user, can be {@code null}.
+	 */
+	public SqlConnectionPool(String url, String user, String password) {
+		this.url = url;
+		this.user = user;
+		this.password = password;
+	}
+
+	/**
+	 * Returns the shared pool for the given URL, user and password, creating it
+	 * on first use. A caller with another password gets another pool, so it never
+	 * borrows a connection opened with the password of someone else, and a
+	 * changed password is used from then on.
+	 *
+	 * @param url      the database URL.
+	 * @param user     the name of the database user, can be {@code null}.
+	 * @param password the password of the database user, can be {@code null}.
+	 * @return the shared connection pool.
+	 */
+	public static SqlConnectionPool getPool(String url, String user, String password) {
+		// don't keep the password itself in the key
+		String key = url + '\u0000' + user + '\u0000' + hash(password);
+		return POOLS.compute(key, (k, pool) -> {
+			if (pool != null && !pool.isClosed())
+				return pool;
+			SqlConnectionPool created = new SqlConnectionPool(url, user, password);
+			created.shared = true;
+			return created;
+		});
+	}
+
+	private static String hash(String password) {
+		if (password == null)
+			return "";
+		try {
+			byte[] digest = MessageDigest.getInstance("SHA-256").digest(password.getBytes(StandardCharsets.UTF_8));
+			StringBuilder sb = new StringBuilder(digest.length * 2);
+			for (byte b : digest)
+				sb.append(String.format("%02x", b));
+			return sb.toString();
+		} catch (NoSuchAlgorithmException e) {
+			// every Java platform has to support SHA-256
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * Returns true for the pools returned by
+	 * {@link #getPool(String, String, String)}, their settings can't be changed.
+	 *
+	 * @return true if the pool is shared.
+	 */
+	public boolean isShared() {
+		return shared;
+	}
+
+	private void checkNotShared() {
+		if (shared)
+			throw new IllegalStateException("The settings of a shared connection pool can't be changed");
+	}
+
+	/**
+	 * Closes all shared pools returned by {@link #getPool(String, String, String)}.
+	 */
+	public static void closeAll() {
+		Iterator<SqlConnectionPool> it = POOLS.values().iterator();
+		while (it.hasNext()) {
+			it.next().close();
+			it.remove();
+		}
+	}
+
+	/**
+	 * Borrows a connection from the pool. Closing the returned wrapper gives the
+	 * connection back to the pool.
+	 *
+	 * @return the wrapped connection.
+	 * @throws SQLException thrown if no connection could be established, or if
+	 *                      no connection became available within the connection
+	 *                      timeout.
+	 */
+	public CloseableWrapper<Connection> getConnection() throws SQLException {
+		PooledConnection pc = borrow();
+		CloseableWrapper<Connection> connw = new CloseableWrapper<Connection>(pc.connection, false) {
+			private boolean returned;
+
+			@Override
+			public void close() {
+				if (!returned) {
+					returned = true;
+					release(pc);
+				}
+			}
+		};
+		return connw.withStatementCache(pc.statements);
+	}
+
+	private PooledConnection borrow() throws SQLException {
+		long start = System.nanoTime();
+		long deadline = start + TimeUnit.MILLISECONDS.toNanos(connectionTimeout);
+		boolean waited = false;
+		lock.lock();
+		try {
+			while (true) {
+				if (closed)
+					throw new SQLException("The connection pool is closed");
+				PooledConnection pc = idle.pollFirst();
+				if (pc != null) {
+					active++;
+					// validate outside the lock, isValid may be a round trip to the database
+					lock.unlock();
+					boolean usable = false;
+					boolean validated = false;
+					try {
+						long now = System.currentTimeMillis();
+						usable = isUsable(pc, now);
+						validated = true;
+						if (usable)
+							pc.lastUsed = now;
+					} finally {
+						try {
+							if (!usable)
+								closeQuietly(pc);
+						} finally {
+							lock.lock();
+							if (!validated) {
+								// the validation failed with an exception, give the slot back
+								active--;
+								available.signal();
+							}
+						}
+					}
+					if (usable) {
+						recordWait(waited, start);
+						return pc;
+					}
+					active--;
+					continue;
+				}
+				if (active < maxPoolSize) {
+					active++;
+					lock.unlock();
+					try {
+						PooledConnection created = new PooledConnection(openConnection(),
+								new StatementCache(statementCacheSize, statementCacheHits, statementCacheMisses));
+						lock.lock();
+						recordWait(waited, start);
+						return created;
+					} catch (SQLException | RuntimeException e) {
+						lock.lock();
+						active--;
+						available.signal();
+						throw e;
+					}
+				}
+				long remaining = deadline - System.nanoTime();
+				if (remaining <= 0) {
+					recordWait(true, start);
+					throw new SQLException("Timeout after " + connectionTimeout
+							+ "ms waiting for a connection, all " + maxPoolSize + " connections are in use");
+				}
+				waited = true;
+				try {
+					available.awaitNanos(remaining);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new SQLException("Interrupted while waiting for a connection", e);
+				}
+			}
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	private void release(PooledConnection pc) {
+		// the connection was in use until now, only its lifetime can be exceeded
+		long now = System.currentTimeMillis();
+		pc.lastUsed = now;
+		boolean reuse = !isExpired(pc, now) && pc.reset();
+		List<PooledConnection> expired;
+		lock.lock();
+		try {
+			active--;
+			if (reuse && !closed) {
+				idle.addFirst(pc);
+				expired = removeExpiredConnections(now);
+			} else {
+				expired = new ArrayList<>(1);
+				expired.add(pc);
+			}
+			available.signal();
+		} finally {
+			lock.unlock();
+		}
+		// closing may be a round trip to the database, don't block other threads meanwhile
+		expired.forEach(SqlConnectionPool::closeQuietly);
+	}
+
+	/**
+	 * Closes all idle connections which have exceeded the maximum idle time or
+	 * lifetime.
+	 */
+	public void evictIdleConnections() {
+		List<PooledConnection> expired;
+		lock.lock();
+		try {
+			expired = removeExpiredConnections(System.currentTimeMillis());
+		} finally {
+			lock.unlock();
+		}
+		expired.forEach(SqlConnectionPool::closeQuietly);
+	}
+
+	private List<PooledConnection> removeExpiredConnections(long now) {
+		List<PooledConnection> expired = new ArrayList<>();
+		Iterator<PooledConnection> it = idle.iterator();
+		while (it.hasNext()) {
+			PooledConnection pc = it.next();
+			if (isExpired(pc, now)) {
+				it.remove();
+				expired.add(pc);
+			}
+		}
+		return expired;
+	}
+
+	private Connection openConnection() throws SQLException {
+		if (user == null || password == null) {
+			return DriverManager.getConnection(url);
+		}
+		return DriverManager.getConnection(url, user, password);
+	}
+
+	private boolean isExpired(PooledConnection pc, long now) {
+		return (maxLifetime > 0 && now - pc.created >= maxLifetime)
+				|| (maxIdleTime > 0 && now - pc.lastUsed >= maxIdleTime);
+	}
+
+	private boolean isUsable(PooledConnection pc, long now) {
+		if (isExpired(pc, now))
+			return false;
+		try {
+			return pc.connection.isValid(validationTimeout);
+		} catch (SQLException e) {
+			return false;
+		}
+	}
+
+	private static void closeQuietly(PooledConnection pc) {
+		pc.statements.clear();
+		closeQuietly(pc.connection);
+	}
+
+	private static void closeQuietly(Connection connection) {
+		try {
+			connection.close();
+		} catch (SQLException e) {
+			LOGGER.log(Level.FINE, "Error closing pooled connection", e);
+		}
+	}
+
+	private void recordWait(boolean waited, long start) {
+		if (!waited)
+			return;
+		long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+		waitCount++;
+		totalWaitTime += elapsed;
+		maxWaitTime = Math.max(maxWaitTime, elapsed);
+	}
+
+	/**
+	 * Closes all idle connections and rejects further requests. Connections
+	 * which are still in use are closed when they are returned.
+	 */
+	@Override
+	public void close() {
+		List<PooledConnection> connections;
+		lock.lock();
+		try {
+			closed = true;
+			connections = new ArrayList<>(idle);
+			idle.clear();
+			available.signalAll();
+		} finally {
+			lock.unlock();
+		}
+		connections.forEach(SqlConnectionPool::closeQuietly);
+	}
+
+	public boolean isClosed() {
+		lock.lock();
+		try {
+			return closed;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Returns the number of connections currently borrowed from the pool.
+	 *
+	 * @return the number of active connections.
+	 */
+	public int getActiveConnections() {
+		lock.lock();
+		try {
+			return active;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Returns the number of open connections waiting in the pool.
+	 *
+	 * @return the number of idle connections.
+	 */
+	public int getIdleConnections() {
+		lock.lock();
+		try {
+			return idle.size();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Returns how often a caller had to wait for a connection because all
+	 * connections were in use.
+	 *
+	 * @return the number of waits.
+	 */
+	public long getWaitCount() {
+		lock.lock();
+		try {
+			return waitCount;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Returns the accumulated time callers waited for a connection.
+	 *
+	 * @return the total wait time in milliseconds.
+	 */
+	public long getTotalWaitTime() {
+		lock.lock();
+		try {
+			return totalWaitTime;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Returns the longest time a caller waited for a connection.
+	 *
+	 * @return the maximum wait time in milliseconds.
+	 */
+	public long getMaxWaitTime() {
+		lock.lock();
+		try {
+			return maxWaitTime;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Returns how often a prepared statement was taken from the statement caches
+	 * of the pooled connections.
+	 *
+	 * @return the number of cache hits.
+	 */
+	public long getStatementCacheHits() {
+		return statementCacheHits.get();
+	}
+
+	/**
+	 * Returns how often a statement had to be prepared because it was not in the
+	 * statement cache of the pooled connection.
+	 *
+	 * @return the number of cache misses.
+	 */
+	public long getStatementCacheMisses() {
+		return statementCacheMisses.get();
+	}
+
+	public int getStatementCacheSize() {
+		return statementCacheSize;
+	}
+
+	/**
+	 * Sets the number of prepared statements cached per connection. The size
+	 * applies to connections opened afterwards.
+	 *
+	 * @param statementCacheSize the number of statements, 0 to disable caching.
+	 * @throws IllegalStateException thrown if the pool is shared.
+	 */
+	public void setStatementCacheSize(int statementCacheSize) {
+		checkNotShared();
+		if (statementCacheSize < 0)
+			throw new IllegalArgumentException("Cache size must not be negative");
+		this.statementCacheSize = statementCacheSize;
+	}
+
+	public int getMaxPoolSize() {
+		return maxPoolSize;
+	}
+
+	/**
+	 * Sets the maximum number of connections, idle and active, the pool opens.
+	 *
+	 * @param maxPoolSize the maximum number of connections, at least 1.
+	 * @throws IllegalStateException thrown if the pool is shared.
+	 */
+	public void setMaxPoolSize(int maxPoolSize) {
+		checkNotShared();
+		if (maxPoolSize < 1)
+			throw new IllegalArgumentException("Pool size must be at least 1");
+		lock.lock();
+		try {
+			this.maxPoolSize = maxPoolSize;
+			available.signalAll();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	public long getConnectionTimeout() {
+		return connectionTimeout;
+	}
+
+	/**
+	 * Sets how long {@link #getConnection()} waits for a connection if all
+	 * connections are in use.
+	 *
+	 * @param connectionTimeout the timeout in milliseconds.
+	 * @throws IllegalStateException thrown if the pool is shared.
+	 */
+	public void setConnectionTimeout(long connectionTimeout) {
+		checkNotShared();
+		if (connectionTimeout < 0)
+			throw new IllegalArgumentException("Connection timeout must not be negative");
+		this.connectionTimeout = connectionTimeout;
+	}
+
+	public long getMaxIdleTime() {
+		return maxIdleTime;
+	}
+
+	/**
+	 * Sets how long a connection may stay unused in the pool before it is closed.
+	 *
+	 * @param maxIdleTime the idle time in milliseconds, 0 to keep idle
+	 *                    connections open.
+	 * @throws IllegalStateException thrown if the pool is shared.
+	 */
+	public void setMaxIdleTime(long maxIdleTime) {
+		checkNotShared();
+		if (maxIdleTime < 0)
+			throw new IllegalArgumentException("Idle time must not be negative");
+		this.maxIdleTime = maxIdleTime;
+	}
+
+	public long getMaxLifetime() {
+		return maxLifetime;
+	}
+
+	/**
+	 * Sets the maximum age of a connection. Older connections are closed when
+	 * they are returned to or taken from the pool.
+	 *
+	 * @param maxLifetime the lifetime in milliseconds, 0 for no limit.
+	 * @throws IllegalStateException thrown if the pool is shared.
+	 */
+	public void setMaxLifetime(long maxLifetime) {
+		checkNotShared();
+		if (maxLifetime < 0)
+			throw new IllegalArgumentException("Lifetime must not be negative");
+		this.maxLifetime = maxLifetime;
+	}
+
+	public int getValidationTimeout() {
+		return validationTimeout;
+	}
+
+	/**
+	 * Sets the timeout passed to {@link Connection#isValid(int)} when a
+	 * connection is taken from the pool.
+	 *
+	 * @param validationTimeout the timeout in seconds, 0 for no timeout.
+	 * @throws IllegalStateException thrown if the pool is shared.
+	 */
+	public void setValidationTimeout(int validationTimeout) {
+		checkNotShared();
+		if (validationTimeout < 0)
+			throw new IllegalArgumentException("Validation timeout must not be negative");
+		this.validationTimeout = validationTimeout;
+	}
+
+	private static final class PooledConnection {
+		private final Connection connection;
+		private final StatementCache statements;
+		private final long created;
+		private long lastUsed;
+		// settings of the new connection, restored on release
+		private final boolean readOnly;
+		private final int transactionIsolation;
+		private final String catalog;
+		private final String schema;
+
+		private PooledConnection(Connection connection, StatementCache statements) throws SQLException {
+			this.connection = connection;
+			this.statements = statements;
+			this.created = System.currentTimeMillis();
+			this.lastUsed = created;
+			try {
+				this.readOnly = connection.isReadOnly();
+				this.transactionIsolation = connection.getTransactionIsolation();
+				this.catalog = connection.getCatalog();
+			} catch (SQLException | RuntimeException e) {
+				closeQuietly(connection);
+				throw e;
+			}
+			this.schema = getSchema(connection);
+		}
+
+		private static String getSchema(Connection connection) {
+			try {
+				return connection.getSchema();
+			} catch (SQLException | AbstractMethodError e) {
+				// drivers before JDBC 4.1 don't know the schema of a connection
+				return null;
+			}
+		}
+
+		/**
+		 * Brings a returned connection back into the state it had when it was
+		 * opened, so the next borrower does not inherit an open transaction or the
+		 * settings of the previous borrower.
+		 */
+		private boolean reset() {
+			try {
+				if (connection.isClosed())
+					return false;
+				if (!connection.getAutoCommit()) {
+					connection.rollback();
+					connection.setAutoCommit(true);
+				}
+				if (connection.isReadOnly() != readOnly)
+					connection.setReadOnly(readOnly);
+				if (connection.getTransactionIsolation() != transactionIsolation)
+					connection.setTransactionIsolation(transactionIsolation);
+				if (catalog != null && !catalog.equals(connection.getCatalog()))
+					connection.setCatalog(catalog);
+				if (schema != null && !schema.equals(getSchema(connection)))
+					connection.setSchema(schema);
+				connection.clearWarnings();
+				return true;
+			} catch (SQLException | RuntimeException e) {
+				LOGGER.log(Level.FINE, "Discarding pooled connection", e);
+				return false;
+			}
+		}
+	}
+}
@@ -0,0 +1,225 @@
+package com.basiscomponents.bc.util;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * LRU cache of the prepared statements of one connection, keyed by the SQL
+ * text.
+ * <p>
+ * A statement returned by {@link #prepareStatement(Connection, String, int)}
+ * stays open when the wrapper is closed and is handed out again for the same
+ * SQL text. While a statement is in use, a request for the same SQL text gets
+ * a new, uncached statement. Evicted statements are closed as soon as they are
+ * no longer in use.
+ * <p>
+ * The settings a caller changes on a statement, like the fetch size or the
+ * maximum number of rows, are reset when the statement is returned.
+ * <p>
+ * The cache belongs to the owner of the connection, a pooled connection or the
+ * {@link SqlConnectionHelper} it was passed to, and is dropped together with
+ * it. Call {@link #clear()} to close the statements earlier.
+ */
+public class StatementCache {
+
+	private static final Logger LOGGER = Logger.getLogger(StatementCache.class.getName());
+
+	public static final int DEFAULT_SIZE = 50;
+
+	private final LinkedHashMap<String, Entry> statements = new LinkedHashMap<>(16, 0.75f, true);
+	private final AtomicLong hits;
+	private final AtomicLong misses;
+	private int maxSize;
+
+	public StatementCache() {
+		this(DEFAULT_SIZE, new AtomicLong(), new AtomicLong());
+	}
+
+	/**
+	 * Creates a cache which counts hits and misses in the given counters, so the
+	 * caches of several connections can report combined numbers.
+	 */
+	StatementCache(int maxSize, AtomicLong hits, AtomicLong misses) {
+		this.maxSize = maxSize;
+		this.hits = hits;
+		this.misses = misses;
+	}
+
+	/**
+	 * Returns a prepared statement for the SQL text, from the cache if possible.
+	 *
+	 * @param conn              the connection the cache belongs to.
+	 * @param sql               the SQL statement.
+	 * @param autoGeneratedKeys {@link Statement#RETURN_GENERATED_KEYS} or
+	 *                          {@link Statement#NO_GENERATED_KEYS}.
+	 * @return the wrapped statement, closing the wrapper returns the statement to
+	 *         the cache.
+	 * @throws SQLException thrown if the statement cannot be prepared.
+	 */
+	public synchronized CloseableWrapper<PreparedStatement> prepareStatement(Connection conn, String sql,
+			int autoGeneratedKeys) throws SQLException {
+		String key = autoGeneratedKeys == Statement.RETURN_GENERATED_KEYS ? "K:" + sql : sql;
+		Entry entry = statements.get(key);
+		if (entry != null && !entry.inUse) {
+			if (!entry.statement.isClosed()) {
+				hits.incrementAndGet();
+				entry.inUse = true;
+				return new CachedStatement(entry);
+			}
+			statements.remove(key);
+			entry = null;
+		}
+		misses.incrementAndGet();
+		PreparedStatement ps = autoGeneratedKeys == Statement.RETURN_GENERATED_KEYS
+				? conn.prepareStatement(sql, autoGeneratedKeys)
+				: conn.prepareStatement(sql);
+		if (entry != null || maxSize == 0) {
+			// the cached statement is in use, f.g. by a nested retrieve
+			return new CloseableWrapper<>(ps, true);
+		}
+		try {
+			entry = new Entry(ps, ps.getFetchSize(), ps.getMaxRows(), ps.getQueryTimeout());
+		} catch (SQLException e) {
+			closeQuietly(ps);
+			throw e;
+		}
+		entry.inUse = true;
+		statements.put(key, entry);
+		evict();
+		return new CachedStatement(entry);
+	}
+
+	public CloseableWrapper<PreparedStatement> prepareStatement(Connection conn, String sql) throws SQLException {
+		return prepareStatement(conn, sql, Statement.NO_GENERATED_KEYS);
+	}
+
+	private void evict() {
+		Iterator<Entry> it = statements.values().iterator();
+		while (statements.size() > maxSize && it.hasNext()) {
+			Entry eldest = it.next();
+			it.remove();
+			eldest.evicted = true;
+			if (!eldest.inUse)
+				closeQuietly(eldest.statement);
+		}
+	}
+
+	private synchronized void release(Entry entry) {
+		entry.inUse = false;
+		if (entry.evicted) {
+			closeQuietly(entry.statement);
+			return;
+		}
+		try {
+			PreparedStatement ps = entry.statement;
+			ps.clearParameters();
+			ps.clearBatch();
+			if (ps.getMaxRows() != entry.maxRows)
+				ps.setMaxRows(entry.maxRows);
+			if (ps.getFetchSize() != entry.fetchSize)
+				ps.setFetchSize(entry.fetchSize);
+			if (ps.getQueryTimeout() != entry.queryTimeout)
+				ps.setQueryTimeout(entry.queryTimeout);
+		} catch (SQLException e) {
+			entry.evicted = true;
+			statements.values().remove(entry);
+			closeQuietly(entry.statement);
+		}
+	}
+
+	/**
+	 * Closes all cached statements which are not in use and empties the cache.
+	 */
+	public synchronized void clear() {
+		for (Entry entry : statements.values()) {
+			entry.evicted = true;
+			if (!entry.inUse)
+				closeQuietly(entry.statement);
+		}
+		statements.clear();
+	}
+
+	private static void closeQuietly(PreparedStatement ps) {
+		try {
+			ps.close();
+		} catch (SQLException e) {
+			LOGGER.log(Level.FINE, "Error closing cached statement", e);
+		}
+	}
+
+	public synchronized int size() {
+		return statements.size();
+	}
+
+	public synchronized int getMaxSize() {
+		return maxSize;
+	}
+
+	/**
+	 * Sets the maximum number of cached statements.
+	 *
+	 * @param maxSize the number of statements, 0 to disable caching.
+	 */
+	public synchronized void setMaxSize(int maxSize) {
+		if (maxSize < 0)
+			throw new IllegalArgumentException("Cache size must not be negative");
+		this.maxSize = maxSize;
+		evict();
+	}
+
+	/**
+	 * @return the number of statements taken from the cache.
+	 */
+	public long getHits() {
+		return hits.get();
+	}
+
+	/**
+	 * @return the number of statements which had to be prepared.
+	 */
+	public long getMisses() {
+		return misses.get();
+	}
+
+	private static final class Entry {
+		private final PreparedStatement statement;
+		// settings of the new statement, restored on release
+		private final int fetchSize;
+		private final int maxRows;
+		private final int queryTimeout;
+		private boolean inUse;
+		private boolean evicted;
+
+		private Entry(PreparedStatement statement, int fetchSize, int maxRows, int queryTimeout) {
+			this.statement = statement;
+			this.fetchSize = fetchSize;
+			this.maxRows = maxRows;
+			this.queryTimeout = queryTimeout;
+		}
+	}
+
+	private final class CachedStatement extends CloseableWrapper<PreparedStatement> {
+		private final Entry entry;
+		private boolean returned;
+
+		private CachedStatement(Entry entry) {
+			super(entry.statement, false);
+			this.entry = entry;
+		}
+
+		@Override
+		public void close() {
+			if (!returned) {
+				returned = true;
+				release(entry);
+			}
+		}
+	}
+}
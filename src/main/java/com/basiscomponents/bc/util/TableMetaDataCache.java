@@ -0,0 +1,242 @@
+package com.basiscomponents.bc.util;
+
+import static com.basiscomponents.bc.util.Constants.COLUMN_NAME;
+
+import java.sql.DatabaseMetaData;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Cache for the JDBC column and primary key metadata of tables.
+ * <p>
+ * Reading the metadata with {@link DatabaseMetaData#getColumns} is expensive on
+ * some databases, so it is read once per database and table and shared by all
+ * components. The database is identified by the key returned from
+ * {@link SqlConnectionHelper#getMetaDataCacheKey()}.
+ * <p>
+ * The cache does not notice changes to the table definition by itself. The
+ * writes of {@link DataRowWriter} read the metadata again if a row has a field
+ * which the cached table doesn't have, or if a write fails and the table
+ * definition changed meanwhile. Other callers use one of the
+ * {@code invalidate} methods after altering a table.
+ */
+public class TableMetaDataCache {
+
+	private static final Map<String, Map<String, TableMetaData>> CACHE = new ConcurrentHashMap<>();
+
+	private TableMetaDataCache() {
+	}
+
+	/**
+	 * Returns the metadata of a table, reading it from the database metadata if it
+	 * is not cached yet.
+	 *
+	 * @param key   the key identifying the database.
+	 * @param table the name of the table, a {@code null} table is not cached.
+	 * @param meta  the metadata of a connection to the database, only used if the
+	 *              table is not cached.
+	 * @return the table metadata.
+	 * @throws SQLException thrown if the metadata cannot be read.
+	 */
+	public static TableMetaData get(String key, String table, DatabaseMetaData meta) throws SQLException {
+		if (table == null)
+			return TableMetaData.read(meta, null);
+		Map<String, TableMetaData> tables = CACHE.computeIfAbsent(key, k -> new ConcurrentHashMap<>());
+		TableMetaData tmd = tables.get(table);
+		if (tmd == null) {
+			tmd = TableMetaData.read(meta, table);
+			TableMetaData previous = tables.putIfAbsent(table, tmd);
+			if (previous != null)
+				tmd = previous;
+		}
+		return tmd;
+	}
+
+	/**
+	 * Reads the metadata of a table from the database metadata again and replaces
+	 * the cached metadata with it.
+	 *
+	 * @param key   the key identifying the database.
+	 * @param table the name of the table.
+	 * @param meta  the metadata of a connection to the database.
+	 * @return the table metadata.
+	 * @throws SQLException thrown if the metadata cannot be read.
+	 */
+	public static TableMetaData reload(String key, String table, DatabaseMetaData meta) throws SQLException {
+		TableMetaData tmd = TableMetaData.read(meta, table);
+		if (table != null)
+			CACHE.computeIfAbsent(key, k -> new ConcurrentHashMap<>()).put(table, tmd);
+		return tmd;
+	}
+
+	/**
+	 * Removes the cached metadata of one table.
+	 *
+	 * @param key   the key identifying the database.
+	 * @param table the name of the table.
+	 */
+	public static void invalidate(String key, String table) {
+		Map<String, TableMetaData> tables = CACHE.get(key);
+		if (tables != null)
+			tables.remove(table);
+	}
+
+	/**
+	 * Removes the cached metadata of all tables of a database.
+	 *
+	 * @param key the key identifying the database.
+	 */
+	public static void invalidate(String key) {
+		CACHE.remove(key);
+	}
+
+	/**
+	 * Removes all cached metadata.
+	 */
+	public static void invalidateAll() {
+		CACHE.clear();
+	}
+
+	/**
+	 * The column and primary key metadata of one table.
+	 */
+	public static final class TableMetaData {
+
+		private final Map<String, Column> columns;
+		private final List<String> primaryKeys;
+		private final List<String> autoIncrementKeys;
+		// fields of written rows which the table didn't have when it was read
+		private final Set<String> missingColumns = ConcurrentHashMap.newKeySet();
+
+		private TableMetaData(Map<String, Column> columns, List<String> primaryKeys, List<String> autoIncrementKeys) {
+			this.columns = Collections.unmodifiableMap(columns);
+			this.primaryKeys = Collections.unmodifiableList(primaryKeys);
+			this.autoIncrementKeys = Collections.unmodifiableList(autoIncrementKeys);
+		}
+
+		private static TableMetaData read(DatabaseMetaData meta, String table) throws SQLException {
+			Map<String, Column> columns = new LinkedHashMap<>();
+			List<String> autoIncrementKeys = new ArrayList<>();
+			try (java.sql.ResultSet metaColumns = meta.getColumns(null, null, table, null)) {
+				java.sql.ResultSetMetaData rsmd = metaColumns.getMetaData();
+				int columnCount = rsmd.getColumnCount();
+				while (metaColumns.next()) {
+					String name = metaColumns.getString(COLUMN_NAME);
+					// IS_AUTOINCREMENT=23 (BBj doesn't support the IS_AUTOINCREMENT property)
+					if (columnCount > 22 && "YES".equals(metaColumns.getString("IS_AUTOINCREMENT")))
+						autoIncrementKeys.add(name);
+
+					Map<String, String> attributes = new HashMap<>();
+					for (int i = 1; i <= columnCount; i++) {
+						try {
+							String value = metaColumns.getString(i);
+							if (value != null)
+								attributes.put(rsmd.getColumnName(i), value);
+						} catch (Exception e) {
+							// do nothing
+						}
+					}
+					columns.put(name, new Column(metaColumns.getInt("DATA_TYPE"), attributes));
+				}
+			}
+
+			List<String> primaryKeys = new ArrayList<>();
+			try (java.sql.ResultSet pks = meta.getPrimaryKeys(null, null, table)) {
+				while (pks.next()) {
+					primaryKeys.add(pks.getString(COLUMN_NAME));
+				}
+			}
+			return new TableMetaData(columns, primaryKeys, autoIncrementKeys);
+		}
+
+		/**
+		 * @return the names of the table columns, in the order of the JDBC metadata.
+		 */
+		public Set<String> getColumnNames() {
+			return columns.keySet();
+		}
+
+		public boolean containsColumn(String column) {
+			return columns.containsKey(column);
+		}
+
+		/**
+		 * @param column the name of the column.
+		 * @return true if the table doesn't have the column and no row with the
+		 *         column was written since the metadata was read.
+		 */
+		boolean isUnknownColumn(String column) {
+			return !columns.containsKey(column) && !missingColumns.contains(column);
+		}
+
+		/**
+		 * Remembers the columns which the table doesn't have, so the metadata isn't
+		 * read again for each row with these fields.
+		 *
+		 * @param names the names of the columns.
+		 */
+		void addMissingColumns(Collection<String> names) {
+			for (String name : names) {
+				if (!columns.containsKey(name))
+					missingColumns.add(name);
+			}
+		}
+
+		/**
+		 * @param other the metadata to compare with.
+		 * @return true if both have the same columns with the same SQL types.
+		 */
+		public boolean hasSameColumns(TableMetaData other) {
+			if (!columns.keySet().equals(other.columns.keySet()))
+				return false;
+			for (Map.Entry<String, Column> column : columns.entrySet()) {
+				if (column.getValue().type != other.columns.get(column.getKey()).type)
+					return false;
+			}
+			return true;
+		}
+
+		/**
+		 * @param column the name of the column.
+		 * @return the SQL type of the column.
+		 */
+		public int getColumnType(String column) {
+			return columns.get(column).type;
+		}
+
+		/**
+		 * @param column the name of the column.
+		 * @return the non-null values of the {@link DatabaseMetaData#getColumns}
+		 *         result of the column, keyed by their label.
+		 */
+		public Map<String, String> getColumnAttributes(String column) {
+			return columns.get(column).attributes;
+		}
+
+		public Collection<String> getPrimaryKeys() {
+			return primaryKeys;
+		}
+
+		public Collection<String> getAutoIncrementKeys() {
+			return autoIncrementKeys;
+		}
+	}
+
+	private static final class Column {
+		private final int type;
+		private final Map<String, String> attributes;
+
+		private Column(int type, Map<String, String> attributes) {
+			this.type = type;
+			this.attributes = Collections.unmodifiableMap(attributes);
+		}
+	}
+}
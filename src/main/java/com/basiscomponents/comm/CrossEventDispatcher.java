@@ -63,6 +63,14 @@ public class CrossEventDispatcher  {
 	}
 	
 	public void postPriorityCustomEvent(String tag, String payload) throws Exception {
+		postPriorityCustomEvent(tag, (Object) payload);
+	}
+
+	/**
+	 * Posts a priority custom event with any object as payload, f.g. a DataRow
+	 * decoded from a websocket message, to the interpreter registered for the tag.
+	 */
+	public void postPriorityCustomEvent(String tag, Object payload) throws Exception {
 		if (DEBUG)
 			System.out.println("postPriorityCustomEvent");
 		
@@ -27,6 +27,8 @@ package com.basiscomponents.comm;
 import com.basis.bbj.proxies.BBjAPI;
 import com.basis.bbj.proxies.BBjNamespace;
 import com.basis.startup.type.BBjException;
+import com.basiscomponents.db.DataRow;
+import com.basiscomponents.db.ResultSet;
 import org.java_websocket.WebSocket;
 import org.java_websocket.handshake.ClientHandshake;
 import org.java_websocket.server.WebSocketServer;
@@ -41,6 +43,7 @@ import java.security.KeyStoreException;
 import java.security.NoSuchAlgorithmException;
 import java.security.UnrecoverableKeyException;
 import java.security.cert.CertificateException;
+import java.text.ParseException;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Iterator;
@@ -52,6 +55,7 @@ public class WsServer extends WebSocketServer {
 	
 	private HashMap<String,ArrayList<WebSocket>> ConList;
 	private CrossEventDispatcher EDispatcher;
+	private volatile boolean decodeJson = false;
 	public static Boolean DEBUG = false;  
 
 	public WsServer( int port ) throws UnknownHostException {
@@ -92,6 +96,22 @@ public class WsServer extends WebSocketServer {
 		this.EDispatcher = ed;
 	}
 
+	/**
+	 * Lets the server decode JSON messages into a DataRow (JSON object) or a
+	 * ResultSet (JSON array) right from the bytes of the websocket frame, and post
+	 * these objects instead of the message String. Other messages are still
+	 * posted as String.
+	 * 
+	 * @param decodeJson true to post JSON messages as DataRow or ResultSet
+	 */
+	public void setDecodeJson(boolean decodeJson) {
+		this.decodeJson = decodeJson;
+	}
+
+	public boolean isDecodeJson() {
+		return decodeJson;
+	}
+
 	@Override
 	public void onClose( WebSocket conn, int code, String reason, boolean remote ) {
 		//TODO: add a self-healing cleanup; check all connections for being closed and delete them
@@ -125,6 +145,59 @@ public class WsServer extends WebSocketServer {
 	}
 
 
+	@Override
+	public boolean onWebsocketTextPayload( WebSocket conn, ByteBuffer payload ) {
+		if (!this.decodeJson || this.EDispatcher == null)
+			return false;
+
+		Object message = decodeJson(payload);
+		if (message == null)
+			return false;
+
+		String tag = getTag(conn.getResourceDescriptor());
+		if (DEBUG)
+			System.out.println( "received JSON message for "+tag +": "+ message );
+
+		try {
+			this.EDispatcher.postPriorityCustomEvent(tag, message);
+
+			if (DEBUG)
+				System.out.println( "successfully passed message to EventDispatcher" );
+
+		} catch (Exception e) {
+			e.printStackTrace();
+		}
+		return true;
+	}
+
+	/**
+	 * Parses the JSON in the payload without decoding it into a String.
+	 * 
+	 * @return the DataRow or ResultSet, null if the payload is no JSON object or
+	 *         array.
+	 */
+	private static Object decodeJson(ByteBuffer payload) {
+		int i = payload.position();
+		while (i < payload.limit() && Character.isWhitespace(payload.get(i)))
+			i++;
+		if (i == payload.limit())
+			return null;
+		try {
+			switch (payload.get(i)) {
+			case '{':
+				return DataRow.fromJson(payload, null);
+			case '[':
+				return ResultSet.fromJson(payload);
+			default:
+				return null;
+			}
+		} catch (IOException | ParseException | RuntimeException e) {
+			if (DEBUG)
+				System.out.println( "message is no valid JSON, passing it as String: "+ e.getMessage() );
+			return null;
+		}
+	}
+
 	@Override
 	public void onMessage( WebSocket conn, ByteBuffer message ) {
 //		broadcast( message.array() );
@@ -134,7 +207,10 @@ public class WsServer extends WebSocketServer {
 		
 		if (this.EDispatcher != null) {
 			try {
-				this.EDispatcher.postPriorityCustomEvent(tag, message.toString());
+				Object payload = this.decodeJson ? decodeJson(message) : null;
+				if (payload == null)
+					payload = message.toString();
+				this.EDispatcher.postPriorityCustomEvent(tag, payload);
 				
 				if (DEBUG)
 					System.out.println( "successfully passed message to EventDispatcher" );
@@ -0,0 +1,265 @@
+package com.basiscomponents.db;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Secondary index on a column of a ResultSet, see
+ * {@link ResultSet#createIndex(String, boolean)}.<br>
+ * <br>
+ * The index maps the values of the column to the positions of the DataRows
+ * holding them. A hash index is keyed by the String value of the field, which
+ * is what a simple filter condition compares. A sorted index is ordered like
+ * the {@link DataFieldComparator} and serves the ranges of "cond:" conditions.
+ * The positions of a value are kept in ascending order.<br>
+ * <br>
+ * Appending, replacing and removing the last DataRow update the index in
+ * place. Inserting or removing in the middle, which moves the following
+ * DataRows, and changing a field of the column mark the index as stale, it is
+ * rebuilt by the next lookup. So a series of such changes costs one rebuild.<br>
+ * <br>
+ * Lookups return the positions of all DataRows which may match, the caller
+ * still tests each of them against the condition.
+ */
+final class ColumnIndex {
+
+	private final String column;
+
+	private final Map<String, Positions> hashEntries;
+
+	private final NavigableMap<DataRow, Positions> sortedEntries;
+
+	private boolean stale;
+
+	ColumnIndex(String column, boolean sorted) {
+		this.column = column;
+		if (sorted) {
+			this.hashEntries = null;
+			this.sortedEntries = new TreeMap<>(new DataFieldComparator(column));
+		} else {
+			this.hashEntries = new HashMap<>();
+			this.sortedEntries = null;
+		}
+	}
+
+	boolean isSorted() {
+		return sortedEntries != null;
+	}
+
+	void build(List<DataRow> rows) {
+		entries().clear();
+		stale = false;
+		int position = 0;
+		for (DataRow row : rows) {
+			add(row, position++);
+		}
+	}
+
+	void clear() {
+		entries().clear();
+		stale = false;
+	}
+
+	/**
+	 * Discards the entries, the index has to be built again before the next
+	 * lookup.
+	 */
+	void invalidate() {
+		entries().clear();
+		stale = true;
+	}
+
+	boolean isStale() {
+		return stale;
+	}
+
+	/**
+	 * Adds the DataRow inserted at the given position. If the DataRows after it
+	 * were moved, the index is invalidated instead.
+	 */
+	void inserted(int position, DataRow row, boolean last) {
+		if (stale)
+			return;
+		if (last)
+			add(row, position);
+		else
+			invalidate();
+	}
+
+	/**
+	 * Removes the DataRow removed from the given position. If the DataRows after
+	 * it were moved, the index is invalidated instead.
+	 */
+	void removed(int position, DataRow row, boolean last) {
+		if (stale)
+			return;
+		if (last)
+			remove(row, position);
+		else
+			invalidate();
+	}
+
+	void replaced(int position, DataRow previous, DataRow row) {
+		if (stale)
+			return;
+		remove(previous, position);
+		add(row, position);
+	}
+
+	/**
+	 * Returns the positions of the DataRows with the given String value, in
+	 * ascending order. Only available for a hash index.
+	 */
+	int[] find(String value) {
+		Positions positions = hashEntries.get(value);
+		return positions == null ? new int[0] : positions.toArray();
+	}
+
+	/**
+	 * Returns the positions of the DataRows matching the operator and operand of a
+	 * "cond:" condition, in ascending order, or null if the index can't narrow
+	 * them down. Only available for a sorted index.
+	 */
+	int[] find(String function, DataRow operand) {
+		switch (function) {
+		case "<":
+			return toArray(sortedEntries.headMap(operand, false).values());
+		case "<=":
+		case "=<":
+			return toArray(sortedEntries.headMap(operand, true).values());
+		case ">":
+			return toArray(sortedEntries.tailMap(operand, false).values());
+		case ">=":
+		case "=>":
+			return toArray(sortedEntries.tailMap(operand, true).values());
+		case "!":
+			return null;
+		default:
+			return toArray(sortedEntries.subMap(operand, true, operand, true).values());
+		}
+	}
+
+	/**
+	 * Merges two ascending arrays of positions.
+	 */
+	static int[] union(int[] a, int[] b) {
+		int[] result = new int[a.length + b.length];
+		int i = 0;
+		int j = 0;
+		int n = 0;
+		while (i < a.length || j < b.length) {
+			int next;
+			if (j >= b.length || i < a.length && a[i] <= b[j])
+				next = a[i++];
+			else
+				next = b[j++];
+			if (n == 0 || result[n - 1] != next)
+				result[n++] = next;
+		}
+		return n == result.length ? result : Arrays.copyOf(result, n);
+	}
+
+	private Map<?, Positions> entries() {
+		return hashEntries != null ? hashEntries : sortedEntries;
+	}
+
+	private void add(DataRow row, int position) {
+		DataField field = row.getField(column, true);
+		if (field == null)
+			return;
+		if (hashEntries != null) {
+			hashEntries.computeIfAbsent(field.getString(), k -> new Positions()).add(position);
+		} else {
+			Positions positions = sortedEntries.get(row);
+			if (positions == null) {
+				// the key holds a copy of the value, the DataRow itself may change later on
+				DataRow key = new DataRow();
+				key.addDataField(column, row.getFieldType(column), new DataField(field.getObject()));
+				positions = new Positions();
+				sortedEntries.put(key, positions);
+			}
+			positions.add(position);
+		}
+	}
+
+	private void remove(DataRow row, int position) {
+		if (row == null || row.getField(column, true) == null)
+			return;
+		// the sorted index finds the entry by comparing the DataRow itself
+		Object key = hashEntries != null ? row.getField(column).getString() : row;
+		Positions positions = entries().get(key);
+		if (positions != null && positions.remove(position)) {
+			if (positions.isEmpty())
+				entries().remove(key);
+			return;
+		}
+		// the DataField of the DataRow was changed directly after it had been indexed
+		Iterator<Positions> it = entries().values().iterator();
+		while (it.hasNext()) {
+			positions = it.next();
+			if (positions.remove(position)) {
+				if (positions.isEmpty())
+					it.remove();
+				return;
+			}
+		}
+	}
+
+	private static int[] toArray(Collection<Positions> values) {
+		int size = 0;
+		for (Positions positions : values) {
+			size += positions.size;
+		}
+		int[] result = new int[size];
+		int n = 0;
+		for (Positions positions : values) {
+			System.arraycopy(positions.positions, 0, result, n, positions.size);
+			n += positions.size;
+		}
+		Arrays.sort(result);
+		return result;
+	}
+
+	/**
+	 * The ascending positions of the DataRows holding one value.
+	 */
+	private static final class Positions {
+		private int[] positions = new int[1];
+		private int size;
+
+		private void add(int position) {
+			if (size == positions.length)
+				positions = Arrays.copyOf(positions, size * 2);
+			int index = size == 0 || positions[size - 1] < position ? size
+					: -Arrays.binarySearch(positions, 0, size, position) - 1;
+			if (index < 0)
+				return; // already present
+			System.arraycopy(positions, index, positions, index + 1, size - index);
+			positions[index] = position;
+			size++;
+		}
+
+		private boolean remove(int position) {
+			int index = Arrays.binarySearch(positions, 0, size, position);
+			if (index < 0)
+				return false;
+			System.arraycopy(positions, index + 1, positions, index, size - index - 1);
+			size--;
+			return true;
+		}
+
+		private boolean isEmpty() {
+			return size == 0;
+		}
+
+		private int[] toArray() {
+			return Arrays.copyOf(positions, size);
+		}
+	}
+}
@@ -0,0 +1,499 @@
+package com.basiscomponents.db;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.basiscomponents.db.util.DataFieldConverter;
+
+/**
+ * Column oriented copy of a ResultSet.<br>
+ * <br>
+ * Instead of one DataRow with a map of DataField objects per row, the values of
+ * each column are held in one typed vector: <code>int[]</code>,
+ * <code>long[]</code> and <code>double[]</code> for numeric columns, dictionary
+ * encoded codes for String columns and a bitmap for Boolean columns. Null values
+ * are tracked in a separate bitmap per column. Columns holding any other or mixed
+ * types keep their plain values.<br>
+ * <br>
+ * Scans over a few columns of a large ResultSet, like {@link #sum(String)},
+ * {@link #min(String)}, {@link #max(String)} or {@link #countByGroup(String)},
+ * run directly on the vectors without touching any DataRow or DataField.<br>
+ * <br>
+ * <b>Note: </b> The ColumnarResultSet is a snapshot. Changes made to the
+ * ResultSet it was created from are not reflected.
+ *
+ * @see ResultSet#toColumnar()
+ */
+public class ColumnarResultSet {
+
+	private final ResultSet schema;
+
+	private final Column[] columns;
+
+	private final Map<String, Integer> columnIndex = new HashMap<>();
+
+	private final int size;
+
+	/**
+	 * Creates the column vectors from the DataRows of the given ResultSet.
+	 *
+	 * @param rs
+	 *            The ResultSet to copy
+	 */
+	public ColumnarResultSet(ResultSet rs) {
+		this.schema = rs.cloneSchema();
+		this.size = rs.size();
+		List<String> names = this.schema.getColumnNames();
+		this.columns = new Column[names.size()];
+
+		List<DataRow> rows = rs.getDataRows();
+		Object[] values = new Object[this.size];
+		for (int col = 0; col < names.size(); col++) {
+			String name = names.get(col);
+			this.columnIndex.put(name, col);
+			for (int row = 0; row < this.size; row++) {
+				DataField field = rows.get(row).getField(name, true);
+				values[row] = field == null ? null : field.getValue();
+			}
+			this.columns[col] = createColumn(values, this.size, this.schema, col);
+		}
+	}
+
+	/**
+	 * Returns the number of rows.
+	 *
+	 * @return the number of rows
+	 */
+	public int size() {
+		return this.size;
+	}
+
+	private int getColumnIndex(String name) {
+		Integer col = this.columnIndex.get(name);
+		if (col == null)
+			throw new IllegalArgumentException("Column " + name + " does not exist");
+		return col;
+	}
+
+	/**
+	 * Returns the sum of all values of the given column.
+	 *
+	 * @see ResultSet#sum(String)
+	 *
+	 * @param fieldname
+	 *            The column name
+	 *
+	 * @return the sum
+	 */
+	public Double sum(String fieldname) {
+		return this.columns[getColumnIndex(fieldname)].sum();
+	}
+
+	/**
+	 * Returns the min value of the given column.
+	 *
+	 * @see ResultSet#min(String)
+	 *
+	 * @param fieldname
+	 *            The column name
+	 *
+	 * @return the min value, 0 if there are no rows
+	 */
+	public Double min(String fieldname) {
+		Column c = this.columns[getColumnIndex(fieldname)];
+		double s = 0.0;
+		for (int row = 0; row < this.size; row++) {
+			double d = c.getNumber(row);
+			if (row == 0 || d < s)
+				s = d;
+		}
+		return s;
+	}
+
+	/**
+	 * Returns the max value of the given column.
+	 *
+	 * @see ResultSet#max(String)
+	 *
+	 * @param fieldname
+	 *            The column name
+	 *
+	 * @return the max value, 0 if there are no rows
+	 */
+	public Double max(String fieldname) {
+		Column c = this.columns[getColumnIndex(fieldname)];
+		double s = 0.0;
+		for (int row = 0; row < this.size; row++) {
+			double d = c.getNumber(row);
+			if (row == 0 || d > s)
+				s = d;
+		}
+		return s;
+	}
+
+	/**
+	 * Returns the average value of the given column.
+	 *
+	 * @see ResultSet#avg(String)
+	 *
+	 * @param fieldname
+	 *            The column name
+	 *
+	 * @return the average value
+	 */
+	public Double avg(String fieldname) {
+		return sum(fieldname) / this.size;
+	}
+
+	/**
+	 * Returns a DataRow with the distinct values of the given column as field
+	 * names and the number of their occurrences as field values, like
+	 * {@link ResultSet#countByGroup(String)}.
+	 *
+	 * @param fieldname
+	 *            The column name
+	 *
+	 * @return the DataRow with the counts
+	 *
+	 * @throws Exception
+	 */
+	public DataRow countByGroup(String fieldname) throws Exception {
+		Column c = this.columns[getColumnIndex(fieldname)];
+		Map<String, Integer> counts = c.countByValue(this.size);
+		DataRow dr = new DataRow();
+		for (Map.Entry<String, Integer> entry : counts.entrySet()) {
+			dr.setFieldValue(entry.getKey(), entry.getValue());
+			dr.setFieldAttribute(entry.getKey(), "label", entry.getKey());
+		}
+		return dr;
+	}
+
+	private static Column createColumn(Object[] values, int size, ResultSet schema, int col) {
+		Class<?> cls = null;
+		for (int row = 0; row < size; row++) {
+			if (values[row] == null)
+				continue;
+			if (cls == null)
+				cls = values[row].getClass();
+			else if (cls != values[row].getClass()) {
+				cls = Object.class;
+				break;
+			}
+		}
+
+		Column c;
+		if (cls == Integer.class)
+			c = new IntColumn(size);
+		else if (cls == Long.class)
+			c = new LongColumn(size);
+		else if (cls == Double.class)
+			c = new DoubleColumn(size);
+		else if (cls == Boolean.class)
+			c = new BooleanColumn(size);
+		else if (cls == String.class)
+			c = new StringColumn(size);
+		else
+			c = new ObjectColumn(size);
+
+		c.schema = schema;
+		c.column = col;
+		c.type = schema.getColumnType(col);
+		for (int row = 0; row < size; row++) {
+			if (values[row] == null)
+				c.nulls.set(row);
+			else
+				c.set(row, values[row]);
+		}
+		return c;
+	}
+
+	private abstract static class Column {
+
+		final BitSet nulls = new BitSet();
+
+		ResultSet schema;
+
+		int column;
+
+		int type;
+
+		abstract void set(int row, Object value);
+
+		abstract Object getValue(int row);
+
+		final Object get(int row) {
+			return nulls.get(row) ? null : getValue(row);
+		}
+
+		double getNumber(int row) {
+			return DataFieldConverter.fieldToNumber(schema, new DataField(get(row)), column, type);
+		}
+
+		String getString(int row) {
+			if (nulls.get(row))
+				return "";
+			return new DataField(getValue(row)).getString();
+		}
+
+		double sum() {
+			double s = 0.0;
+			int size = rowCount();
+			for (int row = 0; row < size; row++) {
+				s += getNumber(row);
+			}
+			return s;
+		}
+
+		abstract int rowCount();
+
+		Map<String, Integer> countByValue(int size) {
+			Map<String, Integer> counts = new LinkedHashMap<>();
+			for (int row = 0; row < size; row++) {
+				counts.merge(getString(row), 1, Integer::sum);
+			}
+			return counts;
+		}
+
+		/**
+		 * @return the numeric value of a null field, following DataFieldConverter.fieldToNumber
+		 */
+		final double nullNumber() {
+			if (type == java.sql.Types.DATE || type == java.sql.Types.TIMESTAMP
+					|| type == java.sql.Types.TIMESTAMP_WITH_TIMEZONE)
+				return -1d;
+			return 0.0;
+		}
+
+		final boolean isNumericType() {
+			switch (type) {
+			case java.sql.Types.INTEGER:
+			case java.sql.Types.SMALLINT:
+			case java.sql.Types.TINYINT:
+			case java.sql.Types.BIGINT:
+			case java.sql.Types.DECIMAL:
+			case java.sql.Types.NUMERIC:
+			case java.sql.Types.DOUBLE:
+			case java.sql.Types.FLOAT:
+			case java.sql.Types.REAL:
+				return true;
+			default:
+				return false;
+			}
+		}
+	}
+
+	private static final class IntColumn extends Column {
+
+		private final int[] values;
+
+		IntColumn(int size) {
+			this.values = new int[size];
+		}
+
+		@Override
+		void set(int row, Object value) {
+			values[row] = (Integer) value;
+		}
+
+		@Override
+		Object getValue(int row) {
+			return values[row];
+		}
+
+		@Override
+		int rowCount() {
+			return values.length;
+		}
+
+		@Override
+		double getNumber(int row) {
+			if (!isNumericType())
+				return super.getNumber(row);
+			return nulls.get(row) ? nullNumber() : values[row];
+		}
+
+		@Override
+		double sum() {
+			if (!isNumericType())
+				return super.sum();
+			long s = 0;
+			for (int row = 0; row < values.length; row++) {
+				s += values[row];
+			}
+			return s;
+		}
+	}
+
+	private static final class LongColumn extends Column {
+
+		private final long[] values;
+
+		LongColumn(int size) {
+			this.values = new long[size];
+		}
+
+		@Override
+		void set(int row, Object value) {
+			values[row] = (Long) value;
+		}
+
+		@Override
+		Object getValue(int row) {
+			return values[row];
+		}
+
+		@Override
+		int rowCount() {
+			return values.length;
+		}
+
+		@Override
+		double getNumber(int row) {
+			if (!isNumericType())
+				return super.getNumber(row);
+			return nulls.get(row) ? nullNumber() : values[row];
+		}
+	}
+
+	private static final class DoubleColumn extends Column {
+
+		private final double[] values;
+
+		DoubleColumn(int size) {
+			this.values = new double[size];
+		}
+
+		@Override
+		void set(int row, Object value) {
+			values[row] = (Double) value;
+		}
+
+		@Override
+		Object getValue(int row) {
+			return values[row];
+		}
+
+		@Override
+		int rowCount() {
+			return values.length;
+		}
+
+		@Override
+		double getNumber(int row) {
+			if (!isNumericType())
+				return super.getNumber(row);
+			return nulls.get(row) ? nullNumber() : values[row];
+		}
+	}
+
+	private static final class BooleanColumn extends Column {
+
+		private final BitSet values = new BitSet();
+
+		private final int size;
+
+		BooleanColumn(int size) {
+			this.size = size;
+		}
+
+		@Override
+		void set(int row, Object value) {
+			values.set(row, (Boolean) value);
+		}
+
+		@Override
+		Object getValue(int row) {
+			return values.get(row);
+		}
+
+		@Override
+		int rowCount() {
+			return size;
+		}
+	}
+
+	private static final class StringColumn extends Column {
+
+		private final int[] codes;
+
+		private final List<String> dictionary = new ArrayList<>();
+
+		private final Map<String, Integer> lookup = new HashMap<>();
+
+		StringColumn(int size) {
+			this.codes = new int[size];
+		}
+
+		@Override
+		void set(int row, Object value) {
+			codes[row] = lookup.computeIfAbsent((String) value, v -> {
+				dictionary.add(v);
+				return dictionary.size() - 1;
+			});
+		}
+
+		@Override
+		Object getValue(int row) {
+			return dictionary.get(codes[row]);
+		}
+
+		@Override
+		String getString(int row) {
+			return nulls.get(row) ? "" : dictionary.get(codes[row]);
+		}
+
+		@Override
+		int rowCount() {
+			return codes.length;
+		}
+
+		@Override
+		Map<String, Integer> countByValue(int size) {
+			// count the dictionary codes first, nulls are counted on the extra last slot
+			int nullCode = dictionary.size();
+			int[] counts = new int[nullCode + 1];
+			int[] order = new int[nullCode + 1];
+			int distinct = 0;
+			for (int row = 0; row < size; row++) {
+				int code = nulls.get(row) ? nullCode : codes[row];
+				if (counts[code]++ == 0)
+					order[distinct++] = code;
+			}
+
+			Map<String, Integer> ret = new LinkedHashMap<>();
+			for (int i = 0; i < distinct; i++) {
+				int code = order[i];
+				ret.merge(code == nullCode ? "" : dictionary.get(code), counts[code], Integer::sum);
+			}
+			return ret;
+		}
+	}
+
+	private static final class ObjectColumn extends Column {
+
+		private final Object[] values;
+
+		ObjectColumn(int size) {
+			this.values = new Object[size];
+		}
+
+		@Override
+		void set(int row, Object value) {
+			values[row] = value;
+		}
+
+		@Override
+		Object getValue(int row) {
+			return values[row];
+		}
+
+		@Override
+		int rowCount() {
+			return values.length;
+		}
+	}
+}
@@ -168,6 +168,8 @@ public class DataField implements java.io.Serializable {
 	 */
 	public String getString() {
 
+		if (this.Value instanceof String)
+			return (String) this.Value;
 		try {
 			return (String) convertType(this.Value, java.sql.Types.VARCHAR);
 		} catch (Exception e) {
@@ -215,7 +217,7 @@ public class DataField implements java.io.Serializable {
 	 * @return value The DataField's value as <code>java.lang.Long</code> object.
 	 */
 	public Long getLong() {
-		if (this.Value != null && (getClassName() == "java.lang.Integer")) {
+		if (this.Value instanceof Integer) {
 			// make this work the same as STR(Boolean.TRUE) in BBj
 			// for compatibility reasons.
 			// If it's a problem, we might introduce a COMPAT flag later.
@@ -232,7 +234,7 @@ public class DataField implements java.io.Serializable {
 	 */
 	public BigDecimal getBigDecimal() {
 		
-		if (this.Value != null && (getClassName() == "java.lang.Double")) {
+		if (this.Value instanceof Double) {
 			// make this work the same as STR(Boolean.TRUE) in BBj
 			// for compatibility reasons.
 			// If it's a problem, we might introduce a COMPAT flag later.
@@ -261,7 +263,7 @@ public class DataField implements java.io.Serializable {
 	 * @return value The DataField's value as <code>java.lang.Float</code> object.
 	 */
 	public Float getFloat() {
-		if (this.Value != null && (getClassName() == "java.lang.Double" || getClassName().contains("BasisNumber") || getClassName().contains("BasisInt"))) {
+		if (this.Value instanceof Double || (this.Value != null && (getClassName().contains("BasisNumber") || getClassName().contains("BasisInt")))) {
 			// make this work the same as STR(Boolean.TRUE) in BBj
 			// for compatibility reasons.
 			// If it's a problem, we might introduce a COMPAT flag later.
@@ -278,25 +280,25 @@ public class DataField implements java.io.Serializable {
 	 */
 	public Date getDate() {
 		if (this.Value != null) {
-			if (getClassName() == "java.sql.Timestamp") {
+			if (this.Value instanceof java.sql.Timestamp) {
 				long ms = ((java.sql.Timestamp) this.Value).getTime();
 				return new java.sql.Date(ms);
 			}
-			if (getClassName() == "java.lang.Integer") {
+			if (this.Value instanceof Integer) {
 				java.util.Date d = com.basis.util.BasisDate.date((Integer) this.Value);
 				if (d != null)
 					return new java.sql.Date(d.getTime());
 				else
 					return null;
 			}
-			if (getClassName() == "java.lang.Double") {
+			if (this.Value instanceof Double) {
 				java.util.Date d = com.basis.util.BasisDate.date(((Double) this.Value).intValue());
 				if (d != null)
 					return new java.sql.Date(d.getTime());
 				else
 					return null;
 			}
-			if (getClassName() == "java.lang.String") {
+			if (this.Value instanceof String) {
 				String s = (String) this.Value;
 				if (s.isEmpty() || s.equals("-1"))
 					return null;
@@ -327,11 +329,11 @@ public class DataField implements java.io.Serializable {
 	 *         object.
 	 */
 	public Timestamp getTimestamp() {
-		if (this.Value != null && getClassName() == "java.sql.Date") {
+		if (this.Value instanceof java.sql.Date) {
 			long ms = ((java.sql.Date) this.Value).getTime();
 			return new java.sql.Timestamp(ms);
 		}
-		if (this.Value != null && getClassName() == "java.lang.String") {
+		if (this.Value instanceof String) {
 			String s = (String) this.Value;
 			if (s.isEmpty())
 				return null;
@@ -428,6 +430,120 @@ public class DataField implements java.io.Serializable {
 
 	}
 
+	/**
+	 * Returns <code>true</code> in case the DataField's value is
+	 * <code>null</code>, <code>false</code> otherwise.
+	 * 
+	 * @return isNull True if the DataField's value is <code>null</code>.
+	 */
+	public boolean isNull() {
+		return this.Value == null;
+	}
+
+	/**
+	 * Returns the DataField's value as primitive <code>int</code> without creating
+	 * a wrapper object. Any numeric value is narrowed to an <code>int</code>,
+	 * numeric Strings are parsed, Booleans return 1 or 0 and <code>null</code>
+	 * returns 0.
+	 * 
+	 * @throws IllegalStateException if the value can't be read as a number.
+	 * 
+	 * @return value The DataField's value as <code>int</code>.
+	 */
+	public int getIntValue() {
+		if (this.Value instanceof Number)
+			return ((Number) this.Value).intValue();
+		if (this.Value == null)
+			return 0;
+		if (this.Value instanceof Boolean)
+			return (Boolean) this.Value ? 1 : 0;
+		return toBigDecimal("int").intValue();
+	}
+
+	/**
+	 * Returns the DataField's value as primitive <code>long</code> without
+	 * creating a wrapper object. Any numeric value is converted to a
+	 * <code>long</code>, numeric Strings are parsed, Booleans return 1 or 0 and
+	 * <code>null</code> returns 0.
+	 * 
+	 * @throws IllegalStateException if the value can't be read as a number.
+	 * 
+	 * @return value The DataField's value as <code>long</code>.
+	 */
+	public long getLongValue() {
+		if (this.Value instanceof Number)
+			return ((Number) this.Value).longValue();
+		if (this.Value == null)
+			return 0L;
+		if (this.Value instanceof Boolean)
+			return (Boolean) this.Value ? 1L : 0L;
+		return toBigDecimal("long").longValue();
+	}
+
+	/**
+	 * Returns the DataField's value as primitive <code>double</code> without
+	 * creating a wrapper object. Any numeric value is converted to a
+	 * <code>double</code>, numeric Strings are parsed, Booleans return 1 or 0 and
+	 * <code>null</code> returns 0.
+	 * 
+	 * @throws IllegalStateException if the value can't be read as a number.
+	 * 
+	 * @return value The DataField's value as <code>double</code>.
+	 */
+	public double getDoubleValue() {
+		if (this.Value instanceof Number)
+			return ((Number) this.Value).doubleValue();
+		if (this.Value == null)
+			return 0.0;
+		if (this.Value instanceof Boolean)
+			return (Boolean) this.Value ? 1.0 : 0.0;
+		return toBigDecimal("double").doubleValue();
+	}
+
+	/**
+	 * Returns the DataField's value as primitive <code>boolean</code> without
+	 * creating a wrapper object. Numeric values greater than 0 are
+	 * <code>true</code>, <code>null</code> is <code>false</code>.
+	 * 
+	 * @see #getBoolean()
+	 * 
+	 * @throws IllegalStateException if the value is neither a String nor a
+	 *                               number.
+	 * 
+	 * @return value The DataField's value as <code>boolean</code>.
+	 */
+	public boolean getBooleanValue() {
+		if (this.Value instanceof Boolean)
+			return (Boolean) this.Value;
+		if (this.Value == null)
+			return false;
+		if (this.Value instanceof Number)
+			return ((Number) this.Value).doubleValue() > 0;
+		if (this.Value instanceof String || getClassName().contains("BasisNumber"))
+			return getBoolean();
+		throw new IllegalStateException("The DataField's value of type " + getClassName() + " can't be read as boolean");
+	}
+
+	/**
+	 * Converts a value which is neither a Number nor a Boolean for the primitive
+	 * getters. Blank Strings are 0, like in the DataFieldConverter.
+	 */
+	private BigDecimal toBigDecimal(String type) {
+		if (this.Value instanceof String) {
+			String text = ((String) this.Value).trim();
+			if (text.isEmpty())
+				return BigDecimal.ZERO;
+			try {
+				return new BigDecimal(text);
+			} catch (NumberFormatException e) {
+				throw new IllegalStateException("The DataField's value \"" + text + "\" is not a number and can't be read as " + type, e);
+			}
+		}
+		if (getClassName().contains("BasisNumber"))
+			return getBigDecimal();
+		throw new IllegalStateException("The DataField's value of type " + getClassName() + " can't be read as " + type);
+	}
+
 	/**
 	 * Returns the DataField's value as <code>java.sql.Ref</code> object.
 	 * 
@@ -3,12 +3,14 @@ package com.basiscomponents.db;
 import static com.basiscomponents.db.util.DataRowMatcherProvider.createMatcher;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.math.BigDecimal;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.text.ParseException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
@@ -47,7 +49,15 @@ public class DataRow implements java.io.Serializable {
 
 	private final Map<String, String> attributes = new HashMap<>();
 
-	private final ResultSet resultSet; // containing this row
+	/**
+	 * Shared, read-only column metadata used by DataRows that have not yet added
+	 * or removed a field on their own.
+	 */
+	private static final ResultSet EMPTY_SCHEMA = new ResultSet();
+
+	private ResultSet resultSet; // column metadata, containing this row
+
+	private boolean sharedSchema; // true if the metadata must be copied before it's changed
 
 	private byte[] rowKey = new byte[0];
 
@@ -59,16 +69,25 @@ public class DataRow implements java.io.Serializable {
 
 	private boolean templateChanged;
 
+	private transient Map<String, Long> fieldVersions; // only while tracked by a ResultSet
+
+	private transient long version;
+
+	private transient List<ResultSet> indexOwners; // ResultSets with a column index, once per occurrence of this DataRow
+
 	/**
 	 * Instantiates a new DataRow object.
 	 */
 	public DataRow() {
-		this.resultSet = new com.basiscomponents.db.ResultSet();
+		this.resultSet = EMPTY_SCHEMA;
+		this.sharedSchema = true;
 	}
 
 	/**
 	 * Instantiates a new DataRow object and sets the column metadata to the given
-	 * ResultSet object's column metadata.
+	 * ResultSet object's column metadata. The metadata is shared with the
+	 * ResultSet until this DataRow adds or removes a field, in which case the
+	 * DataRow continues on its own copy.
 	 *
 	 * @param resultSet
 	 *            The ResultSet whose column metadata will be used for this new
@@ -76,6 +95,7 @@ public class DataRow implements java.io.Serializable {
 	 */
 	public DataRow(com.basiscomponents.db.ResultSet resultSet) {
 		this.resultSet = resultSet;
+		this.sharedSchema = true;
 	}
 
 	/**
@@ -111,7 +131,7 @@ public class DataRow implements java.io.Serializable {
 	 * @throws ParseException
 	 */
 	public DataRow(Map<String, Object> map) throws ParseException {
-		this.resultSet = new com.basiscomponents.db.ResultSet();
+		this();
 		for (Map.Entry<String, Object> entry : map.entrySet()) {
 			setFieldValue(entry.getKey(), entry.getValue());
 		}
@@ -146,6 +166,23 @@ public class DataRow implements java.io.Serializable {
 		return DataRowJsonMapper.fromJson(in, meta);
 	}
 
+	/**
+	 * Returns a DataRow from the JSON in the remaining bytes of a buffer, f.g. the
+	 * payload of a websocket frame, without decoding it into a String first
+	 *
+	 * @param in
+	 * 			A buffer holding the JSON in UTF-8
+	 * @param meta
+	 * 			A DataRow serving as meta object to define the desired types, may be null
+	 * @return  DataRow
+	 *
+	 * @throws IOException
+	 * @throws ParseException
+	 */
+	public static DataRow fromJson(ByteBuffer in, DataRow meta) throws IOException, ParseException {
+		return DataRowJsonMapper.fromJson(in, meta);
+	}
+
 	/**
 	 * Returns the row ID of this DataRow object.
 	 *
@@ -176,6 +213,31 @@ public class DataRow implements java.io.Serializable {
 		return new BBArrayList<>(this.resultSet.getColumnNames());
 	}
 
+	/**
+	 * Returns a read-only list with all field names defined in this DataRow
+	 * object. Other than {@link #getFieldNames()} this method doesn't copy the
+	 * field names, so it's meant for loops over many DataRows. <br>
+	 * <br>
+	 * <b>Note: </b> Fields must not be added to or removed from this DataRow while
+	 * iterating over the returned list, use {@link #getFieldNames()} in that case.
+	 *
+	 * @return list The read-only list containing all field names defined in this
+	 *         DataRow object
+	 */
+	public List<String> getFieldNamesView() {
+		return this.resultSet.getColumnNamesView();
+	}
+
+	/**
+	 * Returns the ResultSet holding the column metadata of this DataRow. It may be
+	 * shared with other DataRows and must not be changed.
+	 *
+	 * @return the column metadata
+	 */
+	ResultSet getSchema() {
+		return this.resultSet;
+	}
+
 	/**
 	 * Returns true if this DataRow contains a field matching the given field name,
 	 * false otherwise.
@@ -187,7 +249,7 @@ public class DataRow implements java.io.Serializable {
 	 *         field name, false otherwise.
 	 */
 	public Boolean contains(String name) {
-		return this.resultSet.getColumnNames().contains(name);
+		return this.resultSet.getColumnIndex(name) != -1;
 	}
 
 	/**
@@ -306,6 +368,7 @@ public class DataRow implements java.io.Serializable {
 		if (field != null) {
 			value = DataField.convertType(value, getFieldType(name));
 			field.setValue(value);
+			fieldChanged(name);
 		} else {
 			templateChanged = true;
 			if (value == null) {
@@ -359,9 +422,10 @@ public class DataRow implements java.io.Serializable {
 		} catch (Exception e) {
 			// do nothing
 		}
-		if (field != null)
+		if (field != null) {
 			field.setValue(value);
-		else {
+			fieldChanged(name);
+		} else {
 			field = new DataField(value);
 			addDataField(name, type, field);
 		}
@@ -466,6 +530,21 @@ public class DataRow implements java.io.Serializable {
 		return field;
 	}
 
+	/**
+	 * Returns the DataField object for the field at the specified column index,
+	 * or <code>null</code> in case the field has no value assigned.
+	 *
+	 * @param column
+	 *            The column index
+	 * @return dataField The DataField
+	 *
+	 * @throws IndexOutOfBoundsException
+	 *             The specified column index doesn't exist
+	 */
+	public DataField getField(int column) {
+		return this.dataFields.get(this.resultSet.getColumnNames().get(column));
+	}
+
 	/**
 	 * Returns the value of the field with the specified name as a java.lang.Object.
 	 *
@@ -722,6 +801,23 @@ public class DataRow implements java.io.Serializable {
 		return this.resultSet.getColumnType(column);
 	}
 
+	/**
+	 *
+	 * Returns the value of the ColumnType property from the metadata for the field
+	 * at the given column index.
+	 *
+	 * @param column
+	 *            The column index.
+	 *
+	 * @return The value of the ColumnType property for the column.
+	 *
+	 * @throws IndexOutOfBoundsException
+	 *             The specified column index doesn't exist
+	 */
+	public int getFieldType(int column) {
+		return this.resultSet.getColumnType(column);
+	}
+
 	/**
 	 * Returns the value of the ColumnTypeName property from the metadata for the
 	 * field with the given name or an empty string in case the property isn't set.
@@ -869,6 +965,64 @@ public class DataRow implements java.io.Serializable {
 		return this.resultSet.getTableName(column);
 	}
 
+	/**
+	 * Returns the value of the attribute with the given name from the metadata of
+	 * the column with the given name or an empty string in case the attribute isn't
+	 * set. Unlike {@link #getFieldAttribute(String, String)} the attribute is
+	 * shared by all DataRows of the same ResultSet.
+	 *
+	 * @param name
+	 *            The name of the field.
+	 * @param attrname
+	 *            The name of the attribute.
+	 *
+	 * @return The value of the attribute.
+	 *
+	 * @throws RuntimeException
+	 *             The specified column name doesn't exist
+	 */
+	public String getColumnAttribute(String name, String attrname) {
+		int column = getColumnIndex(name);
+		return this.resultSet.getAttribute(column, attrname);
+	}
+
+	/**
+	 * Returns a copy of the metadata of the column with the given name, the JDBC
+	 * properties as well as the column attributes, or null in case the column
+	 * doesn't exist.
+	 *
+	 * @param name
+	 *            The name of the field.
+	 *
+	 * @return The metadata of the column.
+	 */
+	public Map<String, Object> getColumnMetaData(String name) {
+		HashMap<String, Object> meta = this.resultSet.getColumnMetaData(name);
+		return meta == null ? null : new HashMap<>(meta);
+	}
+
+	/**
+	 * Sets the attribute with the given name and value in the metadata of the
+	 * column with the given name. Like adding a field, this gives the DataRow its
+	 * own copy of the column metadata in case it's shared with a ResultSet or with
+	 * other DataRows, which keep the attribute they had.
+	 *
+	 * @param name
+	 *            The name of the field.
+	 * @param attrname
+	 *            The name of the attribute.
+	 * @param value
+	 *            The value of the attribute.
+	 *
+	 * @throws RuntimeException
+	 *             The specified column name doesn't exist
+	 */
+	public void setColumnAttribute(String name, String attrname, String value) {
+		int column = getColumnIndex(name);
+		detachSchema();
+		this.resultSet.setAttribute(column, attrname, value);
+	}
+
 	/**
 	 * Sets the given attribute name and value for the field with the given name.
 	 * Overwrites the attribute's value with the specified one in case the attribute
@@ -972,8 +1126,10 @@ public class DataRow implements java.io.Serializable {
 	public void removeField(String fieldName) {
 
 		int column = getColumnIndex(fieldName, true);
-		if (column > -1)
+		if (column > -1) {
+			detachSchema();
 			this.resultSet.removeColumn(column);
+		}
 
 		this.dataFields.remove(fieldName);
 
@@ -1084,7 +1240,7 @@ public class DataRow implements java.io.Serializable {
 			return false;
 
 		Boolean eq = true;
-		BBArrayList<String> fields = dataRow.getFieldNames();
+		List<String> fields = dataRow.getFieldNamesView();
 		if (fields.size() != this.dataFields.size())
 			eq = false;
 		else {
@@ -1236,10 +1392,12 @@ public class DataRow implements java.io.Serializable {
 	public void addDataField(String fieldName, int sqlType, DataField dataField) {
 		this.templateChanged = true;
 		if (this.resultSet.getColumnIndex(fieldName) == -1) {
+			detachSchema();
 			int column = this.resultSet.addColumn(fieldName);
 			this.resultSet.setColumnType(column, sqlType);
 		}
 		this.dataFields.put(fieldName, dataField);
+		fieldChanged(fieldName);
 	}
 
 	/**
@@ -1258,13 +1416,28 @@ public class DataRow implements java.io.Serializable {
 		return getField(fieldName,false);
 	}
 
+	/**
+	 * Gives this DataRow its own copy of the column metadata in case it's
+	 * currently shared with a ResultSet or with other DataRows. Needs to be
+	 * called before any change to the columns of this DataRow.
+	 */
+	private void detachSchema() {
+		if (!this.sharedSchema)
+			return;
+		this.resultSet = this.resultSet.cloneSchema();
+		this.sharedSchema = false;
+	}
+
 	@Override
 	public DataRow clone() {
-		DataRow dr = new DataRow();
+		// the clone and this DataRow share the column metadata until one of them changes it
+		this.sharedSchema = true;
+		DataRow dr = new DataRow(this.resultSet);
 		for (String k : this.resultSet.getColumnNames()) {
 			DataField f = Optional.ofNullable(this.dataFields.get(k)).map(df -> df.clone()).orElse(null);
-			dr.addDataField(k, this.getFieldType(k), f);
+			dr.dataFields.put(k, f);
 		}
+		dr.templateChanged = true;
 		return dr;
 	}
 
@@ -1376,7 +1549,7 @@ public class DataRow implements java.io.Serializable {
 	 *            to skip those
 	 */
 	public void mergeRecord(DataRow dataRow, Boolean fOverwrite) {
-		BBArrayList<String> names = dataRow.getFieldNames();
+		List<String> names = dataRow.getFieldNamesView();
 		Iterator<String> it = names.iterator();
 		while (it.hasNext()) {
 			String f = it.next();
@@ -1582,6 +1755,91 @@ public class DataRow implements java.io.Serializable {
 		return new String(this.rowKey);
 	}
 
+	/**
+	 * @return the row key bytes, not copied
+	 */
+	byte[] getRowKeyBytes() {
+		return this.rowKey;
+	}
+
+	/**
+	 * Starts recording the version of each field change, called by a ResultSet
+	 * tracking its changes.
+	 */
+	void trackChanges() {
+		if (this.fieldVersions == null)
+			this.fieldVersions = new HashMap<>();
+	}
+
+	/**
+	 * Stops recording field changes and discards the recorded versions, called
+	 * by a ResultSet which no longer tracks its changes.
+	 */
+	void stopTrackingChanges() {
+		this.fieldVersions = null;
+	}
+
+	/**
+	 * Registers a ResultSet with a column index, see
+	 * {@link ResultSet#createIndex(String)}, which holds this DataRow. The
+	 * ResultSet is told when a field changes. A ResultSet holding the DataRow
+	 * several times registers it once per occurrence.
+	 */
+	void addIndexOwner(ResultSet owner) {
+		if (this.indexOwners == null)
+			this.indexOwners = new ArrayList<>(1);
+		this.indexOwners.add(owner);
+	}
+
+	/**
+	 * Removes one registration made by {@link #addIndexOwner(ResultSet)}.
+	 */
+	void removeIndexOwner(ResultSet owner) {
+		if (this.indexOwners == null)
+			return;
+		for (int i = 0; i < this.indexOwners.size(); i++) {
+			if (this.indexOwners.get(i) == owner) {
+				this.indexOwners.remove(i);
+				break;
+			}
+		}
+		if (this.indexOwners.isEmpty())
+			this.indexOwners = null;
+	}
+
+	private void fieldChanged(String name) {
+		if (this.fieldVersions != null) {
+			this.version = ResultSet.nextVersion();
+			this.fieldVersions.put(name, this.version);
+		}
+		if (this.indexOwners != null) {
+			for (ResultSet owner : this.indexOwners)
+				owner.indexedFieldChanged(name);
+		}
+	}
+
+	/**
+	 * Returns the names of the fields set after the given version, in the order
+	 * of the fields. Only fields set while the DataRow is part of a ResultSet
+	 * tracking its changes are returned.
+	 *
+	 * @param sinceVersion
+	 *            the version stamp, see {@link ResultSet#getVersion()}
+	 *
+	 * @return the names of the changed fields
+	 */
+	public List<String> getChangedFields(long sinceVersion) {
+		if (this.fieldVersions == null || this.version <= sinceVersion)
+			return Collections.emptyList();
+		List<String> names = new ArrayList<>();
+		for (String name : this.resultSet.getColumnNames()) {
+			Long changed = this.fieldVersions.get(name);
+			if (changed != null && changed > sinceVersion)
+				names.add(name);
+		}
+		return names;
+	}
+
 	/**
 	 * @param rowKey
 	 *            the key value as string of bytes to set
@@ -1651,7 +1909,7 @@ public class DataRow implements java.io.Serializable {
 	 * clear()} method which sets the DataRow's value to <code>null</code>
 	 */
 	public void clear() {
-		this.getFieldNames().forEach(x->this.getField(x).clear());
+		this.getFieldNamesView().forEach(x->this.getField(x).clear());
 	}
 
 	/**
@@ -1724,7 +1982,7 @@ public class DataRow implements java.io.Serializable {
 
 		if (dr == null)
 			dr = this;
-		Iterator<String> it = dr.getFieldNames().iterator();
+		Iterator<String> it = dr.getFieldNamesView().iterator();
 		while (it.hasNext()) {
 			String fieldName = it.next();
 			if (!this.contains(fieldName))
@@ -1792,7 +2050,7 @@ public class DataRow implements java.io.Serializable {
 		if (dr == null)
 			dr = this;
 
-		for (String fieldName: dr.getFieldNames()) {
+		for (String fieldName: dr.getFieldNamesView()) {
 
 			if (!this.contains(fieldName))
 				continue;
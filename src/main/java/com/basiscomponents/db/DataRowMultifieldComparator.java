@@ -1,141 +1,327 @@
 package com.basiscomponents.db;
 
+import java.util.Arrays;
 import java.util.Comparator;
+import java.util.List;
 
 
+/**
+ * Compares DataRows by a list of fields, f.g. "NAME, FIRST_NAME DESC, ZIP".<br>
+ * <br>
+ * The field list is parsed once. {@link #sort(List)} also reads the sort keys
+ * of each DataRow only once, before the DataRows are sorted, instead of
+ * converting the field values again for every comparison.
+ */
 public class DataRowMultifieldComparator implements Comparator<DataRow> {
 
+	// sort key of values which are compared by compareField, like the former per-row comparison
+	private static final Object ROW_COMPARE = new Object();
+
 	private String[] fields;
 
+	private int[] directions;
+
 	public DataRowMultifieldComparator(String fieldList) throws Exception {
 		fieldList = fieldList.trim().toUpperCase();
-		this.fields = fieldList.split("\\s*,\\s*");
+		String[] specs = fieldList.split("\\s*,\\s*");
+		this.fields = new String[specs.length];
+		this.directions = new int[specs.length];
 
-		for (String field : fields) {
-			String[] split = field.split("\\s+");
+		for (int i = 0; i < specs.length; i++) {
+			String[] split = specs[i].split("\\s+");
 			if (split.length > 2) {
-				throw new Exception("Invalid sort field name: "+field);
+				throw new Exception("Invalid sort field name: "+specs[i]);
 			}
+			this.fields[i] = split[0];
+			this.directions[i] = 1;
 			if (split.length == 2) {
 				if (!split[1].equals("ASC") && !split[1].equals("DESC"))
 					throw new Exception("Unsupported order direction: "+split[1]+". Allowed is ASC or DESC");
 				else
-					field = split[0]+" "+split[1];
+					this.directions[i] = split[1].equals("DESC")? -1 : 1;
 			}
 		}
 	}
 
+	/**
+	 * Creates a comparator for a single field, the field name is taken as it is.
+	 */
+	DataRowMultifieldComparator(String fieldName, boolean descending) {
+		this.fields = new String[] { fieldName };
+		this.directions = new int[] { descending ? -1 : 1 };
+	}
+
 	@Override
 	public int compare(DataRow dr1, DataRow dr2) {
-		int returnVal=0;
+		for (int i = 0; i < fields.length; i++) {
+			int returnVal = compareField(dr1, dr2, i);
+			if (returnVal != 0) return returnVal;
+		}
+		return 0;
+	}
 
-		for(String field : fields) {
-			int direction = 1;
-			int fieldType;
+	/**
+	 * Sorts the DataRows in place. The sort is stable, DataRows which compare
+	 * equal keep their order.
+	 *
+	 * @param rows the DataRows to sort
+	 */
+	void sort(List<DataRow> rows) {
+		sort(rows, false);
+	}
 
-			String[] split = field.split(" ");
-			if (split.length == 2) {
-				field = split[0];
-				direction = split[1].equals("DESC")? -1 : 1;
+	/**
+	 * Sorts the DataRows in place. The sort is stable, DataRows which compare
+	 * equal keep their order. In parallel the sort keys are read in chunks on the
+	 * common fork-join pool and the DataRows are sorted with Arrays.parallelSort,
+	 * which gives the same order.
+	 *
+	 * @param rows the DataRows to sort
+	 * @param parallel true to sort in parallel
+	 */
+	void sort(List<DataRow> rows, boolean parallel) {
+		int size = rows.size();
+		if (size < 2)
+			return;
+		SortEntry[] entries = new SortEntry[size];
+		if (parallel) {
+			try {
+				ParallelRows.forEach(rows, (row, dr) -> entries[row] = sortEntry(dr));
+			} catch (RuntimeException e) {
+				throw e;
+			} catch (Exception e) {
+				// sortKey throws no checked exceptions
+				throw new IllegalStateException(e);
 			}
+			Arrays.parallelSort(entries, this::compareEntries);
+		} else {
+			for (int row = 0; row < size; row++) {
+				entries[row] = sortEntry(rows.get(row));
+			}
+			Arrays.sort(entries, this::compareEntries);
+		}
+		for (int row = 0; row < size; row++) {
+			rows.set(row, entries[row].row);
+		}
+	}
 
-			Object val1 = null;
-			Object val2 = null;
+	private SortEntry sortEntry(DataRow dr) {
+		Object[] keys = new Object[fields.length];
+		for (int i = 0; i < fields.length; i++) {
+			keys[i] = sortKey(dr, i);
+		}
+		return new SortEntry(dr, keys);
+	}
 
-			try {
-				val1 = dr1.getField(field,false).getObject();
-			} catch(Exception ex) {}
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	private int compareEntries(SortEntry e1, SortEntry e2) {
+		for (int i = 0; i < fields.length; i++) {
+			Object k1 = e1.keys[i];
+			Object k2 = e2.keys[i];
+			int returnVal;
+			if (k1 == ROW_COMPARE || k2 == ROW_COMPARE
+					|| k1 != null && k2 != null && k1.getClass() != k2.getClass()) {
+				returnVal = compareField(e1.row, e2.row, i);
+			} else if (k1 == null || k2 == null) {
+				if (k1 == k2)
+					continue;
+				returnVal = (k1 == null ? -1 : 1) * directions[i];
+			} else {
+				returnVal = ((Comparable) k1).compareTo(k2) * directions[i];
+			}
+			if (returnVal != 0) return returnVal;
+		}
+		return 0;
+	}
 
-			try {
-				val2 = dr2.getField(field,false).getObject();
-			} catch (Exception ex) {}
+	/**
+	 * Returns the value of the field converted like compareField converts it, so
+	 * that comparing the keys gives the same result.
+	 */
+	private Object sortKey(DataRow dr, int i) {
+		String field = fields[i];
+		DataField f = dr.getField(field, true);
+		if (f == null || f.getObject() == null)
+			return null;
 
-			if (val1 == null && val2 == null)
-				continue;
-			else if (val1 == null)
-				return -1 * direction;
-			else if (val2 == null)
-				return 1 * direction;
+		int fieldType;
+		try {
+			fieldType = dr.getFieldType(field);
+		} catch (Exception e) {
+			fieldType = java.sql.Types.CHAR;
+		}
 
-			try {
-				fieldType = dr1.getFieldType(field);
-			} catch (Exception e) {
-				fieldType = java.sql.Types.CHAR;
-			}
+		switch(fieldType) {
+			case java.sql.Types.CHAR:
+			case java.sql.Types.VARCHAR:
+			case java.sql.Types.NVARCHAR:
+			case java.sql.Types.NCHAR:
+			case java.sql.Types.LONGVARCHAR:
+			case java.sql.Types.LONGNVARCHAR:
+				return caseInsensitiveKey(f.getString());
+			case java.sql.Types.BIGINT:
+				return f.getLong();
+			case java.sql.Types.TINYINT:
+			case java.sql.Types.SMALLINT:
+				return (long) f.getShort();
+			case java.sql.Types.INTEGER:
+			case 9:
+			case 11:
+				return (long) f.getInt();
+			case java.sql.Types.DOUBLE:
+			case java.sql.Types.FLOAT:
+			case java.sql.Types.REAL:
+				return f.getDouble();
+			case java.sql.Types.NUMERIC:
+			case java.sql.Types.DECIMAL:
+				return f.getBigDecimal();
+			case java.sql.Types.BOOLEAN:
+			case java.sql.Types.BIT:
+				return f.getBoolean();
+			case java.sql.Types.DATE:
+				return f.getDate();
+			case java.sql.Types.TIMESTAMP:
+			case java.sql.Types.TIMESTAMP_WITH_TIMEZONE:
+				return f.getTimestamp();
+			case java.sql.Types.TIME:
+			case java.sql.Types.TIME_WITH_TIMEZONE:
+				return f.getTime();
+			default:
+				return ROW_COMPARE;
+		}
+	}
 
-			DataField f1 = dr1.getField(field,false);
-			DataField f2 = dr2.getField(field,false);
-
-			switch(fieldType) {
-				case java.sql.Types.CHAR:
-				case java.sql.Types.VARCHAR:
-				case java.sql.Types.NVARCHAR:
-				case java.sql.Types.NCHAR:
-				case java.sql.Types.LONGVARCHAR:
-				case java.sql.Types.LONGNVARCHAR:
-					String s1 = f1.getString();
-					String s2 = f2.getString();
-					returnVal = s1.compareToIgnoreCase(s2) * direction;
-					break;
-				case java.sql.Types.BIGINT:
-					long lng1 = f1.getLong();
-					long lng2 = f2.getLong();
-					returnVal = Long.compare(lng1, lng2) * direction;
-					break;
-				case java.sql.Types.TINYINT:
-				case java.sql.Types.SMALLINT:
-					short sht1 = f1.getShort();
-					short sht2 = f2.getShort();
-					returnVal = Short.compare(sht1, sht2) * direction;
-					break;
-				case java.sql.Types.INTEGER:
-				case 9:
-				case 11:
-					int int1 = f1.getInt();
-					int int2 = f2.getInt();
-					returnVal = Integer.compare(int1, int2) * direction;
-					break;
-				case java.sql.Types.DOUBLE:
-				case java.sql.Types.FLOAT:
-				case java.sql.Types.REAL:
-					double dbl1 = f1.getDouble();
-					double dbl2 = f2.getDouble();
-					returnVal = Double.compare(dbl1, dbl2) * direction;
-					break;
-				case java.sql.Types.NUMERIC:
-				case java.sql.Types.DECIMAL:
-					java.math.BigDecimal bd1 = f1.getBigDecimal();
-					java.math.BigDecimal bd2 = f2.getBigDecimal();
-					returnVal = bd1.compareTo(bd2) * direction;
-					break;
-				case java.sql.Types.BOOLEAN:
-				case java.sql.Types.BIT:
-					boolean b1 = f1.getBoolean();
-					boolean b2 = f2.getBoolean();
-					returnVal = Boolean.compare(b1, b2) * direction;
-					break;
-				case java.sql.Types.DATE:
-					java.sql.Date d1 = f1.getDate();
-					java.sql.Date d2 = f2.getDate();
-					returnVal = d1.compareTo(d2) * direction;
-					break;
-				case java.sql.Types.TIMESTAMP:
-				case java.sql.Types.TIMESTAMP_WITH_TIMEZONE:
-					java.sql.Timestamp t1 = f1.getTimestamp();
-					java.sql.Timestamp t2 = f2.getTimestamp();
-					returnVal = t1.compareTo(t2) * direction;
-					break;
-				case java.sql.Types.TIME:
-				case java.sql.Types.TIME_WITH_TIMEZONE:
-					java.sql.Time tm1 = f1.getTime();
-					java.sql.Time tm2 = f2.getTime();
-					returnVal = tm1.compareTo(tm2) * direction;
-					break;
+	/**
+	 * Maps each char like String.compareToIgnoreCase does before comparing it, so
+	 * that compareTo on the keys gives the same result. Surrogate pairs are
+	 * compared by code point and left to compareField.
+	 */
+	private static Object caseInsensitiveKey(String s) {
+		char[] chars = null;
+		for (int i = 0; i < s.length(); i++) {
+			char c = s.charAt(i);
+			if (Character.isSurrogate(c))
+				return ROW_COMPARE;
+			char folded = Character.toLowerCase(Character.toUpperCase(c));
+			if (folded != c) {
+				if (chars == null)
+					chars = s.toCharArray();
+				chars[i] = folded;
 			}
+		}
+		return chars == null ? s : new String(chars);
+	}
 
-			if (returnVal != 0) return returnVal;
+	private int compareField(DataRow dr1, DataRow dr2, int i) {
+		String field = fields[i];
+		int direction = directions[i];
+		int returnVal = 0;
+		int fieldType;
+
+		Object val1 = null;
+		Object val2 = null;
+
+		try {
+			val1 = dr1.getField(field,false).getObject();
+		} catch(Exception ex) {}
+
+		try {
+			val2 = dr2.getField(field,false).getObject();
+		} catch (Exception ex) {}
+
+		if (val1 == null && val2 == null)
+			return 0;
+		else if (val1 == null)
+			return -1 * direction;
+		else if (val2 == null)
+			return 1 * direction;
+
+		try {
+			fieldType = dr1.getFieldType(field);
+		} catch (Exception e) {
+			fieldType = java.sql.Types.CHAR;
+		}
+
+		DataField f1 = dr1.getField(field,false);
+		DataField f2 = dr2.getField(field,false);
+
+		switch(fieldType) {
+			case java.sql.Types.CHAR:
+			case java.sql.Types.VARCHAR:
+			case java.sql.Types.NVARCHAR:
+			case java.sql.Types.NCHAR:
+			case java.sql.Types.LONGVARCHAR:
+			case java.sql.Types.LONGNVARCHAR:
+				String s1 = f1.getString();
+				String s2 = f2.getString();
+				returnVal = s1.compareToIgnoreCase(s2) * direction;
+				break;
+			case java.sql.Types.BIGINT:
+				long lng1 = f1.getLong();
+				long lng2 = f2.getLong();
+				returnVal = Long.compare(lng1, lng2) * direction;
+				break;
+			case java.sql.Types.TINYINT:
+			case java.sql.Types.SMALLINT:
+				short sht1 = f1.getShort();
+				short sht2 = f2.getShort();
+				returnVal = Short.compare(sht1, sht2) * direction;
+				break;
+			case java.sql.Types.INTEGER:
+			case 9:
+			case 11:
+				int int1 = f1.getInt();
+				int int2 = f2.getInt();
+				returnVal = Integer.compare(int1, int2) * direction;
+				break;
+			case java.sql.Types.DOUBLE:
+			case java.sql.Types.FLOAT:
+			case java.sql.Types.REAL:
+				double dbl1 = f1.getDouble();
+				double dbl2 = f2.getDouble();
+				returnVal = Double.compare(dbl1, dbl2) * direction;
+				break;
+			case java.sql.Types.NUMERIC:
+			case java.sql.Types.DECIMAL:
+				java.math.BigDecimal bd1 = f1.getBigDecimal();
+				java.math.BigDecimal bd2 = f2.getBigDecimal();
+				returnVal = bd1.compareTo(bd2) * direction;
+				break;
+			case java.sql.Types.BOOLEAN:
+			case java.sql.Types.BIT:
+				boolean b1 = f1.getBoolean();
+				boolean b2 = f2.getBoolean();
+				returnVal = Boolean.compare(b1, b2) * direction;
+				break;
+			case java.sql.Types.DATE:
+				java.sql.Date d1 = f1.getDate();
+				java.sql.Date d2 = f2.getDate();
+				returnVal = d1.compareTo(d2) * direction;
+				break;
+			case java.sql.Types.TIMESTAMP:
+			case java.sql.Types.TIMESTAMP_WITH_TIMEZONE:
+				java.sql.Timestamp t1 = f1.getTimestamp();
+				java.sql.Timestamp t2 = f2.getTimestamp();
+				returnVal = t1.compareTo(t2) * direction;
+				break;
+			case java.sql.Types.TIME:
+			case java.sql.Types.TIME_WITH_TIMEZONE:
+				java.sql.Time tm1 = f1.getTime();
+				java.sql.Time tm2 = f2.getTime();
+				returnVal = tm1.compareTo(tm2) * direction;
+				break;
 		}
 
 		return returnVal;
 	}
+
+	private static final class SortEntry {
+		private final DataRow row;
+		private final Object[] keys;
+
+		private SortEntry(DataRow row, Object[] keys) {
+			this.row = row;
+			this.keys = keys;
+		}
+	}
 }
@@ -1,152 +1,666 @@
 package com.basiscomponents.db;
 
+import java.math.BigDecimal;
 import java.security.InvalidAlgorithmParameterException;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
 
+/**
+ * Matches DataRows against a query clause with a syntax similar to an SQL
+ * WHERE clause.<br>
+ * <br>
+ * Supported are the comparison operators =, &lt;&gt;, !=, &lt;, &lt;=, &gt;,
+ * &gt;=, [NOT] LIKE (with % and _ as wildcards), [NOT] IN (...) and IS [NOT]
+ * NULL, combined with AND, OR and NOT (or !) and grouped with parentheses.
+ * Values may be quoted with single quotes, a quote inside a quoted value is
+ * written twice.<br>
+ * <br>
+ * A clause is parsed only once by {@link #compile(String, boolean, boolean)},
+ * the returned Predicate can then be tested against any number of DataRows.
+ */
 public class DataRowQueryMatcher {
-	
-	
-	private static String resolveTerm(String term, final DataRow dataRow, final boolean caseSensitive,
-			final boolean trimmed) throws Exception {
-		if (term.trim().isEmpty())
-			return "";
-		
-		switch (term.trim().toUpperCase()){
-		case "AND":
-			return "&";
-			
-		case "OR":
-			return "|";
-				
-		case "NOT":
-			return "!";
-			
-		case "(":
-			return "(";
-			
-		case ")":
-			return ")";
-		}
-		
-		String[] exp_parts = term.split("=");
-		if (exp_parts.length != 2)
-			throw new InvalidAlgorithmParameterException("invalid expression: "+term); 
-		DataField dataField = dataRow.getField(exp_parts[0]);
-		if (dataField.equals(exp_parts[1], caseSensitive, trimmed))
-			return "1";
-		else 
-			return "0";
-	}	
-	
+
+	private static final int INCOMPARABLE = Integer.MIN_VALUE;
+
 	public static Boolean matches(String statement, DataRow datarow) throws Exception{
 		return matches(statement, datarow, true, false);
 	}
 	/**
-	 * 
+	 *
 	 * @param stmt: the statement, syntax as in a WHERE clause of an SQL statement
-	 * @param dr: the DataRow to examine against the query clause 
+	 * @param dr: the DataRow to examine against the query clause
 	 * @return Boolean if the datarow matches the statement
 	 * @throws Exception
 	 */
 	public static Boolean matches(String statement, DataRow datarow, final boolean caseSensitive, final boolean trimmed) throws Exception {
+		return compile(statement, caseSensitive, trimmed).test(datarow);
+	}
+
+	/**
+	 * Parses the statement and returns a Predicate which tests whether a DataRow
+	 * matches it.
+	 *
+	 * @param statement the statement, syntax as in a WHERE clause of an SQL statement
+	 * @param caseSensitive whether strings are compared case sensitive or not
+	 * @param trimmed {@code true} if the string values of the DataRows should get trimmed
+	 * @return the compiled statement
+	 * @throws InvalidAlgorithmParameterException the statement is not valid
+	 */
+	public static Predicate<DataRow> compile(String statement, final boolean caseSensitive, final boolean trimmed)
+			throws InvalidAlgorithmParameterException {
+		return compile(statement, null, caseSensitive, trimmed);
+	}
+
+	/**
+	 * Parses the statement and returns a Predicate which tests whether a DataRow
+	 * of the given ResultSet matches it. The values in the statement are checked
+	 * against the column types of the ResultSet.
+	 *
+	 * @param statement the statement, syntax as in a WHERE clause of an SQL statement
+	 * @param columns the ResultSet providing the column types, may be null
+	 * @param caseSensitive whether strings are compared case sensitive or not
+	 * @param trimmed {@code true} if the string values of the DataRows should get trimmed
+	 * @return the compiled statement
+	 * @throws InvalidAlgorithmParameterException the statement is not valid
+	 */
+	public static Predicate<DataRow> compile(String statement, ResultSet columns, final boolean caseSensitive,
+			final boolean trimmed) throws InvalidAlgorithmParameterException {
+		Parser parser = new Parser(tokenize(statement), columns, caseSensitive, trimmed);
+		Node node = parser.parseOr();
+		if (parser.peek() != null)
+			throw new InvalidAlgorithmParameterException("invalid expression: unexpected " + parser.peek().text);
+		return node;
+	}
+
+	/**
+	 * Returns the positions of the DataRows which may match the compiled
+	 * statement, looked up in the hash indexes returned for the field names, or
+	 * null if no index applies.
+	 */
+	static int[] find(Predicate<DataRow> predicate, Function<String, ColumnIndex> indexes) {
+		return predicate instanceof Node ? ((Node) predicate).find(indexes) : null;
+	}
 
-		statement = statement.replaceAll("\\s"," ");
-		while (statement.contains("  "))
-			statement = statement.replace("  ", " ");
-		statement += " ";
-				
-		Boolean status = false; //false=term true=punctuation
-		
-		StringBuilder booleanExpression = new StringBuilder();
-		
-		StringBuilder curterm=new StringBuilder();
-		for (final char c:statement.toCharArray()){
+	private static List<Token> tokenize(String statement) throws InvalidAlgorithmParameterException {
+		List<Token> tokens = new ArrayList<>();
+		int length = statement.length();
+		int i = 0;
+		while (i < length) {
+			char c = statement.charAt(i);
+			if (Character.isWhitespace(c)) {
+				i++;
+				continue;
+			}
 			switch (c) {
-				case ' ':
-					booleanExpression.append(resolveTerm(curterm.toString(),datarow, caseSensitive, trimmed));
-					status = !status;
-					curterm=new StringBuilder(); //reset curterm
-					break;
-				case '(':
-				case ')':
-				case '!':
-					booleanExpression.append(resolveTerm(curterm.toString(),datarow, caseSensitive, trimmed));
-					curterm=new StringBuilder(); //reset curterm
-					String tmp = ""+c;
-					booleanExpression.append(resolveTerm(tmp,datarow, caseSensitive, trimmed));
-					
-					status=false;
+			case '(':
+			case ')':
+			case ',':
+			case '=':
+				tokens.add(new Token(String.valueOf(c), false, true));
+				i++;
+				break;
+			case '<':
+			case '>':
+			case '!':
+				if (i + 1 < length && (statement.charAt(i + 1) == '=' || c == '<' && statement.charAt(i + 1) == '>')) {
+					tokens.add(new Token(statement.substring(i, i + 2), false, true));
+					i += 2;
+				} else {
+					tokens.add(new Token(String.valueOf(c), false, true));
+					i++;
+				}
+				break;
+			case '\'':
+			case '"':
+				StringBuilder quoted = new StringBuilder();
+				i++;
+				while (true) {
+					if (i >= length)
+						throw new InvalidAlgorithmParameterException("invalid expression: unterminated quote in " + statement);
+					char q = statement.charAt(i++);
+					if (q == c) {
+						if (i < length && statement.charAt(i) == c) {
+							i++;
+						} else {
+							break;
+						}
+					}
+					quoted.append(q);
+				}
+				tokens.add(new Token(quoted.toString(), true, false));
+				break;
+			default:
+				// a quote only starts a value at its beginning, O'Brien is one word
+				int start = i;
+				while (i < length && !Character.isWhitespace(statement.charAt(i))
+						&& "()=<>!,".indexOf(statement.charAt(i)) < 0)
+					i++;
+				tokens.add(new Token(statement.substring(start, i), false, false));
 				break;
-				default:
-					curterm.append(c);
-					break;
 			}
 		}
-		return resolveBooleanExp(booleanExpression.toString());
+		if (tokens.isEmpty())
+			throw new InvalidAlgorithmParameterException("invalid expression: empty statement");
+		return tokens;
 	}
 
-	private static Boolean resolveBooleanExp(String bexp) {
-
-		while (bexp.contains("(")){
-			int first_par = bexp.indexOf('(');
-			int last_par = first_par;
-			int more_opens=0;
-			//find matching parenthesis
-			while (true){
-				last_par++;
-				if (bexp.charAt(last_par) == '(')
-				{
-					more_opens++;
-					continue;
-				}
-				if (bexp.charAt(last_par) == ')' && more_opens>0)
-				{
-					more_opens--;
-					continue;
+	private static final class Token {
+		private final String text;
+		private final boolean quoted;
+		private final boolean symbol;
+
+		private Token(String text, boolean quoted, boolean symbol) {
+			this.text = text;
+			this.quoted = quoted;
+			this.symbol = symbol;
+		}
+
+		private boolean is(String keywordOrSymbol) {
+			return !quoted && text.equalsIgnoreCase(keywordOrSymbol);
+		}
+	}
+
+	private static final class Parser {
+		private final List<Token> tokens;
+		private final ResultSet columns;
+		private final boolean caseSensitive;
+		private final boolean trimmed;
+		private int position;
+
+		private Parser(List<Token> tokens, ResultSet columns, boolean caseSensitive, boolean trimmed) {
+			this.tokens = tokens;
+			this.columns = columns;
+			this.caseSensitive = caseSensitive;
+			this.trimmed = trimmed;
+		}
+
+		private Token peek() {
+			return position < tokens.size() ? tokens.get(position) : null;
+		}
+
+		private boolean accept(String keywordOrSymbol) {
+			Token token = peek();
+			if (token != null && token.is(keywordOrSymbol)) {
+				position++;
+				return true;
+			}
+			return false;
+		}
+
+		private void expect(String keywordOrSymbol) throws InvalidAlgorithmParameterException {
+			if (!accept(keywordOrSymbol))
+				throw unexpected("expected " + keywordOrSymbol);
+		}
+
+		private Token next(String expected) throws InvalidAlgorithmParameterException {
+			Token token = peek();
+			if (token == null || token.symbol)
+				throw unexpected("expected " + expected);
+			position++;
+			return token;
+		}
+
+		private InvalidAlgorithmParameterException unexpected(String message) {
+			Token token = peek();
+			return new InvalidAlgorithmParameterException(
+					"invalid expression: " + message + (token == null ? " at end of statement" : " at " + token.text));
+		}
+
+		private Node parseOr() throws InvalidAlgorithmParameterException {
+			List<Node> nodes = new ArrayList<>();
+			nodes.add(parseAnd());
+			while (accept("OR"))
+				nodes.add(parseAnd());
+			return nodes.size() == 1 ? nodes.get(0) : new Or(nodes);
+		}
+
+		private Node parseAnd() throws InvalidAlgorithmParameterException {
+			List<Node> nodes = new ArrayList<>();
+			nodes.add(parseNot());
+			while (accept("AND"))
+				nodes.add(parseNot());
+			return nodes.size() == 1 ? nodes.get(0) : new And(nodes);
+		}
+
+		private Node parseNot() throws InvalidAlgorithmParameterException {
+			if (accept("NOT") || accept("!"))
+				return new Not(parseNot());
+			if (accept("(")) {
+				Node node = parseOr();
+				expect(")");
+				return node;
+			}
+			return parseComparison();
+		}
+
+		private Node parseComparison() throws InvalidAlgorithmParameterException {
+			String field = next("field name").text;
+			int type = columnType(field);
+			boolean column = columns != null && columns.getColumnIndex(field) >= 0;
+
+			if (accept("IS")) {
+				boolean negated = accept("NOT");
+				expect("NULL");
+				return new Comparison(field, column, negated ? Operator.IS_NOT_NULL : Operator.IS_NULL, false, new Literal[0],
+						null, caseSensitive, trimmed);
+			}
+
+			boolean negated = accept("NOT");
+			if (accept("LIKE")) {
+				String pattern = next("pattern").text;
+				return new Comparison(field, column, Operator.LIKE, negated, new Literal[0], likePattern(pattern),
+						caseSensitive, trimmed);
+			}
+			if (accept("IN")) {
+				expect("(");
+				List<Literal> literals = new ArrayList<>();
+				do {
+					literals.add(literal(field, type, next("value").text));
+				} while (accept(","));
+				expect(")");
+				return new Comparison(field, column, Operator.IN, negated, literals.toArray(new Literal[0]), null,
+						caseSensitive, trimmed);
+			}
+			if (negated)
+				throw unexpected("expected LIKE or IN");
+
+			Token token = peek();
+			Operator operator = token == null || !token.symbol ? null : Operator.of(token.text);
+			if (operator == null)
+				throw unexpected("expected operator");
+			position++;
+			Literal literal = literal(field, type, next("value").text);
+			return new Comparison(field, column, operator, false, new Literal[] { literal }, null, caseSensitive, trimmed);
+		}
+
+		private int columnType(String field) {
+			if (columns == null)
+				return Types.NULL;
+			int column = columns.getColumnIndex(field);
+			return column < 0 ? Types.NULL : columns.getColumnType(column);
+		}
+
+		private Literal literal(String field, int type, String text) throws InvalidAlgorithmParameterException {
+			Literal literal = new Literal(text);
+			boolean valid;
+			switch (type) {
+			case Types.TINYINT:
+			case Types.SMALLINT:
+			case Types.INTEGER:
+			case Types.BIGINT:
+			case Types.REAL:
+			case Types.FLOAT:
+			case Types.DOUBLE:
+			case Types.NUMERIC:
+			case Types.DECIMAL:
+				valid = literal.decimal != null;
+				break;
+			case Types.DATE:
+				valid = literal.date != null;
+				break;
+			case Types.TIME:
+				valid = literal.time != null;
+				break;
+			case Types.TIMESTAMP:
+				valid = literal.timestamp != null;
+				break;
+			default:
+				valid = true;
+				break;
+			}
+			if (!valid)
+				throw new InvalidAlgorithmParameterException(
+						"invalid expression: " + text + " is not a valid value for field " + field);
+			return literal;
+		}
+
+		private Pattern likePattern(String pattern) {
+			StringBuilder regex = new StringBuilder();
+			int start = 0;
+			for (int i = 0; i < pattern.length(); i++) {
+				char c = pattern.charAt(i);
+				if (c == '%' || c == '_') {
+					if (i > start)
+						regex.append(Pattern.quote(pattern.substring(start, i)));
+					regex.append(c == '%' ? ".*" : ".");
+					start = i + 1;
 				}
-				if (bexp.charAt(last_par) == ')' && more_opens<=0)
-					break;
 			}
+			if (start < pattern.length())
+				regex.append(Pattern.quote(pattern.substring(start)));
+			int flags = Pattern.DOTALL;
+			if (!caseSensitive)
+				flags |= Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE;
+			return Pattern.compile(regex.toString(), flags);
+		}
+	}
+
+	enum Operator {
+		EQUAL("="), NOT_EQUAL("<>"), LESS("<"), LESS_OR_EQUAL("<="), GREATER(">"), GREATER_OR_EQUAL(">="),
+		LIKE("LIKE"), IN("IN"), IS_NULL("IS NULL"), IS_NOT_NULL("IS NOT NULL");
+
+		private final String symbol;
+
+		Operator(String symbol) {
+			this.symbol = symbol;
+		}
+
+		private static Operator of(String symbol) {
+			switch (symbol) {
+			case "=":
+				return EQUAL;
+			case "<>":
+			case "!=":
+				return NOT_EQUAL;
+			case "<":
+				return LESS;
+			case "<=":
+				return LESS_OR_EQUAL;
+			case ">":
+				return GREATER;
+			case ">=":
+				return GREATER_OR_EQUAL;
+			default:
+				return null;
+			}
+		}
 
-			String exp = bexp.substring(first_par+1,last_par);
-			
-			
-			if (resolveBooleanExp(exp))
-				bexp = bexp.substring(0,first_par)+'1'+bexp.substring(last_par+1);
+		private boolean accept(int comparison) {
+			switch (this) {
+			case EQUAL:
+				return comparison == 0;
+			case NOT_EQUAL:
+				return comparison != 0;
+			case LESS:
+				return comparison < 0;
+			case LESS_OR_EQUAL:
+				return comparison <= 0;
+			case GREATER:
+				return comparison > 0;
+			case GREATER_OR_EQUAL:
+				return comparison >= 0;
+			default:
+				return false;
+			}
+		}
+
+		@Override
+		public String toString() {
+			return symbol;
+		}
+	}
+
+	/**
+	 * A value of the statement, converted once to all the types it may be
+	 * compared with.
+	 */
+	static final class Literal {
+		final String text;
+		final BigDecimal decimal;
+		final double doubleValue;
+		final boolean integral;
+		final long longValue;
+		final Boolean bool;
+		final java.sql.Date date;
+		final Time time;
+		final Timestamp timestamp;
+
+		Literal(String text) {
+			this.text = text;
+			this.decimal = parseDecimal(text);
+			this.doubleValue = decimal == null ? Double.NaN : decimal.doubleValue();
+			this.integral = isLong(decimal);
+			this.longValue = integral ? decimal.longValue() : 0;
+			if (text.equalsIgnoreCase("true") || text.equals("1"))
+				this.bool = Boolean.TRUE;
+			else if (text.equalsIgnoreCase("false") || text.equals("0"))
+				this.bool = Boolean.FALSE;
 			else
-				bexp = bexp.substring(0,first_par)+'0'+bexp.substring(last_par+1);
-		}
-		
-		
-		bexp=bexp.replaceAll("!1", "0");
-		bexp=bexp.replaceAll("!0", "1");
-		
-		String[] or_terms = bexp.split("\\|");
-		for (int i=0; i<or_terms.length; i++){
-			if (or_terms[i].contains("&")){
-				Boolean tmp_res=true;
-				String[] and_terms = bexp.split("\\&");
-				for (int j=0; j<and_terms.length; j++){
-					if (and_terms[j].equals("0")){
-						tmp_res=false;
-					 	break;
-					}
-				}
-				
-				if (tmp_res){
+				this.bool = null;
+			this.date = parseDate(text);
+			this.time = parseTime(text);
+			this.timestamp = parseTimestamp(text, date);
+		}
+
+		private static BigDecimal parseDecimal(String text) {
+			try {
+				return new BigDecimal(text.trim());
+			} catch (NumberFormatException e) {
+				return null;
+			}
+		}
+
+		private static boolean isLong(BigDecimal decimal) {
+			if (decimal == null)
+				return false;
+			if (decimal.signum() == 0)
+				return true;
+			return decimal.stripTrailingZeros().scale() <= 0 && decimal.compareTo(BigDecimal.valueOf(Long.MAX_VALUE)) <= 0
+					&& decimal.compareTo(BigDecimal.valueOf(Long.MIN_VALUE)) >= 0;
+		}
+
+		private static java.sql.Date parseDate(String text) {
+			try {
+				return java.sql.Date.valueOf(text.trim());
+			} catch (IllegalArgumentException e) {
+				return null;
+			}
+		}
+
+		private static Time parseTime(String text) {
+			try {
+				return Time.valueOf(text.trim());
+			} catch (IllegalArgumentException e) {
+				return null;
+			}
+		}
+
+		private static Timestamp parseTimestamp(String text, java.sql.Date date) {
+			if (date != null)
+				return new Timestamp(date.getTime());
+			try {
+				return Timestamp.valueOf(text.trim());
+			} catch (IllegalArgumentException e) {
+				return null;
+			}
+		}
+	}
+
+	/**
+	 * A node of the parsed statement.
+	 */
+	abstract static class Node implements Predicate<DataRow> {
+
+		int[] find(Function<String, ColumnIndex> indexes) {
+			return null;
+		}
+	}
+
+	static final class And extends Node {
+		final List<Node> nodes;
+
+		And(List<Node> nodes) {
+			this.nodes = Collections.unmodifiableList(nodes);
+		}
+
+		@Override
+		public boolean test(DataRow row) {
+			for (Node node : nodes) {
+				if (!node.test(row))
+					return false;
+			}
+			return true;
+		}
+
+		@Override
+		int[] find(Function<String, ColumnIndex> indexes) {
+			int[] ret = null;
+			for (Node node : nodes) {
+				int[] positions = node.find(indexes);
+				if (positions != null && (ret == null || positions.length < ret.length))
+					ret = positions;
+			}
+			return ret;
+		}
+	}
+
+	static final class Or extends Node {
+		final List<Node> nodes;
+
+		Or(List<Node> nodes) {
+			this.nodes = Collections.unmodifiableList(nodes);
+		}
+
+		@Override
+		public boolean test(DataRow row) {
+			for (Node node : nodes) {
+				if (node.test(row))
 					return true;
-				} else {
-					continue;
+			}
+			return false;
+		}
+
+		@Override
+		int[] find(Function<String, ColumnIndex> indexes) {
+			int[] ret = null;
+			for (Node node : nodes) {
+				int[] positions = node.find(indexes);
+				if (positions == null)
+					return null;
+				ret = ret == null ? positions : ColumnIndex.union(ret, positions);
+			}
+			return ret;
+		}
+	}
+
+	static final class Not extends Node {
+		final Node node;
+
+		Not(Node node) {
+			this.node = node;
+		}
+
+		@Override
+		public boolean test(DataRow row) {
+			return !node.test(row);
+		}
+	}
+
+	/**
+	 * Compares a field of the DataRow with the values of the statement. A field
+	 * without a value only matches IS NULL, as does a column of the ResultSet the
+	 * DataRow has no field for.
+	 */
+	static final class Comparison extends Node {
+		final String field;
+		private final boolean column;
+		final Operator operator;
+		final boolean negated;
+		final Literal[] literals;
+		private final Pattern pattern;
+		private final boolean caseSensitive;
+		private final boolean trimmed;
+
+		Comparison(String field, boolean column, Operator operator, boolean negated, Literal[] literals, Pattern pattern,
+				boolean caseSensitive, boolean trimmed) {
+			this.field = field;
+			this.column = column;
+			this.operator = operator;
+			this.negated = negated;
+			this.literals = literals;
+			this.pattern = pattern;
+			this.caseSensitive = caseSensitive;
+			this.trimmed = trimmed;
+		}
+
+		@Override
+		public boolean test(DataRow row) {
+			DataField dataField = row.getField(field, column);
+			Object value = dataField == null ? null : dataField.getValue();
+			switch (operator) {
+			case IS_NULL:
+				return value == null;
+			case IS_NOT_NULL:
+				return value != null;
+			default:
+				break;
+			}
+			if (value == null)
+				return false;
+			switch (operator) {
+			case LIKE:
+				return pattern.matcher(text(value)).matches() != negated;
+			case IN:
+				for (Literal literal : literals) {
+					if (compare(value, literal) == 0)
+						return !negated;
 				}
-						
+				return negated;
+			default:
+				int comparison = compare(value, literals[0]);
+				return comparison != INCOMPARABLE && operator.accept(comparison);
 			}
-			if (or_terms[i].equals("1")){
-				return true;
+		}
+
+		@Override
+		int[] find(Function<String, ColumnIndex> indexes) {
+			// the index is keyed by the exact String value
+			if (negated || !caseSensitive || trimmed || operator != Operator.EQUAL && operator != Operator.IN)
+				return null;
+			ColumnIndex index = indexes.apply(field);
+			if (index == null)
+				return null;
+			int[] ret = new int[0];
+			for (Literal literal : literals) {
+				ret = ColumnIndex.union(ret, index.find(literal.text));
 			}
+			return ret;
+		}
+
+		private String text(Object value) {
+			String text = value.toString();
+			return trimmed ? text.trim() : text;
 		}
 
-		
-		return false;	
+		private int compare(Object value, Literal literal) {
+			if (value instanceof String)
+				return compareText((String) value, literal);
+			if (value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte) {
+				if (literal.decimal == null)
+					return INCOMPARABLE;
+				long longValue = ((Number) value).longValue();
+				return literal.integral ? Long.compare(longValue, literal.longValue)
+						: Double.compare(longValue, literal.doubleValue);
+			}
+			if (value instanceof BigDecimal)
+				return literal.decimal == null ? INCOMPARABLE : ((BigDecimal) value).compareTo(literal.decimal);
+			if (value instanceof Number)
+				return literal.decimal == null ? INCOMPARABLE
+						: Double.compare(((Number) value).doubleValue(), literal.doubleValue);
+			if (value instanceof Boolean)
+				return literal.bool == null ? INCOMPARABLE : Boolean.compare((Boolean) value, literal.bool);
+			if (value instanceof Timestamp)
+				return literal.timestamp == null ? INCOMPARABLE : ((Timestamp) value).compareTo(literal.timestamp);
+			if (value instanceof java.sql.Date)
+				return literal.date == null ? INCOMPARABLE : ((java.sql.Date) value).compareTo(literal.date);
+			if (value instanceof Time)
+				return literal.time == null ? INCOMPARABLE : ((Time) value).compareTo(literal.time);
+			return compareText(value.toString(), literal);
+		}
+
+		private int compareText(String value, Literal literal) {
+			if (trimmed)
+				value = value.trim();
+			return Integer.signum(
+					caseSensitive ? value.compareTo(literal.text) : value.compareToIgnoreCase(literal.text));
+		}
 	}
-	
 
 }
@@ -118,6 +118,29 @@ public class ExpressionMatcher {
 	}
 
 
+	/**
+	 * Returns the positions of the DataRows in the sorted index which may match
+	 * this condition, or null if the index can't narrow them down.
+	 */
+	int[] find(ColumnIndex index) {
+		if (matcherList.isEmpty())
+			return index.find(function, drCompare);
+
+		int[] ret = null;
+		for (ExpressionMatcher matcher : matcherList) {
+			int[] positions = matcher.find(index);
+			if (orCombined) {
+				if (positions == null)
+					return null;
+				ret = ret == null ? positions : ColumnIndex.union(ret, positions);
+			} else if (positions != null && (ret == null || positions.length < ret.length)) {
+				ret = positions;
+			}
+		}
+		return ret;
+	}
+
+
 	public static String generateJavaScriptExpression(String expression, int type) throws ParseException {
 		String[] expressions = expression.split("(?<!\\\\)[\\&\\|]");
 		ArrayList<String> operators = new ArrayList<String>();
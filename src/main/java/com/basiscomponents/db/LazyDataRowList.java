@@ -0,0 +1,116 @@
+package com.basiscomponents.db;
+
+import java.io.ObjectStreamException;
+import java.io.Serializable;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.function.Consumer;
+import java.util.function.IntFunction;
+
+/**
+ * The DataRows of a ResultSet of which some are only created when they are
+ * first accessed, see {@link ResultSet#addLazy(int, IntFunction)}.<br>
+ * <br>
+ * Replacing or removing a row doesn't create it, {@link #set(int, DataRow)}
+ * and {@link #remove(int)} return {@code null} for a row which was never
+ * accessed.
+ */
+final class LazyDataRowList extends AbstractList<DataRow> implements RandomAccess, Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	private final ArrayList<Object> rows; // a DataRow or a Pending row
+
+	private final transient Consumer<DataRow> onLoad;
+
+	LazyDataRowList(List<DataRow> rows, Consumer<DataRow> onLoad) {
+		this.rows = new ArrayList<>(rows);
+		this.onLoad = onLoad;
+	}
+
+	void addLazy(int count, IntFunction<DataRow> loader) {
+		rows.ensureCapacity(rows.size() + count);
+		for (int i = 0; i < count; i++) {
+			rows.add(new Pending(loader, i));
+		}
+		modCount++;
+	}
+
+	@Override
+	public DataRow get(int index) {
+		Object row = rows.get(index);
+		if (row instanceof Pending) {
+			return load((Pending) row);
+		}
+		return (DataRow) row;
+	}
+
+	/**
+	 * Returns the DataRow in the slot if it was created already, {@code null}
+	 * otherwise.
+	 */
+	private static DataRow created(Object row) {
+		return row instanceof Pending ? ((Pending) row).row : (DataRow) row;
+	}
+
+	private DataRow load(Pending pending) {
+		DataRow row = pending.row;
+		if (row != null)
+			return row;
+		// rows may be read by several threads, f.g. while writing JSON in parallel
+		synchronized (this) {
+			if (pending.row == null) {
+				row = pending.loader.apply(pending.position);
+				onLoad.accept(row);
+				pending.row = row;
+			}
+			return pending.row;
+		}
+	}
+
+	@Override
+	public int size() {
+		return rows.size();
+	}
+
+	@Override
+	public DataRow set(int index, DataRow element) {
+		return created(rows.set(index, element));
+	}
+
+	@Override
+	public void add(int index, DataRow element) {
+		rows.add(index, element);
+		modCount++;
+	}
+
+	@Override
+	public DataRow remove(int index) {
+		Object previous = rows.remove(index);
+		modCount++;
+		return created(previous);
+	}
+
+	@Override
+	public void clear() {
+		rows.clear();
+		modCount++;
+	}
+
+	private Object writeReplace() throws ObjectStreamException {
+		return new ArrayList<>(this);
+	}
+
+	private static final class Pending {
+		private final IntFunction<DataRow> loader;
+		private final int position;
+		private volatile DataRow row;
+
+		private Pending(IntFunction<DataRow> loader, int position) {
+			this.loader = loader;
+			this.position = position;
+		}
+	}
+}
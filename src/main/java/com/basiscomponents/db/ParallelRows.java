@@ -0,0 +1,66 @@
+package com.basiscomponents.db;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Runs a task for each DataRow of a list in chunks on the common fork-join pool,
+ * see {@link ResultSet#setParallelThreshold(int)}.
+ */
+final class ParallelRows {
+
+	private static final int MIN_CHUNK_SIZE = 1000;
+
+	@FunctionalInterface
+	interface RowTask {
+		void run(int index, DataRow row) throws Exception;
+	}
+
+	private ParallelRows() {
+	}
+
+	/**
+	 * Runs the task for each DataRow and waits until all are done. The tasks
+	 * write their results by index, so the caller can read them in the order of
+	 * the DataRows. If tasks fail, the exception of the first failed DataRow is
+	 * thrown, like on a single thread.
+	 *
+	 * @param rows the DataRows
+	 * @param task the task
+	 * @throws Exception the exception of the first failed task
+	 */
+	static void forEach(List<DataRow> rows, RowTask task) throws Exception {
+		int size = rows.size();
+		int chunkSize = Math.max(MIN_CHUNK_SIZE, size / (ForkJoinPool.getCommonPoolParallelism() * 4));
+		int chunks = (size + chunkSize - 1) / chunkSize;
+		Exception[] failures = new Exception[chunks];
+		List<RecursiveAction> actions = new ArrayList<>(chunks);
+		for (int chunk = 0; chunk < chunks; chunk++) {
+			int index = chunk;
+			int from = chunk * chunkSize;
+			int to = Math.min(size, from + chunkSize);
+			actions.add(new RecursiveAction() {
+				private static final long serialVersionUID = 1L;
+
+				@Override
+				protected void compute() {
+					try {
+						for (int i = from; i < to; i++) {
+							task.run(i, rows.get(i));
+						}
+					} catch (Exception e) {
+						failures[index] = e;
+					}
+				}
+			});
+		}
+		ForkJoinTask.invokeAll(actions);
+		for (Exception failure : failures) {
+			if (failure != null)
+				throw failure;
+		}
+	}
+}
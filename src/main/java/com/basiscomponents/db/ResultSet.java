@@ -3,8 +3,14 @@ package com.basiscomponents.db;
 import static com.basiscomponents.util.StringHelper.invert;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputFilter;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.Writer;
 import java.math.BigDecimal;
 import java.net.URL;
+import java.nio.ByteBuffer;
 import java.sql.Array;
 import java.sql.Blob;
 import java.sql.Clob;
@@ -17,14 +23,23 @@ import java.sql.Timestamp;
 import java.text.ParseException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.PrimitiveIterator;
 import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.IntFunction;
+import java.util.function.Predicate;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -59,12 +74,18 @@ public class ResultSet implements java.io.Serializable, Iterable<DataRow> {
 	public static final int SORT_ON_GROUPLABEL_DESC = 12;
 	public static final int SORT_ON_RESULT_DESC = 13;
 
+	public static final int JOIN_INNER = 0;
+	public static final int JOIN_LEFT = 1;
+	public static final int JOIN_FULL = 2;
+
+	// the column lists are replaced instead of changed when a column is added or
+	// removed, see appendColumn(String, HashMap)
 	@Expose
-	private ArrayList<HashMap<String, Object>> MetaData = new ArrayList<>();
+	private volatile ArrayList<HashMap<String, Object>> MetaData = new ArrayList<>();
 	@Expose
-	private ArrayList<String> ColumnNames = new ArrayList<>();
+	private volatile ArrayList<String> ColumnNames = new ArrayList<>();
 	@Expose
-	private ArrayList<DataRow> DataRows = new ArrayList<>();
+	private List<DataRow> DataRows = new ArrayList<>();
 	private ArrayList<String> FieldSelection;
 
 	private ArrayList<String> KeyColumns = new ArrayList<>();
@@ -77,6 +98,12 @@ public class ResultSet implements java.io.Serializable, Iterable<DataRow> {
 	private Boolean isIndexed = false;
 	private HashMap <String,Integer> rowIndex;
 
+	private transient volatile HashMap<String, Integer> columnIndex; // column name -> position in ColumnNames
+
+	private transient HashMap<String, ColumnIndex> secondaryIndexes; // column name -> index, see createIndex(String)
+
+	private transient volatile List<String> columnNamesView;
+
 	private SQLResultSet sqlResultSet = null;
 	private static final Logger LOGGER = Logger.getLogger(ResultSet.class.getName());
 	
@@ -84,6 +111,14 @@ public class ResultSet implements java.io.Serializable, Iterable<DataRow> {
 
 	private ConversionRuleSet crs;
 
+	private static final AtomicLong VERSION_CLOCK = new AtomicLong();
+
+	private transient Map<DataRow, Long> insertedRows; // only while tracking changes
+
+	private transient LinkedHashMap<String, Long> removedRowKeys; // row key -> version of the removal
+
+	private static volatile int parallelThreshold = 100000;
+
 
 	public ResultSet() {
 	}
@@ -120,6 +155,59 @@ public class ResultSet implements java.io.Serializable, Iterable<DataRow> {
 		return rs;
 	}
 
+	/**
+	 * Creates a ResultSet holding a copy of this ResultSet's column metadata, but no DataRows.
+	 * Used by DataRows to detach from metadata they share with other DataRows before changing it.
+	 *
+	 * @return a ResultSet with the same columns and no rows
+	 */
+	ResultSet cloneSchema() {
+		ArrayList<HashMap<String, Object>> metaData = new ArrayList<>(this.MetaData.size());
+		this.MetaData.forEach(colMap -> metaData.add(new HashMap<>(colMap)));
+		return new ResultSet(metaData, this.ColumnNames, Collections.emptyList());
+	}
+
+
+	/**
+	 * Returns a column oriented copy of this ResultSet, meant for scanning a few
+	 * columns over many rows, e.g. for aggregations.
+	 *
+	 * @see ColumnarResultSet
+	 *
+	 * @return the ColumnarResultSet
+	 */
+	public ColumnarResultSet toColumnar() {
+		return new ColumnarResultSet(this);
+	}
+
+	/**
+	 * Returns the number of DataRows from which filterBy, orderBy, the scalar
+	 * functions like sum or median and toJson work in parallel on the common
+	 * fork-join pool.
+	 * 
+	 * @return the number of DataRows
+	 */
+	public static int getParallelThreshold() {
+		return parallelThreshold;
+	}
+
+	/**
+	 * Sets the number of DataRows from which filterBy, orderBy and the scalar
+	 * functions like sum or median work in parallel on the common fork-join pool.
+	 * The JSON of a ResultSet is encoded in parallel from the same number of
+	 * DataRows on. The results are the same as on a single thread, also the order
+	 * of the DataRows.
+	 * 
+	 * @param rows the number of DataRows, Integer.MAX_VALUE to always work on a
+	 *             single thread
+	 */
+	public static void setParallelThreshold(int rows) {
+		parallelThreshold = rows;
+	}
+
+	private boolean isParallel() {
+		return size() >= parallelThreshold && ForkJoinPool.getCommonPoolParallelism() > 1;
+	}
 
 	/**
 	 * re-orders a result set according to an ORDER BY clause like in SQL ORDER BY:
@@ -144,14 +232,7 @@ public class ResultSet implements java.io.Serializable, Iterable<DataRow> {
 	 * @param direction The sort direction("ASC" or "DESC")
 	 */
 	public void orderByColumn(String fieldName, String direction) {
-		if (!"ASC".equalsIgnoreCase(direction) && !"DESC".equalsIgnoreCase(direction)) {
-			direction = "ASC";
-		}
-		java.util.Comparator<DataRow> comparator = new DataFieldComparator(fieldName);
-		if ("DESC".equalsIgnoreCase(direction)) {
-			comparator = comparator.reversed();
-		}	
-		DataRows.sort(comparator);
+		orderByColumn(new DataRowMultifieldComparator(fieldName, "DESC".equalsIgnoreCase(direction)));
 	}
 
 	/**
@@ -160,7 +241,13 @@ public class ResultSet implements java.io.Serializable, Iterable<DataRow> {
 	 * @param comparator The comparator used to re-order the ResultSet.
 	 */
 	public void orderByColumn(java.util.Comparator<DataRow> comparator) {
-		DataRows.sort(comparator);
+		if (comparator instanceof DataRowMultifieldComparator) {
+			// reads the sort keys of each DataRow only once
+			((DataRowMultifieldComparator) comparator).sort(DataRows, isParallel());
+		} else {
+			DataRows.sort(comparator);
+		}
+		invalidateSecondaryIndexes();
 	}
 
 	/**
@@ -171,15 +258,15 @@ public class ResultSet implements java.io.Serializable, Iterable<DataRow> {
 	 */
 	public void orderByRowID() {
 		DataRows.sort(java.util.Comparator.comparing(DataRow::getRowID));
+		invalidateSecondaryIndexes();
 	}
 
 	/**
 	 * Applies the queryClause to a ResultSet and returns a new ResultSet that only contains
 	 * records that match the clause. The clause syntax is similar to an SQL WHERE clause.
 	 * 
-	 * CAUTION: this method is experimental!!
-	 * It only understands "equals" and basic statements, no full SQL.
-	 * Searching for volunteers to implant full SQL where clause parsing.
+	 * Supported are =, <>, <, <=, >, >=, [NOT] LIKE, [NOT] IN (...) and IS [NOT] NULL,
+	 * combined with AND, OR, NOT and parentheses, see {@link DataRowQueryMatcher}.
 	 * 
 	 * @param queryClause: the query
 	 * @return ResultSet: the records that match the query clause
@@ -193,9 +280,8 @@ public class ResultSet implements java.io.Serializable, Iterable<DataRow> {
 	 * Applies the queryClause to a ResultSet and returns a new ResultSet that only contains
 	 * records that match the clause. The clause syntax is similar to an SQL WHERE clause.
 	 * 
-	 * CAUTION: this method is experimental!!
-	 * It only understands "equals" and basic statements, no full SQL.
-	 * Searching for volunteers to implant full SQL where clause parsing.
+	 * Supported are =, <>, <, <=, >, >=, [NOT] LIKE, [NOT] IN (...) and IS [NOT] NULL,
+	 * combined with AND, OR, NOT and parentheses, see {@link DataRowQueryMatcher}.
 	 * 
 	 * @param QueryClause: the query
 	 * @param caseSensitive whether the filter query should be case sensitive or not
@@ -204,14 +290,19 @@ public class ResultSet implements java.io.Serializable, Iterable<DataRow> {
 	 * @throws Exception
 	 */
 	public ResultSet filterBy(String QueryClause, final boolean caseSensitive, final boolean trimmed) throws Exception{
-		LOGGER.warning("WARNING: using experimental method implementation filterBy clause on ResultSet");
+		Predicate<DataRow> predicate = DataRowQueryMatcher.compile(QueryClause, this, caseSensitive, trimmed);
 		ResultSet r = new ResultSet(this.MetaData, this.ColumnNames, this.KeyColumns);
-		Iterator<DataRow> it = this.iterator();
-		while (it.hasNext()) {
-			DataRow dr = it.next();
-			if (DataRowQueryMatcher.matches(QueryClause, dr, caseSensitive, trimmed))
-				r.add(dr);
+		int[] candidates = this.secondaryIndexes == null ? null
+				: DataRowQueryMatcher.find(predicate, this::getTextColumnIndex);
+		if (candidates != null) {
+			for (int row : candidates) {
+				DataRow dr = get(row);
+				if (predicate.test(dr))
+					r.add(dr);
+			}
+			return r;
 		}
+		addMatches(r, predicate::test);
 		return r;
 	}
 
@@ -232,16 +323,46 @@ public class ResultSet implements java.io.Serializable, Iterable<DataRow> {
 		}
 		final SimpleFilterHelper sfh = new SimpleFilterHelper(simpleFilterCondition, get(0));
 
-		Iterator<DataRow> dataRowIterator = this.iterator();
-		while (dataRowIterator.hasNext()) {
-			DataRow dataRow = dataRowIterator.next();
-			if (sfh.matches(dataRow)) {
-				resultSet.add(dataRow);
+		int[] candidates = sfh.findCandidates();
+		if (candidates != null) {
+			for (int row : candidates) {
+				DataRow dataRow = get(row);
+				if (sfh.matches(dataRow)) {
+					resultSet.add(dataRow);
+				}
 			}
+			return resultSet;
 		}
+
+		addMatches(resultSet, sfh::matches);
 		return resultSet;
 	}
 
+	@FunctionalInterface
+	private interface RowFilter {
+		boolean matches(DataRow dr) throws Exception;
+	}
+
+	/**
+	 * Adds the DataRows of this ResultSet which match the filter to the result, in
+	 * their order. Large ResultSets are matched in parallel.
+	 */
+	private void addMatches(ResultSet result, RowFilter filter) throws Exception {
+		if (!isParallel()) {
+			for (DataRow dr : this) {
+				if (filter.matches(dr))
+					result.add(dr);
+			}
+			return;
+		}
+		boolean[] matches = new boolean[size()];
+		ParallelRows.forEach(DataRows, (row, dr) -> matches[row] = filter.matches(dr));
+		for (int row = 0; row < matches.length; row++) {
+			if (matches[row])
+				result.add(get(row));
+		}
+	}
+
 	private class SimpleFilterHelper {
 		private DataRow simpleFilterCondition;
 		private HashMap<String, Comparator<DataRow>> comparatorMap = new HashMap<>();
@@ -264,6 +385,36 @@ public class ResultSet implements java.io.Serializable, Iterable<DataRow> {
 			return match;
 		}
 
+		/**
+		 * Returns the positions of the DataRows which may match, taken from the
+		 * most selective index on one of the filter fields, or null if no index
+		 * applies. Plain values are looked up in hash indexes, "cond:" conditions
+		 * in sorted indexes.
+		 */
+		private int[] findCandidates() {
+			if (secondaryIndexes == null)
+				return null;
+			int[] candidates = null;
+			for (String filterFieldName : simpleFilterCondition.getFieldNames()) {
+				ColumnIndex index = getSecondaryIndex(filterFieldName);
+				if (index == null)
+					continue;
+				int[] positions = null;
+				ExpressionMatcher matcher = matcherMap.get(filterFieldName);
+				if (matcher != null) {
+					if (index.isSorted())
+						positions = matcher.find(index);
+				} else if (!index.isSorted()) {
+					String value = simpleFilterCondition.getField(filterFieldName).getString();
+					if (value != null && !value.startsWith("regex:"))
+						positions = index.find(value);
+				}
+				if (positions != null && (candidates == null || positions.length < candidates.length))
+					candidates = positions;
+			}
+			return candidates;
+		}
+
 		private void prepareFilterMaps(DataRow metadata) throws Exception {
 			// Check for "cond:" filters. If found, then create new ExpressionMatcher
 			// object's per field.
@@ -338,6 +489,27 @@ public class ResultSet implements java.io.Serializable, Iterable<DataRow> {
 	 */
 	// NOTE: java.sql.ResultSet is 1-based, ours is 0-based
 	public void populate(java.sql.ResultSet rs, Boolean defaultMetaData) throws Exception {
+		populate(rs, defaultMetaData, null);
+	}
+
+	/**
+	 * Iterates over the given {@code java.sql.ResultSet} object and creates a
+	 * DataRow object for each record of it, like
+	 * {@link #populate(java.sql.ResultSet, Boolean)}.
+	 * 
+	 * If a consumer is given, the DataRows are not added to this ResultSet but
+	 * passed to the consumer one by one while reading the java.sql.ResultSet, so
+	 * this ResultSet only holds the metadata which the DataRows refer to. The
+	 * field attributes (EDITABLE, StringFormat) are set as column attributes in
+	 * this metadata instead of on the first DataRow, see
+	 * {@link DataRow#getColumnAttribute(String, String)}.
+	 * 
+	 * @param rs
+	 * @param defaultMetaData
+	 * @param consumer the consumer receiving the DataRows, null to add them to this ResultSet
+	 * @throws Exception
+	 */
+	public void populate(java.sql.ResultSet rs, Boolean defaultMetaData, Consumer<DataRow> consumer) throws Exception {
 		java.sql.ResultSetMetaData rsmd = rs.getMetaData();
 		int cc = rsmd.getColumnCount();
 		String name;
@@ -357,12 +529,11 @@ public class ResultSet implements java.io.Serializable, Iterable<DataRow> {
 				colMap.put("ColumnClassName", rsmd.getColumnClassName(column));
 				colMap.put("ColumnDisplaySize", rsmd.getColumnDisplaySize(column));
 				colMap.put("ColumnLabel", rsmd.getColumnLabel(column));
-				if (this.ColumnNames.contains(name)) {
+				if (getColumnIndex(name) != -1) {
 					name += "_" + column; // handle dups
 				}
 				colMap.put("ColumnName", name);
 				columns.put(column, name);
-				this.ColumnNames.add(name);
 				type = rsmd.getColumnType(column);
 				colMap.put("ColumnType", type);
 				types.add(type);
@@ -388,7 +559,7 @@ public class ResultSet implements java.io.Serializable, Iterable<DataRow> {
 				}
 				catch (Exception e) {} finally {};
 				
-				this.MetaData.add(colMap);
+				appendColumn(name, colMap);
 			}
 		} else {
 			for (String col : ColumnNames) {
@@ -419,7 +590,11 @@ public class ResultSet implements java.io.Serializable, Iterable<DataRow> {
 					attribute.put("EDITABLE", "1");
 			}
 
-			fieldAttributes.put(name, attribute);
+			if (consumer == null)
+				fieldAttributes.put(name, attribute);
+			else
+				for (Map.Entry<String, String> a : attribute.entrySet())
+					setAttribute(column, a.getKey(), a.getValue());
 
 			column++;
 		}
@@ -455,19 +630,28 @@ public class ResultSet implements java.io.Serializable, Iterable<DataRow> {
 				dr = mListener.processRow(dr); 
 			} 
 			if (dr != null) {
-				this.DataRows.add(dr);
+				if (consumer == null) {
+					this.DataRows.add(dr);
+				} else {
+					consumer.accept(dr);
+				}
 				rowId++;
 			}
 		}
 
 		// Add meta data to the first row only
-		if (!DataRows.isEmpty() && fieldAttributes.size() > 0) {
-			DataRow dr = DataRows.get(0);
-			Iterator<String> it = dr.getFieldNames().iterator();
-			while (it.hasNext()) {
-				String fieldName = it.next();
-				dr.setFieldAttributes(fieldName, new HashMap<String, String>(fieldAttributes.get(fieldName)));
-			}
+		if (consumer == null && !DataRows.isEmpty()) {
+			setFieldAttributes(DataRows.get(0), fieldAttributes);
+		}
+	}
+
+	private static void setFieldAttributes(DataRow dr, Map<String, Map<String, String>> fieldAttributes) {
+		if (fieldAttributes.isEmpty())
+			return;
+		Iterator<String> it = dr.getFieldNames().iterator();
+		while (it.hasNext()) {
+			String fieldName = it.next();
+			dr.setFieldAttributes(fieldName, new HashMap<String, String>(fieldAttributes.get(fieldName)));
 		}
 	}
 
@@ -481,29 +665,59 @@ public class ResultSet implements java.io.Serializable, Iterable<DataRow> {
 		Iterator<String> it = names.iterator();
 		while (it.hasNext()) {
 			String name = it.next();
-			if (!this.ColumnNames.contains(name)) {
-				int column = this.addColumn(name);
+			if (getColumnIndex(name) == -1) {
+				// the metadata is complete before the column is added, lazily created
+				// rows are merged while other threads may read the columns
+				HashMap<String, Object> colMap = new HashMap<>();
 				try {
-					this.setColumnType(column, dr.getFieldType(name));
+					putColumnType(colMap, dr.getFieldType(name));
 				} catch (Exception e) {
 
 					LOGGER.log(Level.WARNING, "Could not set Column type", e);
 				}
 				try {
-					Map<String, String> attrMap = dr.getFieldAttributes(name);
-				
-					attrMap.keySet().forEach(attrKey->
-					this.setAttribute(column, attrKey, attrMap.get(attrKey)));
-					
+					colMap.putAll(dr.getFieldAttributes(name));
 				} catch (Exception e) {
 					LOGGER.log(Level.WARNING, "Could not setAttributes", e);
 				}
+				this.addColumn(name, colMap);
 			}
 		}
 	}
 
 	/**
-	 * Adds the given DataRow object to the ResultSet.
+	 * Appends DataRows which are only created when they are first accessed, f.g.
+	 * the rows of a large JSON document of which only a few are read. The loader
+	 * is called once per row, with the position of the row counted from 0 for the
+	 * first row of this call. The fields of a row are merged into the columns of
+	 * the ResultSet when the row is created, so a column which only the lazy rows
+	 * have is not returned by {@link #getColumnNames()} before such a row was
+	 * accessed. Add a row with all columns first to fix the columns up front.<br>
+	 * <br>
+	 * If the ResultSet is indexed, has an index on a column or tracks changes,
+	 * the DataRows are created right away.
+	 * 
+	 * @param count  The number of DataRows to append.
+	 * @param loader Creates the DataRow at the given position.
+	 */
+	public void addLazy(int count, IntFunction<DataRow> loader) {
+		if (isIndexed || this.secondaryIndexes != null || isChangeTracking()) {
+			for (int i = 0; i < count; i++) {
+				add(loader.apply(i));
+			}
+			return;
+		}
+		if (!(this.DataRows instanceof LazyDataRowList)) {
+			this.DataRows = new LazyDataRowList(this.DataRows, this::mergeDataRowFields);
+		}
+		((LazyDataRowList) this.DataRows).addLazy(count, loader);
+	}
+
+	/**
+	 * Adds the given DataRow object to the ResultSet. The DataRow keeps its column
+	 * metadata, it only shares the metadata of this ResultSet if it was created
+	 * with it, see {@link DataRow#DataRow(ResultSet)}. Otherwise it would report
+	 * the columns which other DataRows add later as its own fields.
 	 * 
 	 * @param dr The DataRow to add.
 	 */
@@ -513,6 +727,8 @@ public class ResultSet implements java.io.Serializable, Iterable<DataRow> {
 		if (isIndexed) {
 			rowIndex.put(computeRowKey(dr), size()-1);
 		}
+		secondaryIndexInserted(size() - 1, dr);
+		rowInserted(dr);
 	}
 
 	/**
@@ -532,6 +748,8 @@ public class ResultSet implements java.io.Serializable, Iterable<DataRow> {
 			} catch (ParseException e) {
 				LOGGER.log(Level.WARNING, "Index could not be recreated", e);
 			}
+			secondaryIndexInserted(row, dr);
+			rowInserted(dr);
 		}
 	}
 
@@ -564,9 +782,7 @@ public class ResultSet implements java.io.Serializable, Iterable<DataRow> {
 	public int addColumn(String name) {
 		HashMap<String, Object> colMap = new HashMap<String, Object>();
 		colMap.put("ColumnName", name);
-		this.ColumnNames.add(name);
-		this.MetaData.add(colMap);
-		return this.MetaData.size() - 1;
+		return appendColumn(name, colMap);
 	}
 
 	/**
@@ -579,9 +795,38 @@ public class ResultSet implements java.io.Serializable, Iterable<DataRow> {
 	 */
 	public int addColumn(String name, HashMap<String, Object> colMap) {
 		colMap.put("ColumnName", name);
-		this.ColumnNames.add(name);
-		this.MetaData.add(colMap);
-		return this.MetaData.size() - 1;
+		return appendColumn(name, colMap);
+	}
+
+	/**
+	 * Appends a column to copies of the column lists and of the column index and
+	 * publishes the copies, the metadata first. Threads reading the columns, f.g.
+	 * while writing JSON in parallel, never see a list which is being changed,
+	 * although lazily created DataRows may add columns at the same time.
+	 * 
+	 * @param name   The name of the column.
+	 * @param colMap The metadata of the column.
+	 * 
+	 * @return the index of the newly added column.
+	 */
+	private synchronized int appendColumn(String name, HashMap<String, Object> colMap) {
+		int column = this.ColumnNames.size();
+		ArrayList<HashMap<String, Object>> metaData = new ArrayList<>(this.MetaData.size() + 1);
+		metaData.addAll(this.MetaData);
+		metaData.add(colMap);
+		ArrayList<String> columnNames = new ArrayList<>(column + 1);
+		columnNames.addAll(this.ColumnNames);
+		columnNames.add(name);
+		HashMap<String, Integer> index = this.columnIndex;
+		if (index != null) {
+			index = new HashMap<>(index);
+			index.putIfAbsent(name, column);
+		}
+		this.MetaData = metaData;
+		this.ColumnNames = columnNames;
+		this.columnNamesView = null;
+		this.columnIndex = index;
+		return column;
 	}
 
 	/**
@@ -620,11 +865,36 @@ public class ResultSet implements java.io.Serializable, Iterable<DataRow> {
 	 * @return the column's index or -1 if the column doesn't exist.
 	 */
 	public int getColumnIndex(String name) {
-		return this.ColumnNames.indexOf(name);
+		HashMap<String, Integer> index = this.columnIndex;
+		if (index == null)
+			index = buildColumnIndex();
+		Integer column = index.get(name);
+		return column == null ? -1 : column;
+	}
+
+	/**
+	 * Builds the map used by {@link #getColumnIndex(String)} from the list of column names.
+	 * For duplicate names the first column wins, just like ArrayList.indexOf.
+	 * The map is complete before it is published, so threads reading the
+	 * DataRows in parallel may build it at the same time. It is only published if
+	 * no column was added or removed meanwhile.
+	 */
+	private HashMap<String, Integer> buildColumnIndex() {
+		HashMap<String, Integer> index = new HashMap<>();
+		ArrayList<String> columnNames = this.ColumnNames;
+		for (int i = 0; i < columnNames.size(); i++) {
+			index.putIfAbsent(columnNames.get(i), i);
+		}
+		synchronized (this) {
+			if (this.ColumnNames == columnNames)
+				this.columnIndex = index;
+		}
+		return index;
 	}
 
 	/**
-	 * Returns a list with all column names.
+	 * Returns a list with all column names. Adding or removing a column replaces
+	 * the list, a list which was returned before doesn't change.
 	 * 
 	 * @return the list with all column names.
 	 */
@@ -632,6 +902,26 @@ public class ResultSet implements java.io.Serializable, Iterable<DataRow> {
 		return this.ColumnNames;
 	}
 
+	/**
+	 * Returns a read-only view of the column names, which is created only once
+	 * for each list of column names.
+	 * 
+	 * @return the read-only list with all column names.
+	 */
+	List<String> getColumnNamesView() {
+		List<String> view = this.columnNamesView;
+		if (view == null) {
+			// the view of the current list, a new list gets a new view
+			ArrayList<String> columnNames = this.ColumnNames;
+			view = Collections.unmodifiableList(columnNames);
+			synchronized (this) {
+				if (this.ColumnNames == columnNames)
+					this.columnNamesView = view;
+			}
+		}
+		return view;
+	}
+
 	/**
 	 * Returns a list with all key columns.
 	 * 
@@ -742,7 +1032,8 @@ public class ResultSet implements java.io.Serializable, Iterable<DataRow> {
 	 */
 	public int indexOf(String rowKey) {
 		if (isIndexed && rowKey.length()>0) {
-			return rowIndex.get(rowKey);
+			Integer row = rowIndex.get(rowKey);
+			return row == null ? -1 : row;
 		}
 		return -1;
 	}	
@@ -751,6 +1042,12 @@ public class ResultSet implements java.io.Serializable, Iterable<DataRow> {
 	 * Clears the ResultSet by removing all DataRow objects.
 	 */
 	public void clear() {
+		if (isChangeTracking())
+			this.DataRows.forEach(this::rowRemoved);
+		if (this.secondaryIndexes != null) {
+			this.DataRows.forEach(this::unwatchFields);
+			this.secondaryIndexes.values().forEach(ColumnIndex::clear);
+		}
 		this.DataRows.clear();
 	}
 
@@ -804,7 +1101,14 @@ public class ResultSet implements java.io.Serializable, Iterable<DataRow> {
 	 * @throws ParseException 
 	 */
 	public void set(int row, DataRow dr) throws ParseException {
-		this.DataRows.set(row, dr);
+		DataRow previous = this.DataRows.set(row, dr);
+		rowRemoved(previous);
+		if (this.secondaryIndexes != null) {
+			for (ColumnIndex index : this.secondaryIndexes.values())
+				index.replaced(row, previous, dr);
+			unwatchFields(previous);
+			watchFields(dr);
+		}
 		
 		// update rowIndex
 		if (isIndexed) {
@@ -812,6 +1116,7 @@ public class ResultSet implements java.io.Serializable, Iterable<DataRow> {
 			//however, to just update the one entry, the old index needs to be known
 			reCreateIndex();
 		}
+		rowInserted(dr);
 	}
 
 	/**
@@ -869,7 +1174,8 @@ public class ResultSet implements java.io.Serializable, Iterable<DataRow> {
 	 * 
 	 * @param row The index of the DataRow to remove.
 	 * 
-	 * @return The DataRow that was removed.
+	 * @return The DataRow that was removed, {@code null} for a DataRow added by
+	 *         {@link #addLazy(int, IntFunction)} which was never accessed.
 	 */
 	public DataRow remove(int row) {
 		if (this.currentRow == row) {
@@ -877,6 +1183,13 @@ public class ResultSet implements java.io.Serializable, Iterable<DataRow> {
 			this.currentDataRow = null;
 		}
 		DataRow ret = this.DataRows.remove(row);
+		rowRemoved(ret);
+		if (this.secondaryIndexes != null) {
+			boolean last = row == size();
+			for (ColumnIndex index : this.secondaryIndexes.values())
+				index.removed(row, ret, last);
+			unwatchFields(ret);
+		}
 		try {
 			reCreateIndex();
 		} catch (ParseException e) {
@@ -898,6 +1211,48 @@ public class ResultSet implements java.io.Serializable, Iterable<DataRow> {
 		return remove(row);
 	}
 
+	/**
+	 * Removes the DataRows with the given row keys, keys which are not found are
+	 * ignored. The remaining DataRows keep their order, the indexes are rebuilt
+	 * once instead of once per removed DataRow.
+	 * 
+	 * @param rowKeys The keys of the DataRows to remove.
+	 * 
+	 * @return the number of removed DataRows
+	 * @throws ParseException
+	 */
+	public int removeRowKeys(Collection<String> rowKeys) throws ParseException {
+		createIndex();
+		BitSet removed = new BitSet(size());
+		for (String rowKey : rowKeys) {
+			int row = indexOf(rowKey);
+			if (row >= 0)
+				removed.set(row);
+		}
+		int count = removed.cardinality();
+		if (count == 0)
+			return 0;
+		if (this.currentRow >= 0) {
+			if (removed.get(this.currentRow))
+				this.currentDataRow = null;
+			this.currentRow -= removed.get(0, this.currentRow + 1).cardinality();
+		}
+		List<DataRow> kept = new ArrayList<>(size() - count);
+		for (int row = 0; row < size(); row++) {
+			DataRow dr = this.DataRows.get(row);
+			if (removed.get(row)) {
+				rowRemoved(dr);
+				unwatchFields(dr);
+			} else
+				kept.add(dr);
+		}
+		this.DataRows.clear();
+		this.DataRows.addAll(kept);
+		invalidateSecondaryIndexes();
+		reCreateIndex();
+		return count;
+	}
+
 	/**
 	 * Removes the column at the given index.
 	 * 
@@ -906,13 +1261,29 @@ public class ResultSet implements java.io.Serializable, Iterable<DataRow> {
 	public void removeColumn(int column) {
 		String name = getColumnName(column);
 		if (!name.isEmpty()) {
-			this.ColumnNames.remove(column);
-			this.MetaData.remove(column);
+			removeColumnAt(column);
 			if (this.KeyColumns != null && this.KeyColumns.contains(name))
 				this.KeyColumns.remove(name);
 		}
 	}
 
+	/**
+	 * Removes a column from copies of the column lists and publishes the copies,
+	 * see {@link #appendColumn(String, HashMap)}.
+	 * 
+	 * @param column The column index
+	 */
+	private synchronized void removeColumnAt(int column) {
+		ArrayList<HashMap<String, Object>> metaData = new ArrayList<>(this.MetaData);
+		metaData.remove(column);
+		ArrayList<String> columnNames = new ArrayList<>(this.ColumnNames);
+		columnNames.remove(column);
+		this.columnIndex = null;
+		this.columnNamesView = null;
+		this.ColumnNames = columnNames;
+		this.MetaData = metaData;
+	}
+
 	/**
 	 * Removes the column with the given name.
 	 * 
@@ -1437,7 +1808,17 @@ public class ResultSet implements java.io.Serializable, Iterable<DataRow> {
 	 * @param type The value of the ColumnType property to set.
 	 */
 	public void setColumnType(int column, int type) {
-		
+		putColumnType(this.MetaData.get(column), type);
+	}
+
+	/**
+	 * Puts the ColumnType and the ColumnTypeName of the given SQL type into the
+	 * metadata of a column.
+	 * 
+	 * @param colMap The metadata of the column.
+	 * @param type The SQL type.
+	 */
+	private static void putColumnType(HashMap<String, Object> colMap, int type) {
 		String typeName;
 		if (type == -975)
 			typeName ="ResultSet"; 
@@ -1452,9 +1833,9 @@ public class ResultSet implements java.io.Serializable, Iterable<DataRow> {
 		if (typeName == null) {
 			throw new IllegalStateException("Unknown column type " + type);
 		} else {
-			setColumnTypeName(column, typeName);
+			colMap.put("ColumnTypeName", typeName);
 		}
-		this.MetaData.get(column).put("ColumnType", type);
+		colMap.put("ColumnType", type);
 	}
 
 	/**
@@ -2123,6 +2504,82 @@ public class ResultSet implements java.io.Serializable, Iterable<DataRow> {
 			createIndex();
 		return ResultSetJsonMapper.toJson(this, meta, addIndexColumn, trimStrings, writeDataRowAttributes, this.crs);
 	}
+
+	/**
+	 * Writes the ResultSet's content as JSON to the given Writer, without creating
+	 * the JSON String in memory.
+	 *
+	 * @param writer The Writer, it is flushed but not closed
+	 * @param meta if MetaData should be printed
+	 * @param addIndexColumn The Index column which is generated (@Code{null} if it doesn't exist)
+	 * @param trimStrings if Strings should be trimmed
+	 * @param writeDataRowAttributes if the attributes of the DataRows should be written
+	 * @throws Exception
+	 */
+	public void toJson(Writer writer, boolean meta, String addIndexColumn, boolean trimStrings, boolean writeDataRowAttributes) throws Exception {
+		if (addIndexColumn!=null)
+			createIndex();
+		ResultSetJsonMapper.toJson(this, writer, meta, addIndexColumn, trimStrings, writeDataRowAttributes, this.crs);
+	}
+
+	/**
+	 * Writes the ResultSet's content as UTF-8 encoded JSON to the given
+	 * OutputStream, without creating the JSON String in memory.
+	 *
+	 * @param out The OutputStream, it is flushed but not closed
+	 * @param meta if MetaData should be printed
+	 * @param addIndexColumn The Index column which is generated (@Code{null} if it doesn't exist)
+	 * @param trimStrings if Strings should be trimmed
+	 * @param writeDataRowAttributes if the attributes of the DataRows should be written
+	 * @throws Exception
+	 */
+	public void toJson(OutputStream out, boolean meta, String addIndexColumn, boolean trimStrings, boolean writeDataRowAttributes) throws Exception {
+		if (addIndexColumn!=null)
+			createIndex();
+		ResultSetJsonMapper.toJson(this, out, meta, addIndexColumn, trimStrings, writeDataRowAttributes, this.crs);
+	}
+
+	/**
+	 * Writes the ResultSet in a compact binary format to the given OutputStream.
+	 * The column metadata is written once instead of once per DataRow, which
+	 * makes the result much smaller and faster to read than Java serialization.
+	 * Use {@link #readFrom(InputStream)} to read it back.
+	 *
+	 * @param out The OutputStream, it is flushed but not closed
+	 * @throws IOException
+	 */
+	public void writeTo(OutputStream out) throws IOException {
+		ResultSetBinaryCodec.write(this, out);
+	}
+
+	/**
+	 * Reads a ResultSet written by {@link #writeTo(OutputStream)}. An unbuffered
+	 * stream should be wrapped in a BufferedInputStream. Values written with Java
+	 * serialization are only read if they are JDK value types or classes of
+	 * basiscomponents, use {@link #readFrom(InputStream, ObjectInputFilter)} to
+	 * allow other classes.
+	 *
+	 * @param in The InputStream, it is not closed
+	 * @return the ResultSet
+	 * @throws IOException
+	 */
+	public static ResultSet readFrom(InputStream in) throws IOException {
+		return ResultSetBinaryCodec.read(in, ResultSetBinaryCodec.DEFAULT_FILTER);
+	}
+
+	/**
+	 * Reads a ResultSet written by {@link #writeTo(OutputStream)}, the classes of
+	 * values written with Java serialization are checked by the given filter.
+	 *
+	 * @param in     The InputStream, it is not closed
+	 * @param filter The filter for serialized values, {@code null} to reject all
+	 *               serialized values
+	 * @return the ResultSet
+	 * @throws IOException
+	 */
+	public static ResultSet readFrom(InputStream in, ObjectInputFilter filter) throws IOException {
+		return ResultSetBinaryCodec.read(in, filter);
+	}
 	/**
 	 * Returns this ResultSet as a JRDataSource
 	 * 
@@ -2161,6 +2618,68 @@ public class ResultSet implements java.io.Serializable, Iterable<DataRow> {
 	public static ResultSet fromJson(final String js) throws JsonParseException, IOException, ParseException {
 		return ResultSetJsonMapper.fromJson(js);
 	}
+
+	/**
+	 * Returns a ResultSet object created by parsing the JSON array read from the
+	 * given Reader, without reading the whole input into a String first.
+	 * 
+	 * @param reader
+	 *            The Reader providing the JSON array.
+	 * 
+	 * @return The ResultSet object created from the values provided in the JSON.
+	 * @throws ParseException
+	 * @throws IOException
+	 */
+	public static ResultSet fromJson(final Reader reader) throws IOException, ParseException {
+		return ResultSetJsonMapper.fromJson(reader);
+	}
+
+	/**
+	 * Returns a ResultSet object created by parsing the JSON array read from the
+	 * given InputStream, without reading the whole input into a String first.
+	 * 
+	 * @param in
+	 *            The InputStream providing the JSON array.
+	 * 
+	 * @return The ResultSet object created from the values provided in the JSON.
+	 * @throws ParseException
+	 * @throws IOException
+	 */
+	public static ResultSet fromJson(final InputStream in) throws IOException, ParseException {
+		return ResultSetJsonMapper.fromJson(in);
+	}
+
+	/**
+	 * Returns a ResultSet object created by parsing the JSON array in the
+	 * remaining bytes of the given buffer, f.g. the payload of a websocket frame,
+	 * without decoding it into a String first.
+	 * 
+	 * @param buffer
+	 *            The buffer holding the JSON array in UTF-8.
+	 * 
+	 * @return The ResultSet object created from the values provided in the JSON.
+	 * @throws ParseException
+	 * @throws IOException
+	 */
+	public static ResultSet fromJson(final ByteBuffer buffer) throws IOException, ParseException {
+		return ResultSetJsonMapper.fromJson(buffer);
+	}
+
+	/**
+	 * Returns a ResultSet object for the JSON array in the given bytes, which
+	 * creates its DataRows from the JSON when they are first accessed.
+	 * 
+	 * @param json
+	 *            The JSON array in UTF-8, it must not be changed afterwards.
+	 * 
+	 * @return The ResultSet object created from the values provided in the JSON.
+	 * @throws ParseException
+	 * @throws IOException
+	 * @see ResultSetJsonMapper#fromJsonLazy(byte[])
+	 */
+	public static ResultSet fromJsonLazy(final byte[] json) throws IOException, ParseException {
+		return ResultSetJsonMapper.fromJsonLazy(json);
+	}
 	/**
 	 * Returns the java.sql.ResultSet object of this com.basiscomponents.db.ResultSet object.
 	 * 
@@ -2249,11 +2768,10 @@ public class ResultSet implements java.io.Serializable, Iterable<DataRow> {
 	 * @throws Exception Gets thrown in case the specified field value can't be retrieved as number
 	 */
 	public Double sum(String fieldname) throws Exception {
-		Iterator<DataRow> it = iterator();
 		Double s = 0.0;
+		PrimitiveIterator.OfDouble it = numbers(fieldname);
 		while (it.hasNext()) {
-			DataRow dr = it.next();
-			s += dr.getFieldAsNumber(fieldname);
+			s += it.nextDouble();
 		}
 		return s;
 	};
@@ -2268,12 +2786,11 @@ public class ResultSet implements java.io.Serializable, Iterable<DataRow> {
 	 * @throws Exception Gets thrown in case the specified field value can't be retrieved as number
 	 */
 	public Double min(String fieldname) throws Exception {
-		Iterator<DataRow> it = iterator();
 		Double s = 0.0;
 		Boolean first = true;
+		PrimitiveIterator.OfDouble it = numbers(fieldname);
 		while (it.hasNext()) {
-			DataRow dr = it.next();
-			Double d = dr.getFieldAsNumber(fieldname);
+			double d = it.nextDouble();
 			if (first || d < s) {
 				s = d;
 				first = false;
@@ -2292,12 +2809,11 @@ public class ResultSet implements java.io.Serializable, Iterable<DataRow> {
 	 * @throws Exception Gets thrown in case the specified field value can't be retrieved as number
 	 */
 	public Double max(String fieldname) throws Exception {
-		Iterator<DataRow> it = iterator();
 		Double s = 0.0;
 		Boolean first = true;
+		PrimitiveIterator.OfDouble it = numbers(fieldname);
 		while (it.hasNext()) {
-			DataRow dr = it.next();
-			Double d = dr.getFieldAsNumber(fieldname);
+			double d = it.nextDouble();
 			if (first || d > s) {
 				s = d;
 				first = false;
@@ -2329,15 +2845,12 @@ public class ResultSet implements java.io.Serializable, Iterable<DataRow> {
 	 * @throws Exception Gets thrown in case the specified field value can't be retrieved as number
 	 */
 	public Double median(String fieldname) throws Exception {
-		double[] m = new double[count()];
-		Iterator<DataRow> it = iterator();
-		int i = 0;
-		while (it.hasNext()) {
-			DataRow dr = it.next();
-			m[i++] = dr.getFieldAsNumber(fieldname);
-		}
+		double[] m = getNumbers(fieldname);
 
-		Arrays.sort(m);
+		if (isParallel())
+			Arrays.parallelSort(m);
+		else
+			Arrays.sort(m);
 
 		int middle = m.length / 2;
 		if (m.length % 2 == 1) {
@@ -2347,6 +2860,35 @@ public class ResultSet implements java.io.Serializable, Iterable<DataRow> {
 		}
 	}
 
+	/**
+	 * Returns an iterator over the values of the field in the order of the
+	 * DataRows. Large ResultSets are read into an array in parallel first, the
+	 * values are still summed up in order so that the results don't depend on
+	 * the number of threads. Smaller ones are read while iterating.
+	 */
+	private PrimitiveIterator.OfDouble numbers(String fieldname) throws Exception {
+		if (isParallel())
+			return Arrays.stream(getNumbers(fieldname)).iterator();
+		return this.DataRows.stream().mapToDouble(dr -> dr.getFieldAsNumber(fieldname)).iterator();
+	}
+
+	/**
+	 * Returns the values of the field in the order of the DataRows, large
+	 * ResultSets are read in parallel.
+	 */
+	private double[] getNumbers(String fieldname) throws Exception {
+		double[] numbers = new double[count()];
+		if (isParallel()) {
+			ParallelRows.forEach(DataRows, (row, dr) -> numbers[row] = dr.getFieldAsNumber(fieldname));
+		} else {
+			int i = 0;
+			for (DataRow dr : this) {
+				numbers[i++] = dr.getFieldAsNumber(fieldname);
+			}
+		}
+		return numbers;
+	}
+
 	/**
 	 * Returns a DataRow which contains all field values of the DataRows defined in this ResultSet for the given field name.
 	 * The number of field occurrences in all DataRows of this ResultSet will be set as field value in the returned DataRow.
@@ -2951,6 +3493,129 @@ public class ResultSet implements java.io.Serializable, Iterable<DataRow> {
 			createIndex();
 		}	
 	}
+
+	/**
+	 * Creates a hash index on the given column. {@link #filterBy(DataRow)} uses it
+	 * to find the DataRows with the value of a filter field, {@link #filterBy(String)}
+	 * for the = and IN comparisons of a String column, instead of scanning all
+	 * DataRows.<br>
+	 * <br>
+	 * The index is kept up to date by add, set and remove, and by the DataRow
+	 * methods setting a field value. Changes made directly to a DataField object
+	 * are not reflected, call this method again to rebuild the index.
+	 * 
+	 * @param column The name of the column
+	 */
+	public void createIndex(String column) {
+		createIndex(column, false);
+	}
+
+	/**
+	 * Creates a hash or a sorted index on the given column, replacing an existing
+	 * index on the column. A sorted index is used by {@link #filterBy(DataRow)}
+	 * for the "cond:" conditions of the column, like "cond:&gt;=100&amp;&lt;200",
+	 * a hash index for plain values, see {@link #createIndex(String)}.
+	 * 
+	 * @param column The name of the column
+	 * @param sorted true for a sorted index, false for a hash index
+	 */
+	public void createIndex(String column, boolean sorted) {
+		if (this.secondaryIndexes == null) {
+			this.secondaryIndexes = new HashMap<>();
+			this.DataRows.forEach(this::watchFields);
+		}
+		ColumnIndex index = new ColumnIndex(column, sorted);
+		index.build(this.DataRows);
+		this.secondaryIndexes.put(column, index);
+	}
+
+	/**
+	 * Removes the index on the given column created by {@link #createIndex(String)}.
+	 * 
+	 * @param column The name of the column
+	 */
+	public void dropIndex(String column) {
+		if (this.secondaryIndexes != null) {
+			this.secondaryIndexes.remove(column);
+			if (this.secondaryIndexes.isEmpty()) {
+				this.secondaryIndexes = null;
+				this.DataRows.forEach(this::unwatchFields);
+			}
+		}
+	}
+
+	/**
+	 * Returns the index on the given column, built again if it is stale, or null
+	 * if the column has no index.
+	 */
+	private ColumnIndex getSecondaryIndex(String column) {
+		ColumnIndex index = this.secondaryIndexes.get(column);
+		if (index != null && index.isStale())
+			index.build(this.DataRows);
+		return index;
+	}
+
+	/**
+	 * Marks the indexes as stale after the DataRows were reordered or removed,
+	 * they are rebuilt by the next lookup.
+	 */
+	private void invalidateSecondaryIndexes() {
+		if (this.secondaryIndexes != null)
+			this.secondaryIndexes.values().forEach(ColumnIndex::invalidate);
+	}
+
+	private void secondaryIndexInserted(int row, DataRow dr) {
+		if (this.secondaryIndexes != null) {
+			boolean last = row == size() - 1;
+			for (ColumnIndex index : this.secondaryIndexes.values())
+				index.inserted(row, dr, last);
+			watchFields(dr);
+		}
+	}
+
+	private void watchFields(DataRow dr) {
+		if (dr != null)
+			dr.addIndexOwner(this);
+	}
+
+	private void unwatchFields(DataRow dr) {
+		if (dr != null)
+			dr.removeIndexOwner(this);
+	}
+
+	/**
+	 * Called by a DataRow of this ResultSet when the value of a field was set,
+	 * the index on the column is rebuilt by the next lookup.
+	 */
+	void indexedFieldChanged(String column) {
+		if (this.secondaryIndexes != null) {
+			ColumnIndex index = this.secondaryIndexes.get(column);
+			if (index != null)
+				index.invalidate();
+		}
+	}
+
+	/**
+	 * Returns the hash index of a String column, the index keys are the exact
+	 * values compared by {@link DataRowQueryMatcher}.
+	 */
+	private ColumnIndex getTextColumnIndex(String column) {
+		ColumnIndex index = this.secondaryIndexes.get(column);
+		int col = getColumnIndex(column);
+		if (index == null || index.isSorted() || col < 0)
+			return null;
+		switch (getColumnType(col)) {
+		case java.sql.Types.CHAR:
+		case java.sql.Types.VARCHAR:
+		case java.sql.Types.LONGVARCHAR:
+		case java.sql.Types.NCHAR:
+		case java.sql.Types.NVARCHAR:
+		case java.sql.Types.LONGNVARCHAR:
+			return getSecondaryIndex(column);
+		default:
+			return null;
+		}
+	}
 	
 
 	public void print() {
@@ -2966,23 +3631,54 @@ public class ResultSet implements java.io.Serializable, Iterable<DataRow> {
 	 * @param fOverwrite: set to true if you want to overwrite fields that exist in both
 	 */
 	public void merge(ResultSet rs2, String onFieldName, boolean fOverwrite) {
-		Iterator<DataRow> it = rs2.iterator();
-		while (it.hasNext()) {
-			DataRow rec = it.next();
-			Object o=rec.getField(onFieldName).getObject();
-			
-			Iterator<DataRow> myIt = iterator();
-			while (myIt.hasNext()){
-				DataRow myRec = myIt.next();
-				Object myO=myRec.getField(onFieldName).getObject();
-				if (myO.equals(o)) {
-					myRec.mergeRecord(rec, fOverwrite);
-					break;
-				}
-			}
-			
-		}
-		//optimization potential: always search in the smaller ResultSet
+		merge(rs2, Collections.singletonList(onFieldName), fOverwrite);
+	}
+
+	/**
+	 * Merges the fields of each DataRow of rs2 into the first DataRow of this
+	 * ResultSet with the same values in the given fields. DataRows with a missing
+	 * or null value in one of the fields are not merged.
+	 * 
+	 * @param rs2: the resultset to merge in
+	 * @param onFieldNames: the field names to use to identify matches
+	 * @param fOverwrite: set to true if you want to overwrite fields that exist in both
+	 */
+	public void merge(ResultSet rs2, List<String> onFieldNames, boolean fOverwrite) {
+		ResultSetJoin.merge(this, rs2, onFieldNames, fOverwrite);
+	}
+
+	/**
+	 * Joins this ResultSet with rs2 on the given field and returns the joined
+	 * DataRows in a new ResultSet, the values of this ResultSet win for fields
+	 * existing in both.
+	 * 
+	 * @param rs2: the resultset to join
+	 * @param onFieldName: the field name to use to identify matches
+	 * @param joinType: JOIN_INNER, JOIN_LEFT or JOIN_FULL
+	 * @return the joined ResultSet
+	 */
+	public ResultSet join(ResultSet rs2, String onFieldName, int joinType) {
+		return join(rs2, Collections.singletonList(onFieldName), joinType, false);
+	}
+
+	/**
+	 * Joins this ResultSet with rs2 on the given fields and returns the joined
+	 * DataRows in a new ResultSet. Each DataRow of this ResultSet is combined with
+	 * every DataRow of rs2 holding the same values in the given fields, the
+	 * DataRows of both ResultSets are copied.<br>
+	 * <br>
+	 * JOIN_INNER only returns the combined DataRows, JOIN_LEFT also the DataRows
+	 * of this ResultSet without a match, JOIN_FULL also those of rs2. DataRows with
+	 * a missing or null value in one of the fields have no match.
+	 * 
+	 * @param rs2: the resultset to join
+	 * @param onFieldNames: the field names to use to identify matches
+	 * @param joinType: JOIN_INNER, JOIN_LEFT or JOIN_FULL
+	 * @param fOverwrite: set to true if the values of rs2 should win for fields that exist in both
+	 * @return the joined ResultSet
+	 */
+	public ResultSet join(ResultSet rs2, List<String> onFieldNames, int joinType, boolean fOverwrite) {
+		return ResultSetJoin.join(this, rs2, onFieldNames, joinType, fOverwrite);
 	}
 
 	/**
@@ -3014,5 +3710,140 @@ public class ResultSet implements java.io.Serializable, Iterable<DataRow> {
 	public ConversionRuleSet getConversionRuleSet() {
 		return this.crs;
 	}
+
+	/**
+	 * Returns a new version stamp, shared by all ResultSets and DataRows.
+	 */
+	static long nextVersion() {
+		return VERSION_CLOCK.incrementAndGet();
+	}
+
+	/**
+	 * Returns the current version stamp. Pass it to {@link #toJsonDelta(long)}
+	 * later on to get the changes made after this call.
+	 * 
+	 * @return the version stamp
+	 */
+	public long getVersion() {
+		return VERSION_CLOCK.get();
+	}
+
+	/**
+	 * Turns the tracking of changes on or off. While the changes are tracked the
+	 * ResultSet records inserted and removed DataRows, and its DataRows record the
+	 * version of each field set by one of the setFieldValue methods. Changes made
+	 * directly to a DataField object are not tracked.<br>
+	 * <br>
+	 * Turning the tracking on creates the index, as the changes are identified by
+	 * the row keys. Turning it off discards the recorded inserts, removals and
+	 * field versions.
+	 * 
+	 * @param track true to track the changes
+	 * @throws ParseException
+	 */
+	public void setChangeTracking(boolean track) throws ParseException {
+		if (!track) {
+			if (this.insertedRows != null)
+				this.DataRows.forEach(DataRow::stopTrackingChanges);
+			this.insertedRows = null;
+			this.removedRowKeys = null;
+			return;
+		}
+		if (this.insertedRows == null) {
+			createIndex();
+			this.insertedRows = new IdentityHashMap<>();
+			this.removedRowKeys = new LinkedHashMap<>();
+			this.DataRows.forEach(DataRow::trackChanges);
+		}
+	}
+
+	public boolean isChangeTracking() {
+		return this.insertedRows != null;
+	}
+
+	private void rowInserted(DataRow dr) {
+		if (this.insertedRows != null && dr != null) {
+			dr.trackChanges();
+			this.insertedRows.put(dr, nextVersion());
+		}
+	}
+
+	private void rowRemoved(DataRow dr) {
+		if (this.insertedRows != null && dr != null) {
+			this.insertedRows.remove(dr);
+			String rowKey = dr.getRowKey();
+			if (!rowKey.isEmpty()) {
+				// keep the order of the removals
+				this.removedRowKeys.remove(rowKey);
+				this.removedRowKeys.put(rowKey, nextVersion());
+			}
+		}
+	}
+
+	/**
+	 * Returns the DataRows inserted after the given version, in the order of the
+	 * ResultSet. Only available while changes are tracked.
+	 * 
+	 * @param sinceVersion the version stamp
+	 * @return the inserted DataRows
+	 */
+	public List<DataRow> getInsertedRows(long sinceVersion) {
+		List<DataRow> rows = new ArrayList<>();
+		if (this.insertedRows != null && !this.insertedRows.isEmpty()) {
+			for (DataRow dr : this.DataRows) {
+				Long version = this.insertedRows.get(dr);
+				if (version != null && version > sinceVersion)
+					rows.add(dr);
+			}
+		}
+		return rows;
+	}
+
+	/**
+	 * Returns the row keys of the DataRows removed after the given version, in the
+	 * order of their removal. Only available while changes are tracked.
+	 * 
+	 * @param sinceVersion the version stamp
+	 * @return the row keys
+	 */
+	public List<String> getRemovedRowKeys(long sinceVersion) {
+		List<String> keys = new ArrayList<>();
+		if (this.removedRowKeys != null) {
+			this.removedRowKeys.forEach((key, version) -> {
+				if (version > sinceVersion)
+					keys.add(key);
+			});
+		}
+		return keys;
+	}
+
+	/**
+	 * Returns a JSON object with the changes made after the given version: the
+	 * keys of the removed rows, the inserted rows and the changed fields of the
+	 * other rows, all keyed by their row key. The changes must be tracked, see
+	 * {@link #setChangeTracking(boolean)}.
+	 * 
+	 * @param sinceVersion the version stamp returned by {@link #getVersion()}
+	 * @return the JSON String
+	 * @throws Exception
+	 */
+	public String toJsonDelta(long sinceVersion) throws Exception {
+		if (!isChangeTracking())
+			throw new IllegalStateException("Changes are not tracked");
+		return ResultSetJsonMapper.toJsonDelta(this, sinceVersion);
+	}
+
+	/**
+	 * Applies the changes created by {@link #toJsonDelta(long)} to this ResultSet.
+	 * Rows are matched by their row key, unknown keys are ignored.
+	 * 
+	 * @param json the JSON String with the changes
+	 * @return the version stamp of the changes
+	 * @throws Exception
+	 */
+	public long applyDelta(String json) throws Exception {
+		createIndex();
+		return ResultSetJsonMapper.applyDelta(this, json);
+	}
 	
 }
\ No newline at end of file
@@ -0,0 +1,884 @@
+package com.basiscomponents.db;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InvalidClassException;
+import java.io.ObjectInputFilter;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.io.StreamCorruptedException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.sql.Date;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import com.basiscomponents.db.model.Attribute;
+
+/**
+ * Compact binary format for ResultSet objects, used by
+ * {@link ResultSet#writeTo(OutputStream)} and
+ * {@link ResultSet#readFrom(InputStream)}.<br>
+ * <br>
+ * The format starts with the magic bytes <code>BCRS</code> and a version byte.
+ * Column names and metadata are written once per distinct schema, every row
+ * only references the schema of its DataRow. The state of each field (missing,
+ * <code>null</code>, a value of the column type or any other value) is kept in
+ * a bitmap with two bits per column, values of the column type are written
+ * without a type tag. Integers use variable length encoding and Strings of up
+ * to {@value #MAX_DICTIONARY_LENGTH} characters are written once and referenced
+ * by their dictionary index afterwards.<br>
+ * <br>
+ * Row IDs and keys, DataRow and DataField attributes, nested DataRows and
+ * ResultSets are kept. Values of types without own encoding are written with
+ * Java serialization. Indexes, the field selection and the conversion rules of
+ * the ResultSet are not written.<br>
+ * <br>
+ * Serialized values are only read if their classes pass the
+ * {@link ObjectInputFilter} given to the reader, by default
+ * {@link #DEFAULT_FILTER}. Lengths and counts read from the stream are not
+ * trusted, a truncated or corrupted stream fails with an IOException.
+ */
+final class ResultSetBinaryCodec {
+
+	private static final byte[] MAGIC = { 'B', 'C', 'R', 'S' };
+
+	static final int VERSION = 1;
+
+	// String references
+	private static final int STRING_NULL = 0;
+	private static final int STRING_LITERAL = 1;
+	private static final int STRING_NEW = 2;
+	private static final int STRING_REF = 3;
+
+	private static final int MAX_DICTIONARY_LENGTH = 64;
+	private static final int MAX_DICTIONARY_SIZE = 65536;
+
+	// byte arrays and lists longer than this grow with the data actually read
+	private static final int MAX_PREALLOCATED_LENGTH = 8192;
+
+	/**
+	 * The classes which may be read from serialized values by default: value
+	 * types of the JDK and of this library.
+	 */
+	static final ObjectInputFilter DEFAULT_FILTER = ObjectInputFilter.Config
+			.createFilter("maxdepth=64;java.lang.*;java.math.*;java.util.*;java.sql.*;java.time.*;"
+					+ "com.basiscomponents.**;!*");
+
+	// field states, two bits per column
+	private static final int FIELD_MISSING = 0;
+	private static final int FIELD_NULL = 1;
+	private static final int FIELD_TYPED = 2;
+	private static final int FIELD_TAGGED = 3;
+
+	// value tags
+	private static final int TAG_NONE = -1;
+	private static final int TAG_NULL = 0;
+	private static final int TAG_STRING = 1;
+	private static final int TAG_INTEGER = 2;
+	private static final int TAG_LONG = 3;
+	private static final int TAG_SHORT = 4;
+	private static final int TAG_BYTE = 5;
+	private static final int TAG_DOUBLE = 6;
+	private static final int TAG_FLOAT = 7;
+	private static final int TAG_BOOLEAN = 8;
+	private static final int TAG_BIG_DECIMAL = 9;
+	private static final int TAG_BIG_INTEGER = 10;
+	private static final int TAG_DATE = 11;
+	private static final int TAG_TIME = 12;
+	private static final int TAG_TIMESTAMP = 13;
+	private static final int TAG_UTIL_DATE = 14;
+	private static final int TAG_BYTES = 15;
+	private static final int TAG_DATAROW = 16;
+	private static final int TAG_RESULTSET = 17;
+	private static final int TAG_LIST = 18;
+	private static final int TAG_CHARACTER = 19;
+	private static final int TAG_SERIALIZED = 20;
+
+	// attribute tags
+	private static final int ATTRIBUTE_STRING = 0;
+	private static final int ATTRIBUTE_INT = 1;
+	private static final int ATTRIBUTE_DOUBLE = 2;
+	private static final int ATTRIBUTE_BOOLEAN = 3;
+
+	private ResultSetBinaryCodec() {
+	}
+
+	/**
+	 * Writes the ResultSet to the given stream.
+	 *
+	 * @param rs
+	 *            The ResultSet to write
+	 * @param out
+	 *            The stream, it is flushed but not closed
+	 *
+	 * @throws IOException
+	 *             A value could not be written
+	 */
+	static void write(ResultSet rs, OutputStream out) throws IOException {
+		DataOutputStream data = new DataOutputStream(new BufferedOutputStream(out));
+		data.write(MAGIC);
+		data.writeByte(VERSION);
+		new Encoder(data).writeResultSet(rs);
+		data.flush();
+	}
+
+	/**
+	 * Reads a ResultSet written by {@link #write(ResultSet, OutputStream)}. The
+	 * stream is read up to the end of the ResultSet, so an unbuffered stream
+	 * should be wrapped in a BufferedInputStream.
+	 *
+	 * @param in
+	 *            The stream, it is not closed
+	 * @param filter
+	 *            The filter for serialized values, {@code null} rejects all of
+	 *            them
+	 *
+	 * @return the ResultSet
+	 *
+	 * @throws IOException
+	 *             The stream doesn't contain a ResultSet in a supported version
+	 */
+	static ResultSet read(InputStream in, ObjectInputFilter filter) throws IOException {
+		DataInputStream data = new DataInputStream(in);
+		byte[] magic = new byte[MAGIC.length];
+		data.readFully(magic);
+		for (int i = 0; i < MAGIC.length; i++) {
+			if (magic[i] != MAGIC[i])
+				throw new StreamCorruptedException("Not a binary ResultSet");
+		}
+		int version = data.readUnsignedByte();
+		if (version != VERSION)
+			throw new StreamCorruptedException("Unsupported binary ResultSet version " + version);
+		return new Decoder(data, filter).readResultSet();
+	}
+
+	/**
+	 * Returns the type of the column, {@link java.sql.Types#OTHER} if the
+	 * metadata has no valid ColumnType.
+	 */
+	private static int columnType(ResultSet schema, int column) {
+		try {
+			return schema.getColumnType(column);
+		} catch (RuntimeException e) {
+			return java.sql.Types.OTHER;
+		}
+	}
+
+	/**
+	 * Returns the tag of the values which are written without a tag in a column
+	 * of the given type.
+	 */
+	private static int columnTag(int type) {
+		switch (type) {
+		case java.sql.Types.CHAR:
+		case java.sql.Types.VARCHAR:
+		case java.sql.Types.NVARCHAR:
+		case java.sql.Types.NCHAR:
+		case java.sql.Types.LONGVARCHAR:
+		case java.sql.Types.LONGNVARCHAR:
+			return TAG_STRING;
+		case java.sql.Types.INTEGER:
+			return TAG_INTEGER;
+		case java.sql.Types.BIGINT:
+			return TAG_LONG;
+		case java.sql.Types.SMALLINT:
+			return TAG_SHORT;
+		case java.sql.Types.TINYINT:
+			return TAG_BYTE;
+		case java.sql.Types.DOUBLE:
+		case java.sql.Types.FLOAT:
+			return TAG_DOUBLE;
+		case java.sql.Types.REAL:
+			return TAG_FLOAT;
+		case java.sql.Types.BOOLEAN:
+		case java.sql.Types.BIT:
+			return TAG_BOOLEAN;
+		case java.sql.Types.NUMERIC:
+		case java.sql.Types.DECIMAL:
+			return TAG_BIG_DECIMAL;
+		case java.sql.Types.DATE:
+		case 9: // BASIS Date
+			return TAG_DATE;
+		case java.sql.Types.TIME:
+			return TAG_TIME;
+		case java.sql.Types.TIMESTAMP:
+		case 11: // BASIS Timestamp
+			return TAG_TIMESTAMP;
+		case -973:
+			return TAG_LIST;
+		case -974:
+			return TAG_DATAROW;
+		case -975:
+			return TAG_RESULTSET;
+		default:
+			return TAG_NONE;
+		}
+	}
+
+	private static int tagOf(Object value) {
+		if (value == null)
+			return TAG_NULL;
+		Class<?> c = value.getClass();
+		if (c == String.class)
+			return TAG_STRING;
+		if (c == Integer.class)
+			return TAG_INTEGER;
+		if (c == Long.class)
+			return TAG_LONG;
+		if (c == Short.class)
+			return TAG_SHORT;
+		if (c == Byte.class)
+			return TAG_BYTE;
+		if (c == Double.class)
+			return TAG_DOUBLE;
+		if (c == Float.class)
+			return TAG_FLOAT;
+		if (c == Boolean.class)
+			return TAG_BOOLEAN;
+		if (c == BigDecimal.class)
+			return TAG_BIG_DECIMAL;
+		if (c == BigInteger.class)
+			return TAG_BIG_INTEGER;
+		if (c == Date.class)
+			return TAG_DATE;
+		if (c == Time.class)
+			return TAG_TIME;
+		if (c == Timestamp.class)
+			return TAG_TIMESTAMP;
+		if (c == java.util.Date.class)
+			return TAG_UTIL_DATE;
+		if (c == byte[].class)
+			return TAG_BYTES;
+		if (c == DataRow.class)
+			return TAG_DATAROW;
+		if (c == ResultSet.class)
+			return TAG_RESULTSET;
+		if (c == ArrayList.class)
+			return TAG_LIST;
+		if (c == Character.class)
+			return TAG_CHARACTER;
+		return TAG_SERIALIZED;
+	}
+
+	/**
+	 * The column names and metadata shared by DataRows. Two schemas are equal if
+	 * their names and metadata are equal.
+	 */
+	private static final class SchemaKey {
+		private final List<String> names;
+		private final List<HashMap<String, Object>> metaData;
+		private final int hash;
+
+		private SchemaKey(List<String> names, List<HashMap<String, Object>> metaData) {
+			this.names = names;
+			this.metaData = metaData;
+			this.hash = 31 * names.hashCode() + metaData.hashCode();
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof SchemaKey))
+				return false;
+			SchemaKey other = (SchemaKey) obj;
+			return hash == other.hash && names.equals(other.names) && metaData.equals(other.metaData);
+		}
+	}
+
+	private static final class EncodedSchema {
+		private final int ref;
+		private final int[] tags;
+
+		private EncodedSchema(int ref, ResultSet schema) {
+			this.ref = ref;
+			this.tags = new int[schema.getColumnNames().size()];
+			for (int column = 0; column < tags.length; column++)
+				tags[column] = columnTag(columnType(schema, column));
+		}
+	}
+
+	private static final class Encoder {
+		private final DataOutputStream out;
+		private final Map<String, Integer> dictionary = new HashMap<>();
+		private final Map<ResultSet, EncodedSchema> schemas = new IdentityHashMap<>();
+		private final Map<SchemaKey, EncodedSchema> schemasByContent = new HashMap<>();
+		private final ByteArrayOutputStream serialized = new ByteArrayOutputStream();
+
+		private Encoder(DataOutputStream out) {
+			this.out = out;
+		}
+
+		private void writeResultSet(ResultSet rs) throws IOException {
+			writeSchema(rs);
+			List<String> keyColumns = rs.getKeyColumns();
+			writeVarInt(keyColumns.size());
+			for (String key : keyColumns)
+				writeString(key);
+			List<DataRow> rows = rs.getDataRows();
+			writeVarInt(rows.size());
+			for (DataRow dr : rows)
+				writeDataRow(dr);
+		}
+
+		private void writeDataRow(DataRow dr) throws IOException {
+			ResultSet schema = dr.getSchema();
+			int[] tags = writeSchema(schema).tags;
+			List<String> names = schema.getColumnNames();
+
+			byte[] states = new byte[(tags.length + 3) / 4];
+			DataField[] fields = new DataField[tags.length];
+			int attributedFields = 0;
+			for (int column = 0; column < tags.length; column++) {
+				DataField field = dr.getField(names.get(column), true);
+				int state;
+				if (field == null) {
+					state = FIELD_MISSING;
+				} else {
+					fields[column] = field;
+					Object value = field.getValue();
+					if (value == null)
+						state = FIELD_NULL;
+					else if (tags[column] != TAG_NONE && tagOf(value) == tags[column])
+						state = FIELD_TYPED;
+					else
+						state = FIELD_TAGGED;
+					if (!field.getAttributes2().isEmpty())
+						attributedFields++;
+				}
+				states[column >> 2] |= state << ((column & 3) << 1);
+			}
+			out.write(states);
+			writeVarInt(zigZag(dr.getRowID()));
+			writeBytes(dr.getRowKeyBytes());
+
+			Map<String, String> attributes = dr.getAttributes();
+			writeVarInt(attributes.size());
+			for (Entry<String, String> entry : attributes.entrySet()) {
+				writeString(entry.getKey());
+				writeString(entry.getValue());
+			}
+
+			writeVarInt(attributedFields);
+			for (int column = 0; attributedFields > 0 && column < tags.length; column++) {
+				if (fields[column] == null)
+					continue;
+				Map<String, Attribute> fieldAttributes = fields[column].getAttributes2();
+				if (fieldAttributes.isEmpty())
+					continue;
+				attributedFields--;
+				writeVarInt(column);
+				writeVarInt(fieldAttributes.size());
+				for (Entry<String, Attribute> entry : fieldAttributes.entrySet()) {
+					writeString(entry.getKey());
+					writeAttribute(entry.getValue());
+				}
+			}
+
+			for (int column = 0; column < tags.length; column++) {
+				int state = (states[column >> 2] >> ((column & 3) << 1)) & 3;
+				if (state == FIELD_TYPED) {
+					writeValue(tags[column], fields[column].getValue());
+				} else if (state == FIELD_TAGGED) {
+					writeTaggedValue(fields[column].getValue());
+				}
+			}
+		}
+
+		/**
+		 * Writes the reference to the schema, followed by the schema itself the
+		 * first time it's used.
+		 */
+		private EncodedSchema writeSchema(ResultSet schema) throws IOException {
+			EncodedSchema encoded = schemas.get(schema);
+			if (encoded == null) {
+				SchemaKey key = new SchemaKey(schema.getColumnNames(), schema.getMetaData());
+				encoded = schemasByContent.get(key);
+				if (encoded == null) {
+					writeVarInt(0);
+					writeVarInt(key.names.size());
+					for (String name : key.names)
+						writeString(name);
+					writeVarInt(key.metaData.size());
+					for (HashMap<String, Object> colMap : key.metaData) {
+						writeVarInt(colMap.size());
+						for (Entry<String, Object> entry : colMap.entrySet()) {
+							writeString(entry.getKey());
+							writeTaggedValue(entry.getValue());
+						}
+					}
+					encoded = new EncodedSchema(schemasByContent.size() + 1, schema);
+					schemasByContent.put(key, encoded);
+					schemas.put(schema, encoded);
+					return encoded;
+				}
+				schemas.put(schema, encoded);
+			}
+			writeVarInt(encoded.ref);
+			return encoded;
+		}
+
+		private void writeTaggedValue(Object value) throws IOException {
+			int tag = tagOf(value);
+			out.writeByte(tag);
+			if (tag != TAG_NULL)
+				writeValue(tag, value);
+		}
+
+		@SuppressWarnings("rawtypes")
+		private void writeValue(int tag, Object value) throws IOException {
+			switch (tag) {
+			case TAG_STRING:
+				writeString((String) value);
+				break;
+			case TAG_INTEGER:
+				writeVarInt(zigZag((Integer) value));
+				break;
+			case TAG_LONG:
+				writeVarLong(zigZag((Long) value));
+				break;
+			case TAG_SHORT:
+				writeVarInt(zigZag((Short) value));
+				break;
+			case TAG_BYTE:
+				out.writeByte((Byte) value);
+				break;
+			case TAG_DOUBLE:
+				out.writeDouble((Double) value);
+				break;
+			case TAG_FLOAT:
+				out.writeFloat((Float) value);
+				break;
+			case TAG_BOOLEAN:
+				out.writeBoolean((Boolean) value);
+				break;
+			case TAG_BIG_DECIMAL:
+				BigDecimal bd = (BigDecimal) value;
+				writeVarInt(zigZag(bd.scale()));
+				writeBytes(bd.unscaledValue().toByteArray());
+				break;
+			case TAG_BIG_INTEGER:
+				writeBytes(((BigInteger) value).toByteArray());
+				break;
+			case TAG_DATE:
+			case TAG_TIME:
+			case TAG_UTIL_DATE:
+				writeVarLong(zigZag(((java.util.Date) value).getTime()));
+				break;
+			case TAG_TIMESTAMP:
+				Timestamp ts = (Timestamp) value;
+				writeVarLong(zigZag(ts.getTime()));
+				writeVarInt(ts.getNanos());
+				break;
+			case TAG_BYTES:
+				writeBytes((byte[]) value);
+				break;
+			case TAG_DATAROW:
+				writeDataRow((DataRow) value);
+				break;
+			case TAG_RESULTSET:
+				writeResultSet((ResultSet) value);
+				break;
+			case TAG_LIST:
+				List list = (List) value;
+				writeVarInt(list.size());
+				for (Object o : list)
+					writeTaggedValue(o);
+				break;
+			case TAG_CHARACTER:
+				out.writeChar((Character) value);
+				break;
+			default:
+				serialized.reset();
+				try (ObjectOutputStream oos = new ObjectOutputStream(serialized)) {
+					oos.writeObject(value);
+				}
+				writeVarInt(serialized.size());
+				serialized.writeTo(out);
+				break;
+			}
+		}
+
+		private void writeAttribute(Attribute attribute) throws IOException {
+			Class<?> type = attribute.getType();
+			if (type == int.class) {
+				out.writeByte(ATTRIBUTE_INT);
+				writeVarInt(zigZag(attribute.getIntValue()));
+			} else if (type == double.class) {
+				out.writeByte(ATTRIBUTE_DOUBLE);
+				out.writeDouble(attribute.getDoubleValue());
+			} else if (type == boolean.class) {
+				out.writeByte(ATTRIBUTE_BOOLEAN);
+				out.writeBoolean(attribute.getBooleanValue());
+			} else {
+				out.writeByte(ATTRIBUTE_STRING);
+				writeString(attribute.getValue());
+			}
+		}
+
+		private void writeString(String s) throws IOException {
+			if (s == null) {
+				writeVarInt(STRING_NULL);
+				return;
+			}
+			Integer ref = dictionary.get(s);
+			if (ref != null) {
+				writeVarInt(STRING_REF + ref);
+				return;
+			}
+			if (s.length() <= MAX_DICTIONARY_LENGTH && dictionary.size() < MAX_DICTIONARY_SIZE) {
+				dictionary.put(s, dictionary.size());
+				writeVarInt(STRING_NEW);
+			} else {
+				writeVarInt(STRING_LITERAL);
+			}
+			writeBytes(s.getBytes(StandardCharsets.UTF_8));
+		}
+
+		private void writeBytes(byte[] bytes) throws IOException {
+			writeVarInt(bytes.length);
+			out.write(bytes);
+		}
+
+		private void writeVarInt(int v) throws IOException {
+			while ((v & ~0x7F) != 0) {
+				out.writeByte((v & 0x7F) | 0x80);
+				v >>>= 7;
+			}
+			out.writeByte(v);
+		}
+
+		private void writeVarLong(long v) throws IOException {
+			while ((v & ~0x7FL) != 0) {
+				out.writeByte(((int) v & 0x7F) | 0x80);
+				v >>>= 7;
+			}
+			out.writeByte((int) v);
+		}
+
+		private static int zigZag(int v) {
+			return (v << 1) ^ (v >> 31);
+		}
+
+		private static long zigZag(long v) {
+			return (v << 1) ^ (v >> 63);
+		}
+	}
+
+	/**
+	 * A schema read from the stream. The DataRows using it share one ResultSet
+	 * holding its column metadata.
+	 */
+	private static final class Schema {
+		private final List<String> names;
+		private final List<HashMap<String, Object>> metaData;
+		private final int[] tags;
+		private final int[] types;
+		private ResultSet rowSchema;
+
+		private Schema(List<String> names, List<HashMap<String, Object>> metaData) {
+			this.names = names;
+			this.metaData = metaData;
+			ResultSet schema = new ResultSet(metaData, names, new ArrayList<>());
+			this.tags = new int[names.size()];
+			this.types = new int[names.size()];
+			for (int column = 0; column < names.size(); column++) {
+				types[column] = columnType(schema, column);
+				tags[column] = columnTag(types[column]);
+			}
+		}
+
+		private ResultSet newResultSet(List<String> keyColumns) {
+			List<HashMap<String, Object>> copy = new ArrayList<>(metaData.size());
+			for (HashMap<String, Object> colMap : metaData)
+				copy.add(new HashMap<>(colMap));
+			return new ResultSet(copy, names, keyColumns);
+		}
+
+		private ResultSet getRowSchema() {
+			if (rowSchema == null)
+				rowSchema = newResultSet(new ArrayList<>());
+			return rowSchema;
+		}
+	}
+
+	private static final class Decoder {
+		private final DataInputStream in;
+		private final ObjectInputFilter filter;
+		private final List<String> dictionary = new ArrayList<>();
+		private final List<Schema> schemas = new ArrayList<>();
+
+		private Decoder(DataInputStream in, ObjectInputFilter filter) {
+			this.in = in;
+			this.filter = filter;
+		}
+
+		private ResultSet readResultSet() throws IOException {
+			Schema schema = readSchema();
+			int keyCount = readLength();
+			List<String> keyColumns = new ArrayList<>(Math.min(keyCount, MAX_PREALLOCATED_LENGTH));
+			for (int i = 0; i < keyCount; i++)
+				keyColumns.add(readString());
+			ResultSet rs = schema.newResultSet(keyColumns);
+			int rowCount = readLength();
+			for (int i = 0; i < rowCount; i++)
+				rs.add(readDataRow());
+			return rs;
+		}
+
+		private DataRow readDataRow() throws IOException {
+			Schema schema = readSchema();
+			int columns = schema.names.size();
+			byte[] states = new byte[(columns + 3) / 4];
+			in.readFully(states);
+
+			DataRow dr = new DataRow(schema.getRowSchema());
+			dr.setRowID(unZigZag(readVarInt()));
+			byte[] rowKey = readBytes();
+			if (rowKey.length > 0)
+				dr.addBytesToRowKey(rowKey);
+			int attributeCount = readLength();
+			for (int i = 0; i < attributeCount; i++)
+				dr.setAttribute(readString(), readString());
+
+			int attributedFields = readLength();
+			Map<Integer, Map<String, Attribute>> fieldAttributes = attributedFields == 0 ? null : new HashMap<>();
+			for (int i = 0; i < attributedFields; i++) {
+				int column = readVarInt();
+				int count = readLength();
+				Map<String, Attribute> attributes = new HashMap<>();
+				for (int j = 0; j < count; j++)
+					attributes.put(readString(), readAttribute());
+				fieldAttributes.put(column, attributes);
+			}
+
+			for (int column = 0; column < columns; column++) {
+				int state = (states[column >> 2] >> ((column & 3) << 1)) & 3;
+				if (state == FIELD_MISSING)
+					continue;
+				Object value;
+				if (state == FIELD_TYPED)
+					value = readValue(schema.tags[column]);
+				else if (state == FIELD_TAGGED)
+					value = readTaggedValue();
+				else
+					value = null;
+				DataField field = new DataField(value);
+				if (fieldAttributes != null && fieldAttributes.containsKey(column)) {
+					for (Entry<String, Attribute> entry : fieldAttributes.get(column).entrySet())
+						field.setAttribute(entry.getKey(), entry.getValue());
+				}
+				dr.addDataField(schema.names.get(column), schema.types[column], field);
+			}
+			return dr;
+		}
+
+		private Schema readSchema() throws IOException {
+			int ref = readVarInt();
+			if (ref != 0) {
+				if (ref < 0 || ref > schemas.size())
+					throw new StreamCorruptedException("Invalid schema reference " + ref);
+				return schemas.get(ref - 1);
+			}
+			int columnCount = readLength();
+			List<String> names = new ArrayList<>(Math.min(columnCount, MAX_PREALLOCATED_LENGTH));
+			for (int i = 0; i < columnCount; i++)
+				names.add(readString());
+			int metaCount = readLength();
+			List<HashMap<String, Object>> metaData = new ArrayList<>(Math.min(metaCount, MAX_PREALLOCATED_LENGTH));
+			for (int i = 0; i < metaCount; i++) {
+				int entries = readLength();
+				HashMap<String, Object> colMap = new HashMap<>();
+				for (int j = 0; j < entries; j++)
+					colMap.put(readString(), readTaggedValue());
+				metaData.add(colMap);
+			}
+			Schema schema = new Schema(names, metaData);
+			schemas.add(schema);
+			return schema;
+		}
+
+		private Object readTaggedValue() throws IOException {
+			int tag = in.readUnsignedByte();
+			return tag == TAG_NULL ? null : readValue(tag);
+		}
+
+		private Object readValue(int tag) throws IOException {
+			switch (tag) {
+			case TAG_STRING:
+				return readString();
+			case TAG_INTEGER:
+				return unZigZag(readVarInt());
+			case TAG_LONG:
+				return unZigZag(readVarLong());
+			case TAG_SHORT:
+				return (short) unZigZag(readVarInt());
+			case TAG_BYTE:
+				return in.readByte();
+			case TAG_DOUBLE:
+				return in.readDouble();
+			case TAG_FLOAT:
+				return in.readFloat();
+			case TAG_BOOLEAN:
+				return in.readBoolean();
+			case TAG_BIG_DECIMAL:
+				int scale = unZigZag(readVarInt());
+				return new BigDecimal(readBigInteger(), scale);
+			case TAG_BIG_INTEGER:
+				return readBigInteger();
+			case TAG_DATE:
+				return new Date(unZigZag(readVarLong()));
+			case TAG_TIME:
+				return new Time(unZigZag(readVarLong()));
+			case TAG_UTIL_DATE:
+				return new java.util.Date(unZigZag(readVarLong()));
+			case TAG_TIMESTAMP:
+				Timestamp ts = new Timestamp(unZigZag(readVarLong()));
+				ts.setNanos(readVarInt());
+				return ts;
+			case TAG_BYTES:
+				return readBytes();
+			case TAG_DATAROW:
+				return readDataRow();
+			case TAG_RESULTSET:
+				return readResultSet();
+			case TAG_LIST:
+				int size = readLength();
+				ArrayList<Object> list = new ArrayList<>(Math.min(size, MAX_PREALLOCATED_LENGTH));
+				for (int i = 0; i < size; i++)
+					list.add(readTaggedValue());
+				return list;
+			case TAG_CHARACTER:
+				return in.readChar();
+			case TAG_SERIALIZED:
+				byte[] serialized = readBytes();
+				if (filter == null)
+					throw new InvalidClassException("Serialized values are not allowed");
+				try (ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(serialized))) {
+					ois.setObjectInputFilter(filter);
+					return ois.readObject();
+				} catch (ClassNotFoundException e) {
+					throw new IOException(e);
+				}
+			default:
+				throw new StreamCorruptedException("Invalid value tag " + tag);
+			}
+		}
+
+		private Attribute readAttribute() throws IOException {
+			int tag = in.readUnsignedByte();
+			switch (tag) {
+			case ATTRIBUTE_INT:
+				return Attribute.createInt(unZigZag(readVarInt()));
+			case ATTRIBUTE_DOUBLE:
+				return Attribute.createDouble(in.readDouble());
+			case ATTRIBUTE_BOOLEAN:
+				return Attribute.createBoolean(in.readBoolean());
+			case ATTRIBUTE_STRING:
+				return Attribute.createString(readString());
+			default:
+				throw new StreamCorruptedException("Invalid attribute tag " + tag);
+			}
+		}
+
+		private String readString() throws IOException {
+			int ref = readVarInt();
+			switch (ref) {
+			case STRING_NULL:
+				return null;
+			case STRING_LITERAL:
+				return new String(readBytes(), StandardCharsets.UTF_8);
+			case STRING_NEW:
+				String s = new String(readBytes(), StandardCharsets.UTF_8);
+				dictionary.add(s);
+				return s;
+			default:
+				if (ref < 0 || ref - STRING_REF >= dictionary.size())
+					throw new StreamCorruptedException("Invalid string reference " + ref);
+				return dictionary.get(ref - STRING_REF);
+			}
+		}
+
+		private byte[] readBytes() throws IOException {
+			int length = readLength();
+			if (length <= MAX_PREALLOCATED_LENGTH) {
+				byte[] bytes = new byte[length];
+				in.readFully(bytes);
+				return bytes;
+			}
+			// don't allocate what a corrupted length claims before the data is there
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream(MAX_PREALLOCATED_LENGTH);
+			byte[] buffer = new byte[MAX_PREALLOCATED_LENGTH];
+			while (length > 0) {
+				int read = in.read(buffer, 0, Math.min(length, buffer.length));
+				if (read < 0)
+					throw new EOFException("Byte array exceeds the end of the stream");
+				bytes.write(buffer, 0, read);
+				length -= read;
+			}
+			return bytes.toByteArray();
+		}
+
+		private BigInteger readBigInteger() throws IOException {
+			byte[] bytes = readBytes();
+			if (bytes.length == 0)
+				throw new StreamCorruptedException("Invalid big integer");
+			return new BigInteger(bytes);
+		}
+
+		private int readLength() throws IOException {
+			int length = readVarInt();
+			if (length < 0)
+				throw new StreamCorruptedException("Invalid length " + (length & 0xFFFFFFFFL));
+			return length;
+		}
+
+		private int readVarInt() throws IOException {
+			int result = 0;
+			for (int shift = 0; shift < 35; shift += 7) {
+				int b = in.readUnsignedByte();
+				result |= (b & 0x7F) << shift;
+				if ((b & 0x80) == 0)
+					return result;
+			}
+			throw new StreamCorruptedException("Invalid variable length int");
+		}
+
+		private long readVarLong() throws IOException {
+			long result = 0;
+			for (int shift = 0; shift < 70; shift += 7) {
+				int b = in.readUnsignedByte();
+				result |= (long) (b & 0x7F) << shift;
+				if ((b & 0x80) == 0)
+					return result;
+			}
+			throw new StreamCorruptedException("Invalid variable length long");
+		}
+
+		private static int unZigZag(int v) {
+			return (v >>> 1) ^ -(v & 1);
+		}
+
+		private static long unZigZag(long v) {
+			return (v >>> 1) ^ -(v & 1);
+		}
+	}
+}
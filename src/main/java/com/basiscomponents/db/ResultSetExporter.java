@@ -397,7 +397,7 @@ public class ResultSetExporter {
 	 *                   a JSON String.
 	 */
 	public static void writeJSON(ResultSet resultSet, Writer writer) throws Exception {
-		writer.write(resultSet.toJson());
+		resultSet.toJson(writer, true, null, true, false);
 	}
 
 	/**
@@ -410,7 +410,22 @@ public class ResultSetExporter {
 	 *                   a JSON String.
 	 */
 	public static void writeJSON(ResultSet resultSet, Writer writer, Boolean fMeta) throws Exception {
-		writer.write(resultSet.toJson(fMeta));
+		resultSet.toJson(writer, fMeta, null, true, false);
+	}
+
+	/**
+	 * Writes the content of the given ResultSet as UTF-8 encoded JSON to the given
+	 * OutputStream.
+	 * 
+	 * @param resultSet The ResultSet object to write as JSON.
+	 * @param out       The OutputStream to write to, it is not closed.
+	 * @param fMeta     A Boolean indicating whether to write out the meta data
+	 *                  object
+	 * @throws Exception Gets thrown in case the ResultSet could not be converted to
+	 *                   JSON.
+	 */
+	public static void writeJSON(ResultSet resultSet, OutputStream out, Boolean fMeta) throws Exception {
+		resultSet.toJson(out, fMeta, null, true, false);
 	}
 
 	/**
@@ -0,0 +1,179 @@
+package com.basiscomponents.db;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Hash join of two ResultSets on one or more key fields, see
+ * {@link ResultSet#merge(ResultSet, List, boolean)} and
+ * {@link ResultSet#join(ResultSet, List, int, boolean)}.<br>
+ * <br>
+ * The hash table is built on the smaller of the two ResultSets, the other one
+ * is read once. Keys are compared with equals on the field values, like the
+ * former nested loop did. A DataRow which misses a key field or holds null in
+ * it matches no other DataRow.
+ */
+final class ResultSetJoin {
+
+	private ResultSetJoin() {
+	}
+
+	/**
+	 * Merges the fields of each DataRow of the source into the first DataRow of
+	 * the target with the same key.
+	 */
+	static void merge(ResultSet target, ResultSet source, List<String> keyFields, boolean overwrite) {
+		if (source.size() <= target.size()) {
+			Map<Object, List<DataRow>> sourceRows = group(source, keyFields);
+			for (DataRow row : target) {
+				if (sourceRows.isEmpty())
+					break;
+				Object key = key(row, keyFields);
+				// only the first DataRow with the key gets the fields
+				List<DataRow> matches = key == null ? null : sourceRows.remove(key);
+				if (matches != null)
+					matches.forEach(match -> row.mergeRecord(match, overwrite));
+			}
+		} else {
+			Map<Object, DataRow> targetRows = new HashMap<>();
+			for (DataRow row : target) {
+				Object key = key(row, keyFields);
+				if (key != null)
+					targetRows.putIfAbsent(key, row);
+			}
+			for (DataRow match : source) {
+				Object key = key(match, keyFields);
+				DataRow row = key == null ? null : targetRows.get(key);
+				if (row != null)
+					row.mergeRecord(match, overwrite);
+			}
+		}
+	}
+
+	/**
+	 * Joins the DataRows of both ResultSets into a new ResultSet. Each DataRow of
+	 * the left ResultSet is followed by its matches in the order of the right
+	 * ResultSet, the unmatched DataRows of the right ResultSet come last.
+	 */
+	static ResultSet join(ResultSet left, ResultSet right, List<String> keyFields, int joinType, boolean overwrite) {
+		if (joinType != ResultSet.JOIN_INNER && joinType != ResultSet.JOIN_LEFT && joinType != ResultSet.JOIN_FULL)
+			throw new IllegalArgumentException("Unknown join type " + joinType);
+
+		List<List<DataRow>> matches = new ArrayList<>(left.size());
+		List<DataRow> unmatched = new ArrayList<>();
+		if (right.size() <= left.size()) {
+			Map<Object, List<DataRow>> rightRows = group(right, keyFields);
+			Set<Object> matchedKeys = new HashSet<>();
+			for (DataRow row : left) {
+				Object key = key(row, keyFields);
+				List<DataRow> rowMatches = key == null ? null : rightRows.get(key);
+				if (rowMatches != null)
+					matchedKeys.add(key);
+				matches.add(rowMatches);
+			}
+			if (joinType == ResultSet.JOIN_FULL) {
+				for (DataRow row : right) {
+					Object key = key(row, keyFields);
+					if (key == null || !matchedKeys.contains(key))
+						unmatched.add(row);
+				}
+			}
+		} else {
+			Map<Object, List<Integer>> leftPositions = new HashMap<>();
+			int position = 0;
+			for (DataRow row : left) {
+				Object key = key(row, keyFields);
+				if (key != null)
+					leftPositions.computeIfAbsent(key, k -> new ArrayList<>(1)).add(position);
+				matches.add(null);
+				position++;
+			}
+			for (DataRow row : right) {
+				Object key = key(row, keyFields);
+				List<Integer> positions = key == null ? null : leftPositions.get(key);
+				if (positions == null) {
+					unmatched.add(row);
+					continue;
+				}
+				for (int p : positions) {
+					if (matches.get(p) == null)
+						matches.set(p, new ArrayList<>(1));
+					matches.get(p).add(row);
+				}
+			}
+		}
+
+		ResultSet result = createResult(left, right);
+		int position = 0;
+		for (DataRow row : left) {
+			List<DataRow> rowMatches = matches.get(position++);
+			if (rowMatches != null) {
+				for (DataRow match : rowMatches) {
+					result.add(joinRows(row, match, overwrite));
+				}
+			} else if (joinType != ResultSet.JOIN_INNER) {
+				result.add(row.clone());
+			}
+		}
+		if (joinType == ResultSet.JOIN_FULL)
+			unmatched.forEach(row -> result.add(row.clone()));
+		return result;
+	}
+
+	private static ResultSet createResult(ResultSet left, ResultSet right) {
+		ResultSet result = left.cloneSchema();
+		for (int column = 0; column < right.getColumnCount(); column++) {
+			String name = right.getColumnName(column);
+			if (result.getColumnIndex(name) == -1)
+				result.setColumnType(result.addColumn(name), right.getColumnType(column));
+		}
+		return result;
+	}
+
+	private static DataRow joinRows(DataRow row, DataRow match, boolean overwrite) {
+		DataRow joined = row.clone();
+		for (String name : match.getFieldNamesView()) {
+			if (overwrite || !joined.contains(name)) {
+				DataField field = match.getField(name, true);
+				joined.addDataField(name, match.getFieldType(name), field == null ? null : field.clone());
+			}
+		}
+		return joined;
+	}
+
+	private static Map<Object, List<DataRow>> group(ResultSet rs, List<String> keyFields) {
+		Map<Object, List<DataRow>> rows = new HashMap<>();
+		for (DataRow row : rs) {
+			Object key = key(row, keyFields);
+			if (key != null)
+				rows.computeIfAbsent(key, k -> new ArrayList<>(1)).add(row);
+		}
+		return rows;
+	}
+
+	/**
+	 * Returns the value of the key field, a List of the values for several key
+	 * fields, or null if a value is missing.
+	 */
+	private static Object key(DataRow row, List<String> keyFields) {
+		if (keyFields.size() == 1)
+			return value(row, keyFields.get(0));
+		Object[] key = new Object[keyFields.size()];
+		for (int i = 0; i < key.length; i++) {
+			key[i] = value(row, keyFields.get(i));
+			if (key[i] == null)
+				return null;
+		}
+		return Arrays.asList(key);
+	}
+
+	private static Object value(DataRow row, String field) {
+		DataField dataField = row.getField(field, true);
+		return dataField == null ? null : dataField.getObject();
+	}
+}
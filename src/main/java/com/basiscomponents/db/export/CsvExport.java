@@ -4,11 +4,11 @@ import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.UnsupportedEncodingException;
+import java.util.List;
 
 import com.basiscomponents.db.DataRow;
 import com.basiscomponents.db.DataField;
 import com.basiscomponents.db.ResultSet;
-import com.basiscomponents.db.BBArrayList;
 
 public class CsvExport {
 	
@@ -33,10 +33,10 @@ public class CsvExport {
 	 * @param rs			the result set that holds the data to export
 	 */
 	public static String buildExportString(ResultSet rs) {
-		String exportString = "";
+		StringBuilder exportString = new StringBuilder();
 		
 		DataRow dr = rs.get(0);
-		BBArrayList<String> fieldNames = dr.getFieldNames();
+		List<String> fieldNames = dr.getFieldNamesView();
 		
 		for (int i = 0 ; i < fieldNames.size() ; i++) {
 			String header;
@@ -46,23 +46,14 @@ public class CsvExport {
 			if (header == null) {
 				header = fieldName;
 			}
-			exportString += "\"" + header.trim() + "\",";
+			exportString.append('"').append(header.trim()).append("\",");
 		}
-		exportString = exportString.substring(0, exportString.length()-1);
-		exportString += "\r\n";
+		exportString.setLength(exportString.length()-1);
+		exportString.append("\r\n");
 		
-		for (int i = 0 ; i < rs.size() ; i++) {
-			dr = rs.get(i);
-			for (int j = 0 ; j < fieldNames.size() ; j++) {
-				String fieldName = fieldNames.get(j);
-				String val = dr.getFieldAsString(fieldName);
-				exportString += "\"" + val.trim() + "\",";
-			}
-			exportString = exportString.substring(0, exportString.length()-1);
-			exportString += "\r\n";
-		}
+		appendRows(exportString, rs, fieldNames);
 		
-		return exportString;
+		return exportString.toString();
 	}
 	
 	/**
@@ -90,10 +81,9 @@ public class CsvExport {
 	 * @param useLabel		indicates if the label instead of the field name should be used
 	 */
 	public static String buildExportString(ResultSet rs, DataRow baseDR, boolean useLabel) {
-		String exportString = "";
+		StringBuilder exportString = new StringBuilder();
 		
-		DataRow dr = rs.get(0);
-		BBArrayList<String> fieldNames = baseDR.getFieldNames();
+		List<String> fieldNames = baseDR.getFieldNamesView();
 		
 		for (int i = 0 ; i < fieldNames.size() ; i++) {
 			String header = null;
@@ -105,24 +95,33 @@ public class CsvExport {
 			if (header == null) {
 				header = fieldName;
 			}
-			exportString += "\"" + header.trim() + "\",";
+			exportString.append('"').append(header.trim()).append("\",");
 		}
 		
-		exportString = exportString.substring(0, exportString.length()-1);
-		exportString += "\r\n";
+		exportString.setLength(exportString.length()-1);
+		exportString.append("\r\n");
+		
+		appendRows(exportString, rs, fieldNames);
 		
-		for (int i = 0 ; i < rs.size() ; i++) {
-			dr = rs.get(i);
+		return exportString.toString();
+	}
+	
+	/**
+	 * Method to append one CSV line per row of the result set
+	 * 
+	 * @param exportString	the builder to append the lines to
+	 * @param rs			the result set that holds the data to export
+	 * @param fieldNames	the names of the fields to export, in export order
+	 */
+	private static void appendRows(StringBuilder exportString, ResultSet rs, List<String> fieldNames) {
+		for (DataRow dr : rs) {
 			for (int j = 0 ; j < fieldNames.size() ; j++) {
-				String fieldName = fieldNames.get(j);
-				String val = dr.getFieldAsString(fieldName);
-				exportString += "\"" + val.trim() + "\",";
+				String val = dr.getFieldAsString(fieldNames.get(j));
+				exportString.append('"').append(val.trim()).append("\",");
 			}
-			exportString = exportString.substring(0, exportString.length()-1);
-			exportString += "\r\n";
+			exportString.setLength(exportString.length()-1);
+			exportString.append("\r\n");
 		}
-		
-		return exportString;
 	}
 	
 	/**
@@ -91,6 +91,12 @@ public class XlsxExport {
 				}
 			}
 
+			// resolve the column types once instead of once per cell
+			int[] columnTypes = new int[fieldnames.size()];
+			for (int i = 0; i < columnTypes.length; i++) {
+				columnTypes[i] = rs.getColumnType(rs.getColumnIndex(fieldnames.get(i)));
+			}
+
 			DataRow currentRow;
 			String currentFieldName;
 			while (it.hasNext()) {
@@ -105,7 +111,7 @@ public class XlsxExport {
 				while (fieldNameIterator.hasNext()) {
 					currentFieldName = fieldNameIterator.next();
 					cell = row.createCell(cellIndex);
-					columnType = rs.getColumnType(rs.getColumnIndex(currentFieldName));
+					columnType = columnTypes[cellIndex];
 					if (currentRow.contains(currentFieldName)) {
 						if (SqlTypeNames.isNumericType(columnType)) {
 							cell.setCellType(CellType.NUMERIC);
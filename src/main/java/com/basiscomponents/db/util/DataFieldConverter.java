@@ -12,14 +12,9 @@ import java.util.Arrays;
 import java.util.Date;
 
 public class DataFieldConverter {
-	private static final String JAVA_MATH_BIG_DECIMAL = "java.math.BigDecimal";
+	// the BBj types are recognized by their class names, so this class can be used without the BBj jars
 	private static final String BBJ_INT = "BBjInt";
 	private static final String BBJ_NUMBER = "BBjNumber";
-	private static final String JAVA_LANG_DOUBLE = "java.lang.Double";
-	private static final String JAVA_LANG_INTEGER = "java.lang.Integer";
-	private static final String JAVA_LANG_BOOLEAN = "java.lang.Boolean";
-	private static final String JAVA_LANG_STRING = "java.lang.String";
-	private static final String BYTE_ARRAY = "byte[]";
 
 	private DataFieldConverter() {
 	}
@@ -27,9 +22,8 @@ public class DataFieldConverter {
 
 		if (o == null)
 			return null;
-		String classname = o.getClass().getCanonicalName();
 		String tmpstr = o.toString();
-		if (classname.contains("DataField")) {
+		if (o instanceof DataField) {
 			throw new IllegalArgumentException("Setting a DataField into a DataField is not supported");
 		}
 
@@ -39,7 +33,7 @@ public class DataFieldConverter {
 		case java.sql.Types.BINARY:
 		case java.sql.Types.VARBINARY:
 		case java.sql.Types.LONGVARBINARY:
-			if (!classname.equals(JAVA_LANG_STRING)) {
+			if (!(o instanceof String)) {
 				return o.toString().getBytes();
 			}
 			return ((String) o).getBytes();
@@ -48,30 +42,30 @@ public class DataFieldConverter {
 		case java.sql.Types.LONGVARCHAR:
 			// make Boolean special, for compatibility with BBj IF statements
 			// want true as "1" and false as "0"
-			if (classname.equals(JAVA_LANG_BOOLEAN))
+			if (o instanceof Boolean)
 				return (Boolean) o ? "1" : "0";
-			if (classname.equals(JAVA_MATH_BIG_DECIMAL))
+			if (o instanceof BigDecimal)
 				return ((BigDecimal) o).stripTrailingZeros().toPlainString();
-			if (classname.equals(BYTE_ARRAY)) {
+			if (o instanceof byte[]) {
 				return new String((byte[])o);
 				}
-			if (!classname.equals(JAVA_LANG_STRING))
+			if (!(o instanceof String))
 				return o.toString();
 			else
 				return o;
 		case java.sql.Types.BIT:
 		case java.sql.Types.BOOLEAN:
-			if (classname.equals(JAVA_LANG_BOOLEAN))
+			if (o instanceof Boolean)
 				return o;
-			if (classname.equals(JAVA_LANG_STRING)) {
+			if (o instanceof String) {
 				String c = o.toString().toLowerCase();
 				return c.equals("true") || c.equals(".t.") || c.equals("1");
 			}
-			if (classname.equals(JAVA_LANG_INTEGER))
+			if (o instanceof Integer)
 				return (Integer) o > 0;
-			if (classname.equals(JAVA_LANG_DOUBLE))
+			if (o instanceof Double)
 				return (Double) o > 0;
-			if (classname.contains(BBJ_NUMBER) || classname.contains(BBJ_INT))
+			if (isBBjNumber(o))
 				return Double.parseDouble(o.toString()) > 0;
 			break;
 
@@ -79,20 +73,20 @@ public class DataFieldConverter {
 		case java.sql.Types.BIGINT:
 		case java.sql.Types.SMALLINT:
 		case java.sql.Types.INTEGER:
-			if (classname.equals(JAVA_LANG_INTEGER))
+			if (o instanceof Integer)
 				return o;
-			if (classname.equals(JAVA_LANG_BOOLEAN))
+			if (o instanceof Boolean)
 				return (Boolean) o ? 1 : 0;
-			if (classname.equals(JAVA_LANG_DOUBLE))
+			if (o instanceof Double)
 				return ((Double) o).intValue();
 			if (tmpstr.isEmpty())
 				tmpstr = "0";
 			return (Integer.parseInt(tmpstr));
 
 		case java.sql.Types.DECIMAL:
-			if (classname.equals(JAVA_LANG_DOUBLE))
+			if (o instanceof Double)
 				return BigDecimal.valueOf((double) o);
-			if (classname.equals(JAVA_LANG_INTEGER))
+			if (o instanceof Integer)
 				return BigDecimal.valueOf((int) o);
 			if (tmpstr.isEmpty())
 				tmpstr = "0";
@@ -100,9 +94,9 @@ public class DataFieldConverter {
 
 		case java.sql.Types.REAL:
 		case java.sql.Types.DOUBLE:
-			if (classname.equals(JAVA_LANG_DOUBLE))
+			if (o instanceof Double)
 				return o;
-			if (classname.equals(JAVA_LANG_BOOLEAN))
+			if (o instanceof Boolean)
 				return (Boolean) o ? 1.0 : 0.0;
 			if (tmpstr.isEmpty())
 				tmpstr = "0.0";
@@ -112,10 +106,10 @@ public class DataFieldConverter {
 				tmpstr = "0.0";
 			return new java.math.BigDecimal(tmpstr);
 		case java.sql.Types.DATE:
-			if (classname.equals("java.sql.Date"))
+			if (o instanceof java.sql.Date)
 				return o;
-			if (classname.contains("com.basis.util.common.BasisNumber")
-					|| classname.contains("com.basis.startup.type.BBjNumber")) {
+			if (hasClassName(o, "com.basis.util.common.BasisNumber")
+					|| hasClassName(o, "com.basis.startup.type.BBjNumber")) {
 				com.basis.util.common.BasisNumber val = com.basis.util.common.BasisNumber
 						.getBasisNumber((com.basis.startup.type.BBjNumber) o);
 				Date d = com.basis.util.BasisDate.date(val.intValueExact());
@@ -124,24 +118,24 @@ public class DataFieldConverter {
 				else
 					return null;
 			}
-			if (classname.equals(JAVA_LANG_INTEGER)) {
+			if (o instanceof Integer) {
 				Date d = com.basis.util.BasisDate.date((Integer) o);
 				if (d != null)
 					return new java.sql.Date(d.getTime());
 				else
 					return null;
 			}
-			if (classname.equals(JAVA_LANG_DOUBLE)) {
+			if (o instanceof Double) {
 				Date d = com.basis.util.BasisDate.date(((Double) o).intValue());
 				if (d != null)
 					return new java.sql.Date(d.getTime());
 				else
 					return null;
 			}
-			if (classname.equals("java.lang.Long")) {
+			if (o instanceof Long) {
 				return new java.sql.Date((long) o);
 			}
-			if (classname.equals(JAVA_LANG_STRING))
+			if (o instanceof String)
 				if (tmpstr.isEmpty())
 					return null;
 				else {
@@ -175,9 +169,9 @@ public class DataFieldConverter {
 			break;
 
 		case java.sql.Types.TIME:
-			if (classname.equals("java.sql.Time"))
+			if (o instanceof Time)
 				return o;
-			if (classname.equals(JAVA_LANG_STRING)) {
+			if (o instanceof String) {
 				String timestr = (String) o;
 				String timemask="HH:mm:ss";
 				if (timestr.contains("T"))
@@ -196,13 +190,13 @@ public class DataFieldConverter {
 			}
 			break;
 		case java.sql.Types.TIMESTAMP:
-			if (classname.equals("java.sql.Timestamp"))
+			if (o instanceof java.sql.Timestamp)
 				return o;
-			if (classname.equals(JAVA_LANG_INTEGER))
+			if (o instanceof Integer)
 				return new java.sql.Timestamp(com.basis.util.BasisDate.date((Integer) o).getTime());
-			if (classname.equals(JAVA_LANG_DOUBLE))
+			if (o instanceof Double)
 				return new java.sql.Timestamp(com.basis.util.BasisDate.date(((Double) o).intValue()).getTime());
-			if (classname.equals(JAVA_LANG_STRING)) {
+			if (o instanceof String) {
 				String p = ((String) o).replaceFirst("T", " ");
 				if (tmpstr.isEmpty())
 					return null;
@@ -243,6 +237,7 @@ public class DataFieldConverter {
 			break;
 		default:
 
+			String classname = o.getClass().getCanonicalName();
 			String typeName = ResultSet.getSQLTypeName(targetType);
 			if (typeName != null) {
 				System.out.println("warning: unclear type conversion for type " + targetType + "(" + typeName
@@ -294,13 +289,13 @@ public class DataFieldConverter {
 			 * java.sql.Types.INTEGER in the Column metadata. Calling the getInt() method
 			 * will then result in an Exception. This checks prevents this Exception.
 			 */
-			if (field.getClassName().equals("java.lang.Short"))
-				ret=field.getShort().doubleValue();
+			if (field.getValue() instanceof Short)
+				ret = (double) field.getIntValue();
 			else
 				if (!resultSet.isSigned(column)) {
 				ret = field.getLong().doubleValue();
 				} else {
-					ret = field.getInt().doubleValue();
+					ret = (double) field.getIntValue();
 			}
 			break;
 		case java.sql.Types.BIGINT:
@@ -366,4 +361,13 @@ public class DataFieldConverter {
 		}
 		return ret;
 	}
+
+	private static boolean isBBjNumber(Object o) {
+		return hasClassName(o, BBJ_NUMBER) || hasClassName(o, BBJ_INT);
+	}
+
+	private static boolean hasClassName(Object o, String name) {
+		String classname = o.getClass().getCanonicalName();
+		return classname != null && classname.contains(name);
+	}
 }
@@ -4,20 +4,17 @@ import com.basiscomponents.db.DataField;
 import com.basiscomponents.db.DataRow;
 import com.basiscomponents.db.ResultSet;
 import com.basiscomponents.util.StringDateTimeGuesser;
-import com.fasterxml.jackson.core.JsonFactory;
 import com.fasterxml.jackson.core.JsonParseException;
 import com.fasterxml.jackson.core.JsonParser;
-import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.JsonMappingException;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.ObjectReader;
-import com.google.gson.JsonElement;
-import com.google.gson.JsonObject;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.sql.Types;
 import java.text.ParseException;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
@@ -28,6 +25,8 @@ public class DataRowJsonMapper {
 
 	private static final String COLUMN_TYPE = "ColumnType";
 
+	private static final ObjectMapper MAPPER = new ObjectMapper();
+
 	/**
 	 * Initializes and returns a DataRow object based on the values provided in the
 	 * given JSON String.
@@ -76,45 +75,104 @@ public class DataRowJsonMapper {
 		input = convertCharsBelowChr32(input);
 		input = removeLeadingDataRow(input);
 		input = wrapInJsonArray(input);
-		JsonNode root = buildJsonRoot(input);
-//		input = wrapInJsonArray(input);
-
-		JsonFactory f = new JsonFactory();
-		try (JsonParser jsonParser = f.createParser(input)) {
-			jsonParser.nextToken();
+		JsonNode root = MAPPER.readTree(input);
+		if (root == null || root.isMissingNode()) {
+			return new DataRow();
+		}
 
-			ObjectMapper objectMapper = new ObjectMapper();
+		List<?> navigation = MAPPER.readerFor(List.class).readValue(root);
+		if (navigation.isEmpty()) {
+			return new DataRow();
+		}
+		return fromJson(navigation, meta);
+	}
 
-			List<?> navigation = objectMapper.readValue(jsonParser,
-					objectMapper.getTypeFactory().constructCollectionType(List.class, Object.class));
-			if (navigation.isEmpty()) {
+	/**
+	 * Initializes and returns a DataRow object based on the JSON in the remaining
+	 * bytes of the given buffer, f.g. the payload of a websocket frame. The JSON
+	 * is parsed from the bytes, without decoding it into a String first. The
+	 * position of the buffer is not changed.
+	 *
+	 * @param in   The buffer holding the JSON in UTF-8
+	 * @param meta A DataRow that will be used to determine the field types if not
+	 *             given in the meta section of the JSON
+	 * @return the DataRow object created based on the JSON content
+	 * 
+	 * @throws IOException
+	 * @throws ParseException
+	 */
+	public static DataRow fromJson(final ByteBuffer in, final DataRow meta) throws IOException, ParseException {
+		Object root;
+		try (JsonParser parser = ResultSetJsonMapper.createParser(in)) {
+			if (parser.nextToken() == null) {
 				return new DataRow();
 			}
+			root = MAPPER.readValue(parser, Object.class);
+		}
+		if (root instanceof Map) {
+			return fromJsonObject((Map<?, ?>) root, meta);
+		}
+		if (!(root instanceof List) || ((List<?>) root).isEmpty()) {
+			return new DataRow();
+		}
+		return fromJson((List<?>) root, meta);
+	}
 
-			DataRow metaRow;
-			if (meta == null) {
-				metaRow = new DataRow();
-			} else {
-				metaRow = meta.clone();
-			}
-			HashMap<?, ?> navigationMap = (HashMap<?, ?>) navigation.get(0);
+	/**
+	 * Creates a DataRow from the first entry of an already parsed JSON array, as
+	 * read by Jackson into Maps, Lists and simple values.
+	 *
+	 * @param navigation the parsed JSON array, must not be empty.
+	 * @param meta       A DataRow that will be used to determine the field types
+	 *                   if not given in the meta section of the JSON
+	 * @return the DataRow object created based on the JSON content
+	 * @throws IOException
+	 * @throws ParseException
+	 */
+	@SuppressWarnings("unchecked")
+	static DataRow fromJson(final List<?> navigation, final DataRow meta) throws IOException, ParseException {
+		DataRow metaRow;
+		if (meta == null) {
+			metaRow = new DataRow();
+		} else {
+			metaRow = meta.clone();
+		}
+		HashMap<?, ?> navigationMap = (HashMap<?, ?>) navigation.get(0);
 
-			createMetaData(metaRow, navigationMap);
+		createMetaData(metaRow, navigationMap);
 
-			createNonExistingAttributes(root, metaRow, navigationMap);
+		createNonExistingAttributes(metaRow, navigationMap);
 
-			DataRow dr = new DataRow();
-			if (!metaRow.isEmpty()) {
-				createDataFields(root, metaRow, navigationMap, dr);
-			} else {
-				handleOldFormat(navigation, dr);
-			}
-			if (navigationMap.containsKey(ResultSetJsonMapper.ATTRIBUTES)) {
-				((HashMap<String, String>) navigationMap.get(ResultSetJsonMapper.ATTRIBUTES))
-						.forEach((key, value) -> dr.setAttribute(key, value));
-			}
-			return dr;
+		DataRow dr = new DataRow();
+		if (!metaRow.isEmpty()) {
+			createDataFields(metaRow, navigationMap, dr);
+		} else {
+			handleOldFormat(navigation, dr);
+		}
+		if (navigationMap.containsKey(ResultSetJsonMapper.ATTRIBUTES)) {
+			((HashMap<String, String>) navigationMap.get(ResultSetJsonMapper.ATTRIBUTES))
+					.forEach((key, value) -> dr.setAttribute(key, value));
+		}
+		return dr;
+	}
+
+	/**
+	 * Creates a DataRow from a JSON object which was already parsed into a Map,
+	 * with the same rules as {@link #fromJson(String)}.
+	 */
+	private static DataRow fromJsonObject(final Map<?, ?> object, final DataRow meta)
+			throws IOException, ParseException {
+		List<?> navigation;
+		Object rows = object.get("datarow");
+		if (object.size() == 1 && rows instanceof List) {
+			navigation = (List<?>) rows;
+		} else {
+			navigation = Collections.singletonList(object);
 		}
+		if (navigation.isEmpty()) {
+			return new DataRow();
+		}
+		return fromJson(navigation, meta);
 	}
 
 	/**
@@ -128,12 +186,11 @@ public class DataRowJsonMapper {
 	 *
 	 */
 	public static DataRow metaDataFromJson(final String js) throws IOException, ParseException {
-		com.google.gson.JsonParser parser = new com.google.gson.JsonParser();
-		com.google.gson.JsonArray o = parser.parse(js).getAsJsonArray();
-		JsonObject meta = null;
+		JsonNode o = MAPPER.readTree(convertCharsBelowChr32(js));
+		if (o == null || !o.isArray())
+			throw new JsonParseException((JsonParser) null, "Expected a JSON array");
 		DataRow metaRow = null;
 		if (o.size() > 0) {
-			meta = o.get(0).getAsJsonObject().getAsJsonObject("meta");
 			metaRow = DataRowJsonMapper.fromJson(o.get(0).toString());
 			// metaRow.clear();
 		} else {
@@ -142,14 +199,9 @@ public class DataRowJsonMapper {
 		return metaRow;
 	}
 
-	private static void createDataFields(JsonNode root, DataRow attributes, HashMap<?, ?> hm, DataRow dr)
-			throws ParseException, JsonParseException, IOException {
+	private static void createDataFields(DataRow attributes, HashMap<?, ?> hm, DataRow dr)
+			throws ParseException, IOException {
 
-		JsonNode root2;
-		if (root.isArray())
-			root2 = root.get(0);
-		else
-			root2 = root;
 		for (String fieldName : attributes.getFieldNames()) {
 			Object fieldObj = hm.get(fieldName);
 			int fieldType = attributes.getFieldType(fieldName);
@@ -158,110 +210,10 @@ public class DataRowJsonMapper {
 				dr.setFieldAttributes(fieldName, attributes.getFieldAttributes(fieldName));
 				continue;
 			}
-			switch (fieldType) {
-			case -973:
-				// nested ArrayList or BBjVector
-				JsonNode x = root.get(0).get(fieldName);
-//				JsonNode x = root.get(fieldName);
-				ObjectMapper mapper = new ObjectMapper();
-				ObjectReader reader = mapper.readerFor(new TypeReference<List<Object>>() {
-				});
-				List<String> list = reader.readValue(x);
-				dr.setFieldValue(fieldName, list);
-				break;
-
-			case -974:
-				String nestedJson = "";
-				nestedJson = root2.get(fieldName).toString();
-				dr.setFieldValue(fieldName, DataRowJsonMapper.fromJson(nestedJson));
-				break;
-			case -975:
-				String nestedJson1 = "";
-				nestedJson1 = root2.get(fieldName).toString();
-				dr.setFieldValue(fieldName, ResultSetJsonMapper.fromJson(nestedJson1));
-				break;
-
-			case java.sql.Types.CHAR:
-			case java.sql.Types.VARCHAR:
-			case java.sql.Types.NVARCHAR:
-			case java.sql.Types.NCHAR:
-			case java.sql.Types.LONGVARCHAR:
-			case java.sql.Types.LONGNVARCHAR:
-				// got a JSON object - save it as a JSON String
-				if (fieldObj.getClass().equals(java.util.LinkedHashMap.class)) {
-					dr.addDataField(fieldName, fieldType, new DataField(root2.get(fieldName).toString()));
-					dr.setFieldAttribute(fieldName, "StringFormat", "JSON");
-				} else
-					dr.addDataField(fieldName, fieldType, new DataField(fieldObj));
-				break;
-			case java.sql.Types.BIGINT:
-			case java.sql.Types.TINYINT:
-			case java.sql.Types.INTEGER:
-			case java.sql.Types.SMALLINT:
-				String tmp = fieldObj.toString();
-				if (tmp.isEmpty())
-					tmp = "0";
-				dr.addDataField(fieldName, fieldType, new DataField(Integer.parseInt(tmp)));
-				break;
-			case java.sql.Types.NUMERIC:
-				dr.addDataField(fieldName, fieldType, new DataField(new java.math.BigDecimal(fieldObj.toString())));
-				break;
-			case java.sql.Types.DOUBLE:
-			case java.sql.Types.FLOAT:
-			case java.sql.Types.DECIMAL:
-			case java.sql.Types.REAL:
-				dr.addDataField(fieldName, fieldType, new DataField(Double.parseDouble(fieldObj.toString())));
-				break;
-			case java.sql.Types.BOOLEAN:
-			case java.sql.Types.BIT:
-				dr.addDataField(fieldName, fieldType, new DataField(fieldObj));
-				break;
-			case java.sql.Types.TIMESTAMP:
-			case java.sql.Types.TIMESTAMP_WITH_TIMEZONE:
-			case (int) 11: // BASIS Timestamp
-				String tss = fieldObj.toString();
-				if (!tss.contains("T")) {
-					tss += "T00:00:00.0";
-				}
-				java.sql.Timestamp ts = (java.sql.Timestamp) DataField.convertType(tss, fieldType);
-				dr.addDataField(fieldName, fieldType, new DataField(ts));
-				break;
-			case java.sql.Types.TIME:
-			case java.sql.Types.TIME_WITH_TIMEZONE:
-				tss = fieldObj.toString();
-				if (!tss.contains("T")) {
-					tss += "T00:00:00.0";
-				}
-				java.sql.Time tm = (java.sql.Time) DataField.convertType(tss, fieldType);
-				dr.addDataField(fieldName, fieldType, new DataField(tm));
-				break;
-			case java.sql.Types.DATE:
-			case (int) 9: // BASIS Date
-				tss = fieldObj.toString();
-				dr.addDataField(fieldName, fieldType,
-						new DataField((java.sql.Date) DataField.convertType(tss, fieldType)));
-				break;
-			case java.sql.Types.ARRAY:
-			case java.sql.Types.BINARY:
-			case java.sql.Types.BLOB:
-			case java.sql.Types.CLOB:
-			case java.sql.Types.DATALINK:
-			case java.sql.Types.DISTINCT:
-			case java.sql.Types.JAVA_OBJECT:
-			case java.sql.Types.LONGVARBINARY:
-			case java.sql.Types.NCLOB:
-			case java.sql.Types.NULL:
-			case java.sql.Types.OTHER:
-			case java.sql.Types.REF:
-			case java.sql.Types.REF_CURSOR:
-			case java.sql.Types.ROWID:
-			case java.sql.Types.SQLXML:
-			case java.sql.Types.STRUCT:
-			case java.sql.Types.VARBINARY:
-			default:
-				break;
-
-			}// switch
+			ValueReader reader = valueReader(fieldType);
+			if (reader != null) {
+				dr.addDataField(fieldName, fieldType, reader.read(fieldObj));
+			}
 
 			Map<String, String> attr = attributes.getFieldAttributes(fieldName);
 
@@ -278,6 +230,203 @@ public class DataRowJsonMapper {
 		}
 	}
 
+	/**
+	 * Converts a value read by Jackson into the DataField of a column.
+	 */
+	@FunctionalInterface
+	private interface ValueReader {
+		DataField read(Object value) throws IOException, ParseException;
+	}
+
+	/**
+	 * Returns the reader for the values of the given SQL type, or null if values
+	 * of this type are not read from JSON.
+	 */
+	private static ValueReader valueReader(int fieldType) {
+		switch (fieldType) {
+		case -973:
+			// nested ArrayList or BBjVector
+			return value -> new DataField((List<?>) value);
+		case -974:
+			return value -> new DataField(fromJsonObject((Map<?, ?>) value, null));
+		case -975:
+			return value -> new DataField(ResultSetJsonMapper.fromJson((List<?>) value));
+
+		case java.sql.Types.CHAR:
+		case java.sql.Types.VARCHAR:
+		case java.sql.Types.NVARCHAR:
+		case java.sql.Types.NCHAR:
+		case java.sql.Types.LONGVARCHAR:
+		case java.sql.Types.LONGNVARCHAR:
+			return DataRowJsonMapper::readString;
+		case java.sql.Types.BIGINT:
+		case java.sql.Types.TINYINT:
+		case java.sql.Types.INTEGER:
+		case java.sql.Types.SMALLINT:
+			return DataRowJsonMapper::readInteger;
+		case java.sql.Types.NUMERIC:
+			return value -> new DataField(new java.math.BigDecimal(value.toString()));
+		case java.sql.Types.DOUBLE:
+		case java.sql.Types.FLOAT:
+		case java.sql.Types.DECIMAL:
+		case java.sql.Types.REAL:
+			return value -> new DataField(Double.parseDouble(value.toString()));
+		case java.sql.Types.BOOLEAN:
+		case java.sql.Types.BIT:
+			return DataField::new;
+		case java.sql.Types.TIMESTAMP:
+		case java.sql.Types.TIMESTAMP_WITH_TIMEZONE:
+		case (int) 11: // BASIS Timestamp
+			return value -> new DataField(
+					(java.sql.Timestamp) DataField.convertType(withTime(value.toString()), fieldType));
+		case java.sql.Types.TIME:
+		case java.sql.Types.TIME_WITH_TIMEZONE:
+			return value -> new DataField((java.sql.Time) DataField.convertType(withTime(value.toString()), fieldType));
+		case java.sql.Types.DATE:
+		case (int) 9: // BASIS Date
+			return value -> new DataField((java.sql.Date) DataField.convertType(value.toString(), fieldType));
+		case java.sql.Types.ARRAY:
+		case java.sql.Types.BINARY:
+		case java.sql.Types.BLOB:
+		case java.sql.Types.CLOB:
+		case java.sql.Types.DATALINK:
+		case java.sql.Types.DISTINCT:
+		case java.sql.Types.JAVA_OBJECT:
+		case java.sql.Types.LONGVARBINARY:
+		case java.sql.Types.NCLOB:
+		case java.sql.Types.NULL:
+		case java.sql.Types.OTHER:
+		case java.sql.Types.REF:
+		case java.sql.Types.REF_CURSOR:
+		case java.sql.Types.ROWID:
+		case java.sql.Types.SQLXML:
+		case java.sql.Types.STRUCT:
+		case java.sql.Types.VARBINARY:
+		default:
+			return null;
+		}
+	}
+
+	private static DataField readString(Object value) throws IOException {
+		// got a JSON object - save it as a JSON String
+		if (value.getClass().equals(java.util.LinkedHashMap.class)) {
+			DataField field = new DataField(MAPPER.writeValueAsString(value));
+			field.setAttribute("StringFormat", "JSON");
+			return field;
+		}
+		return new DataField(value);
+	}
+
+	private static DataField readInteger(Object value) {
+		String tmp = value.toString();
+		if (tmp.isEmpty())
+			tmp = "0";
+		return new DataField(Integer.parseInt(tmp));
+	}
+
+	private static String withTime(String tss) {
+		if (!tss.contains("T")) {
+			tss += "T00:00:00.0";
+		}
+		return tss;
+	}
+
+	/**
+	 * Returns a reader which creates DataRows from JSON objects that all have the
+	 * shape of the given meta DataRow, as the rows of a ResultSet usually do.
+	 *
+	 * @param meta the DataRow that determines the fields and their types.
+	 * @return the compiled reader.
+	 */
+	static RowReader compileReader(DataRow meta) {
+		return new RowReader(meta);
+	}
+
+	/**
+	 * Reads JSON objects into DataRows with the field order, the SQL types and the
+	 * value conversions of a meta DataRow resolved once. The DataRows share one
+	 * column metadata. An object with a "meta" section, with fields the meta
+	 * DataRow doesn't know or with values the compiled columns can't read goes
+	 * through {@link DataRowJsonMapper#fromJson(List, DataRow)}, so the result is
+	 * the same either way.
+	 */
+	static final class RowReader {
+
+		private final DataRow meta;
+		private final ResultSet schema = new ResultSet();
+		private final Column[] columns;
+		private final Map<String, Column> columnsByName = new HashMap<>();
+
+		private RowReader(DataRow meta) {
+			this.meta = meta;
+			List<String> names = meta.getFieldNames();
+			this.columns = new Column[names.size()];
+			for (int i = 0; i < columns.length; i++) {
+				String name = names.get(i);
+				int type = meta.getFieldType(name);
+				schema.setColumnType(schema.addColumn(name), type);
+				columns[i] = new Column(name, type, meta.getFieldAttributes(name));
+				columnsByName.put(name, columns[i]);
+			}
+		}
+
+		/**
+		 * Creates the DataRow of one JSON object.
+		 *
+		 * @param object the JSON object as read by Jackson.
+		 * @return the DataRow.
+		 * @throws IOException
+		 * @throws ParseException
+		 */
+		@SuppressWarnings("unchecked")
+		DataRow read(Map<?, ?> object) throws IOException, ParseException {
+			if (!fits(object)) {
+				return fromJson(Collections.singletonList(object), meta);
+			}
+			DataRow dr = new DataRow(schema);
+			for (Column column : columns) {
+				Object value = object.get(column.name);
+				if (value == null) {
+					dr.addDataField(column.name, column.type, new DataField(null));
+					if (!column.attributes.isEmpty())
+						dr.setFieldAttributes(column.name, column.attributes);
+				} else {
+					dr.addDataField(column.name, column.type, column.reader.read(value));
+				}
+			}
+			Object attributes = object.get(ResultSetJsonMapper.ATTRIBUTES);
+			if (attributes != null) {
+				((Map<String, String>) attributes).forEach(dr::setAttribute);
+			}
+			return dr;
+		}
+
+		private boolean fits(Map<?, ?> object) {
+			if (!(object instanceof HashMap) || object.containsKey("meta"))
+				return false;
+			for (Map.Entry<?, ?> entry : object.entrySet()) {
+				Column column = columnsByName.get(entry.getKey());
+				if (column == null || (column.reader == null && entry.getValue() != null))
+					return false;
+			}
+			return true;
+		}
+	}
+
+	private static final class Column {
+		private final String name;
+		private final int type;
+		private final ValueReader reader;
+		private final Map<String, String> attributes; // set on null values
+
+		private Column(String name, int type, Map<String, String> attributes) {
+			this.name = name;
+			this.type = type;
+			this.reader = valueReader(type);
+			this.attributes = attributes;
+		}
+	}
+
 	private static void handleOldFormat(List<?> navigation, DataRow dr) throws ParseException {
 		// old format - deprecated
 		@SuppressWarnings("unchecked")
@@ -326,43 +475,30 @@ public class DataRowJsonMapper {
 		}
 	}
 
-	private static void createNonExistingAttributes(JsonNode root, DataRow attributes, HashMap<?, ?> hm) {
+	private static void createNonExistingAttributes(DataRow attributes, HashMap<?, ?> hm) {
 		// add all fields to the attributes record that were not part of it before
-		JsonNode root2;
-		if (root.isArray())
-			root2 = root.get(0);
-		else
-			root2 = root;
-
 		Iterator<?> it2 = hm.keySet().iterator();
 		while (it2.hasNext()) {
 			String fieldName = (String) it2.next();
-			if (!attributes.contains(fieldName) && !fieldName.equals("meta") && root2.get(fieldName) != null) {
-				String type = root2.get(fieldName).getNodeType().toString();
-				switch (type) {
-				case "NUMBER":
+			if (!attributes.contains(fieldName) && !fieldName.equals("meta")) {
+				Object value = hm.get(fieldName);
+				if (value instanceof Number) {
 					attributes.addDataField(fieldName, java.sql.Types.DOUBLE, new DataField(null));
-					break;
-				case "BOOLEAN":
+				} else if (value instanceof Boolean) {
 					attributes.addDataField(fieldName, java.sql.Types.BOOLEAN, new DataField(null));
-					break;
-				case "OBJECT":
+				} else if (value instanceof Map) {
 					// a nested DataRow
 					attributes.addDataField(fieldName, -974, new DataField(null));
-					break;
-				case "ARRAY":
+				} else if (value instanceof List) {
 					// a nested DataRow or ArrayList / BBjVector
-					String subtype = root2.get(fieldName).get(0).getNodeType().toString();
-					if ("OBJECT".equals(subtype))
+					List<?> list = (List<?>) value;
+					if (!list.isEmpty() && list.get(0) instanceof Map)
 						attributes.addDataField(fieldName, -975, new DataField(null));
 					else
 						attributes.addDataField(fieldName, -973, new DataField(null));
-					break;
-				default:
-					int t = StringDateTimeGuesser.guessType((String)hm.get(fieldName));
+				} else {
+					int t = StringDateTimeGuesser.guessType((String) value);
 					attributes.addDataField(fieldName, t, new DataField(null));
-					break;
-
 				}
 			}
 		}
@@ -418,11 +554,6 @@ public class DataRowJsonMapper {
 		return input;
 	}
 
-	private static JsonNode buildJsonRoot(final String input) throws IOException {
-		return new ObjectMapper().readTree(input);
-
-	}
-
 	private static String removeLeadingDataRow(String input) {
 		if (input.startsWith("{\"datarow\":[") && input.endsWith("]}")) {
 			input = input.substring(11, input.length() - 1);
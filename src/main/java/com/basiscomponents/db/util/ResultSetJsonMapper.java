@@ -5,34 +5,78 @@ import com.basiscomponents.db.DataField;
 import com.basiscomponents.db.DataRow;
 import com.basiscomponents.db.ResultSet;
 import com.basiscomponents.db.fieldconverter.ConversionRuleSet;
+import com.basiscomponents.db.fieldconverter.IConversionRule;
 import com.basiscomponents.db.model.Attribute;
 import com.basiscomponents.json.ComponentsCharacterEscapes;
 
+import com.fasterxml.jackson.core.JsonEncoding;
 import com.fasterxml.jackson.core.JsonFactory;
 import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.core.JsonParseException;
-
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.core.json.JsonReadFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.util.ByteBufferBackedInputStream;
+
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.StringReader;
 import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Optional;
+import java.util.Set;
 import java.util.TimeZone;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 
 public class ResultSetJsonMapper {
 
     public static final String ATTRIBUTES = "_attributes";
 
+    private static final String DELTA_VERSION = "version";
+    private static final String DELTA_REMOVED = "removed";
+    private static final String DELTA_INSERTED = "inserted";
+    private static final String DELTA_CHANGED = "changed";
+
+    private static final JsonFactory READ_FACTORY = JsonFactory.builder()
+	    .enable(JsonReadFeature.ALLOW_UNESCAPED_CONTROL_CHARS).build();
+    private static final ObjectMapper MAPPER = new ObjectMapper(READ_FACTORY);
+    private static final JsonFactory WRITE_FACTORY = createJsonFactory();
+
+    private static final int MIN_CHUNK_SIZE = 1000;
+
     private ResultSetJsonMapper() {
     }
 
     /**
-     * Returns a ResultSet object created by processing the given JSON String.
+     * Returns a ResultSet object created by processing the given JSON String.<br>
+     * <br>
+     * Malformed JSON raises a {@link JsonParseException}. Unlike the former Gson
+     * based parser, content after the JSON array is rejected and control
+     * characters below chr(32) are accepted unescaped within strings.
      * 
      * @param js The JSON String used to create the ResultSet object.
      * 
@@ -46,13 +90,220 @@ public class ResultSetJsonMapper {
      *                            string to a DataRow.
      */
     public static ResultSet fromJson(final String js) throws JsonParseException, IOException, ParseException {
-	String cleanString = js.trim();
+	return fromJson(new StringReader(js.trim()));
+    }
+
+    /**
+     * Returns a ResultSet object created by reading a JSON array from the given
+     * Reader. The rows are parsed one after the other, the input is never held in
+     * memory as a whole.
+     * 
+     * @param reader The Reader providing the JSON array, it is not closed.
+     * 
+     * @return The ResultSet object created from the values provided in the JSON.
+     * @throws ParseException
+     * @throws IOException
+     */
+    public static ResultSet fromJson(final Reader reader) throws IOException, ParseException {
+	try (JsonParser parser = READ_FACTORY.createParser(reader)) {
+	    return fromJson(parser);
+	}
+    }
+
+    /**
+     * Returns a ResultSet object created by reading a JSON array from the given
+     * InputStream. The encoding (UTF-8, UTF-16 or UTF-32) is detected from the
+     * first bytes.
+     * 
+     * @param in The InputStream providing the JSON array, it is not closed.
+     * 
+     * @return The ResultSet object created from the values provided in the JSON.
+     * @throws ParseException
+     * @throws IOException
+     */
+    public static ResultSet fromJson(final InputStream in) throws IOException, ParseException {
+	try (JsonParser parser = READ_FACTORY.createParser(in)) {
+	    return fromJson(parser);
+	}
+    }
+
+    /**
+     * Returns a ResultSet object created by reading a JSON array from the
+     * remaining bytes of the given buffer, f.g. the payload of a websocket frame.
+     * Buffers backed by an array are parsed in place. The position of the buffer
+     * is not changed.
+     * 
+     * @param buffer The buffer holding the JSON array in UTF-8.
+     * 
+     * @return The ResultSet object created from the values provided in the JSON.
+     * @throws ParseException
+     * @throws IOException
+     */
+    public static ResultSet fromJson(final ByteBuffer buffer) throws IOException, ParseException {
+	try (JsonParser parser = createParser(buffer)) {
+	    return fromJson(parser);
+	}
+    }
+
+    /**
+     * Creates a parser for the remaining bytes of the buffer without copying them
+     * if the buffer is backed by an array.
+     */
+    static JsonParser createParser(ByteBuffer buffer) throws IOException {
+	if (buffer.hasArray()) {
+	    return READ_FACTORY.createParser(buffer.array(), buffer.arrayOffset() + buffer.position(),
+		    buffer.remaining());
+	}
+	return READ_FACTORY.createParser(new ByteBufferBackedInputStream(buffer.duplicate()));
+    }
+
+    private static ResultSet fromJson(JsonParser parser) throws IOException, ParseException {
 	ResultSet rs = new ResultSet();
+	DataRow metaRow = null;
+	DataRowJsonMapper.RowReader reader = null;
+	if (parser.nextToken() != JsonToken.START_ARRAY) {
+	    throw new JsonParseException(parser, "Expected a JSON array");
+	}
+	JsonToken token;
+	while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+	    if (token != JsonToken.START_OBJECT) {
+		throw new JsonParseException(parser, "Expected a JSON object");
+	    }
+	    Map<?, ?> row = MAPPER.readValue(parser, LinkedHashMap.class);
+	    // the first row contains the meta data, use it as template row.
+	    if (metaRow == null) {
+		metaRow = DataRowJsonMapper.fromJson(Collections.singletonList(row), null);
+		reader = DataRowJsonMapper.compileReader(metaRow);
+	    }
+	    rs.add(reader.read(row));
+	}
+	if (parser.nextToken() != null) {
+	    throw new JsonParseException(parser, "Unexpected content after the JSON array");
+	}
+	if (metaRow == null) {
+	    throw new ParseException("Meta data could not be parsed", 0);
+	}
+	return rs;
+    }
 
-	// Check if first row contains meta data. If so then use it as template row.
-	DataRow metaRow = DataRowJsonMapper.metaDataFromJson(cleanString);
-	splitJsonArray(cleanString, rowJson -> rs.add(DataRowJsonMapper.fromJson(rowJson, metaRow)));
+    /**
+     * Returns a ResultSet object for the JSON array in the given bytes, in which
+     * only the first row is created right away. The other rows are located in a
+     * single pass over the JSON, and each one is created from its part of the
+     * bytes when it is first accessed. Paging through a large JSON document,
+     * f.g., only creates the DataRows of the visited pages.<br>
+     * <br>
+     * The JSON syntax of all rows is checked while locating them, invalid field
+     * values only raise their exception when the row is created. The byte array
+     * is referenced by the ResultSet and must not be changed.<br>
+     * <br>
+     * The first row holds the meta data. A row with a field which no row before it
+     * has is created right away, so the columns of the ResultSet are complete when
+     * it is returned and lazily created rows never add a column.
+     * 
+     * @param json The JSON array in UTF-8.
+     * 
+     * @return The ResultSet object created from the values provided in the JSON.
+     * @throws ParseException
+     * @throws IOException
+     */
+    public static ResultSet fromJsonLazy(final byte[] json) throws IOException, ParseException {
+	ResultSet rs = new ResultSet();
+	DataRowJsonMapper.RowReader reader = null;
+	Set<String> fields = new HashSet<>(); // the fields of the rows created so far
+	int[] offsets = new int[64]; // start and end of each pending row
+	int count = 0;
+	try (JsonParser parser = READ_FACTORY.createParser(json)) {
+	    if (parser.nextToken() != JsonToken.START_ARRAY) {
+		throw new JsonParseException(parser, "Expected a JSON array");
+	    }
+	    JsonToken token;
+	    while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+		if (token != JsonToken.START_OBJECT) {
+		    throw new JsonParseException(parser, "Expected a JSON object");
+		}
+		if (reader == null) {
+		    // the first row contains the meta data, use it as template row.
+		    Map<?, ?> row = MAPPER.readValue(parser, LinkedHashMap.class);
+		    reader = DataRowJsonMapper.compileReader(DataRowJsonMapper.fromJson(Collections.singletonList(row), null));
+		    rs.add(reader.read(row));
+		    fields.addAll(rs.getColumnNames());
+		    continue;
+		}
+		int start = (int) parser.getTokenLocation().getByteOffset();
+		boolean known = true;
+		while (parser.nextToken() == JsonToken.FIELD_NAME) {
+		    known &= fields.contains(parser.getCurrentName());
+		    parser.nextToken();
+		    parser.skipChildren();
+		}
+		int end = (int) parser.getCurrentLocation().getByteOffset();
+		if (!known) {
+		    // the row adds columns, create it after the pending rows
+		    addLazy(rs, json, offsets, count, reader);
+		    offsets = new int[64];
+		    count = 0;
+		    rs.add(reader.read(MAPPER.readValue(json, start, end - start, LinkedHashMap.class)));
+		    fields.addAll(rs.getColumnNames());
+		    continue;
+		}
+		if (2 * count + 2 > offsets.length) {
+		    offsets = Arrays.copyOf(offsets, offsets.length * 2);
+		}
+		offsets[2 * count] = start;
+		offsets[2 * count + 1] = end;
+		count++;
+	    }
+	    if (parser.nextToken() != null) {
+		throw new JsonParseException(parser, "Unexpected content after the JSON array");
+	    }
+	}
+	if (reader == null) {
+	    throw new ParseException("Meta data could not be parsed", 0);
+	}
+	addLazy(rs, json, offsets, count, reader);
+	return rs;
+    }
+
+    /**
+     * Appends the pending rows, whose start and end are the first entries of the
+     * offsets, as lazily created rows. The offsets array must not be changed
+     * afterwards.
+     */
+    private static void addLazy(ResultSet rs, byte[] json, int[] offsets, int count,
+	    DataRowJsonMapper.RowReader reader) {
+	if (count > 0) {
+	    rs.addLazy(count, i -> readRow(json, offsets[2 * i], offsets[2 * i + 1], reader));
+	}
+    }
+
+    private static DataRow readRow(byte[] json, int start, int end, DataRowJsonMapper.RowReader reader) {
+	try {
+	    return reader.read(MAPPER.readValue(json, start, end - start, LinkedHashMap.class));
+	} catch (IOException | ParseException e) {
+	    throw new IllegalStateException("The DataRow at byte " + start + " could not be read", e);
+	}
+    }
 
+    /**
+     * Returns a ResultSet object created from an already parsed JSON array, as
+     * read by Jackson into Maps, Lists and simple values.
+     */
+    static ResultSet fromJson(final List<?> rows) throws IOException, ParseException {
+	if (rows.isEmpty()) {
+	    throw new ParseException("Meta data could not be parsed", 0);
+	}
+	ResultSet rs = new ResultSet();
+	DataRowJsonMapper.RowReader reader = null;
+	for (Object row : rows) {
+	    if (!(row instanceof Map)) {
+		throw new JsonParseException((JsonParser) null, "Expected a JSON object");
+	    }
+	    if (reader == null) {
+		reader = DataRowJsonMapper.compileReader(DataRowJsonMapper.fromJson(Collections.singletonList(row), null));
+	    }
+	    rs.add(reader.read((Map<?, ?>) row));
+	}
 	return rs;
     }
 
@@ -65,44 +316,320 @@ public class ResultSetJsonMapper {
     public static String toJson(ResultSet rs, boolean meta, String addIndexColumn, boolean f_trimStrings,
 	    boolean writeDataRowAttributes, ConversionRuleSet crs) throws IOException {
 
-	JsonFactory jf = new JsonFactory();
-	jf.setCharacterEscapes(new ComponentsCharacterEscapes());
 	StringWriter writer = new StringWriter();
-	try (JsonGenerator jsonGenerator = jf.createGenerator(writer)) {
-	    jsonGenerator.configure(JsonGenerator.Feature.WRITE_BIGDECIMAL_AS_PLAIN, true);
-	    // g.useDefaultPrettyPrinter();
+	toJson(rs, writer, meta, addIndexColumn, f_trimStrings, writeDataRowAttributes, crs);
+	return writer.toString();
+    }
 
-	    jsonGenerator.writeStartArray();
+    /**
+     * Writes the ResultSet as JSON array directly to the given Writer, without
+     * building the JSON String in memory.
+     * 
+     * @param rs                     The ResultSet to write.
+     * @param writer                 The Writer, it is flushed but not closed.
+     * @param meta                   Whether to write the meta data object.
+     * @param addIndexColumn         The name of the generated index column or
+     *                               {@code null}.
+     * @param f_trimStrings          Whether to trim String values.
+     * @param writeDataRowAttributes Whether to write the DataRow attributes.
+     * @param crs                    The ConversionRuleSet or {@code null}.
+     * @throws IOException
+     */
+    public static void toJson(ResultSet rs, Writer writer, boolean meta, String addIndexColumn,
+	    boolean f_trimStrings, boolean writeDataRowAttributes, ConversionRuleSet crs) throws IOException {
+	if (isParallel(rs)) {
+	    List<ForkJoinTask<byte[]>> chunks = encodeChunks(rs, meta, addIndexColumn, f_trimStrings,
+		    writeDataRowAttributes, crs);
+	    writer.write('[');
+	    for (int i = 0; i < chunks.size(); i++) {
+		byte[] chunk = joinChunk(chunks, i);
+		if (i > 0)
+		    writer.write(',');
+		writer.write(new String(chunk, 1, chunk.length - 2, StandardCharsets.UTF_8));
+	    }
+	    writer.write(']');
+	    writer.flush();
+	    return;
+	}
+	try (JsonGenerator jsonGenerator = WRITE_FACTORY.createGenerator(writer)) {
+	    writeResultSet(rs, jsonGenerator, meta, addIndexColumn, f_trimStrings, writeDataRowAttributes, crs);
+	}
+    }
 
-	    boolean metaDone = !meta;
+    /**
+     * Writes the ResultSet as UTF-8 encoded JSON array directly to the given
+     * OutputStream, without building the JSON String in memory.
+     * 
+     * @param rs                     The ResultSet to write.
+     * @param out                    The OutputStream, it is flushed but not
+     *                               closed.
+     * @param meta                   Whether to write the meta data object.
+     * @param addIndexColumn         The name of the generated index column or
+     *                               {@code null}.
+     * @param f_trimStrings          Whether to trim String values.
+     * @param writeDataRowAttributes Whether to write the DataRow attributes.
+     * @param crs                    The ConversionRuleSet or {@code null}.
+     * @throws IOException
+     */
+    public static void toJson(ResultSet rs, OutputStream out, boolean meta, String addIndexColumn,
+	    boolean f_trimStrings, boolean writeDataRowAttributes, ConversionRuleSet crs) throws IOException {
+	if (isParallel(rs)) {
+	    List<ForkJoinTask<byte[]>> chunks = encodeChunks(rs, meta, addIndexColumn, f_trimStrings,
+		    writeDataRowAttributes, crs);
+	    out.write('[');
+	    for (int i = 0; i < chunks.size(); i++) {
+		byte[] chunk = joinChunk(chunks, i);
+		if (i > 0)
+		    out.write(',');
+		out.write(chunk, 1, chunk.length - 2);
+	    }
+	    out.write(']');
+	    out.flush();
+	    return;
+	}
+	try (JsonGenerator jsonGenerator = WRITE_FACTORY.createGenerator(out, JsonEncoding.UTF8)) {
+	    writeResultSet(rs, jsonGenerator, meta, addIndexColumn, f_trimStrings, writeDataRowAttributes, crs);
+	}
+    }
 
+    /**
+     * Returns a JSON object with the changes of the ResultSet after the given
+     * version, see {@link ResultSet#toJsonDelta(long)}. The object contains the
+     * current version, the keys of the removed rows, the inserted rows keyed by
+     * their row key and the changed fields of the other rows, also keyed by their
+     * row key:
+     * 
+     * <pre>
+     * {"version":42,"removed":["k1"],"inserted":{"k7":{...}},"changed":{"k3":{"NAME":"..."}}}
+     * </pre>
+     * 
+     * @param rs           The ResultSet tracking its changes.
+     * @param sinceVersion The version stamp.
+     * @return the JSON String.
+     * @throws IOException
+     */
+    public static String toJsonDelta(ResultSet rs, long sinceVersion) throws IOException {
+	long version = rs.getVersion();
+	List<DataRow> inserted = rs.getInsertedRows(sinceVersion);
+	WriterPlan plan = new WriterPlan(false, null, true, false, rs.getConversionRuleSet());
+	StringWriter writer = new StringWriter();
+	try (JsonGenerator jsonGenerator = WRITE_FACTORY.createGenerator(writer)) {
+	    jsonGenerator.writeStartObject();
+	    jsonGenerator.writeNumberField(DELTA_VERSION, version);
+
+	    jsonGenerator.writeArrayFieldStart(DELTA_REMOVED);
+	    for (String rowKey : rs.getRemovedRowKeys(sinceVersion)) {
+		jsonGenerator.writeString(rowKey);
+	    }
+	    jsonGenerator.writeEndArray();
+
+	    jsonGenerator.writeObjectFieldStart(DELTA_INSERTED);
+	    for (DataRow dr : inserted) {
+		jsonGenerator.writeFieldName(dr.getRowKey());
+		writeDataRow(rs, dr, jsonGenerator, plan, true);
+	    }
+	    jsonGenerator.writeEndObject();
+
+	    Set<DataRow> insertedRows = Collections.newSetFromMap(new IdentityHashMap<>());
+	    insertedRows.addAll(inserted);
+	    jsonGenerator.writeObjectFieldStart(DELTA_CHANGED);
 	    for (DataRow dr : rs.getDataRows()) {
+		List<String> changed = dr.getChangedFields(sinceVersion);
+		if (changed.isEmpty() || insertedRows.contains(dr))
+		    continue;
+		jsonGenerator.writeFieldName(dr.getRowKey());
 		jsonGenerator.writeStartObject();
-
-		if (addIndexColumn != null) {
-		    jsonGenerator.writeStringField(addIndexColumn, dr.getRowKey());
+		for (ColumnPlan column : plan.columns(dr)) {
+		    if (changed.contains(column.name))
+			column.write(dr, jsonGenerator, plan);
 		}
+		jsonGenerator.writeEndObject();
+	    }
+	    jsonGenerator.writeEndObject();
+
+	    jsonGenerator.writeEndObject();
+	}
+	return writer.toString();
+    }
 
-		for (String fn : dr.getFieldNames()) {
-		    dataFieldToJson(dr.getField(fn, true, crs), fn, dr.getFieldType(fn, crs), meta, addIndexColumn,
-			    f_trimStrings, jsonGenerator);
+    /**
+     * Applies the changes written by {@link #toJsonDelta(ResultSet, long)} to the
+     * given ResultSet, see {@link ResultSet#applyDelta(String)}. The values are
+     * read with the column types of the ResultSet.
+     * 
+     * @param rs   The indexed ResultSet to change.
+     * @param json The JSON object with the changes.
+     * @return the version of the changes.
+     * @throws IOException
+     * @throws ParseException
+     */
+    public static long applyDelta(ResultSet rs, String json) throws IOException, ParseException {
+	Map<?, ?> delta = MAPPER.readValue(json, LinkedHashMap.class);
+
+	Object removed = delta.get(DELTA_REMOVED);
+	if (removed instanceof List) {
+	    List<String> rowKeys = new ArrayList<>();
+	    for (Object rowKey : (List<?>) removed) {
+		rowKeys.add(String.valueOf(rowKey));
+	    }
+	    rs.removeRowKeys(rowKeys);
+	}
 
-		} // while on fields
-		if (writeDataRowAttributes) {
-		    writeDataRowAttributes(dr.getAttributes(), jsonGenerator);
+	// a DataRow with empty fields, to read the values with the column types
+	DataRow template = new DataRow(rs);
+	for (String name : rs.getColumnNames()) {
+	    template.addDataField(name, template.getFieldType(name), new DataField(null));
+	}
+
+	Object inserted = delta.get(DELTA_INSERTED);
+	if (inserted instanceof Map) {
+	    for (Entry<?, ?> entry : ((Map<?, ?>) inserted).entrySet()) {
+		String rowKey = String.valueOf(entry.getKey());
+		DataRow dr = DataRowJsonMapper.fromJson(Collections.singletonList(entry.getValue()), template);
+		dr.setRowKey(rowKey);
+		int row = rs.indexOf(rowKey);
+		if (row >= 0)
+		    rs.set(row, dr);
+		else
+		    rs.add(dr);
+	    }
+	}
+
+	Object changed = delta.get(DELTA_CHANGED);
+	if (changed instanceof Map) {
+	    for (Entry<?, ?> entry : ((Map<?, ?>) changed).entrySet()) {
+		int row = rs.indexOf(String.valueOf(entry.getKey()));
+		if (row < 0 || !(entry.getValue() instanceof Map))
+		    continue;
+		Map<?, ?> fields = (Map<?, ?>) entry.getValue();
+		DataRow values = DataRowJsonMapper.fromJson(Collections.singletonList(fields), template);
+		DataRow dr = rs.get(row);
+		for (Object name : fields.keySet()) {
+		    DataField field = values.getField(String.valueOf(name), true);
+		    if (field != null)
+			dr.setFieldValue(String.valueOf(name), field.getValue());
 		}
-		if (meta) {
-		    metaDone = writeMeta(rs, addIndexColumn, jsonGenerator, metaDone, dr, crs);
+	    }
+	}
+
+	Object version = delta.get(DELTA_VERSION);
+	return version instanceof Number ? ((Number) version).longValue() : 0;
+    }
+
+    /**
+     * Returns whether the JSON of the ResultSet is encoded in parallel, see
+     * {@link ResultSet#setParallelThreshold(int)}. The rows are split into chunks
+     * which are encoded on the common fork-join pool and written in their
+     * original order, so the output is the same as the one written by a single
+     * thread.
+     */
+    private static boolean isParallel(ResultSet rs) {
+	return rs.size() >= ResultSet.getParallelThreshold() && ForkJoinPool.getCommonPoolParallelism() > 1;
+    }
+
+    /**
+     * Submits the encoding of the rows in chunks to the common fork-join pool.
+     * Each chunk is a complete JSON array, only the first one contains the meta
+     * data object.
+     */
+    private static List<ForkJoinTask<byte[]>> encodeChunks(ResultSet rs, boolean meta, String addIndexColumn,
+	    boolean f_trimStrings, boolean writeDataRowAttributes, ConversionRuleSet crs) {
+	List<DataRow> rows = rs.getDataRows();
+	int chunkSize = Math.max(MIN_CHUNK_SIZE, rows.size() / (ForkJoinPool.getCommonPoolParallelism() * 4));
+	List<ForkJoinTask<byte[]>> chunks = new ArrayList<>();
+	for (int from = 0; from < rows.size(); from += chunkSize) {
+	    List<DataRow> chunk = rows.subList(from, Math.min(from + chunkSize, rows.size()));
+	    boolean metaDone = !meta || from > 0;
+	    chunks.add(ForkJoinPool.commonPool().submit(() -> {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		WriterPlan plan = new WriterPlan(meta, addIndexColumn, f_trimStrings, writeDataRowAttributes, crs);
+		try (JsonGenerator jsonGenerator = WRITE_FACTORY.createGenerator(out, JsonEncoding.UTF8)) {
+		    jsonGenerator.writeStartArray();
+		    boolean done = metaDone;
+		    for (DataRow dr : chunk) {
+			done = writeDataRow(rs, dr, jsonGenerator, plan, done);
+		    }
+		    jsonGenerator.writeEndArray();
 		}
+		return out.toByteArray();
+	    }));
+	}
+	return chunks;
+    }
 
-		jsonGenerator.writeEndObject();
+    /**
+     * Waits for the chunk with the given index, the remaining chunks are
+     * cancelled if it failed.
+     */
+    private static byte[] joinChunk(List<ForkJoinTask<byte[]>> chunks, int index) throws IOException {
+	try {
+	    return chunks.get(index).get();
+	} catch (InterruptedException e) {
+	    chunks.forEach(chunk -> chunk.cancel(false));
+	    Thread.currentThread().interrupt();
+	    throw new InterruptedIOException();
+	} catch (ExecutionException e) {
+	    chunks.forEach(chunk -> chunk.cancel(false));
+	    Throwable cause = e.getCause();
+	    if (cause instanceof IOException)
+		throw (IOException) cause;
+	    if (cause instanceof RuntimeException)
+		throw (RuntimeException) cause;
+	    if (cause instanceof Error)
+		throw (Error) cause;
+	    throw new IOException(cause);
+	}
+    }
 
-	    } // while on rows
+    private static JsonFactory createJsonFactory() {
+	JsonFactory jf = new JsonFactory();
+	jf.setCharacterEscapes(new ComponentsCharacterEscapes());
+	jf.configure(JsonGenerator.Feature.AUTO_CLOSE_TARGET, false);
+	jf.configure(JsonGenerator.Feature.WRITE_BIGDECIMAL_AS_PLAIN, true);
+	return jf;
+    }
 
-	    jsonGenerator.writeEndArray();
+    private static void writeResultSet(ResultSet rs, JsonGenerator jsonGenerator, boolean meta,
+	    String addIndexColumn, boolean f_trimStrings, boolean writeDataRowAttributes, ConversionRuleSet crs)
+	    throws IOException {
+	writeResultSet(rs, jsonGenerator,
+		new WriterPlan(meta, addIndexColumn, f_trimStrings, writeDataRowAttributes, crs));
+    }
+
+    private static void writeResultSet(ResultSet rs, JsonGenerator jsonGenerator, WriterPlan plan)
+	    throws IOException {
+	jsonGenerator.writeStartArray();
+
+	boolean metaDone = !plan.meta;
+
+	for (DataRow dr : rs.getDataRows()) {
+	    metaDone = writeDataRow(rs, dr, jsonGenerator, plan, metaDone);
+	} // while on rows
+
+	jsonGenerator.writeEndArray();
+    }
+
+    private static boolean writeDataRow(ResultSet rs, DataRow dr, JsonGenerator jsonGenerator, WriterPlan plan,
+	    boolean metaDone) throws IOException {
+	jsonGenerator.writeStartObject();
+
+	if (plan.indexColumn != null) {
+	    plan.indexColumn.writeName(jsonGenerator);
+	    jsonGenerator.writeString(dr.getRowKey());
 	}
 
-	return writer.toString();
+	for (ColumnPlan column : plan.columns(dr)) {
+	    column.write(dr, jsonGenerator, plan);
+	} // while on fields
+	if (plan.writeDataRowAttributes) {
+	    writeDataRowAttributes(dr.getAttributes(), jsonGenerator);
+	}
+	if (plan.meta) {
+	    metaDone = writeMeta(rs, plan.addIndexColumn, jsonGenerator, metaDone, dr, plan.crs);
+	}
+
+	jsonGenerator.writeEndObject();
+	return metaDone;
     }
 
     private static void writeDataRowAttributes(HashMap<String, String> attributes, JsonGenerator jsonGenerator)
@@ -115,321 +642,370 @@ public class ResultSetJsonMapper {
 	jsonGenerator.writeEndObject();
     }
 
-    private static void dataFieldToJson(DataField value, String fieldName, int fieldType, boolean meta,
-	    String addIndexColumn, boolean f_trimStrings, JsonGenerator jsonGenerator) throws IOException {
-	if (value == null || value.getValue() == null) {
-	    jsonGenerator.writeNullField(fieldName);
-	    return;
+    /**
+     * The options of one toJson call together with the compiled columns of the
+     * rows written so far. The columns are compiled once per DataRow schema, the
+     * rows of a ResultSet usually share one schema, so every further row is
+     * written without looking up types, conversion rules or writers again.
+     */
+    private static final class WriterPlan {
+	private final boolean meta;
+	private final String addIndexColumn;
+	private final FieldName indexColumn;
+	private final boolean trimStrings;
+	private final boolean writeDataRowAttributes;
+	private final ConversionRuleSet crs;
+
+	private List<String> schema;
+	private ColumnPlan[] columns;
+	private WriterPlan nestedDataRowPlan;
+	private WriterPlan nestedResultSetPlan;
+
+	private WriterPlan(boolean meta, String addIndexColumn, boolean trimStrings, boolean writeDataRowAttributes,
+		ConversionRuleSet crs) {
+	    this.meta = meta;
+	    this.addIndexColumn = addIndexColumn;
+	    this.indexColumn = addIndexColumn == null ? null : new FieldName(addIndexColumn);
+	    this.trimStrings = trimStrings;
+	    this.writeDataRowAttributes = writeDataRowAttributes;
+	    this.crs = crs;
 	}
 
-	switch (fieldType) {
+	private ColumnPlan[] columns(DataRow dr) {
+	    List<String> fieldNames = dr.getFieldNamesView();
+	    if (fieldNames != schema || columns.length != fieldNames.size()) {
+		columns = new ColumnPlan[fieldNames.size()];
+		for (int column = 0; column < columns.length; column++) {
+		    String name = fieldNames.get(column);
+		    IConversionRule rule = crs == null ? null : crs.get(name);
+		    int fieldType = rule == null ? dr.getFieldType(column) : rule.getTargetFieldType();
+		    columns[column] = new ColumnPlan(name, rule, fieldType);
+		}
+		schema = fieldNames;
+	    }
+	    return columns;
+	}
 
-	// an ArrayList
-	case -973:
-	    try {
+	private WriterPlan nestedDataRowPlan() {
+	    if (nestedDataRowPlan == null)
+		nestedDataRowPlan = new WriterPlan(meta, null, true, false, null);
+	    return nestedDataRowPlan;
+	}
 
-		jsonGenerator.writeArrayFieldStart(fieldName);
-		List l = (List) value.getObject();
-		Iterator it = l.iterator();
-		while (it.hasNext())
-		    jsonGenerator.writeObject(it.next());
-		jsonGenerator.writeEndArray();
-	    } catch (Exception e) {
-		e.printStackTrace();
+	private WriterPlan nestedResultSetPlan(ConversionRuleSet nestedCrs) {
+	    if (nestedCrs != null)
+		return new WriterPlan(meta, addIndexColumn, true, false, nestedCrs);
+	    if (nestedResultSetPlan == null)
+		nestedResultSetPlan = new WriterPlan(meta, addIndexColumn, true, false, null);
+	    return nestedResultSetPlan;
+	}
+    }
+
+    /**
+     * A field name, pre-encoded if the name does not contain characters which
+     * have to be escaped.
+     */
+    private static class FieldName {
+	final String name;
+	private final SerializableString serializedName;
+
+	private FieldName(String name) {
+	    this.name = name;
+	    this.serializedName = isPlainAscii(name) ? new SerializedString(name) : null;
+	}
+
+	/**
+	 * Pre-encoded names bypass the {@link ComponentsCharacterEscapes}, so only
+	 * names which are not escaped anyway are pre-encoded.
+	 */
+	private static boolean isPlainAscii(String name) {
+	    if (name == null)
+		return false;
+	    for (int i = 0; i < name.length(); i++) {
+		char c = name.charAt(i);
+		if (c < 0x20 || c > 0x7e || c == '"' || c == '\\' || c == '<' || c == '>' || c == '&' || c == '\'')
+		    return false;
 	    }
-	    break;
+	    return true;
+	}
+
+	final void writeName(JsonGenerator jsonGenerator) throws IOException {
+	    if (serializedName != null)
+		jsonGenerator.writeFieldName(serializedName);
+	    else
+		jsonGenerator.writeFieldName(name);
+	}
+    }
+
+    private static final class ColumnPlan extends FieldName {
+	private final IConversionRule rule;
+	private final int fieldType;
+	private final ValueWriter writer;
+
+	private ColumnPlan(String name, IConversionRule rule, int fieldType) {
+	    super(name);
+	    this.rule = rule;
+	    this.fieldType = fieldType;
+	    this.writer = valueWriter(fieldType);
+	}
+
+	private void write(DataRow dr, JsonGenerator jsonGenerator, WriterPlan plan) throws IOException {
+	    DataField value = dr.getField(name, true);
+	    if (value != null && rule != null)
+		value = rule.deserialize(value, dr);
+
+	    if (value == null || value.getValue() == null) {
+		writeName(jsonGenerator);
+		jsonGenerator.writeNull();
+	    } else if (writer == null) {
+		// this is a noop - TODO
+		System.err.println("Resutset::toJson unknown column type: " + fieldType);
+	    } else {
+		writeName(jsonGenerator);
+		writer.write(jsonGenerator, value, plan);
+	    }
+	}
+    }
+
+    @FunctionalInterface
+    private interface ValueWriter {
+	void write(JsonGenerator jsonGenerator, DataField value, WriterPlan plan) throws IOException;
+    }
+
+    /**
+     * @param fieldType the column type.
+     * @return the writer for the values of the column type, {@code null} for
+     *         types which are not written.
+     */
+    private static ValueWriter valueWriter(int fieldType) {
+	switch (fieldType) {
+	// an ArrayList
+	case -973:
+	    return ResultSetJsonMapper::writeArrayList;
 	// a nested DataRow
 	case -974:
-	    DataRow drj = (DataRow) value.getObject();
-	    try {
-		jsonGenerator.writeFieldName(fieldName);
-		String jstr = drj.toJson(meta);
-		if (jstr.startsWith("[")) {
-		    jstr = jstr.substring(1, jstr.length() - 1);
-		}
-		jsonGenerator.writeRawValue(jstr);
-	    } catch (Exception e) {
-		e.printStackTrace();
-	    }
-	    break;
+	    return ResultSetJsonMapper::writeNestedDataRow;
 	// a nested ResultSet
 	case -975:
-	    ResultSet rs = (ResultSet) value.getObject();
-	    try {
-		jsonGenerator.writeFieldName(fieldName);
-		jsonGenerator.writeRawValue(rs.toJson(meta, addIndexColumn));
-	    } catch (Exception e) {
-		e.printStackTrace();
-	    }
-	    break;
+	    return ResultSetJsonMapper::writeNestedResultSet;
 	case java.sql.Types.CHAR:
 	case java.sql.Types.VARCHAR:
 	case java.sql.Types.NVARCHAR:
 	case java.sql.Types.NCHAR:
 	case java.sql.Types.LONGVARCHAR:
 	case java.sql.Types.LONGNVARCHAR:
-	    String tmp = value.getAttribute("StringFormat");
-	    if (tmp != null && tmp.equalsIgnoreCase("JSON")) {
-		jsonGenerator.writeFieldName(fieldName);
-		String s = value.getString().trim();
-		if (s.isEmpty()) {
-		    s = "{}";
-
-		}
-		jsonGenerator.writeRawValue(s);
-	    } else {
-		String s = value.getString();
-		if (f_trimStrings)
-		    s = s.trim();
-		jsonGenerator.writeStringField(fieldName, s);
-	    }
-	    break;
+	    return ResultSetJsonMapper::writeString;
 	case java.sql.Types.BIGINT:
-	    if (value.getLong() == null)
-		jsonGenerator.writeNumberField(fieldName, 0);
-	    else
-		jsonGenerator.writeNumberField(fieldName, value.getLong().longValue());
-	    break;
-
+	    return (jsonGenerator, value, plan) -> {
+		if (value.getLong() == null)
+		    jsonGenerator.writeNumber(0);
+		else
+		    jsonGenerator.writeNumber(value.getLong().longValue());
+	    };
 	case java.sql.Types.TINYINT:
 	case java.sql.Types.SMALLINT:
-	    if (value.getShort() == null)
-		jsonGenerator.writeNumberField(fieldName, 0);
-	    else
-		jsonGenerator.writeNumberField(fieldName, value.getShort().intValue());
-	    break;
-
+	    return (jsonGenerator, value, plan) -> {
+		if (value.getShort() == null)
+		    jsonGenerator.writeNumber(0);
+		else
+		    jsonGenerator.writeNumber(value.getShort().intValue());
+	    };
 	case java.sql.Types.INTEGER:
-	    if (value.getInt() == null)
-		jsonGenerator.writeNumberField(fieldName, 0);
-	    else
-		jsonGenerator.writeNumberField(fieldName, value.getInt().intValue());
-	    break;
-
+	    return (jsonGenerator, value, plan) -> {
+		if (value.getInt() == null)
+		    jsonGenerator.writeNumber(0);
+		else
+		    jsonGenerator.writeNumber(value.getInt().intValue());
+	    };
 	case java.sql.Types.NUMERIC:
-	    jsonGenerator.writeNumberField(fieldName, value.getBigDecimal().stripTrailingZeros());
-	    break;
-
+	    return (jsonGenerator, value, plan) -> jsonGenerator
+		    .writeNumber(value.getBigDecimal().stripTrailingZeros());
 	case java.sql.Types.DECIMAL:
-	    if (value.getBigDecimal() == null)
-		jsonGenerator.writeNumberField(fieldName, 0);
-	    else
-		jsonGenerator.writeNumberField(fieldName, value.getBigDecimal());
-	    break;
-
+	    return (jsonGenerator, value, plan) -> {
+		if (value.getBigDecimal() == null)
+		    jsonGenerator.writeNumber(0);
+		else
+		    jsonGenerator.writeNumber(value.getBigDecimal());
+	    };
 	case java.sql.Types.DOUBLE:
 	case java.sql.Types.FLOAT:
-	    if (value.getDouble() == null)
-		jsonGenerator.writeNumberField(fieldName, 0);
-	    else {
-		Double tmp_dbl = value.getDouble().doubleValue();
-		if (tmp_dbl < Long.MAX_VALUE && tmp_dbl % 1 == 0)
-		    jsonGenerator.writeNumberField(fieldName, tmp_dbl.longValue());
-		else
-		    jsonGenerator.writeNumberField(fieldName, tmp_dbl);
-	    }
-	    break;
-
+	    return ResultSetJsonMapper::writeDouble;
 	case java.sql.Types.REAL:
-	    if (value.getFloat() == null)
-		jsonGenerator.writeNumberField(fieldName, 0.0);
-	    else
-		jsonGenerator.writeNumberField(fieldName, value.getFloat().floatValue());
-	    break;
-
+	    return (jsonGenerator, value, plan) -> {
+		if (value.getFloat() == null)
+		    jsonGenerator.writeNumber(0.0);
+		else
+		    jsonGenerator.writeNumber(value.getFloat().floatValue());
+	    };
 	case java.sql.Types.BOOLEAN:
 	case java.sql.Types.BIT:
-	    if (value.getBoolean() == null)
-		jsonGenerator.writeStringField(fieldName, "");
-	    else
-		jsonGenerator.writeBooleanField(fieldName, value.getBoolean());
-	    break;
-
+	    return (jsonGenerator, value, plan) -> {
+		if (value.getBoolean() == null)
+		    jsonGenerator.writeString("");
+		else
+		    jsonGenerator.writeBoolean(value.getBoolean());
+	    };
 	case java.sql.Types.TIMESTAMP:
 	case java.sql.Types.TIMESTAMP_WITH_TIMEZONE:
 	case 11: // BASIS Timestamp
-	    if (value.getTimestamp() == null)
-		jsonGenerator.writeStringField(fieldName, "");
-	    else {
-
-		java.sql.Timestamp ts = value.getTimestamp();
-		String str_ts = ts.toString().replaceFirst(" ", "T");
-		if (str_ts.endsWith(".0"))
-			str_ts = str_ts.substring(0,str_ts.length()-2);
+	    return ResultSetJsonMapper::writeTimestamp;
+	case java.sql.Types.DATE:
+	case 9: // BASIS Date
+	    return ResultSetJsonMapper::writeDate;
+	case java.sql.Types.TIME:
+	case java.sql.Types.TIME_WITH_TIMEZONE:
+	    return ResultSetJsonMapper::writeTime;
+	default:
+	    // ARRAY, BINARY, BLOB, CLOB, ... are not written - TODO
+	    return null;
+	}// switch
+    }
 
-		// calculate the offset of the timezone
-		// TODO: finish according to
-		// https://github.com/BBj-Plugins/BBjGridExWidget/issues/38
-		// potentially externalize into a static utility method and add unit tests.
+    private static void writeArrayList(JsonGenerator jsonGenerator, DataField value, WriterPlan plan) {
+	try {
+	    jsonGenerator.writeStartArray();
+	    List l = (List) value.getObject();
+	    Iterator it = l.iterator();
+	    while (it.hasNext())
+		jsonGenerator.writeObject(it.next());
+	    jsonGenerator.writeEndArray();
+	} catch (Exception e) {
+	    e.printStackTrace();
+	}
+    }
 
-		TimeZone tz = TimeZone.getDefault();
+    private static void writeNestedDataRow(JsonGenerator jsonGenerator, DataField value, WriterPlan plan)
+	    throws IOException {
+	DataRow drj = (DataRow) value.getObject();
+	ResultSet wrapper = new ResultSet();
+	wrapper.add(drj);
+	WriterPlan nested = plan.nestedDataRowPlan();
+	writeDataRow(wrapper, drj, jsonGenerator, nested, !nested.meta);
+    }
 
-		int offset = tz.getRawOffset();
+    private static void writeNestedResultSet(JsonGenerator jsonGenerator, DataField value, WriterPlan plan)
+	    throws IOException {
+	ResultSet rs = (ResultSet) value.getObject();
+	if (plan.addIndexColumn != null) {
+	    try {
+		rs.createIndex();
+	    } catch (ParseException e) {
+		throw new IOException(e);
+	    }
+	}
+	writeResultSet(rs, jsonGenerator, plan.nestedResultSetPlan(rs.getConversionRuleSet()));
+    }
 
-		// add daylight saving time
-		if (tz.useDaylightTime() && tz.inDaylightTime(new Date(ts.getTime()))) {
-		    offset = offset + tz.getDSTSavings();
-		}
+    private static void writeString(JsonGenerator jsonGenerator, DataField value, WriterPlan plan)
+	    throws IOException {
+	String tmp = value.getAttribute("StringFormat");
+	if (tmp != null && tmp.equalsIgnoreCase("JSON")) {
+	    String s = value.getString().trim();
+	    if (s.isEmpty()) {
+		s = "{}";
 
-		int h = (offset / 3600000);
-		int m = Math.abs(offset) - Math.abs(h * 3600000);
+	    }
+	    jsonGenerator.writeRawValue(s);
+	} else {
+	    String s = value.getString();
+	    if (plan.trimStrings)
+		s = s.trim();
+	    jsonGenerator.writeString(s);
+	}
+    }
 
-		StringBuilder sb = new StringBuilder();
-		if (h >= 0)
-		    sb.append('+');
-		else {
-		    sb.append('-');
-		    h *= -1;
-		}
+    private static void writeDouble(JsonGenerator jsonGenerator, DataField value, WriterPlan plan)
+	    throws IOException {
+	if (value.getDouble() == null)
+	    jsonGenerator.writeNumber(0);
+	else {
+	    Double tmp_dbl = value.getDouble().doubleValue();
+	    if (tmp_dbl < Long.MAX_VALUE && tmp_dbl % 1 == 0)
+		jsonGenerator.writeNumber(tmp_dbl.longValue());
+	    else
+		jsonGenerator.writeNumber(tmp_dbl);
+	}
+    }
 
-		if (h < 10)
-		    sb.append('0');
-
-		sb.append(h);
-		sb.append(':');
-		if (m == 0)
-		    sb.append("00");
-		else {
-		    if (m < 10)
-			sb.append('0');
-		    sb.append(m);
-		}
-		
-		str_ts += sb.toString();
+    private static void writeTimestamp(JsonGenerator jsonGenerator, DataField value, WriterPlan plan)
+	    throws IOException {
+	if (value.getTimestamp() == null)
+	    jsonGenerator.writeString("");
+	else {
+	    java.sql.Timestamp ts = value.getTimestamp();
+	    String str_ts = ts.toString().replaceFirst(" ", "T");
+	    if (str_ts.endsWith(".0"))
+		str_ts = str_ts.substring(0, str_ts.length() - 2);
+	    jsonGenerator.writeString(str_ts + timezoneOffset(new Date(ts.getTime())));
+	}
+    }
 
-		// -------------end timezone handling -------------------
-		jsonGenerator.writeStringField(fieldName, str_ts);
-	    }
-	    break;
+    private static void writeDate(JsonGenerator jsonGenerator, DataField value, WriterPlan plan)
+	    throws IOException {
+	if (value.getDate() == null)
+	    jsonGenerator.writeString("");
+	else {
+	    // adding T00:00:00 for JavaScript to understand the correct order of day and
+	    // month
+	    // see https://github.com/BBj-Plugins/BBjGridExWidget/issues/89
+	    jsonGenerator.writeString(value.getDate().toString() + "T00:00:00" + timezoneOffset(value.getDate()));
+	}
+    }
 
-	case java.sql.Types.DATE:
-	case 9: // BASIS Date
-	    if (value.getDate() == null)
-		jsonGenerator.writeStringField(fieldName, "");
-	    else {
-	    	
-			// calculate the offset of the timezone
-			// TODO: finish according to
-			// https://github.com/BBj-Plugins/BBjGridExWidget/issues/38
-			// potentially externalize into a static utility method and add unit tests.
-
-			TimeZone tz = TimeZone.getDefault();
-
-			int offset = tz.getRawOffset();
-
-			// add daylight saving time
-			if (tz.useDaylightTime() && tz.inDaylightTime(value.getDate())) {
-			    offset = offset + tz.getDSTSavings();
-			}
+    private static void writeTime(JsonGenerator jsonGenerator, DataField value, WriterPlan plan)
+	    throws IOException {
+	if (value.getTime() == null)
+	    jsonGenerator.writeString("");
+	else {
+	    // times are written without daylight saving time
+	    jsonGenerator.writeString("1970-01-01T" + value.getTime().toString() + timezoneOffset(null));
+	}
+    }
 
-			int h = (offset / 3600000);
-			int m = Math.abs(offset) - Math.abs(h * 3600000);
+    /**
+     * Returns the offset of the default timezone formatted as {@code +hh:mm}.
+     * 
+     * TODO: finish according to
+     * https://github.com/BBj-Plugins/BBjGridExWidget/issues/38
+     * 
+     * @param date the date used to determine the daylight saving time, or
+     *             {@code null} to use the raw offset.
+     * @return the formatted offset.
+     */
+    private static String timezoneOffset(Date date) {
+	TimeZone tz = TimeZone.getDefault();
 
-			StringBuilder sb = new StringBuilder();
-			if (h >= 0)
-			    sb.append('+');
-			else {
-			    sb.append('-');
-			    h *= -1;
-			}
+	int offset = tz.getRawOffset();
 
-			if (h < 10)
-			    sb.append('0');
-
-			sb.append(h);
-			sb.append(':');
-			if (m == 0)
-			    sb.append("00");
-			else {
-			    if (m < 10)
-				sb.append('0');
-			    sb.append(m);
-			}
-			
-			// -------------end timezone handling -------------------
-			
-		jsonGenerator.writeStringField(fieldName, value.getDate().toString() + "T00:00:00"+sb.toString());
-		// adding T00:00:00 for JavaScript to understand the correct order of day and
-		// month
-		// see https://github.com/BBj-Plugins/BBjGridExWidget/issues/89
-	    }
-	    break;
+	// add daylight saving time
+	if (date != null && tz.useDaylightTime() && tz.inDaylightTime(date)) {
+	    offset = offset + tz.getDSTSavings();
+	}
 
-	case java.sql.Types.TIME:
-	case java.sql.Types.TIME_WITH_TIMEZONE:
-	    if (value.getTime() == null)
-		jsonGenerator.writeStringField(fieldName, "");
-	    else {
-	    	
-	    	// calculate the offset of the timezone
-	    				// TODO: finish according to
-	    				// https://github.com/BBj-Plugins/BBjGridExWidget/issues/38
-	    				// potentially externalize into a static utility method and add unit tests.
-
-	    				TimeZone tz = TimeZone.getDefault();
-
-	    				int offset = tz.getRawOffset();
-
-//	    				// add daylight saving time
-//	    				if (tz.useDaylightTime() && tz.inDaylightTime(value.getDate())) {
-//	    				    offset = offset + tz.getDSTSavings();
-//	    				}
-
-	    				int h = (offset / 3600000);
-	    				int m = Math.abs(offset) - Math.abs(h * 3600000);
-
-	    				StringBuilder sb = new StringBuilder();
-	    				if (h >= 0)
-	    				    sb.append('+');
-	    				else {
-	    				    sb.append('-');
-	    				    h *= -1;
-	    				}
-
-	    				if (h < 10)
-	    				    sb.append('0');
-
-	    				sb.append(h);
-	    				sb.append(':');
-	    				if (m == 0)
-	    				    sb.append("00");
-	    				else {
-	    				    if (m < 10)
-	    					sb.append('0');
-	    				    sb.append(m);
-	    				}
-	    				
-	    				// -------------end timezone handling -------------------	    	
-	    				
-		jsonGenerator.writeStringField(fieldName, "1970-01-01T" + value.getTime().toString() + sb.toString());
-	    }
-	    break;
-
-	case java.sql.Types.ARRAY:
-	case java.sql.Types.BINARY:
-	case java.sql.Types.BLOB:
-	case java.sql.Types.CLOB:
-	case java.sql.Types.DATALINK:
-
-	case java.sql.Types.DISTINCT:
-	case java.sql.Types.JAVA_OBJECT:
-	case java.sql.Types.LONGVARBINARY:
-	case java.sql.Types.NCLOB:
-	case java.sql.Types.NULL:
-	case java.sql.Types.OTHER:
-	case java.sql.Types.REF:
-	case java.sql.Types.REF_CURSOR:
-	case java.sql.Types.ROWID:
-	case java.sql.Types.SQLXML:
-	case java.sql.Types.STRUCT:
-	case java.sql.Types.VARBINARY:
+	int h = (offset / 3600000);
+	int m = Math.abs(offset) - Math.abs(h * 3600000);
 
-	default:
-	    // this is a noop - TODO
-	    System.err.println("Resutset::toJson unknown column type: " + fieldType);
-	    break;
+	StringBuilder sb = new StringBuilder();
+	if (h >= 0)
+	    sb.append('+');
+	else {
+	    sb.append('-');
+	    h *= -1;
+	}
 
-	}// switch
+	if (h < 10)
+	    sb.append('0');
+
+	sb.append(h);
+	sb.append(':');
+	if (m == 0)
+	    sb.append("00");
+	else {
+	    if (m < 10)
+		sb.append('0');
+	    sb.append(m);
+	}
+	return sb.toString();
     }
 
     private static boolean writeMeta(ResultSet resultSet, String indexColumn, JsonGenerator jsonGenerator,
@@ -533,55 +1109,4 @@ public class ResultSetJsonMapper {
 	}
 	return Optional.ofNullable(atr);
     }
-
-    private static void splitJsonArray(String json, SplitJsonCallback<String> callback)
-	    throws ParseException, IOException {
-	if (json.startsWith("[") && json.endsWith("]")) {
-	    json = json.substring(1, json.length() - 1);
-	}
-
-	// NOTE: To make sure the last element gets parsed
-	if (!json.endsWith(",")) {
-	    json = json + ",";
-	}
-
-	int braceCount = 0, objStartIndex = 0;
-
-	for (int currIndex = 0; currIndex < json.length(); currIndex++) {
-	    switch (json.charAt(currIndex)) {
-	    case ',':
-		if (braceCount == 0 && currIndex - 1 > objStartIndex) {
-		    callback.call(json.substring(objStartIndex, currIndex));
-		    objStartIndex = currIndex + 1;
-		}
-		break;
-//			case '(':
-// why round?				
-	    case '{':
-//	    case '[':
-// why square?	    	
-		braceCount++;
-
-		break;
-//			case ')':
-// why round?
-	    case '}':
-//	    case ']':
-// why square?	    	
-		braceCount--;
-
-		break;
-	    }
-	}
-
-	if (braceCount != 0) {
-
-	    throw new ParseException("Invalid JSON array", 0);
-	}
-    }
-
-    @FunctionalInterface
-    private interface SplitJsonCallback<T> {
-	void call(T t) throws IOException, ParseException;
-    }
 }
@@ -8,6 +8,7 @@ import com.fasterxml.jackson.core.io.SerializedString;
 
 public class ComponentsCharacterEscapes extends CharacterEscapes {
 	private static final long serialVersionUID = 1L;
+	private static final SerializableString[] ESCAPE_SEQUENCES = new SerializableString[Character.MAX_VALUE + 1];
 	private final int[] asciiEscapes;
 
 	public ComponentsCharacterEscapes() {
@@ -37,6 +38,19 @@ public class ComponentsCharacterEscapes extends CharacterEscapes {
 	// and this for others; we don't need anything special here
 	@Override
 	public SerializableString getEscapeSequence(int ch) {
+		// called for every character above 127, so each sequence is only built once
+		if (ch < 0 || ch >= ESCAPE_SEQUENCES.length) {
+			return createEscapeSequence(ch);
+		}
+		SerializableString esc = ESCAPE_SEQUENCES[ch];
+		if (esc == null) {
+			esc = createEscapeSequence(ch);
+			ESCAPE_SEQUENCES[ch] = esc;
+		}
+		return esc;
+	}
+
+	private static SerializableString createEscapeSequence(int ch) {
 		if (ch == 172) {
 			return new SerializedString("\\u20AC");
 		}
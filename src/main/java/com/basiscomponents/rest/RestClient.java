@@ -1,7 +1,6 @@
 package com.basiscomponents.rest;
 
-import java.io.BufferedReader;
-import java.io.InputStreamReader;
+import java.io.InputStream;
 import java.net.HttpURLConnection;
 import java.net.URL;
 import java.util.Base64;
@@ -50,17 +49,12 @@ public class RestClient {
 					+ conn.getResponseCode());
 		}
 
-		BufferedReader br = new BufferedReader(new InputStreamReader(
-			(conn.getInputStream())));
-		
-		StringBuilder sb = new StringBuilder();
-		String output;
-		while ((output = br.readLine()) != null) {
-			sb.append(output);
+		ResultSet rs;
+		try (InputStream in = conn.getInputStream()) {
+			rs = ResultSetJsonMapper.fromJson(in);
+		} finally {
+			conn.disconnect();
 		}
-
-		conn.disconnect();
-		ResultSet rs = ResultSetJsonMapper.fromJson(sb.toString());
 		
 		return rs;
 	}
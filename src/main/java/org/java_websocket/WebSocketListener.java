@@ -100,6 +100,21 @@ public interface WebSocketListener {
 	 */
 	void onWebsocketMessage( WebSocket conn, String message );
 
+	/**
+	 * Called when an entire text frame has been received, before its payload is
+	 * decoded into a String. Allows to parse the UTF-8 bytes directly.
+	 * 
+	 * @param conn
+	 *            The <tt>WebSocket</tt> instance this event is occurring on.
+	 * @param payload
+	 *            The valid UTF-8 payload of the message.
+	 * @return true if the message was handled, in which case
+	 *         {@link #onWebsocketMessage(WebSocket, String)} is not called.
+	 */
+	default boolean onWebsocketTextPayload( WebSocket conn, ByteBuffer payload ) {
+		return false;
+	}
+
 	/**
 	 * Called when an entire binary frame has been received. Do whatever you want
 	 * here...
@@ -27,6 +27,7 @@ package org.java_websocket.drafts;
 
 import org.java_websocket.WebSocket;
 import org.java_websocket.WebSocketImpl;
+import org.java_websocket.WebSocketListener;
 import org.java_websocket.exceptions.*;
 import org.java_websocket.extensions.*;
 import org.java_websocket.framing.*;
@@ -634,6 +635,26 @@ public class Draft_6455 extends Draft {
 		}
 	}
 
+	/**
+	 * Passes the payload of a text message to the listener, as bytes if the
+	 * listener handles them, otherwise decoded into a String. The payload is
+	 * checked for valid UTF-8 only once
+	 * @param webSocketImpl the websocket the message was received on
+	 * @param payload the payload of the message
+	 * @throws InvalidDataException if the payload is not valid UTF-8
+	 */
+	private void deliverText( WebSocketImpl webSocketImpl, ByteBuffer payload ) throws InvalidDataException {
+		WebSocketListener listener = webSocketImpl.getWebSocketListener();
+		if( !Charsetfunctions.isValidUTF8( payload ) ) {
+			// the decoder reports the error, or replaces the invalid bytes if configured to
+			listener.onWebsocketMessage( webSocketImpl, Charsetfunctions.stringUtf8( payload ) );
+			return;
+		}
+		if( listener.onWebsocketTextPayload( webSocketImpl, payload ) )
+			return;
+		listener.onWebsocketMessage( webSocketImpl, Charsetfunctions.stringValidUtf8( payload ) );
+	}
+
 	@Override
 	public void processFrame( WebSocketImpl webSocketImpl, Framedata frame ) throws InvalidDataException {
 		Framedata.Opcode curop = frame.getOpcode();
@@ -674,7 +695,7 @@ public class Draft_6455 extends Draft {
 					((FramedataImpl1) current_continuous_frame).setPayload( getPayloadFromByteBufferList() );
 					((FramedataImpl1) current_continuous_frame ).isValid();
 					try {
-						webSocketImpl.getWebSocketListener().onWebsocketMessage( webSocketImpl, Charsetfunctions.stringUtf8( current_continuous_frame.getPayloadData() ) );
+						deliverText( webSocketImpl, current_continuous_frame.getPayloadData() );
 					} catch ( RuntimeException e ) {
 						webSocketImpl.getWebSocketListener().onWebsocketError( webSocketImpl, e );
 					}
@@ -706,7 +727,7 @@ public class Draft_6455 extends Draft {
 			throw new InvalidDataException( CloseFrame.PROTOCOL_ERROR, "Continuous frame sequence not completed." );
 		} else if( curop == Framedata.Opcode.TEXT ) {
 			try {
-				webSocketImpl.getWebSocketListener().onWebsocketMessage( webSocketImpl, Charsetfunctions.stringUtf8( frame.getPayloadData() ) );
+				deliverText( webSocketImpl, frame.getPayloadData() );
 			} catch ( RuntimeException e ) {
 				webSocketImpl.getWebSocketListener().onWebsocketError( webSocketImpl, e );
 			}
@@ -34,6 +34,7 @@ import java.nio.charset.CharacterCodingException;
 import java.nio.charset.Charset;
 import java.nio.charset.CharsetDecoder;
 import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
 
 public class Charsetfunctions {
 
@@ -100,6 +101,20 @@ public class Charsetfunctions {
 		return s;
 	}
 
+	/**
+	 * Decodes bytes which were checked with {@link #isValidUTF8(ByteBuffer)}
+	 * already, without checking them again. The position of the buffer is not
+	 * changed.
+	 *
+	 * @param bytes the valid UTF-8 bytes
+	 * @return the decoded String
+	 */
+	public static String stringValidUtf8( ByteBuffer bytes ) {
+		if( bytes.hasArray() )
+			return new String( bytes.array(), bytes.arrayOffset() + bytes.position(), bytes.remaining(), StandardCharsets.UTF_8 );
+		return StandardCharsets.UTF_8.decode( bytes.duplicate() ).toString();
+	}
+
 	/**
 	 * Implementation of the "Flexible and Economical UTF-8 Decoder" algorithm
 	 * by Björn Höhrmann (http://bjoern.hoehrmann.de/utf-8/decoder/dfa/)
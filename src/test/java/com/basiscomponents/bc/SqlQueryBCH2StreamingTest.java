@@ -0,0 +1,126 @@
+package com.basiscomponents.bc;
+
+import static com.basiscomponents.constants.TestDataBaseConstants.CON_TO_FILTER_SCOPE_DB;
+import static com.basiscomponents.constants.TestDataBaseConstants.USERNAME_PASSWORD;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import com.basiscomponents.db.DataRow;
+import com.basiscomponents.db.ResultSet;
+
+public class SqlQueryBCH2StreamingTest {
+
+	private static Connection conToFilterScope;
+
+	/**
+	 * Loading the h2-Driver and creating the test databases.
+	 *
+	 * @throws InstantiationException
+	 * @throws IllegalAccessException
+	 * @throws ClassNotFoundException
+	 * @throws SQLException
+	 */
+	@BeforeAll
+	public static void initialize()
+			throws InstantiationException, IllegalAccessException, ClassNotFoundException, SQLException {
+		Class.forName("org.h2.Driver").newInstance();
+		H2DataBaseProvider.createTestDataBaseForFilteringScoping();
+		conToFilterScope = DriverManager.getConnection(CON_TO_FILTER_SCOPE_DB, USERNAME_PASSWORD, USERNAME_PASSWORD);
+	}
+
+	/**
+	 * The streamed records are the same as the ones of the ResultSet, in the same
+	 * order.
+	 *
+	 * @throws Exception
+	 */
+	@Test
+	public void sqlQueryBCStreamingTest() throws Exception {
+		SqlQueryBC queryBC = new SqlQueryBC(conToFilterScope);
+		queryBC.setFetchSize(2);
+		String sql = "SELECT NAME, CUSTOMERID FROM CUSTOMERS WHERE COUNTRY = ? ORDER BY CUSTOMERID";
+		List<Object> params = Arrays.asList("England");
+
+		List<DataRow> rows = new ArrayList<>();
+		queryBC.retrieve(sql, params, rows::add);
+
+		ResultSet rs = queryBC.retrieve(sql, params);
+		assertEquals(rs.size(), rows.size());
+		for (int i = 0; i < rows.size(); i++) {
+			assertEquals(rs.get(i).getFieldAsString("NAME"), rows.get(i).getFieldAsString("NAME"));
+			assertEquals(rs.get(i).getFieldAsNumber("CUSTOMERID"), rows.get(i).getFieldAsNumber("CUSTOMERID"));
+		}
+	}
+
+	/**
+	 * The field attributes which are set on the first record of a ResultSet are
+	 * column attributes shared by all streamed records.
+	 *
+	 * @throws Exception
+	 */
+	@Test
+	public void sqlQueryBCStreamingAttributesTest() throws Exception {
+		SqlQueryBC queryBC = new SqlQueryBC(conToFilterScope);
+		String sql = "SELECT NAME, CUSTOMERID FROM CUSTOMERS ORDER BY CUSTOMERID";
+
+		List<DataRow> rows = new ArrayList<>();
+		queryBC.retrieve(sql, null, rows::add);
+		DataRow first = queryBC.retrieve(sql, null).get(0);
+
+		assertFalse(rows.isEmpty());
+		for (DataRow dr : rows) {
+			for (String field : dr.getFieldNames()) {
+				String editable = first.getFieldAttribute(field, "EDITABLE");
+				assertFalse(editable.isEmpty());
+				assertEquals(editable, dr.getColumnAttribute(field, "EDITABLE"));
+				assertFalse(dr.getFieldAttributes(field).containsKey("EDITABLE"));
+			}
+		}
+	}
+
+	/**
+	 * An exception thrown by the consumer stops the query and is passed to the
+	 * caller as it is.
+	 *
+	 * @throws Exception
+	 */
+	@Test
+	public void sqlQueryBCStreamingConsumerExceptionTest() throws Exception {
+		SqlQueryBC queryBC = new SqlQueryBC(conToFilterScope);
+		IllegalStateException stop = new IllegalStateException("stop");
+		List<DataRow> rows = new ArrayList<>();
+
+		IllegalStateException thrown = assertThrows(IllegalStateException.class,
+				() -> queryBC.retrieve("SELECT NAME FROM CUSTOMERS", null, dr -> {
+					rows.add(dr);
+					throw stop;
+				}));
+		assertSame(stop, thrown);
+		assertEquals(1, rows.size());
+		assertFalse(conToFilterScope.isClosed());
+	}
+
+	/**
+	 * Cleans up the databases.
+	 *
+	 * @throws Exception
+	 */
+	@AfterAll
+	public static void cleanUp() throws Exception {
+		conToFilterScope.close();
+		H2DataBaseProvider.dropAllTestTables();
+	}
+}
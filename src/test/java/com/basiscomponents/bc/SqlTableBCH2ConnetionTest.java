@@ -4,17 +4,27 @@ import static com.basiscomponents.constants.TestDataBaseConstants.CON_TO_NORMAL_
 import static com.basiscomponents.constants.TestDataBaseConstants.CON_TO_SQL_RETRIEVE_DB;
 import static com.basiscomponents.constants.TestDataBaseConstants.USERNAME_PASSWORD;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.math.BigDecimal;
 import java.sql.Connection;
 import java.sql.DriverManager;
+import java.sql.PreparedStatement;
 import java.sql.SQLException;
 
 import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
 
+import com.basiscomponents.bc.util.CloseableWrapper;
+import com.basiscomponents.bc.util.SqlConnectionPool;
+import com.basiscomponents.bc.util.StatementCache;
+import com.basiscomponents.bc.util.TableMetaDataCache;
+import com.basiscomponents.bc.util.TableMetaDataCache.TableMetaData;
 import com.basiscomponents.constants.SpecialCharacterConstants;
 import com.basiscomponents.db.ResultSet;
 
@@ -60,6 +70,243 @@ public class SqlTableBCH2ConnetionTest {
 
 	}
 
+	/**
+	 * Creates a SqlTableBC with the driver constructor and connection pooling
+	 * enabled. After reading, the connection has to be back in the pool.
+	 * 
+	 * @throws Exception
+	 */
+	@Test
+	public void sqlTableBCConnectionPoolTest() throws Exception {
+		SqlTableBC sqlTable = new SqlTableBC("org.h2.Driver", CON_TO_NORMAL_RETRIEVE_DB, USERNAME_PASSWORD,
+				USERNAME_PASSWORD);
+		sqlTable.setConnectionPooling(true);
+		SqlConnectionPool pool = sqlTable.getConnectionPool();
+		try {
+			sqlTable.setTable("PRIMARYKEY_REGISTRATION");
+			rs = sqlTable.retrieve();
+			assertEquals("Alfred", rs.get(0).getFieldValue("FIRST"));
+			rs = sqlTable.retrieve();
+			assertEquals("Alfred", rs.get(0).getFieldValue("FIRST"));
+
+			assertEquals(0, pool.getActiveConnections());
+			assertEquals(1, pool.getIdleConnections());
+		} finally {
+			pool.close();
+		}
+	}
+
+	/**
+	 * Borrows all connections of a pool and checks that the next request times
+	 * out and is counted as a wait.
+	 * 
+	 * @throws Exception
+	 */
+	@Test
+	public void connectionPoolBoundedTest() throws Exception {
+		try (SqlConnectionPool pool = new SqlConnectionPool(CON_TO_NORMAL_RETRIEVE_DB, USERNAME_PASSWORD,
+				USERNAME_PASSWORD)) {
+			pool.setMaxPoolSize(1);
+			pool.setConnectionTimeout(50);
+			try (CloseableWrapper<Connection> connw = pool.getConnection()) {
+				assertEquals(1, pool.getActiveConnections());
+				assertThrows(SQLException.class, pool::getConnection);
+				assertEquals(1, pool.getWaitCount());
+			}
+			assertEquals(0, pool.getActiveConnections());
+			assertEquals(1, pool.getIdleConnections());
+
+			pool.setMaxIdleTime(1);
+			Thread.sleep(5);
+			pool.evictIdleConnections();
+			assertEquals(0, pool.getIdleConnections());
+		}
+	}
+
+	/**
+	 * Keeps a connection longer than the maximum idle time. It has to be reused
+	 * after it was returned, only unused connections expire.
+	 *
+	 * @throws Exception
+	 */
+	@Test
+	public void connectionPoolLongBorrowTest() throws Exception {
+		try (SqlConnectionPool pool = new SqlConnectionPool(CON_TO_NORMAL_RETRIEVE_DB, USERNAME_PASSWORD,
+				USERNAME_PASSWORD)) {
+			pool.setMaxIdleTime(20);
+			Connection first;
+			try (CloseableWrapper<Connection> connw = pool.getConnection()) {
+				first = connw.getCloseable();
+				Thread.sleep(40);
+			}
+			assertEquals(1, pool.getIdleConnections());
+			try (CloseableWrapper<Connection> connw = pool.getConnection()) {
+				assertSame(first, connw.getCloseable());
+			}
+		}
+	}
+
+	/**
+	 * The shared pools are separated by password, a caller with another password
+	 * must not get the connections of the first one.
+	 */
+	@Test
+	public void connectionPoolPerPasswordTest() {
+		try {
+			SqlConnectionPool pool = SqlConnectionPool.getPool(CON_TO_NORMAL_RETRIEVE_DB, USERNAME_PASSWORD,
+					USERNAME_PASSWORD);
+			assertSame(pool, SqlConnectionPool.getPool(CON_TO_NORMAL_RETRIEVE_DB, USERNAME_PASSWORD,
+					USERNAME_PASSWORD));
+			assertNotSame(pool, SqlConnectionPool.getPool(CON_TO_NORMAL_RETRIEVE_DB, USERNAME_PASSWORD, "wrong"));
+		} finally {
+			SqlConnectionPool.closeAll();
+		}
+	}
+
+	/**
+	 * The settings of a shared pool can't be changed, they would change the pool of
+	 * every other component. A private pool can be passed instead.
+	 *
+	 * @throws Exception
+	 */
+	@Test
+	public void connectionPoolSharedSettingsTest() throws Exception {
+		try {
+			SqlConnectionPool shared = SqlConnectionPool.getPool(CON_TO_NORMAL_RETRIEVE_DB, USERNAME_PASSWORD,
+					USERNAME_PASSWORD);
+			assertTrue(shared.isShared());
+			assertThrows(IllegalStateException.class, () -> shared.setMaxPoolSize(1));
+			assertThrows(IllegalStateException.class, () -> shared.setConnectionTimeout(1));
+
+			SqlTableBC sqlTable = new SqlTableBC("org.h2.Driver", CON_TO_NORMAL_RETRIEVE_DB, USERNAME_PASSWORD,
+					USERNAME_PASSWORD);
+			try (SqlConnectionPool pool = new SqlConnectionPool(CON_TO_NORMAL_RETRIEVE_DB, USERNAME_PASSWORD,
+					USERNAME_PASSWORD)) {
+				pool.setMaxPoolSize(1);
+				sqlTable.setConnectionPool(pool);
+				sqlTable.setTable("PRIMARYKEY_REGISTRATION");
+				assertEquals("Alfred", sqlTable.retrieve().get(0).getFieldValue("FIRST"));
+				assertSame(pool, sqlTable.getConnectionPool());
+				assertEquals(1, pool.getIdleConnections());
+			}
+			assertThrows(IllegalStateException.class,
+					() -> new SqlTableBC(conToNormalRetrieve).setConnectionPool(shared));
+		} finally {
+			SqlConnectionPool.closeAll();
+		}
+	}
+
+	/**
+	 * Changes the settings of a borrowed connection. The next borrower has to get
+	 * the connection with the settings it had when it was opened.
+	 *
+	 * @throws Exception
+	 */
+	@Test
+	public void connectionPoolResetTest() throws Exception {
+		try (SqlConnectionPool pool = new SqlConnectionPool(CON_TO_NORMAL_RETRIEVE_DB, USERNAME_PASSWORD,
+				USERNAME_PASSWORD)) {
+			Connection first;
+			int isolation;
+			try (CloseableWrapper<Connection> connw = pool.getConnection()) {
+				first = connw.getCloseable();
+				isolation = first.getTransactionIsolation();
+				first.setAutoCommit(false);
+				first.setReadOnly(true);
+				first.setTransactionIsolation(Connection.TRANSACTION_SERIALIZABLE);
+			}
+			try (CloseableWrapper<Connection> connw = pool.getConnection()) {
+				assertSame(first, connw.getCloseable());
+				assertTrue(first.getAutoCommit());
+				assertFalse(first.isReadOnly());
+				assertEquals(isolation, first.getTransactionIsolation());
+			}
+		}
+	}
+
+	/**
+	 * Retrieves the same table twice with a SqlTableBC using a connection. The
+	 * second retrieve has to reuse the prepared statement of the first one.
+	 * 
+	 * @throws Exception
+	 */
+	@Test
+	public void sqlTableBCStatementCacheTest() throws Exception {
+		Connection con = DriverManager.getConnection(CON_TO_NORMAL_RETRIEVE_DB, USERNAME_PASSWORD, USERNAME_PASSWORD);
+		try {
+			SqlTableBC sqlTable = new SqlTableBC(con);
+			sqlTable.setTable("PRIMARYKEY_REGISTRATION");
+			rs = sqlTable.retrieve();
+			assertEquals(0, sqlTable.getStatementCacheHits());
+			assertEquals(1, sqlTable.getStatementCacheMisses());
+
+			rs = sqlTable.retrieve();
+			assertEquals(1, sqlTable.getStatementCacheHits());
+			assertEquals(1, sqlTable.getStatementCacheMisses());
+			assertEquals("Alfred", rs.get(0).getFieldValue("FIRST"));
+
+			// a second SqlTableBC on the connection has its own cache
+			SqlTableBC other = new SqlTableBC(con);
+			other.setTable("PRIMARYKEY_REGISTRATION");
+			other.retrieve();
+			assertEquals(0, other.getStatementCacheHits());
+			assertEquals(1, other.getStatementCacheMisses());
+			assertEquals(1, sqlTable.getStatementCacheHits());
+		} finally {
+			con.close();
+		}
+	}
+
+	/**
+	 * Changes the settings of a cached statement. The next user of the statement
+	 * has to get the settings of a new statement.
+	 *
+	 * @throws Exception
+	 */
+	@Test
+	public void statementCacheResetTest() throws Exception {
+		StatementCache cache = new StatementCache();
+		String sql = "SELECT * FROM PRIMARYKEY_REGISTRATION";
+		PreparedStatement first;
+		try (CloseableWrapper<PreparedStatement> prepw = cache.prepareStatement(conToNormalRetrieve, sql)) {
+			first = prepw.getCloseable();
+			first.setMaxRows(1);
+			first.setFetchSize(1);
+		}
+		try (CloseableWrapper<PreparedStatement> prepw = cache.prepareStatement(conToNormalRetrieve, sql)) {
+			assertSame(first, prepw.getCloseable());
+			assertEquals(0, first.getMaxRows());
+			try (java.sql.ResultSet rs = first.executeQuery()) {
+				int rows = 0;
+				while (rs.next())
+					rows++;
+				assertTrue(rows > 1);
+			}
+		}
+	}
+
+	/**
+	 * Reads the metadata of a table through the cache, checks that it is read
+	 * only once and read again after invalidation.
+	 * 
+	 * @throws Exception
+	 */
+	@Test
+	public void tableMetaDataCacheTest() throws Exception {
+		String key = CON_TO_NORMAL_RETRIEVE_DB;
+		TableMetaData tmd = TableMetaDataCache.get(key, "PRIMARYKEY_REGISTRATION", conToNormalRetrieve.getMetaData());
+		assertEquals(3, tmd.getColumnNames().size());
+		assertTrue(tmd.containsColumn("FIRST"));
+		assertTrue(tmd.getPrimaryKeys().contains("CUSTOMERID"));
+
+		// a cached table does not touch the database metadata
+		assertSame(tmd, TableMetaDataCache.get(key, "PRIMARYKEY_REGISTRATION", null));
+
+		TableMetaDataCache.invalidate(key, "PRIMARYKEY_REGISTRATION");
+		assertNotSame(tmd,
+				TableMetaDataCache.get(key, "PRIMARYKEY_REGISTRATION", conToNormalRetrieve.getMetaData()));
+	}
+
 	/**
 	 * Creates a SqlTableBC with a connection to a h2-DataBase. The active table is
 	 * switched to REGISTRATION and its values are queried with retrieve(0,0). The
@@ -9,6 +9,8 @@ import static org.junit.jupiter.api.Assertions.assertTrue;
 import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
 
 import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.BeforeAll;
@@ -194,6 +196,34 @@ public class SqlTableBCH2FilterTest {
 			assertEquals("Jasper", rs.get(1).getFieldValue("NAME"));
 	}
 
+	/**
+	 * The filter is applied the same way when the records are streamed to a
+	 * consumer instead of being collected in a ResultSet.
+	 * 
+	 * @throws Exception
+	 */
+	@Test
+	public void sqlTableBCFilterStreamingTest() throws Exception {
+
+			SqlTableBC tableBC = new SqlTableBC(conToFilterScope);
+			tableBC.setTable("CUSTOMERS");
+			tableBC.setFetchSize(2);
+
+			filter = new DataRow();
+			filter.addDataField("COUNTRY", new DataField("England"));
+			tableBC.setFilter(filter);
+
+			List<DataRow> rows = new ArrayList<>();
+			tableBC.retrieve(rows::add);
+			assertEquals(tableBC.retrieve().size(), rows.size());
+			for (DataRow dr : rows) {
+				assertEquals("England", dr.getFieldValue("COUNTRY"));
+				// the attributes record is shared through the columns
+				assertEquals("2", dr.getColumnAttribute("CUSTOMERID", "EDITABLE"));
+				assertEquals("1", dr.getColumnAttribute("NAME", "EDITABLE"));
+			}
+	}
+
 	/**
 	 * Cleans up the databases.
 	 * 
@@ -3,13 +3,17 @@ package com.basiscomponents.bc;
 import static com.basiscomponents.constants.TestDataBaseConstants.CON_TO_WRITE_REMOVE_DB;
 import static com.basiscomponents.constants.TestDataBaseConstants.USERNAME_PASSWORD;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.math.BigDecimal;
 import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
 
 import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.BeforeAll;
@@ -371,6 +375,43 @@ public class SqlTableBCH2WriteRemoveTest {
 			assertEquals(null, rs.get(2).getFieldValue("NAMESPACE"));
 	}
 
+	/**
+	 * Writes a DataRow into a table, adds a column to the table and writes a
+	 * DataRow with the new column. The value of the new column has to be written
+	 * although the columns of the table were cached before.
+	 * 
+	 * @throws Exception
+	 */
+	@Test
+	public void sqlTableBCWriteAddedColumnTest() throws Exception {
+		stmt.executeUpdate("CREATE TABLE IF NOT EXISTS PLANTS (name VARCHAR(50))");
+		SqlTableBC sqlTable = new SqlTableBC(conToWriteRemove);
+		sqlTable.setTable("PLANTS");
+		DataRow dr = new DataRow();
+		dr.setFieldValue("NAME", "Oak");
+		sqlTable.write(dr);
+
+		stmt.executeUpdate("ALTER TABLE PLANTS ADD COLUMN COLOR VARCHAR(50)");
+		dr = new DataRow();
+		dr.setFieldValue("NAME", "Rose");
+		dr.setFieldValue("COLOR", "red");
+		sqlTable.write(dr);
+
+		List<DataRow> rows = new ArrayList<>();
+		dr = new DataRow();
+		dr.setFieldValue("NAME", "Tulip");
+		dr.setFieldValue("COLOR", "yellow");
+		rows.add(dr);
+		sqlTable.writeAll(rows);
+
+		rs = sqlTable.retrieve();
+		assertEquals(3, rs.size());
+		assertNull(rs.get(0).getFieldValue("COLOR"));
+		assertEquals("red", rs.get(1).getFieldValue("COLOR"));
+		assertEquals("yellow", rs.get(2).getFieldValue("COLOR"));
+		stmt.executeUpdate("DROP TABLE PLANTS");
+	}
+
 	/**
 	 * Creates a SqlTableBC with a connection to a h2-DataBase. A ResultSet is
 	 * created with retrieve() and a DataRow is taken. The DataRow is filled with
@@ -411,6 +452,97 @@ public class SqlTableBCH2WriteRemoveTest {
 			assertEquals(dataRowCount + 1, rs.size());
 	}
 
+	/**
+	 * Creates a SqlTableBC with a connection to a h2-DataBase. Existing and new
+	 * DataRows with different fields are written with writeAll(). The existing
+	 * row is updated, the others are inserted and all rows are read again.
+	 * 
+	 * @throws Exception
+	 */
+	@Test
+	public void sqlTableBCWriteAllTest() throws Exception {
+		stmt.executeUpdate("CREATE TABLE BATCHREGISTRATION (id INTEGER, first VARCHAR(255), age INTEGER, PRIMARY KEY (id))");
+		stmt.executeUpdate("INSERT INTO BATCHREGISTRATION VALUES (1, 'Alfred', 62)");
+		try {
+			SqlTableBC sqlTable = new SqlTableBC(conToWriteRemove);
+			sqlTable.setTable("BATCHREGISTRATION");
+
+			List<DataRow> rows = new ArrayList<>();
+			for (int i = 1; i <= 3; i++) {
+				DataRow dr = new DataRow();
+				dr.setFieldValue("ID", i);
+				dr.setFieldValue("FIRST", "Name" + i);
+				dr.setFieldValue("AGE", 20 + i);
+				rows.add(dr);
+			}
+			DataRow dr = new DataRow();
+			dr.setFieldValue("ID", 4);
+			dr.setFieldValue("FIRST", "Name4");
+			rows.add(dr);
+
+			ResultSet written = sqlTable.writeAll(rows);
+			assertEquals(4, written.size());
+			assertNull(written.get(0).getAttribute("CREATED"));
+			assertEquals("TRUE", written.get(1).getAttribute("CREATED"));
+			assertEquals("TRUE", written.get(3).getAttribute("CREATED"));
+			// the rows were read again, so the row without AGE has it now
+			assertTrue(written.get(3).contains("AGE"));
+			assertEquals("Name4", written.get(3).getFieldValue("FIRST"));
+
+			rs = sqlTable.retrieve();
+			assertEquals(4, rs.size());
+			assertEquals("Name1", rs.get(0).getFieldValue("FIRST"));
+			assertEquals(21, rs.get(0).getFieldValue("AGE"));
+		} finally {
+			stmt.executeUpdate("DROP TABLE BATCHREGISTRATION");
+		}
+	}
+
+	/**
+	 * Writes new rows with writeAll() which use a primary key more than once. The
+	 * first row inserts the record, the later ones update it, and all of them are
+	 * read again, also with the CHAR key padded by the database.
+	 *
+	 * @throws Exception
+	 */
+	@Test
+	public void sqlTableBCWriteAllDuplicateKeysTest() throws Exception {
+		stmt.executeUpdate("CREATE TABLE BATCHCODES (code CHAR(5), amount DECIMAL(10,2), note VARCHAR(20), PRIMARY KEY (code))");
+		try {
+			SqlTableBC sqlTable = new SqlTableBC(conToWriteRemove);
+			sqlTable.setTable("BATCHCODES");
+
+			List<DataRow> rows = new ArrayList<>();
+			String[] codes = { "A", "B", "A", "C", "C" };
+			for (int i = 0; i < codes.length; i++) {
+				DataRow dr = new DataRow();
+				dr.setFieldValue("CODE", codes[i]);
+				if (i == 1)
+					dr.setFieldValue("NOTE", "note");
+				else
+					dr.setFieldValue("AMOUNT", new BigDecimal(i));
+				rows.add(dr);
+			}
+
+			ResultSet written = sqlTable.writeAll(rows);
+			assertEquals(5, written.size());
+			assertEquals("TRUE", written.get(0).getAttribute("CREATED"));
+			assertEquals("TRUE", written.get(1).getAttribute("CREATED"));
+			assertNull(written.get(2).getAttribute("CREATED"));
+			assertEquals("TRUE", written.get(3).getAttribute("CREATED"));
+			assertNull(written.get(4).getAttribute("CREATED"));
+			// read again, so the first row has the amount of the third one
+			assertEquals(0, new BigDecimal(2).compareTo((BigDecimal) written.get(0).getFieldValue("AMOUNT")));
+			assertEquals(0, new BigDecimal(4).compareTo((BigDecimal) written.get(3).getFieldValue("AMOUNT")));
+			assertTrue(written.get(1).contains("AMOUNT"));
+
+			rs = sqlTable.retrieve();
+			assertEquals(3, rs.size());
+		} finally {
+			stmt.executeUpdate("DROP TABLE BATCHCODES");
+		}
+	}
+
 	/**
 	 * Cleans up the databases.
 	 * 
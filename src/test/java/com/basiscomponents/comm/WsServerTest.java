@@ -0,0 +1,116 @@
+package com.basiscomponents.comm;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import org.java_websocket.WebSocketImpl;
+import org.java_websocket.drafts.Draft_6455;
+import org.java_websocket.exceptions.InvalidDataException;
+import org.java_websocket.framing.TextFrame;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import com.basiscomponents.db.DataRow;
+import com.basiscomponents.db.ResultSet;
+
+public class WsServerTest {
+
+	/**
+	 * The server starts its worker threads in the constructor, they are only
+	 * stopped by the server thread which is never started here.
+	 */
+	private static class TestServer extends WsServer {
+		TestServer() {
+			super(new InetSocketAddress(0));
+		}
+
+		void stopWorkers() {
+			decoders.forEach(Thread::interrupt);
+		}
+	}
+
+	private TestServer server;
+	private CrossEventDispatcher dispatcher;
+	private WebSocketImpl conn;
+	private Draft_6455 draft;
+
+	/**
+	 * Creates a server which is not started, the frames are passed to the draft
+	 * of a mocked connection.
+	 */
+	@BeforeEach
+	public void initialize() {
+		if (server != null)
+			server.stopWorkers();
+		server = new TestServer();
+		dispatcher = mock(CrossEventDispatcher.class);
+		server.setEventDispatcher(dispatcher);
+		conn = mock(WebSocketImpl.class);
+		when(conn.getWebSocketListener()).thenReturn(server);
+		when(conn.getResourceDescriptor()).thenReturn("/TAG?session=1");
+		draft = new Draft_6455();
+	}
+
+	@AfterEach
+	public void stopWorkers() {
+		server.stopWorkers();
+	}
+
+	private void receive(byte[] payload) throws InvalidDataException {
+		TextFrame frame = new TextFrame();
+		frame.setPayload(ByteBuffer.wrap(payload));
+		frame.setFin(true);
+		draft.processFrame(conn, frame);
+	}
+
+	private Object posted() throws Exception {
+		ArgumentCaptor<Object> payload = ArgumentCaptor.forClass(Object.class);
+		verify(dispatcher).postPriorityCustomEvent(eq("TAG"), payload.capture());
+		return payload.getValue();
+	}
+
+	@Test
+	public void testJsonIsPostedAsDataRowOrResultSet() throws Exception {
+		server.setDecodeJson(true);
+		receive("{\"NAME\":\"Müller\",\"AGE\":42}".getBytes(StandardCharsets.UTF_8));
+		Object message = posted();
+		assertTrue(message instanceof DataRow);
+		assertEquals("Müller", ((DataRow) message).getFieldAsString("NAME"));
+
+		initialize();
+		server.setDecodeJson(true);
+		receive("[{\"ID\":1},{\"ID\":2}]".getBytes(StandardCharsets.UTF_8));
+		message = posted();
+		assertTrue(message instanceof ResultSet);
+		assertEquals(2, ((ResultSet) message).size());
+	}
+
+	@Test
+	public void testOtherTextIsPostedAsString() throws Exception {
+		server.setDecodeJson(true);
+		receive("Grüße".getBytes(StandardCharsets.UTF_8));
+		verify(dispatcher).postPriorityCustomEvent("TAG", "Grüße");
+
+		initialize();
+		receive("{\"NAME\":\"Müller\"}".getBytes(StandardCharsets.UTF_8));
+		verify(dispatcher).postPriorityCustomEvent("TAG", "{\"NAME\":\"Müller\"}");
+	}
+
+	@Test
+	public void testInvalidUtf8IsRejected() {
+		server.setDecodeJson(true);
+		assertThrows(InvalidDataException.class, () -> receive(new byte[] { '{', (byte) 0xC3, '}' }));
+	}
+
+}
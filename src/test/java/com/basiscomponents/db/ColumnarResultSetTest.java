@@ -0,0 +1,63 @@
+package com.basiscomponents.db;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+
+public class ColumnarResultSetTest {
+
+	private ResultSet createResultSet() throws Exception {
+		ResultSet rs = new ResultSet();
+		String[] cities = { "Berlin", "Paris", "Berlin", "Rome", "Paris", "Berlin" };
+		for (int i = 0; i < cities.length; i++) {
+			DataRow dr = new DataRow();
+			dr.setFieldValue("ID", i);
+			dr.setFieldValue("CITY", cities[i]);
+			dr.setFieldValue("AMOUNT", i * 1.5);
+			dr.setFieldValue("ACTIVE", i % 2 == 0);
+			rs.add(dr);
+		}
+		return rs;
+	}
+
+	@Test
+	public void testAggregatesMatchResultSet() throws Exception {
+		ResultSet rs = createResultSet();
+		ColumnarResultSet crs = rs.toColumnar();
+
+		assertEquals(rs.size(), crs.size());
+		assertEquals(rs.sum("ID"), crs.sum("ID"));
+		assertEquals(rs.sum("AMOUNT"), crs.sum("AMOUNT"));
+		assertEquals(rs.min("AMOUNT"), crs.min("AMOUNT"));
+		assertEquals(rs.max("ID"), crs.max("ID"));
+		assertEquals(rs.avg("AMOUNT"), crs.avg("AMOUNT"));
+	}
+
+	@Test
+	public void testCountByGroup() throws Exception {
+		ResultSet rs = createResultSet();
+		DataRow expected = rs.countByGroup("CITY");
+		DataRow counts = rs.toColumnar().countByGroup("CITY");
+
+		assertEquals(expected.getFieldNames(), counts.getFieldNames());
+		assertEquals(3, counts.getFieldAsNumber("Berlin").intValue());
+		assertEquals(2, counts.getFieldAsNumber("Paris").intValue());
+		assertEquals(1, counts.getFieldAsNumber("Rome").intValue());
+	}
+
+	@Test
+	public void testAggregatesWithNulls() throws Exception {
+		ResultSet rs = createResultSet();
+		DataRow withNull = new DataRow();
+		withNull.setFieldValue("ID", 99);
+		rs.add(withNull);
+
+		// the missing fields of the last row are null values in the columns
+		ColumnarResultSet crs = rs.toColumnar();
+		assertEquals(Double.valueOf(22.5), crs.sum("AMOUNT"));
+		assertEquals(Double.valueOf(0.0), crs.min("AMOUNT"));
+		assertEquals(Double.valueOf(99.0), crs.max("ID"));
+		assertEquals(1, crs.countByGroup("CITY").getFieldAsNumber("").intValue());
+	}
+
+}
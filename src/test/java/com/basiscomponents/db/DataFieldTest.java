@@ -2,7 +2,9 @@ package com.basiscomponents.db;
 
 import org.junit.jupiter.api.Test;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class DataFieldTest {
@@ -21,4 +23,34 @@ public class DataFieldTest {
 		assertFalse(df.getBoolean());
 	}
 
+	@Test
+	public void testPrimitiveValues() {
+		assertEquals(42, new DataField(42).getIntValue());
+		assertEquals(42L, new DataField(42).getLongValue());
+		assertEquals(1.5, new DataField(1.5).getDoubleValue());
+		assertEquals(7.25, new DataField(new java.math.BigDecimal("7.25")).getDoubleValue());
+		assertEquals(3000000000L, new DataField(3000000000L).getLongValue());
+		assertEquals(1, new DataField(true).getIntValue());
+		assertTrue(new DataField(true).getBooleanValue());
+		assertTrue(new DataField(2).getBooleanValue());
+		assertFalse(new DataField("false").getBooleanValue());
+
+		DataField empty = new DataField(null);
+		assertTrue(empty.isNull());
+		assertEquals(0, empty.getIntValue());
+		assertEquals(0.0, empty.getDoubleValue());
+		assertFalse(empty.getBooleanValue());
+	}
+
+	@Test
+	public void testPrimitiveValuesOfStrings() {
+		assertEquals(42, new DataField(" 42 ").getIntValue());
+		assertEquals(3000000000L, new DataField("3000000000").getLongValue());
+		assertEquals(1.5, new DataField("1.5").getDoubleValue());
+		assertEquals(0, new DataField("").getIntValue());
+		assertThrows(IllegalStateException.class, () -> new DataField("abc").getDoubleValue());
+		assertThrows(IllegalStateException.class, () -> new DataField(new java.sql.Date(0)).getLongValue());
+		assertThrows(IllegalStateException.class, () -> new DataField(new java.sql.Date(0)).getBooleanValue());
+	}
+
 }
@@ -0,0 +1,85 @@
+package com.basiscomponents.db;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+public class DataRowMultifieldComparatorTest {
+
+	private static final String[] NAMES = { "Müller", "MÜLLER", "muller", "Straße", "STRASSE", "ÿ", "Ÿ", "µ", "Μ",
+			"𐐀", "𐐨", "", "abc", "ABD" };
+
+	private static ResultSet createResultSet(int size) throws Exception {
+		Random random = new Random(42);
+		ResultSet rs = new ResultSet();
+		for (int i = 0; i < size; i++) {
+			DataRow dr = new DataRow();
+			dr.setFieldValue("ID", i);
+			dr.setFieldValue("NAME", random.nextInt(10) == 0 ? null : NAMES[random.nextInt(NAMES.length)]);
+			dr.setFieldValue("AMOUNT", random.nextInt(10) == 0 ? null : random.nextInt(5) / 2.0);
+			dr.setFieldValue("PRICE", BigDecimal.valueOf(random.nextInt(4), 1));
+			dr.setFieldValue("CREATED", new Timestamp(1_600_000_000_000L + random.nextInt(3) * 1000L));
+			dr.setFieldValue("ACTIVE", random.nextBoolean());
+			rs.add(dr);
+		}
+		return rs;
+	}
+
+	private static void assertSameOrder(String orderBy) throws Exception {
+		ResultSet rs = createResultSet(500);
+		List<DataRow> expected = rs.getDataRows();
+		// List.sort only uses compare
+		expected.sort(new DataRowMultifieldComparator(orderBy));
+
+		assertEquals(ids(expected), ids(rs.orderBy(orderBy).getDataRows()), orderBy);
+	}
+
+	private static List<Integer> ids(List<DataRow> rows) {
+		List<Integer> ids = new ArrayList<>();
+		rows.forEach(dr -> ids.add(dr.getFieldAsNumber("ID").intValue()));
+		return ids;
+	}
+
+	@Test
+	public void testSortMatchesCompare() throws Exception {
+		assertSameOrder("NAME");
+		assertSameOrder("name desc");
+		assertSameOrder("AMOUNT DESC, NAME");
+		assertSameOrder("ACTIVE, PRICE DESC, CREATED,  ID   DESC");
+		assertSameOrder("CREATED, MISSING, AMOUNT");
+	}
+
+	@Test
+	public void testOrderByColumn() throws Exception {
+		ResultSet rs = createResultSet(100);
+		rs.orderByColumn("AMOUNT", "DESC");
+		for (int i = 1; i < rs.size(); i++) {
+			Object previous = rs.get(i - 1).getFieldValue("AMOUNT");
+			Object current = rs.get(i).getFieldValue("AMOUNT");
+			if (previous == null)
+				assertEquals(null, current);
+			else if (current != null)
+				assertEquals(true, (Double) previous >= (Double) current);
+		}
+		rs.orderByRowID();
+		rs.orderByColumn("ID", "ASC");
+		List<Integer> ids = ids(rs.getDataRows());
+		for (int i = 0; i < ids.size(); i++) {
+			assertEquals(i, ids.get(i).intValue());
+		}
+	}
+
+	@Test
+	public void testInvalidFieldList() {
+		assertThrows(Exception.class, () -> new DataRowMultifieldComparator("NAME UP"));
+		assertThrows(Exception.class, () -> new DataRowMultifieldComparator("NAME ASC DESC"));
+	}
+
+}
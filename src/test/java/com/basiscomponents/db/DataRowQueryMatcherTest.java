@@ -0,0 +1,110 @@
+package com.basiscomponents.db;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.security.InvalidAlgorithmParameterException;
+import java.sql.Date;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+public class DataRowQueryMatcherTest {
+
+	private ResultSet createResultSet() throws Exception {
+		ResultSet rs = new ResultSet();
+		String[] cities = { "Berlin", "Paris", "berlin", "Rome", "Paris ", "Bern" };
+		for (int i = 0; i < cities.length; i++) {
+			DataRow dr = new DataRow();
+			dr.setFieldValue("ID", i);
+			dr.setFieldValue("CITY", cities[i]);
+			dr.setFieldValue("AMOUNT", i * 1.5);
+			dr.setFieldValue("CREATED", Date.valueOf("2020-01-0" + (i + 1)));
+			rs.add(dr);
+		}
+		DataRow withNull = new DataRow();
+		withNull.setFieldValue("ID", 99);
+		rs.add(withNull);
+		return rs;
+	}
+
+	private List<Integer> ids(ResultSet rs) {
+		List<Integer> ids = new ArrayList<>();
+		for (DataRow dr : rs)
+			ids.add(dr.getFieldAsNumber("ID").intValue());
+		return ids;
+	}
+
+	@Test
+	public void testComparisons() throws Exception {
+		ResultSet rs = createResultSet();
+		assertEquals(List.of(0), ids(rs.filterBy("CITY='Berlin'")));
+		assertEquals(List.of(0, 2), ids(rs.filterBy("CITY = 'berlin'", false, false)));
+		assertEquals(List.of(1, 4), ids(rs.filterBy("CITY = 'Paris'", true, true)));
+		assertEquals(List.of(1, 2, 3, 4, 5), ids(rs.filterBy("CITY <> 'Berlin'")));
+		assertEquals(List.of(0, 1), ids(rs.filterBy("ID < 2")));
+		assertEquals(List.of(4, 5, 99), ids(rs.filterBy("ID >= 4")));
+		assertEquals(List.of(2), ids(rs.filterBy("AMOUNT = 3")));
+		assertEquals(List.of(4, 5), ids(rs.filterBy("CREATED > '2020-01-04'")));
+	}
+
+	@Test
+	public void testLikeInAndNull() throws Exception {
+		ResultSet rs = createResultSet();
+		assertEquals(List.of(0, 5), ids(rs.filterBy("CITY LIKE 'Ber%'")));
+		assertEquals(List.of(0, 2, 5), ids(rs.filterBy("CITY LIKE 'ber_%'", false, false)));
+		assertEquals(List.of(1, 2, 3, 4), ids(rs.filterBy("CITY NOT LIKE 'Ber%'")));
+		assertEquals(List.of(1, 3), ids(rs.filterBy("ID IN (1, 3, 7)")));
+		assertEquals(List.of(0, 2, 4, 5, 99), ids(rs.filterBy("ID NOT IN (1,3)")));
+		assertEquals(List.of(99), ids(rs.filterBy("CITY IS NULL")));
+		assertEquals(6, rs.filterBy("CITY IS NOT NULL").size());
+	}
+
+	@Test
+	public void testBooleanOperators() throws Exception {
+		ResultSet rs = createResultSet();
+		assertEquals(List.of(0, 1, 3), ids(rs.filterBy("CITY='Berlin' OR ID=1 OR ID=3")));
+		assertEquals(List.of(1), ids(rs.filterBy("CITY='Paris' AND ID<3")));
+		assertEquals(List.of(0, 1), ids(rs.filterBy("CITY='Berlin' OR CITY='Paris' AND ID<3")));
+		assertEquals(List.of(1), ids(rs.filterBy("(CITY='Berlin' OR CITY='Paris') AND ID>0 AND ID<3")));
+		assertEquals(List.of(2, 3, 5), ids(rs.filterBy("NOT (CITY='Berlin' OR CITY LIKE 'Paris%') AND ID<10")));
+		assertEquals(List.of(2, 3, 5), ids(rs.filterBy("!(CITY='Berlin' OR CITY LIKE 'Paris%') AND ID<10")));
+	}
+
+	@Test
+	public void testCompiledPredicate() throws Exception {
+		DataRow dr = new DataRow();
+		dr.setFieldValue("ISO639-1", "de");
+		dr.setFieldValue("NAME", "O'Neil");
+		assertTrue(DataRowQueryMatcher.matches("ISO639-1=de", dr));
+		assertTrue(DataRowQueryMatcher.compile("NAME = 'O''Neil' AND ISO639-1 != 'en'", true, false).test(dr));
+		assertFalse(DataRowQueryMatcher.compile("NAME = 'o''neil'", true, false).test(dr));
+		assertTrue(DataRowQueryMatcher.compile("NAME = 'o''neil'", false, false).test(dr));
+	}
+
+	@Test
+	public void testEmbeddedApostrophes() throws Exception {
+		DataRow dr = new DataRow();
+		dr.setFieldValue("NAME", "O'Brien");
+		dr.setFieldValue("SIZE", "12\"");
+		assertTrue(DataRowQueryMatcher.matches("NAME=O'Brien", dr));
+		assertTrue(DataRowQueryMatcher.matches("NAME = O'Brien AND SIZE=12\"", dr));
+		assertFalse(DataRowQueryMatcher.matches("NAME=O'Neil", dr));
+		assertTrue(DataRowQueryMatcher.matches("NAME='O''Brien'", dr));
+	}
+
+	@Test
+	public void testInvalidStatements() throws Exception {
+		ResultSet rs = createResultSet();
+		assertThrows(InvalidAlgorithmParameterException.class, () -> rs.filterBy(""));
+		assertThrows(InvalidAlgorithmParameterException.class, () -> rs.filterBy("CITY = 'Berlin"));
+		assertThrows(InvalidAlgorithmParameterException.class, () -> rs.filterBy("(CITY = 'Berlin'"));
+		assertThrows(InvalidAlgorithmParameterException.class, () -> rs.filterBy("CITY 'Berlin'"));
+		assertThrows(InvalidAlgorithmParameterException.class, () -> rs.filterBy("ID = abc"));
+		assertThrows(InvalidAlgorithmParameterException.class, () -> rs.filterBy("CREATED = 'yesterday'"));
+	}
+
+}
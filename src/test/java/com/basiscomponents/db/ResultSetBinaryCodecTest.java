@@ -0,0 +1,144 @@
+package com.basiscomponents.db;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.InvalidClassException;
+import java.io.ObjectInputFilter;
+import java.io.ObjectOutputStream;
+import java.io.StreamCorruptedException;
+import java.math.BigDecimal;
+import java.net.URL;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+
+import com.basiscomponents.db.model.Attribute;
+import com.basiscomponents.db.util.ResultSetProvider;
+
+public class ResultSetBinaryCodecTest {
+
+	private static ResultSet roundTrip(ResultSet rs) throws Exception {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		rs.writeTo(out);
+		return ResultSet.readFrom(new ByteArrayInputStream(out.toByteArray()));
+	}
+
+	@Test
+	public void testRoundTripKeepsJson() throws Exception {
+		ResultSet rs = ResultSetProvider.createMultipleDataRowResultSet();
+		ResultSet copy = roundTrip(rs);
+		assertEquals(rs.size(), copy.size());
+		assertEquals(rs.getColumnNames(), copy.getColumnNames());
+		assertEquals(rs.toJson(true, null, false, true), copy.toJson(true, null, false, true));
+	}
+
+	@Test
+	public void testRoundTripNested() throws Exception {
+		ResultSet rs = ResultSetProvider.createNestedResultSetsWithMultipleDataRowsResultSet();
+		assertEquals(rs.toJson(), roundTrip(rs).toJson());
+		rs = ResultSetProvider.createNestedDataRowsResultSet();
+		assertEquals(rs.toJson(), roundTrip(rs).toJson());
+	}
+
+	@Test
+	public void testRoundTripValuesAndAttributes() throws Exception {
+		ResultSet rs = new ResultSet();
+		Timestamp ts = new Timestamp(1500000000123L);
+		ts.setNanos(123456789);
+		ArrayList<String> keys = new ArrayList<>();
+		keys.add("ID");
+		for (int i = 0; i < 3; i++) {
+			DataRow dr = new DataRow();
+			dr.setFieldValue("ID", i);
+			dr.setFieldValue("NAME", i == 1 ? null : "Name " + (i % 2));
+			dr.setFieldValue("AMOUNT", new BigDecimal("-12345678901234567890.25"));
+			dr.setFieldValue("TS", ts);
+			dr.setRowID(i);
+			dr.setAttribute("row", Integer.toString(i));
+			rs.add(dr);
+		}
+		rs.get(2).addDataField("ID", new DataField("mixed"));
+		rs.get(0).getField("NAME").setAttribute("EDITABLE", Attribute.createBoolean(true));
+		rs.setKeyColumns(keys);
+
+		ResultSet copy = roundTrip(rs);
+		assertEquals(keys, copy.getKeyColumns());
+		assertEquals(0, copy.get(0).getFieldAsNumber("ID").intValue());
+		assertEquals("mixed", copy.get(2).getFieldAsString("ID"));
+		assertNull(copy.get(1).getField("NAME").getValue());
+		assertEquals(new BigDecimal("-12345678901234567890.25"), copy.get(1).getField("AMOUNT").getValue());
+		assertEquals(ts, copy.get(2).getField("TS").getValue());
+		assertEquals(2, copy.get(2).getRowID());
+		assertEquals("2", copy.get(2).getAttribute("row"));
+		assertEquals("true", copy.get(0).getFieldAttribute("NAME", "EDITABLE"));
+		assertEquals(boolean.class, copy.get(0).getFieldAttributes2("NAME").get("EDITABLE").getType());
+	}
+
+	@Test
+	public void testSmallerThanSerialization() throws Exception {
+		ResultSet rs = new ResultSet();
+		for (int i = 0; i < 100; i++) {
+			DataRow dr = new DataRow(rs);
+			dr.setFieldValue("ID", i);
+			dr.setFieldValue("CITY", i % 2 == 0 ? "Berlin" : "Paris");
+			rs.add(dr);
+		}
+		ByteArrayOutputStream binary = new ByteArrayOutputStream();
+		rs.writeTo(binary);
+		ByteArrayOutputStream serialized = new ByteArrayOutputStream();
+		try (ObjectOutputStream oos = new ObjectOutputStream(serialized)) {
+			oos.writeObject(rs);
+		}
+		assertTrue(binary.size() * 10 < serialized.size());
+		assertEquals(rs.toJson(), roundTrip(rs).toJson());
+	}
+
+	@Test
+	public void testInvalidStream() {
+		assertThrows(StreamCorruptedException.class,
+				() -> ResultSet.readFrom(new ByteArrayInputStream(new byte[] { 'B', 'C', 'R', 'X', 1 })));
+		assertThrows(StreamCorruptedException.class,
+				() -> ResultSet.readFrom(new ByteArrayInputStream(new byte[] { 'B', 'C', 'R', 'S', 99 })));
+	}
+
+	@Test
+	public void testSerializedValuesAreFiltered() throws Exception {
+		UUID uuid = UUID.randomUUID();
+		ResultSet rs = new ResultSet();
+		DataRow dr = new DataRow();
+		dr.addDataField("UUID", new DataField(uuid));
+		rs.add(dr);
+		assertEquals(uuid, roundTrip(rs).get(0).getFieldValue("UUID"));
+
+		dr.addDataField("URL", new DataField(new URL("http://localhost/")));
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		rs.writeTo(out);
+		byte[] bytes = out.toByteArray();
+		assertThrows(InvalidClassException.class, () -> ResultSet.readFrom(new ByteArrayInputStream(bytes)));
+		assertThrows(InvalidClassException.class, () -> ResultSet.readFrom(new ByteArrayInputStream(bytes), null));
+		ObjectInputFilter filter = ObjectInputFilter.Config.createFilter("java.util.*;java.net.*;java.lang.*;!*");
+		ResultSet copy = ResultSet.readFrom(new ByteArrayInputStream(bytes), filter);
+		assertEquals(new URL("http://localhost/"), copy.get(0).getFieldValue("URL"));
+	}
+
+	@Test
+	public void testCorruptedLengths() {
+		// a new schema with a negative column count
+		assertThrows(StreamCorruptedException.class, () -> ResultSet.readFrom(new ByteArrayInputStream(
+				new byte[] { 'B', 'C', 'R', 'S', 1, 0, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x0F })));
+		// a column count far beyond the end of the stream
+		assertThrows(EOFException.class, () -> ResultSet.readFrom(new ByteArrayInputStream(
+				new byte[] { 'B', 'C', 'R', 'S', 1, 0, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x07 })));
+		// a column name with a length far beyond the end of the stream
+		assertThrows(EOFException.class, () -> ResultSet.readFrom(new ByteArrayInputStream(
+				new byte[] { 'B', 'C', 'R', 'S', 1, 0, 1, 1, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x07, 'A' })));
+	}
+}
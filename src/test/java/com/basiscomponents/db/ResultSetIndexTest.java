@@ -0,0 +1,135 @@
+package com.basiscomponents.db;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+public class ResultSetIndexTest {
+
+	private static DataRow createRow(int id) throws Exception {
+		DataRow dr = new DataRow();
+		dr.setFieldValue("ID", id);
+		dr.setFieldValue("CUSTNO", "C" + (id % 7));
+		dr.setFieldValue("AMOUNT", (id * 37) % 100);
+		return dr;
+	}
+
+	private static ResultSet createResultSet() throws Exception {
+		ResultSet rs = new ResultSet();
+		for (int i = 0; i < 50; i++) {
+			rs.add(createRow(i));
+		}
+		return rs;
+	}
+
+	private static List<Integer> ids(ResultSet rs) {
+		List<Integer> ids = new ArrayList<>();
+		for (DataRow dr : rs)
+			ids.add(dr.getFieldAsNumber("ID").intValue());
+		return ids;
+	}
+
+	private static DataRow condition(String field, Object value) throws Exception {
+		DataRow dr = new DataRow();
+		dr.setFieldValue(field, value);
+		return dr;
+	}
+
+	private static void assertSameRows(ResultSet indexed, ResultSet plain) throws Exception {
+		for (int c = 0; c < 8; c++) {
+			DataRow cond = condition("CUSTNO", "C" + c);
+			assertEquals(ids(plain.filterBy(cond)), ids(indexed.filterBy(cond)));
+			assertEquals(ids(plain.filterBy("CUSTNO='C" + c + "' OR ID IN (3, 4)")),
+					ids(indexed.filterBy("CUSTNO='C" + c + "' OR ID IN (3, 4)")));
+			assertEquals(ids(plain.filterBy("CUSTNO IN ('C" + c + "', 'C1') AND ID > 10")),
+					ids(indexed.filterBy("CUSTNO IN ('C" + c + "', 'C1') AND ID > 10")));
+		}
+		for (String range : new String[] { "cond:<20", "cond:>=50", "cond:>10&<=30", "cond:<5|>95", "cond:37",
+				"cond:!37" }) {
+			DataRow cond = condition("AMOUNT", range);
+			assertEquals(ids(plain.filterBy(cond)), ids(indexed.filterBy(cond)), range);
+		}
+	}
+
+	@Test
+	public void testIndexedFilterBy() throws Exception {
+		ResultSet indexed = createResultSet();
+		indexed.createIndex("CUSTNO");
+		indexed.createIndex("AMOUNT", true);
+		ResultSet plain = createResultSet();
+
+		assertEquals(8, indexed.filterBy(condition("CUSTNO", "C0")).size());
+		assertSameRows(indexed, plain);
+	}
+
+	@Test
+	public void testIndexMaintenance() throws Exception {
+		ResultSet indexed = createResultSet();
+		indexed.createIndex("CUSTNO");
+		indexed.createIndex("AMOUNT", true);
+		ResultSet plain = createResultSet();
+
+		for (ResultSet rs : new ResultSet[] { indexed, plain }) {
+			rs.add(createRow(100));
+			rs.add(5, createRow(101));
+			rs.remove(0);
+			rs.remove(20);
+			rs.set(10, createRow(102));
+			rs.set(11, createRow(11));
+		}
+		assertSameRows(indexed, plain);
+
+		indexed.orderByColumn("AMOUNT", "DESC");
+		plain.orderByColumn("AMOUNT", "DESC");
+		assertSameRows(indexed, plain);
+
+		indexed.clear();
+		assertEquals(0, indexed.filterBy(condition("CUSTNO", "C1")).size());
+		indexed.add(createRow(1));
+		assertEquals(List.of(1), ids(indexed.filterBy(condition("CUSTNO", "C1"))));
+	}
+
+	@Test
+	public void testRebuildAfterChangedRows() throws Exception {
+		ResultSet rs = createResultSet();
+		rs.createIndex("CUSTNO");
+		rs.get(0).setFieldValue("CUSTNO", "X");
+		rs.remove(0);
+		assertEquals(7, rs.filterBy(condition("CUSTNO", "C0")).size());
+
+		rs.get(1).setFieldValue("CUSTNO", "X");
+		rs.createIndex("CUSTNO");
+		assertEquals(List.of(2), ids(rs.filterBy(condition("CUSTNO", "X"))));
+		rs.dropIndex("CUSTNO");
+		assertEquals(List.of(2), ids(rs.filterBy("CUSTNO = 'X'")));
+	}
+
+	@Test
+	public void testFieldChangesUpdateIndex() throws Exception {
+		ResultSet indexed = createResultSet();
+		indexed.createIndex("CUSTNO");
+		indexed.createIndex("AMOUNT", true);
+		ResultSet plain = createResultSet();
+		ResultSet c1 = indexed.filterBy(condition("CUSTNO", "C1"));
+		c1.createIndex("CUSTNO");
+
+		for (ResultSet rs : new ResultSet[] { indexed, plain }) {
+			rs.get(1).setFieldValue("CUSTNO", "C2");
+			rs.get(3).setFieldValue("AMOUNT", 99);
+			rs.get(10).setFieldValue("CUSTNO", "C7");
+		}
+		assertSameRows(indexed, plain);
+		// the DataRow is shared with the filtered ResultSet
+		assertEquals(List.of(1), ids(c1.filterBy(condition("CUSTNO", "C2"))));
+		assertEquals(6, c1.filterBy(condition("CUSTNO", "C1")).size());
+
+		indexed.dropIndex("CUSTNO");
+		indexed.dropIndex("AMOUNT");
+		indexed.get(5).setFieldValue("CUSTNO", "C2");
+		assertEquals(List.of(1, 2, 5, 9, 16, 23, 30, 37, 44), ids(indexed.filterBy(condition("CUSTNO", "C2"))));
+	}
+
+}
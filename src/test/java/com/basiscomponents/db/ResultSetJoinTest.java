@@ -0,0 +1,115 @@
+package com.basiscomponents.db;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+public class ResultSetJoinTest {
+
+	private static ResultSet customers() throws Exception {
+		ResultSet rs = new ResultSet();
+		String[][] rows = { { "1", "A", "Miller" }, { "2", "A", "Smith" }, { "1", "B", "Jones" }, { "3", "A", "Brown" } };
+		for (String[] row : rows) {
+			DataRow dr = new DataRow();
+			dr.setFieldValue("CUSTNO", Integer.parseInt(row[0]));
+			dr.setFieldValue("BRANCH", row[1]);
+			dr.setFieldValue("NAME", row[2]);
+			rs.add(dr);
+		}
+		return rs;
+	}
+
+	private static ResultSet orders(int... custnos) throws Exception {
+		ResultSet rs = new ResultSet();
+		int orderNo = 100;
+		for (int custno : custnos) {
+			DataRow dr = new DataRow();
+			dr.setFieldValue("ORDERNO", orderNo++);
+			dr.setFieldValue("CUSTNO", custno);
+			dr.setFieldValue("BRANCH", "A");
+			dr.setFieldValue("NAME", "order " + orderNo);
+			rs.add(dr);
+		}
+		return rs;
+	}
+
+	private static List<String> rows(ResultSet rs, String... fields) {
+		List<String> rows = new ArrayList<>();
+		for (DataRow dr : rs) {
+			StringBuilder sb = new StringBuilder();
+			for (String field : fields) {
+				DataField f = dr.getField(field, true);
+				sb.append(f == null || f.getObject() == null ? "-" : f.getString()).append(' ');
+			}
+			rows.add(sb.toString().trim());
+		}
+		return rows;
+	}
+
+	@Test
+	public void testMerge() throws Exception {
+		// fewer and more rows on the right side, to build on both sides
+		ResultSet[] orders = { orders(1, 4), orders(4, 1, 2, 2, 5, 6, 7) };
+		int[] expectedOrderNo = { 100, 101 };
+		for (int i = 0; i < orders.length; i++) {
+			ResultSet rs = customers();
+			rs.merge(orders[i], "CUSTNO", false);
+			assertEquals(expectedOrderNo[i], rs.get(0).getFieldAsNumber("ORDERNO").intValue());
+			assertEquals("Miller", rs.get(0).getFieldAsString("NAME"));
+			// only the first row with the key is merged
+			assertFalse(rs.get(2).contains("ORDERNO"));
+			assertFalse(rs.get(3).contains("ORDERNO"));
+		}
+
+		ResultSet rs = customers();
+		rs.merge(orders(2, 2), "CUSTNO", true);
+		// the second order overwrites the first one
+		assertEquals(101, rs.get(1).getFieldAsNumber("ORDERNO").intValue());
+		assertEquals("order 102", rs.get(1).getFieldAsString("NAME"));
+	}
+
+	@Test
+	public void testJoinTypes() throws Exception {
+		for (ResultSet orders : new ResultSet[] { orders(1, 4, 1), orders(1, 4, 1, 9, 9, 9, 9, 9) }) {
+			ResultSet inner = customers().join(orders, "CUSTNO", ResultSet.JOIN_INNER);
+			assertEquals(Arrays.asList("1 Miller 100", "1 Miller 102", "1 Jones 100", "1 Jones 102"),
+					rows(inner, "CUSTNO", "NAME", "ORDERNO"));
+
+			ResultSet left = customers().join(orders, "CUSTNO", ResultSet.JOIN_LEFT);
+			assertEquals(Arrays.asList("1 Miller 100", "1 Miller 102", "2 Smith -", "1 Jones 100", "1 Jones 102",
+					"3 Brown -"), rows(left, "CUSTNO", "NAME", "ORDERNO"));
+			assertEquals(4, left.getColumnCount());
+
+			ResultSet full = customers().join(orders, "CUSTNO", ResultSet.JOIN_FULL);
+			List<String> expected = new ArrayList<>(rows(left, "CUSTNO", "ORDERNO"));
+			for (int i = 0; i < orders.size(); i++) {
+				int custno = orders.get(i).getFieldAsNumber("CUSTNO").intValue();
+				if (custno != 1)
+					expected.add(custno + " " + (100 + i));
+			}
+			assertEquals(expected, rows(full, "CUSTNO", "ORDERNO"));
+		}
+	}
+
+	@Test
+	public void testJoinOnSeveralFields() throws Exception {
+		ResultSet orders = orders(1, 1, 3);
+		orders.get(1).setFieldValue("BRANCH", "B");
+
+		ResultSet joined = customers().join(orders, Arrays.asList("CUSTNO", "BRANCH"), ResultSet.JOIN_INNER, true);
+		assertEquals(Arrays.asList("1 A 100 order 101", "1 B 101 order 102", "3 A 102 order 103"),
+				rows(joined, "CUSTNO", "BRANCH", "ORDERNO", "NAME"));
+
+		// the joined rows are copies
+		joined.get(0).setFieldValue("NAME", "changed");
+		assertEquals("order 101", orders.get(0).getFieldAsString("NAME"));
+		assertThrows(IllegalArgumentException.class, () -> customers().join(orders, "CUSTNO", 5));
+	}
+
+}
@@ -0,0 +1,143 @@
+package com.basiscomponents.db;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+public class ResultSetParallelTest {
+
+	private static final String[] CITIES = { "Berlin", "berlin", "Hamburg", "München", "Köln", "" };
+
+	private final int threshold = ResultSet.getParallelThreshold();
+
+	@AfterEach
+	public void resetThreshold() {
+		ResultSet.setParallelThreshold(threshold);
+	}
+
+	private static ResultSet createResultSet(int size) throws Exception {
+		Random random = new Random(7);
+		ResultSet rs = new ResultSet();
+		for (int i = 0; i < size; i++) {
+			DataRow dr = new DataRow();
+			dr.setFieldValue("ID", i);
+			dr.setFieldValue("CITY", CITIES[random.nextInt(CITIES.length)]);
+			dr.setFieldValue("AMOUNT", random.nextInt(100) / 3.0);
+			dr.setFieldValue("PRICE", BigDecimal.valueOf(random.nextInt(50), 1));
+			rs.add(dr);
+		}
+		return rs;
+	}
+
+	private static List<Integer> ids(List<DataRow> rows) {
+		List<Integer> ids = new ArrayList<>();
+		rows.forEach(dr -> ids.add(dr.getFieldAsNumber("ID").intValue()));
+		return ids;
+	}
+
+	private static List<Object> results(ResultSet rs) throws Exception {
+		List<Object> results = new ArrayList<>();
+		results.add(ids(rs.filterBy("CITY LIKE 'B%' OR AMOUNT > 30", false, false).getDataRows()));
+		DataRow condition = new DataRow();
+		condition.setFieldValue("CITY", "Hamburg");
+		results.add(ids(rs.filterBy(condition).getDataRows()));
+		results.add(ids(rs.orderBy("CITY DESC, PRICE").getDataRows()));
+		results.add(ids(rs.orderBy("AMOUNT").getDataRows()));
+		results.add(rs.sum("AMOUNT"));
+		results.add(rs.min("PRICE"));
+		results.add(rs.max("AMOUNT"));
+		results.add(rs.avg("AMOUNT"));
+		results.add(rs.median("PRICE"));
+		return results;
+	}
+
+	@Test
+	public void testSameResultsAsSingleThread() throws Exception {
+		ResultSet rs = createResultSet(5000);
+		ResultSet.setParallelThreshold(Integer.MAX_VALUE);
+		List<Object> expected = results(rs);
+		ResultSet.setParallelThreshold(0);
+		assertEquals(expected, results(rs));
+	}
+
+	@Test
+	public void testParallelSortIsStable() throws Exception {
+		ResultSet rs = createResultSet(5000);
+		List<DataRow> expected = rs.getDataRows();
+		new DataRowMultifieldComparator("CITY").sort(expected, false);
+		List<DataRow> rows = rs.getDataRows();
+		new DataRowMultifieldComparator("CITY").sort(rows, true);
+		assertEquals(ids(expected), ids(rows));
+	}
+
+	@Test
+	public void testFirstFailureIsThrown() throws Exception {
+		List<DataRow> rows = createResultSet(5000).getDataRows();
+		Exception e = assertThrows(IllegalStateException.class, () -> ParallelRows.forEach(rows, (row, dr) -> {
+			if (row % 1500 == 1499)
+				throw new IllegalStateException("row " + row);
+		}));
+		assertEquals("row 1499", e.getMessage());
+	}
+
+	@Test
+	public void testLazyRowsAddColumnsWhileRead() throws Exception {
+		ResultSet rs = createResultSet(1);
+		rs.addLazy(2000, i -> {
+			DataRow dr = new DataRow();
+			try {
+				dr.setFieldValue("ID", i + 1);
+				dr.setFieldValue("EXTRA" + (i % 200), i);
+			} catch (Exception e) {
+				throw new IllegalStateException(e);
+			}
+			return dr;
+		});
+		AtomicInteger next = new AtomicInteger();
+		List<Throwable> failures = new ArrayList<>();
+		List<Thread> threads = new ArrayList<>();
+		for (int t = 0; t < 4; t++) {
+			Thread thread = new Thread(() -> {
+				try {
+					int row;
+					while ((row = next.getAndIncrement()) < rs.size()) {
+						rs.get(row);
+						for (String name : rs.getColumnNames()) {
+							int column = rs.getColumnIndex(name);
+							assertTrue(column >= 0);
+							assertEquals(name, rs.getColumnMetaData(name).get("ColumnName"));
+						}
+					}
+				} catch (Throwable e) {
+					synchronized (failures) {
+						failures.add(e);
+					}
+				}
+			});
+			threads.add(thread);
+			thread.start();
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		assertEquals(new ArrayList<>(), failures);
+		assertEquals(4 + 200, rs.getColumnNames().size());
+		assertEquals(rs.getColumnNames().size(), rs.getMetaData().size());
+		// rows are created in any order, every column is added once
+		for (int i = 0; i < 200; i++) {
+			int column = rs.getColumnIndex("EXTRA" + i);
+			assertEquals("EXTRA" + i, rs.getColumnName(column));
+			assertEquals(column, rs.getColumnNames().lastIndexOf("EXTRA" + i));
+		}
+	}
+
+}
@@ -164,4 +164,27 @@ public class ResultSetTest {
 		
 	}
 
+	@Test
+	public void testColumnIndex() throws Exception {
+		ResultSet rs = new ResultSet();
+		rs.setColumnType(rs.addColumn("A"), java.sql.Types.INTEGER);
+		rs.setColumnType(rs.addColumn("B"), java.sql.Types.INTEGER);
+		rs.setColumnType(rs.addColumn("C"), java.sql.Types.VARCHAR);
+		assertEquals(1, rs.getColumnIndex("B"));
+		assertEquals(-1, rs.getColumnIndex("D"));
+
+		rs.removeColumn("A");
+		assertEquals(0, rs.getColumnIndex("B"));
+		assertEquals(1, rs.getColumnIndex("C"));
+		assertEquals(-1, rs.getColumnIndex("A"));
+
+		rs.setColumnType(rs.addColumn("A"), java.sql.Types.INTEGER);
+		assertEquals(2, rs.getColumnIndex("A"));
+
+		DataRow dr = new DataRow(rs);
+		dr.setFieldValue("C", "value");
+		assertEquals("value", dr.getField(1).getString());
+		assertEquals(java.sql.Types.VARCHAR, dr.getFieldType(1));
+	}
+
 }
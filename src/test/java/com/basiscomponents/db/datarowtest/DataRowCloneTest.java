@@ -5,6 +5,10 @@ import com.basiscomponents.db.DataRow;
 import com.basiscomponents.db.ResultSet;
 import org.junit.jupiter.api.Test;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
 public class DataRowCloneTest {
 
 
@@ -26,4 +30,57 @@ public class DataRowCloneTest {
 
 	}
 
+	@Test
+	public void testCloneDoesNotShareFieldChanges() throws Exception {
+		DataRow dr = new DataRow();
+		dr.setFieldValue("NAME", "Duck");
+		dr.setFieldValue("AGE", 7);
+
+		DataRow clone = dr.clone();
+		clone.setFieldValue("FIRSTNAME", "Donald");
+		clone.removeField("AGE");
+
+		assertEquals(2, dr.getColumnCount());
+		assertFalse(dr.contains("FIRSTNAME"));
+		assertTrue(dr.contains("AGE"));
+		assertEquals(java.sql.Types.INTEGER, dr.getFieldType("AGE"));
+
+		dr.setFieldValue("ZIP", "12345");
+		assertFalse(clone.contains("ZIP"));
+		assertEquals("Donald", clone.getFieldAsString("FIRSTNAME"));
+	}
+
+	@Test
+	public void testRemoveFieldKeepsResultSetColumns() throws Exception {
+		ResultSet rs = new ResultSet();
+		DataRow dr = new DataRow();
+		dr.setFieldValue("NAME", "Duck");
+		dr.setFieldValue("AGE", 7);
+		rs.add(dr);
+
+		DataRow row = new DataRow(rs);
+		row.setFieldValue("NAME", "Mouse");
+		row.removeField("AGE");
+
+		assertFalse(row.contains("AGE"));
+		assertTrue(rs.getColumnNames().contains("AGE"));
+	}
+
+	@Test
+	public void testSetColumnAttributeKeepsSharedColumns() throws Exception {
+		ResultSet rs = new ResultSet();
+		DataRow dr = new DataRow();
+		dr.setFieldValue("NAME", "Duck");
+		rs.add(dr);
+
+		DataRow row = new DataRow(rs);
+		row.setFieldValue("NAME", "Mouse");
+		DataRow clone = row.clone();
+		row.setColumnAttribute("NAME", "LABEL", "Name");
+
+		assertEquals("Name", row.getColumnAttribute("NAME", "LABEL"));
+		assertEquals("", clone.getColumnAttribute("NAME", "LABEL"));
+		assertEquals("", rs.getAttribute("NAME", "LABEL"));
+	}
+
 }
@@ -1,6 +1,10 @@
 package com.basiscomponents.db.datarowtest;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.text.ParseException;
 
 import org.junit.jupiter.api.Test;
@@ -115,4 +119,26 @@ public class FromJsonTest {
 		ResultSet rs = ResultSet.fromJson(json);
 	}
 
+	@Test
+	public void testFromByteBuffer() throws Exception {
+		String[] jsons = { "{\"NAME\":\"Gr\u00fc\u00dfe\",\"N\":3,\"B\":true,\"meta\":{\"N\":{\"ColumnType\":\"4\"}}}",
+				"{\"datarow\":[{\"NAME\":\"x\"}]}", "[{\"NAME\":\"y\",\"L\":[1,2]}]" };
+		for (String json : jsons) {
+			byte[] bytes = (" " + json).getBytes(StandardCharsets.UTF_8);
+			ByteBuffer buffer = ByteBuffer.wrap(bytes, 1, bytes.length - 1).slice();
+			assertEquals(DataRow.fromJson(json).toJson(), DataRow.fromJson(buffer, null).toJson());
+			assertEquals(0, buffer.position());
+
+			ByteBuffer direct = ByteBuffer.allocateDirect(bytes.length);
+			direct.put(bytes).flip();
+			assertEquals(DataRow.fromJson(json).toJson(), DataRow.fromJson(direct, null).toJson());
+			assertEquals(0, direct.position());
+		}
+		assertEquals(0, DataRow.fromJson(ByteBuffer.allocate(0), null).getColumnCount());
+
+		String json = "[{\"CDNUMBER\":\"000001\",\"ONHAND\":55},{\"CDNUMBER\":\"000002\",\"ONHAND\":13}]";
+		ResultSet rs = ResultSet.fromJson(ByteBuffer.wrap(json.getBytes(StandardCharsets.UTF_8)));
+		assertEquals(ResultSet.fromJson(json).toJson(), rs.toJson());
+	}
+
 }
@@ -0,0 +1,115 @@
+package com.basiscomponents.db.resultSetJsonTest;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+
+import com.basiscomponents.db.DataRow;
+import com.basiscomponents.db.ResultSet;
+
+public class ResultSetDeltaTest {
+
+	private static ResultSet createResultSet() throws Exception {
+		ResultSet rs = new ResultSet();
+		for (int i = 0; i < 5; i++) {
+			DataRow dr = new DataRow();
+			dr.setFieldValue("ID", i);
+			dr.setFieldValue("NAME", "Name " + i);
+			dr.setFieldValue("AMOUNT", i * 1.5);
+			rs.add(dr);
+		}
+		rs.setKeyColumns(new ArrayList<>(Arrays.asList("ID")));
+		return rs;
+	}
+
+	@Test
+	public void testDeltaContainsOnlyChanges() throws Exception {
+		ResultSet rs = createResultSet();
+		rs.setChangeTracking(true);
+		long version = rs.getVersion();
+		assertEquals("{\"version\":" + version + ",\"removed\":[],\"inserted\":{},\"changed\":{}}",
+				rs.toJsonDelta(version));
+
+		rs.get(1).setFieldValue("NAME", "Changed");
+		rs.remove(3);
+		DataRow dr = new DataRow();
+		dr.setFieldValue("ID", 7);
+		dr.setFieldValue("NAME", "New");
+		dr.setFieldValue("AMOUNT", 2.5);
+		rs.add(dr);
+
+		String delta = rs.toJsonDelta(version);
+		assertTrue(delta.contains("\"removed\":[\"3\"]"));
+		assertTrue(delta.contains("\"inserted\":{\"7\":{\"ID\":7,\"NAME\":\"New\",\"AMOUNT\":2.5}}"));
+		assertTrue(delta.contains("\"changed\":{\"1\":{\"NAME\":\"Changed\"}}"));
+
+		long later = rs.getVersion();
+		rs.get(0).setFieldValue("AMOUNT", 9.5);
+		assertEquals("{\"version\":" + rs.getVersion()
+				+ ",\"removed\":[],\"inserted\":{},\"changed\":{\"0\":{\"AMOUNT\":9.5}}}", rs.toJsonDelta(later));
+	}
+
+	@Test
+	public void testApplyDelta() throws Exception {
+		ResultSet rs = createResultSet();
+		ResultSet copy = createResultSet();
+		rs.setChangeTracking(true);
+		long version = rs.getVersion();
+
+		rs.get(0).setFieldValue("NAME", null);
+		rs.get(2).setFieldValue("AMOUNT", 100.25);
+		rs.remove(4);
+		DataRow dr = new DataRow();
+		dr.setFieldValue("ID", 9);
+		dr.setFieldValue("NAME", "Inserted");
+		dr.setFieldValue("AMOUNT", 1.0);
+		rs.add(dr);
+
+		assertEquals(rs.getVersion(), copy.applyDelta(rs.toJsonDelta(version)));
+		assertEquals(rs.toJson(false), copy.toJson(false));
+	}
+
+	@Test
+	public void testApplyDeltaRemovesSeveralRows() throws Exception {
+		ResultSet rs = createResultSet();
+		ResultSet copy = createResultSet();
+		rs.setChangeTracking(true);
+		long version = rs.getVersion();
+		rs.remove(3);
+		rs.remove(1);
+		rs.remove(0);
+
+		copy.applyDelta(rs.toJsonDelta(version));
+		assertEquals(rs.toJson(false), copy.toJson(false));
+		assertEquals(1, copy.indexOf("4"));
+		assertEquals(0, copy.removeRowKeys(Arrays.asList("0", "99")));
+	}
+
+	@Test
+	public void testStopTrackingDiscardsFieldVersions() throws Exception {
+		ResultSet rs = createResultSet();
+		rs.setChangeTracking(true);
+		long version = rs.getVersion();
+		rs.get(1).setFieldValue("NAME", "Changed");
+		assertEquals(Arrays.asList("NAME"), rs.get(1).getChangedFields(version));
+
+		rs.setChangeTracking(false);
+		assertTrue(rs.get(1).getChangedFields(version).isEmpty());
+		rs.get(2).setFieldValue("NAME", "Untracked");
+		rs.setChangeTracking(true);
+		assertTrue(rs.get(2).getChangedFields(version).isEmpty());
+	}
+
+	@Test
+	public void testDeltaRequiresTracking() throws Exception {
+		ResultSet rs = createResultSet();
+		assertFalse(rs.isChangeTracking());
+		assertThrows(IllegalStateException.class, () -> rs.toJsonDelta(0));
+	}
+}
@@ -3,13 +3,17 @@ package com.basiscomponents.db.resultSetJsonTest;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.util.concurrent.atomic.AtomicInteger;
+
 import org.junit.jupiter.api.Test;
 
+import com.basiscomponents.db.DataRow;
 import com.basiscomponents.db.ResultSet;
-import com.google.gson.JsonSyntaxException;
+import com.fasterxml.jackson.core.JsonParseException;
 
 public class ResultSetFromJsonTest {
 
@@ -168,50 +172,50 @@ public class ResultSetFromJsonTest {
     }
 
     /**
-     * There is a \" missing after LANGUAGE, which should lead to a JsonSyntaxException
+     * There is a \" missing after LANGUAGE, which should lead to a JsonParseException
      *
      * @throws Exception
      */
     @Test
     public void wrongFormatFromJsonTest() throws Exception {
         String response = "[{\"LANGUAGE:\"ENG\",\"ISO639-1\":\"en\",\"meta\":{\"LANGUAGE\":{\"ColumnType\":\"12\"},\"ISO639-1\":{\"ColumnType\":\"12\"}}}]";
-        assertThrows(JsonSyntaxException.class,()->
+        assertThrows(JsonParseException.class,()->
          ResultSet.fromJson(response));
     }
 
     /**
-     * There is a { missing after LANGUAGE, which should lead to a JsonSyntaxException
+     * There is a { missing after LANGUAGE, which should lead to a JsonParseException
      *
      * @throws Exception
      */
     @Test
     public void wrongFormatFromJsonTest2() throws Exception {
         String response = "[\"LANGUAGE:\"ENG\",\"ISO639-1\":\"en\",\"meta\":{\"LANGUAGE\":{\"ColumnType\":\"12\"},\"ISO639-1\":{\"ColumnType\":\"12\"}}}]";
-        assertThrows(JsonSyntaxException.class, () ->
+        assertThrows(JsonParseException.class, () ->
                 ResultSet.fromJson(response));
     }
 
     /**
-     * There is a : missing after LANGUAGE, which should lead to a JsonSyntaxException
+     * There is a : missing after LANGUAGE, which should lead to a JsonParseException
      *
      * @throws Exception
      */
     @Test
     public void wrongFormatFromJsonTest3() throws Exception {
         String response = "[{\"LANGUAGE\"\"ENG\",\"ISO639-1\":\"en\",\"meta\":{\"LANGUAGE\":{\"ColumnType\":\"12\"},\"ISO639-1\":{\"ColumnType\":\"12\"}}}]";
-        assertThrows(JsonSyntaxException.class, () ->
+        assertThrows(JsonParseException.class, () ->
                 ResultSet.fromJson(response));
     }
 
     /**
-     * LANGUAGE has no value field, which should lead to a JsonSyntaxException
+     * LANGUAGE has no value field, which should lead to a JsonParseException
      *
      * @throws Exception
      */
     @Test
     public void wrongFormatFromJsonTest4() throws Exception {
         String response = "[{\"LANGUAGE\",\"ISO639-1\":\"en\",\"meta\":{\"LANGUAGE\":{\"ColumnType\":\"12\"},\"ISO639-1\":{\"ColumnType\":\"12\"}}}]";
-        assertThrows(JsonSyntaxException.class, () ->
+        assertThrows(JsonParseException.class, () ->
                 ResultSet.fromJson(response));
     }
 
@@ -226,4 +230,111 @@ public class ResultSetFromJsonTest {
         ResultSet rs = ResultSet.fromJson(response);
     }
 
+    /**
+     * Rows with the shape of the first row and rows with additional fields, a
+     * meta section or missing values are read with the same field types
+     *
+     * @throws Exception
+     */
+    @Test
+    public void mixedRowShapesFromJsonTest() throws Exception {
+        String response = "[{\"ID\":1,\"NAME\":\"one\",\"meta\":{\"ID\":{\"ColumnType\":\"4\"},\"NAME\":{\"ColumnType\":\"12\",\"LABEL\":\"Name\"}}},"
+                + "{\"ID\":2,\"NAME\":\"two\"},"
+                + "{\"ID\":3},"
+                + "{\"ID\":4,\"NAME\":\"four\",\"EXTRA\":true},"
+                + "{\"ID\":5,\"NAME\":\"five\",\"meta\":{\"NAME\":{\"LABEL\":\"Other\"}}}]";
+        ResultSet rs = ResultSet.fromJson(response);
+
+        assertEquals(5, rs.size());
+        for (int i = 0; i < rs.size(); i++) {
+            assertEquals(i + 1, rs.get(i).getFieldAsNumber("ID").intValue());
+            assertEquals(java.sql.Types.INTEGER, rs.get(i).getFieldType("ID"));
+            assertEquals(java.sql.Types.VARCHAR, rs.get(i).getFieldType("NAME"));
+        }
+        assertEquals("two", rs.get(1).getFieldAsString("NAME"));
+        assertEquals(null, rs.get(2).getField("NAME").getValue());
+        assertEquals("Name", rs.get(2).getFieldAttribute("NAME", "LABEL"));
+        assertFalse(rs.get(2).contains("EXTRA"));
+        assertEquals(java.sql.Types.BOOLEAN, rs.get(3).getFieldType("EXTRA"));
+        assertEquals("Other", rs.get(4).getFieldAttribute("NAME", "LABEL"));
+    }
+
+    /**
+     * The rows of a lazily read ResultSet are the same as the ones read right away,
+     * an invalid value only fails when its row is accessed
+     *
+     * @throws Exception
+     */
+    @Test
+    public void lazyFromJsonTest() throws Exception {
+        String response = "[{\"ID\":1,\"NAME\":\"one\",\"meta\":{\"ID\":{\"ColumnType\":\"4\"}}},"
+                + "{\"ID\":2,\"NAME\":\"two\",\"LIST\":[\"a\",\"]}\"]},"
+                + "{\"ID\":3},"
+                + "{\"ID\":\"x\",\"NAME\":\"four\"}]";
+        ResultSet rs = ResultSet.fromJsonLazy(response.getBytes(java.nio.charset.StandardCharsets.UTF_8));
+
+        assertEquals(4, rs.size());
+        assertEquals("two", rs.get(1).getFieldAsString("NAME"));
+        assertEquals(3, rs.get(2).getFieldAsNumber("ID").intValue());
+        assertTrue(rs.getColumnNames().contains("LIST"));
+        assertThrows(NumberFormatException.class, () -> rs.get(3));
+
+        String valid = response.substring(0, response.lastIndexOf(",{")) + "]";
+        assertEquals(ResultSet.fromJson(valid).toJson(),
+                ResultSet.fromJsonLazy(valid.getBytes(java.nio.charset.StandardCharsets.UTF_8)).toJson());
+        assertThrows(JsonParseException.class, () -> ResultSet.fromJsonLazy("[{\"ID\":1},{\"ID\":}]".getBytes()));
+    }
+
+    /**
+     * The columns of a lazily read ResultSet are complete right away, a field
+     * which only later rows have doesn't become a column when the row is accessed
+     *
+     * @throws Exception
+     */
+    @Test
+    public void lazyFromJsonColumnsTest() throws Exception {
+        String response = "[{\"ID\":1,\"NAME\":\"one\"},{\"ID\":2},{\"ID\":3,\"EXTRA\":true},"
+                + "{\"ID\":4,\"EXTRA\":false,\"_attributes\":{\"A\":\"a\"}},{\"ID\":5,\"MORE\":\"x\"}]";
+        ResultSet rs = ResultSet.fromJsonLazy(response.getBytes(java.nio.charset.StandardCharsets.UTF_8));
+
+        ResultSet eager = ResultSet.fromJson(response);
+        assertEquals(eager.getColumnNames(), rs.getColumnNames());
+        assertEquals(java.sql.Types.BOOLEAN, rs.getColumnType(rs.getColumnIndex("EXTRA")));
+        assertEquals(5, rs.size());
+        assertEquals("a", rs.get(3).getAttribute("A"));
+        assertEquals(eager.getColumnNames(), rs.getColumnNames());
+        assertEquals(eager.toJson(), rs.toJson());
+    }
+
+    /**
+     * Replacing, removing and clearing lazy rows doesn't create them
+     *
+     * @throws Exception
+     */
+    @Test
+    public void lazyRowsAreNotCreatedToBeDiscardedTest() throws Exception {
+        AtomicInteger created = new AtomicInteger();
+        ResultSet rs = new ResultSet();
+        rs.addLazy(5, i -> {
+            created.incrementAndGet();
+            DataRow dr = new DataRow();
+            try {
+                dr.setFieldValue("ID", i);
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+            return dr;
+        });
+
+        assertNull(rs.remove(0));
+        rs.set(0, new DataRow());
+        assertEquals(0, created.get());
+        assertEquals(2, rs.get(1).getFieldAsNumber("ID").intValue());
+        assertEquals(2, rs.remove(1).getFieldAsNumber("ID").intValue());
+        assertEquals(1, created.get());
+        rs.clear();
+        assertEquals(0, rs.size());
+        assertEquals(1, created.get());
+    }
+
 }
@@ -6,10 +6,18 @@ package com.basiscomponents.db.util;
 import com.basiscomponents.db.DataField;
 import com.basiscomponents.db.DataRow;
 import com.basiscomponents.db.ResultSet;
+import com.fasterxml.jackson.core.JsonParseException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 /**
@@ -49,4 +57,79 @@ public class ResultSetJsonMapperTest {
 		assertEquals("VALUE",rs2.get(0).getAttribute("ATTRIBUTE"));
 	}
 
+	@Test
+	public void testFromJsonReaderAndStream() throws Exception {
+		ResultSet rs = ResultSetProvider.createMultipleDataRowResultSet();
+		String json = rs.toJson();
+		ResultSet fromString = ResultSet.fromJson(json);
+		ResultSet fromReader = ResultSet.fromJson(new StringReader(json));
+		ResultSet fromStream = ResultSet
+				.fromJson(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)));
+		assertEquals(rs.getDataRows().size(), fromReader.getDataRows().size());
+		assertEquals(fromString.toJson(), fromReader.toJson());
+		assertEquals(fromString.toJson(), fromStream.toJson());
+	}
+
+	@Test
+	public void testFromJsonControlCharacters() throws Exception {
+		ResultSet rs = ResultSet.fromJson("[{\"NAME\":\"A\u0001B\"}]");
+		assertEquals("A\u0001B", rs.get(0).getFieldAsString("NAME"));
+	}
+
+	@Test
+	public void testFromJsonTrailingContent() {
+		assertThrows(JsonParseException.class, () -> ResultSet.fromJson("[{\"NAME\":\"A\"}] {"));
+	}
+
+	@Test
+	public void testToJsonWriterAndStream() throws Exception {
+		rs.get(0).setFieldValue("UMLAUT", "\u00e4\u00f6\u00fc <&>");
+		String json = rs.toJson();
+		StringWriter writer = new StringWriter();
+		rs.toJson(writer, true, null, true, false);
+		assertEquals(json, writer.toString());
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		rs.toJson(out, true, null, true, false);
+		assertEquals(json, new String(out.toByteArray(), StandardCharsets.UTF_8));
+	}
+
+	@Test
+	public void testToJsonEscapedFieldNamesAndMixedRows() throws Exception {
+		ResultSet rs = new ResultSet();
+		DataRow first = new DataRow();
+		first.setFieldValue("A<B", "X");
+		rs.add(first);
+		DataRow second = new DataRow();
+		second.setFieldValue("A<B", "Y");
+		second.setFieldValue("C\u00e4", 1.5);
+		rs.add(second);
+		String json = rs.toJson(false, null, true, false);
+		assertEquals("[{\"A\\u003CB\":\"X\"},{\"A\\u003CB\":\"Y\",\"C\\u00E4\":1.5}]", json);
+	}
+
+	@Test
+	public void testToJsonParallel() throws Exception {
+		ResultSet rs = new ResultSet();
+		for (int i = 0; i < 3500; i++) {
+			DataRow dr = new DataRow();
+			dr.setFieldValue("ID", i);
+			dr.setFieldValue("NAME", "Name \u00e4 " + i);
+			dr.setFieldValue("AMOUNT", i * 1.5);
+			if (i % 700 == 0)
+				dr.setFieldAttribute("NAME", "EDITABLE", "0");
+			rs.add(dr);
+		}
+		String expected = rs.toJson(true, "IDX", true, true);
+		int threshold = ResultSet.getParallelThreshold();
+		try {
+			ResultSet.setParallelThreshold(1);
+			assertEquals(expected, rs.toJson(true, "IDX", true, true));
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			rs.toJson(out, true, "IDX", true, true);
+			assertEquals(expected, new String(out.toByteArray(), StandardCharsets.UTF_8));
+		} finally {
+			ResultSet.setParallelThreshold(threshold);
+		}
+	}
+
 }
@@ -0,0 +1,21 @@
+package com.basiscomponents.json;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.apache.commons.lang3.StringEscapeUtils;
+import org.junit.jupiter.api.Test;
+
+public class ComponentsCharacterEscapesTest {
+
+	@Test
+	public void testEscapeSequences() {
+		ComponentsCharacterEscapes escapes = new ComponentsCharacterEscapes();
+		for (int ch = 128; ch <= Character.MAX_VALUE; ch++) {
+			String expected = ch == 172 ? "\\u20AC" : StringEscapeUtils.escapeEcmaScript(String.valueOf((char) ch));
+			assertEquals(expected, escapes.getEscapeSequence(ch).getValue());
+			// a second call returns the cached sequence
+			assertEquals(expected, escapes.getEscapeSequence(ch).getValue());
+		}
+	}
+
+}